@@ -1,13 +1,33 @@
+import audio.AudioEngine;
+import audio.OpenAlSink;
 import bagel.*;
+import game.FramePacer;
 import game.GameState;
+import game.GlRenderer;
+import game.HighScoreStore;
+import game.InputSampler;
+import game.LevelReloader;
 import game.LevelManager;
+import game.RecordingRenderer;
+import game.SessionRecorder;
+import game.StateSnapshot;
+import game.TelemetryLog;
+import game.TextureLoader;
+import interfaces.Renderer;
+import net.SpectatorServer;
+import profiling.GameMetrics;
+import profiling.MetricsServer;
+import profiling.StateTransitionEvent;
 import screens.GameplayScreen;
 import screens.Level1Screen;
 import screens.Level2Screen;
+import screens.SurvivalScreen;
 import screens.Screen;
 import screens.TitleScreen;
 import screens.GameOverScreen;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 /**
@@ -18,6 +38,7 @@ import java.util.Properties;
  * It sets up the game world, initializes screens, and handles state transitions.
  */
 public class ShadowDonkeyKong extends AbstractGame {
+    private static final String GAME_PROPS_PATH = "res/app.properties";
 
     private final Properties GAME_PROPS;
     private final Properties MESSAGE_PROPS;
@@ -34,6 +55,45 @@ public class ShadowDonkeyKong extends AbstractGame {
     
     // Current active screen
     private Screen activeScreen;
+    
+    // Quick save state (F5 to save, F9 to load)
+    private final StateSnapshot quickSave = new StateSnapshot();
+    private GameState quickSaveLevel = null;
+    
+    // Persistent high-score table
+    private final HighScoreStore highScores;
+    
+    // Records each level played for later replay analysis (null if disabled)
+    private final SessionRecorder sessionRecorder;
+    
+    // Time per frame spent uploading decoded textures
+    private final long textureUploadBudgetNanos;
+    
+    // Streams the level being played to spectators (null if disabled)
+    private final SpectatorServer spectatorServer;
+    
+    // Logs gameplay events and state changes in the background (null if disabled)
+    private final TelemetryLog telemetry;
+    
+    // Frame, tick and GC statistics served to Prometheus (null if disabled)
+    private final GameMetrics metrics;
+    private long lastFrameStart = 0;
+    
+    // Draws the screens; counts each frame's draws too while metrics are served (null otherwise)
+    private final Renderer renderer;
+    private final RecordingRenderer drawCounter;
+    
+    // Re-reads the game properties when they are edited, for tuning levels (null if disabled)
+    private final LevelReloader levelReloader;
+    
+    // Plays sound effects for gameplay events and the music (null if disabled)
+    private final AudioEngine audio;
+    
+    // Folds raw key events into each tick's input and measures input latency (null to poll keys)
+    private final InputSampler inputSampler;
+    
+    // Releases frames on a fixed cadence and reports missed deadlines (null to leave it to vsync)
+    private final FramePacer framePacer;
 
 
     public ShadowDonkeyKong(Properties gameProps, Properties messageProps) {
@@ -44,6 +104,12 @@ public class ShadowDonkeyKong extends AbstractGame {
         this.GAME_PROPS = gameProps;
         this.MESSAGE_PROPS = messageProps;
         
+        // Start decoding every texture in the background; the title screen frames upload them
+        TextureLoader.start(GAME_PROPS.getProperty("textures.dir", "res"),
+                Integer.parseInt(GAME_PROPS.getProperty("textures.loaderThreads", "2")));
+        textureUploadBudgetNanos = (long) (Double.parseDouble(
+                GAME_PROPS.getProperty("textures.uploadBudgetMs", "4")) * 1_000_000);
+        
         // Initialize level manager
         this.levelManager = new LevelManager(GAME_PROPS, MESSAGE_PROPS);
         
@@ -52,6 +118,74 @@ public class ShadowDonkeyKong extends AbstractGame {
         // Initialize with level 1 screen by default
         gameplayScreen = new Level1Screen(GAME_PROPS, MESSAGE_PROPS);
         
+        // Open the high-score table and make sure pending runs are written on exit
+        highScores = new HighScoreStore(Paths.get(GAME_PROPS.getProperty("highScores.dir", "scores")),
+                Integer.parseInt(GAME_PROPS.getProperty("highScores.size", "10")));
+        Runtime.getRuntime().addShutdownHook(new Thread(highScores::close));
+        
+        // Record sessions if a directory is configured, writing the last of them on exit
+        String sessionsDir = GAME_PROPS.getProperty("sessions.dir", "");
+        sessionRecorder = sessionsDir.isEmpty() ? null : new SessionRecorder(Paths.get(sessionsDir));
+        if (sessionRecorder != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(sessionRecorder::close));
+        }
+        
+        // Accept spectators if a port is configured
+        spectatorServer = openSpectatorServer(Integer.parseInt(GAME_PROPS.getProperty("spectator.port", "0")));
+        
+        // Log gameplay events if a directory is configured, writing the last of them on exit
+        String telemetryDir = GAME_PROPS.getProperty("telemetry.dir", "");
+        if (telemetryDir.isEmpty()) {
+            telemetry = null;
+        } else {
+            telemetry = new TelemetryLog(Paths.get(telemetryDir),
+                    Integer.parseInt(GAME_PROPS.getProperty("telemetry.capacity", "4096")),
+                    Long.parseLong(GAME_PROPS.getProperty("telemetry.maxFileBytes", "1048576")),
+                    Integer.parseInt(GAME_PROPS.getProperty("telemetry.maxFiles", "10")));
+            Runtime.getRuntime().addShutdownHook(new Thread(telemetry::close));
+        }
+        
+        // Play sound on a mixer thread if enabled, stopping it on exit
+        if (Boolean.parseBoolean(GAME_PROPS.getProperty("audio.enabled", "false"))) {
+            audio = new AudioEngine(GAME_PROPS, new OpenAlSink(
+                    Integer.parseInt(GAME_PROPS.getProperty("audio.voices", "8")), 2));
+            Runtime.getRuntime().addShutdownHook(new Thread(audio::close));
+        } else {
+            audio = null;
+        }
+        
+        // Read gameplay keys from raw key events if enabled; the window was created by the superclass
+        inputSampler = Boolean.parseBoolean(GAME_PROPS.getProperty("input.rawEvents", "false"))
+                ? openInputSampler() : null;
+        
+        // Pace frames if a frame rate is configured, optionally without vsync
+        double pacedFps = Double.parseDouble(GAME_PROPS.getProperty("frame.pacing.fps", "0"));
+        if (pacedFps > 0) {
+            framePacer = new FramePacer(pacedFps,
+                    Long.parseLong(GAME_PROPS.getProperty("frame.pacing.spinMicros", "1000")) * 1000,
+                    "input".equals(GAME_PROPS.getProperty("frame.pacing.waitBefore", "present")));
+            if (!Boolean.parseBoolean(GAME_PROPS.getProperty("frame.pacing.vsync", "true"))) {
+                Window.removeFrameThrottle();
+            }
+        } else {
+            framePacer = null;
+        }
+        
+        // Serve metrics on localhost if a port is configured
+        metrics = openMetricsServer(Integer.parseInt(GAME_PROPS.getProperty("metrics.port", "0")));
+        if (metrics != null && inputSampler != null) {
+            metrics.watchInput(inputSampler);
+        }
+        if (metrics != null && framePacer != null) {
+            metrics.watchPacer(framePacer);
+        }
+        drawCounter = metrics != null ? new RecordingRenderer(new GlRenderer()) : null;
+        renderer = drawCounter != null ? drawCounter : new GlRenderer();
+        
+        // Watch the game properties for edits if hot reloading is enabled
+        levelReloader = Boolean.parseBoolean(GAME_PROPS.getProperty("levels.hotReload", "false"))
+                ? openLevelReloader() : null;
+        
         // Set initial state to title screen
         currentState = GameState.TITLE;
         activeScreen = titleScreen;
@@ -66,21 +200,202 @@ public class ShadowDonkeyKong extends AbstractGame {
      */
     @Override
     protected void update(Input input) {
+        if (framePacer != null) {
+            framePacer.beginFrame();
+        }
+        
+        if (metrics != null) {
+            long frameStart = System.nanoTime();
+            if (lastFrameStart != 0) {
+                metrics.recordFrame(frameStart - lastFrameStart);
+            }
+            lastFrameStart = frameStart;
+        }
+        
+        // The last frame has been swapped to the screen; fold key events into menus' held keys
+        if (inputSampler != null) {
+            inputSampler.framePresented(System.nanoTime());
+            if (activeScreen != gameplayScreen) {
+                inputSampler.skipTick();
+            }
+        }
+        
         if (input.wasPressed(Keys.ESCAPE)) {
             Window.close();
         }
         
+        long phaseStart = framePacer != null ? System.nanoTime() : 0;
+        TextureLoader.uploadPending(textureUploadBudgetNanos);
+        phaseStart = endFramePhase(FramePacer.PHASE_TEXTURES, phaseStart);
+        handleQuickSave(input);
+        applyReloadedProperties();
+        
         if (activeScreen != null) {
             GameState newState = activeScreen.update(input);
+            if (metrics != null && activeScreen == gameplayScreen) {
+                metrics.recordTick(gameplayScreen);
+            }
+            if (framePacer != null && activeScreen == gameplayScreen) {
+                long now = System.nanoTime();
+                framePacer.recordTick(gameplayScreen, now - phaseStart);
+                phaseStart = now;
+            }
             
             if (newState != null && newState != currentState) {
                 handleStateTransition(newState);
             }
         }
         
+        // Hand the tick just played to the spectator server's thread, which streams it to viewers
+        if (spectatorServer != null && activeScreen == gameplayScreen) {
+            spectatorServer.broadcast(gameplayScreen);
+        }
+        phaseStart = endFramePhase(FramePacer.PHASE_UPDATE, phaseStart);
+        
         // Draw the active screen
         if (activeScreen != null) {
-            activeScreen.draw();
+            renderer.beginFrame();
+            activeScreen.draw(renderer);
+            renderer.endFrame();
+            if (drawCounter != null) {
+                metrics.recordDraws(drawCounter);
+            }
+        }
+        endFramePhase(FramePacer.PHASE_DRAW, phaseStart);
+        
+        if (framePacer != null) {
+            framePacer.endFrame();
+        }
+    }
+    
+    /**
+     * Records how long a phase of the frame took, if frames are paced.
+     *
+     * @param phase The phase (one of the FramePacer PHASE_ constants)
+     * @param phaseStart The time the phase started
+     * @return The time the phase ended, to start the next one
+     */
+    private long endFramePhase(int phase, long phaseStart) {
+        if (framePacer == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        framePacer.recordPhase(phase, now - phaseStart);
+        return now;
+    }
+
+    /**
+     * Starts the spectator server.
+     *
+     * @param port The TCP port, or 0 to disable spectating
+     * @return The server, or null if disabled or the port could not be opened
+     */
+    private SpectatorServer openSpectatorServer(int port) {
+        if (port <= 0) {
+            return null;
+        }
+        try {
+            return new SpectatorServer(port,
+                    Integer.parseInt(GAME_PROPS.getProperty("spectator.maxViewers", "500")),
+                    Integer.parseInt(GAME_PROPS.getProperty("spectator.sendBufferBytes", "0")));
+        } catch (IOException e) {
+            System.err.println("Error starting spectator server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Installs the raw key event sampler on the game window.
+     *
+     * @return The sampler, or null if it could not be installed
+     */
+    private InputSampler openInputSampler() {
+        InputSampler sampler = new InputSampler(Integer.parseInt(GAME_PROPS.getProperty("input.queueCapacity", "256")));
+        if (!sampler.install()) {
+            System.err.println("Error installing key callback: no window; polling keys instead");
+            return null;
+        }
+        return sampler;
+    }
+
+    /**
+     * Starts the metrics endpoint.
+     *
+     * @param port The TCP port on localhost, or 0 to disable metrics
+     * @return The metrics being served, or null if disabled or the port could not be opened
+     */
+    private GameMetrics openMetricsServer(int port) {
+        if (port <= 0) {
+            return null;
+        }
+        GameMetrics gameMetrics = new GameMetrics();
+        try {
+            MetricsServer server = new MetricsServer(gameMetrics, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            return gameMetrics;
+        } catch (IOException e) {
+            System.err.println("Error starting metrics server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Starts watching the game properties file for edits.
+     *
+     * @return The reloader, or null if the file cannot be watched
+     */
+    private LevelReloader openLevelReloader() {
+        try {
+            return new LevelReloader(Paths.get(GAME_PROPS_PATH));
+        } catch (IOException e) {
+            System.err.println("Error watching " + GAME_PROPS_PATH + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Applies edited game properties, if the file has changed since the last frame.
+     * The level being played is updated in place; later levels are built from the new properties.
+     */
+    private void applyReloadedProperties() {
+        Properties reloaded = levelReloader != null ? levelReloader.poll() : null;
+        if (reloaded == null) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        int changes = 0;
+        if (activeScreen == gameplayScreen) {
+            changes = gameplayScreen.reloadLevelData(reloaded);
+            if (changes > 0) {
+                // The quick save was taken with the old layout and may no longer fit it
+                quickSaveLevel = null;
+            }
+        }
+        GAME_PROPS.clear();
+        GAME_PROPS.putAll(reloaded);
+        if (GameplayScreen.DEBUG) {
+            System.out.printf("Reloaded %s: %d level changes applied in %.2f ms%n",
+                    GAME_PROPS_PATH, changes, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Saves or loads the gameplay state when F5 or F9 is pressed during a level.
+     * A saved state can only be loaded back into the same level.
+     *
+     * @param input Current input state
+     */
+    private void handleQuickSave(Input input) {
+        if (activeScreen != gameplayScreen) {
+            return;
+        }
+        
+        if (input.wasPressed(Keys.F5)) {
+            quickSave.capture(gameplayScreen);
+            quickSaveLevel = gameplayScreen.getLevel();
+        } else if (input.wasPressed(Keys.F9) && quickSaveLevel == gameplayScreen.getLevel()) {
+            quickSave.restore(gameplayScreen);
         }
     }
 
@@ -91,6 +406,12 @@ public class ShadowDonkeyKong extends AbstractGame {
      * @param newState The new game state to transition to
      */
     private void handleStateTransition(GameState newState) {
+        // Time the transition, including building the new screen, for Flight Recorder
+        StateTransitionEvent event = new StateTransitionEvent();
+        event.begin();
+        GameState previousState = currentState;
+        int previousFrame = activeScreen == gameplayScreen ? gameplayScreen.getCurrentFrame() : 0;
+        
         // Record the current score, to maintain the score during level transitions
         int currentScore = 0;
         int timeBonus = 0;
@@ -110,6 +431,7 @@ public class ShadowDonkeyKong extends AbstractGame {
             case LEVEL1:
                 levelManager.reset(); // Reset level manager when starting level 1
                 gameplayScreen = new Level1Screen(GAME_PROPS, MESSAGE_PROPS);
+                attachGameplayScreen();
                 activeScreen = gameplayScreen;
                 break;
             case LEVEL2:
@@ -122,6 +444,7 @@ public class ShadowDonkeyKong extends AbstractGame {
                     gameplayScreen.getScoreManager().addScore(currentScore - timeBonus);
                     
                     // Level 2 will calculate its own time bonus independently
+                    attachGameplayScreen();
                     activeScreen = gameplayScreen;
                 } 
                 // If you enter the second level directly from the title screen
@@ -129,19 +452,65 @@ public class ShadowDonkeyKong extends AbstractGame {
                     // Enter level 2 directly from the title screen
                     levelManager.startAtLevel2();
                     gameplayScreen = new Level2Screen(GAME_PROPS, MESSAGE_PROPS);
+                    attachGameplayScreen();
                     activeScreen = gameplayScreen;
                 }
                 break;
+            case SURVIVAL:
+                gameplayScreen = new SurvivalScreen(GAME_PROPS, MESSAGE_PROPS);
+                attachGameplayScreen();
+                activeScreen = gameplayScreen;
+                break;
             case GAME_OVER_WIN:
                 // When you win, keep the final score, including time rewards
                 int finalWinScore = gameplayScreen.getScore();
-                activeScreen = new GameOverScreen(GAME_PROPS, MESSAGE_PROPS, currentState, finalWinScore);
+                highScores.record(finalWinScore, timeBonus, gameplayScreen.getLevel(), System.currentTimeMillis());
+                activeScreen = new GameOverScreen(GAME_PROPS, MESSAGE_PROPS, currentState, finalWinScore, highScores);
                 break;
             case GAME_OVER_LOSE:
-                // Set the score to 0 when failed (according to the specification requirements of project 2)
-                activeScreen = new GameOverScreen(GAME_PROPS, MESSAGE_PROPS, currentState, 0);
+                // Set the score to 0 when failed (according to the specification requirements of project 2).
+                // Survival always ends this way, so it keeps the score earned
+                int finalLoseScore = gameplayScreen.getLevel() == GameState.SURVIVAL ? currentScore : 0;
+                // A lost level run scores nothing, so it has no place in the table
+                if (finalLoseScore > 0) {
+                    highScores.record(finalLoseScore, 0, gameplayScreen.getLevel(), System.currentTimeMillis());
+                }
+                activeScreen = new GameOverScreen(GAME_PROPS, MESSAGE_PROPS, currentState, finalLoseScore, highScores);
                 break;
         }
+        
+        if (telemetry != null) {
+            telemetry.onStateTransition(previousState, newState, previousFrame);
+        }
+        if (metrics != null) {
+            metrics.recordTransition(previousState, newState);
+        }
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = previousState.name();
+            event.to = newState.name();
+            event.screen = activeScreen.getClass().getSimpleName();
+            event.commit();
+        }
+    }
+
+    
+    /**
+     * Starts recording the new gameplay screen's session and events, if recording them is enabled,
+     * plays its sound effects if audio is enabled, and feeds it raw key events if they are read.
+     */
+    private void attachGameplayScreen() {
+        if (sessionRecorder != null) {
+            gameplayScreen.setSessionRecorder(sessionRecorder);
+        }
+        if (telemetry != null) {
+            gameplayScreen.addListener(telemetry);
+        }
+        if (audio != null) {
+            gameplayScreen.addListener(audio);
+        }
+        gameplayScreen.setInputSampler(inputSampler);
     }
 
 
@@ -154,7 +523,7 @@ public class ShadowDonkeyKong extends AbstractGame {
      * @param args Command-line arguments (not used in this game).
      */
     public static void main(String[] args) {
-        Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
+        Properties gameProps = IOUtils.readPropertiesFile(GAME_PROPS_PATH);
         Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
         ShadowDonkeyKong game = new ShadowDonkeyKong(gameProps, messageProps);
         game.run();
@@ -0,0 +1,131 @@
+import bagel.*;
+import game.GameState;
+import game.GlRenderer;
+import game.TextFont;
+import interfaces.Renderer;
+import net.SpectatorClient;
+import screens.GameplayScreen;
+import screens.Level1Screen;
+import screens.Level2Screen;
+import screens.SurvivalScreen;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+
+/**
+ * A window that shows a game being played elsewhere, e.g. on a lobby screen.
+ *
+ * Connects to a game's spectator port (see {@code spectator.port}) and draws each state it
+ * receives with a local copy of the level being played. The viewer never simulates; it only
+ * restores and draws.
+ */
+public class SpectatorViewer extends AbstractGame {
+    private final Properties GAME_PROPS;
+    private final Properties MESSAGE_PROPS;
+    private final String WAITING_MESSAGE;
+
+    private final SpectatorClient client;
+    private final Renderer renderer = new GlRenderer();
+    private final TextFont font;
+    private GameplayScreen screen = null;
+    private String error = null;
+
+    /**
+     * Creates a viewer connected to a game.
+     *
+     * @param gameProps Properties containing game configuration
+     * @param messageProps Properties containing game messages
+     * @param client The connection to the game's spectator port
+     */
+    public SpectatorViewer(Properties gameProps, Properties messageProps, SpectatorClient client) {
+        super(Integer.parseInt(gameProps.getProperty("window.width")),
+                Integer.parseInt(gameProps.getProperty("window.height")),
+                messageProps.getProperty("home.title"));
+
+        // Viewers only draw restored states, so their levels never rewind or record
+        this.GAME_PROPS = new Properties();
+        this.GAME_PROPS.putAll(gameProps);
+        this.GAME_PROPS.setProperty("gamePlay.rewind.seconds", "0");
+        this.GAME_PROPS.setProperty("sessions.dir", "");
+        this.MESSAGE_PROPS = messageProps;
+        this.WAITING_MESSAGE = messageProps.getProperty("spectator.waiting");
+        this.client = client;
+        this.font = new TextFont(gameProps.getProperty("font"),
+                Integer.parseInt(gameProps.getProperty("home.prompt.fontSize")));
+    }
+
+    /**
+     * Reads the latest state from the game and draws it.
+     *
+     * @param input Current input state
+     */
+    @Override
+    protected void update(Input input) {
+        if (input.wasPressed(Keys.ESCAPE)) {
+            Window.close();
+        }
+
+        if (error == null) {
+            try {
+                if (client.poll()) {
+                    GameState level = GameState.values()[client.getLevel()];
+                    if (screen == null || screen.getLevel() != level) {
+                        screen = createScreen(level);
+                    }
+                    client.getState().restore(screen);
+                }
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+        }
+
+        renderer.beginFrame();
+        if (screen != null) {
+            screen.draw(renderer);
+        }
+        if (screen == null || error != null) {
+            String message = error != null ? error : WAITING_MESSAGE;
+            renderer.drawText(font, message, Window.getWidth() / 2.0 - font.getWidth(message) / 2.0,
+                    Window.getHeight() / 2.0);
+        }
+        renderer.endFrame();
+    }
+
+    /**
+     * Creates a screen for the level being watched.
+     *
+     * @param level The level
+     * @return A new gameplay screen for that level
+     */
+    private GameplayScreen createScreen(GameState level) {
+        switch (level) {
+            case LEVEL1:
+                return new Level1Screen(GAME_PROPS, MESSAGE_PROPS);
+            case SURVIVAL:
+                return new SurvivalScreen(GAME_PROPS, MESSAGE_PROPS);
+            default:
+                return new Level2Screen(GAME_PROPS, MESSAGE_PROPS);
+        }
+    }
+
+    /**
+     * Entry point for the spectator viewer.
+     *
+     * @param args Optional host and port of the game to watch
+     */
+    public static void main(String[] args) {
+        Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
+        Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1])
+                : Integer.parseInt(gameProps.getProperty("spectator.port"));
+        try {
+            SpectatorClient client = new SpectatorClient(new InetSocketAddress(host, port), 0);
+            new SpectatorViewer(gameProps, messageProps, client).run();
+        } catch (IOException e) {
+            System.err.println("Error connecting to " + host + ":" + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
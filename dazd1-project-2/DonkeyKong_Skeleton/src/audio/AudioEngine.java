@@ -0,0 +1,233 @@
+package audio;
+
+import game.GameState;
+import interfaces.AudioSink;
+import interfaces.GameplayListener;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays the game's sound effects and music on a mixer thread, so the game thread never waits on
+ * audio.
+ *
+ * The game thread triggers effects with {@link #play}, which publishes the sound to a
+ * {@link CommandQueue}; it never allocates or blocks, and if the mixer has fallen far behind the
+ * sound is dropped. The mixer thread opens the {@link AudioSink} and loads every effect into it,
+ * then starts each effect it is sent and keeps the sink's music queue topped up from a
+ * {@link MusicStream}. Between those it parks: until the next music chunk can be due, or until an
+ * effect is triggered if there is no music, so it does not wake up while nothing is playing. A
+ * trigger only wakes the mixer if it is parked. An effect whose file cannot be loaded is muted,
+ * and if the sink cannot be opened the game runs silently.
+ *
+ * Attach the engine to a gameplay screen as a {@link GameplayListener} to play the effects for
+ * gameplay events.
+ */
+public class AudioEngine implements GameplayListener {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final Sound[] SOUNDS = Sound.values();
+
+    private final Properties gameProps;
+    private final AudioSink sink;
+    private final float effectsVolume;
+    private final float musicVolume;
+    private final int musicChunkMillis;
+    private final CommandQueue commands = new CommandQueue(QUEUE_CAPACITY);
+
+    private final Thread mixer;
+    private volatile boolean running = true;
+    private volatile boolean open = false;
+    private volatile boolean parked = false;
+    private volatile long effectsPlayed = 0;
+
+    /**
+     * Creates an audio engine and starts its mixer thread.
+     *
+     * @param gameProps The game properties naming the sound files and volumes
+     * @param sink The backend to play through; used only by the mixer thread from now on
+     */
+    public AudioEngine(Properties gameProps, AudioSink sink) {
+        this.gameProps = gameProps;
+        this.sink = sink;
+        this.effectsVolume = Float.parseFloat(gameProps.getProperty("audio.effectsVolume", "1"));
+        this.musicVolume = Float.parseFloat(gameProps.getProperty("audio.musicVolume", "0.5"));
+        this.musicChunkMillis = Integer.parseInt(gameProps.getProperty("audio.musicBufferMs", "250"));
+
+        mixer = new Thread(this::mixLoop, "audio-mixer");
+        mixer.setDaemon(true);
+        mixer.start();
+    }
+
+    /**
+     * Triggers a sound effect. Allocation-free and never blocks; the sound is dropped if the mixer
+     * has fallen behind or there is no audio device. Must only be called from one thread.
+     *
+     * @param sound The effect to play
+     * @return true if the effect was queued
+     */
+    public boolean play(Sound sound) {
+        if (!open || !commands.offer(sound.ordinal())) {
+            return false;
+        }
+        // Orders the offer before reading the flag, so either the mixer sees the command before it
+        // parks or this sees it parked
+        VarHandle.fullFence();
+        if (parked) {
+            LockSupport.unpark(mixer);
+        }
+        return true;
+    }
+
+    @Override
+    public void onJump(GameState level, int frame, double x, double y) {
+        play(Sound.JUMP);
+    }
+
+    @Override
+    public void onHammerCollected(GameState level, int frame, double x, double y) {
+        play(Sound.HAMMER);
+    }
+
+    @Override
+    public void onShot(GameState level, int frame, double x, double y) {
+        play(Sound.SHOT);
+    }
+
+    @Override
+    public void onBarrelDestroyed(GameState level, int frame, double x, double y) {
+        play(Sound.DESTROY);
+    }
+
+    @Override
+    public void onMonkeyDestroyed(GameState level, int frame, double x, double y, boolean shot) {
+        play(Sound.DESTROY);
+    }
+
+    @Override
+    public void onBananaThrown(GameState level, int frame, double x, double y) {
+        play(Sound.BANANA);
+    }
+
+    /**
+     * Checks whether the sink has been opened and its effects loaded.
+     *
+     * @return true once effects can be played
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Gets the number of effects the mixer has started.
+     *
+     * @return Played effect count
+     */
+    public long getEffectsPlayed() {
+        return effectsPlayed;
+    }
+
+    /**
+     * Gets the number of effects dropped because the mixer fell behind.
+     *
+     * @return Dropped effect count
+     */
+    public long getDropped() {
+        return commands.getDropped();
+    }
+
+    /**
+     * Stops all sound and the mixer thread, and releases the sink.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(mixer);
+        try {
+            mixer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that opens the sink, then starts queued effects and feeds the music until
+     * closed.
+     */
+    private void mixLoop() {
+        try {
+            sink.open();
+        } catch (IllegalStateException e) {
+            System.err.println("Error opening audio: " + e.getMessage());
+            return;
+        }
+        int[] effects = loadEffects();
+        String musicFile = gameProps.getProperty("audio.music", "");
+        MusicStream music = musicFile.isEmpty() ? null : new MusicStream(Paths.get(musicFile), musicChunkMillis);
+        open = true;
+
+        // A chunk only frees up in the sink once a whole chunk has played, so checking twice per
+        // chunk keeps the queue topped up
+        long musicParkNanos = TimeUnit.MILLISECONDS.toNanos(musicChunkMillis) / 2;
+        while (running) {
+            int command;
+            while ((command = commands.poll()) >= 0) {
+                if (effects[command] >= 0) {
+                    sink.playEffect(effects[command], effectsVolume);
+                    effectsPlayed++;
+                }
+            }
+            long parkNanos = 0;
+            if (music != null) {
+                while (sink.needsMusic() && music.feed(sink, musicVolume)) {
+                    // Queue every decoded chunk the sink has room for
+                }
+                // If the sink still has room the next chunk is still decoding; try again shortly
+                parkNanos = sink.needsMusic() ? RETRY_NANOS : musicParkNanos;
+            }
+
+            parked = true;
+            if (running && commands.isEmpty()) {
+                if (parkNanos > 0) {
+                    LockSupport.parkNanos(this, parkNanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            parked = false;
+        }
+
+        open = false;
+        if (music != null) {
+            music.close();
+        }
+        sink.close();
+    }
+
+    /**
+     * Decodes every effect and loads it into the sink.
+     *
+     * @return Each sound's handle in the sink by ordinal, or -1 if the sound is muted
+     */
+    private int[] loadEffects() {
+        int[] effects = new int[SOUNDS.length];
+        for (Sound sound : SOUNDS) {
+            effects[sound.ordinal()] = -1;
+            String file = gameProps.getProperty(sound.getProperty(), "");
+            if (file.isEmpty()) {
+                continue;
+            }
+            try {
+                PcmData data = WavDecoder.readAll(Paths.get(file));
+                effects[sound.ordinal()] = sink.loadEffect(data.getFormat(), data.getSamples());
+            } catch (IOException e) {
+                System.err.println("Error loading sound " + file + ": " + e.getMessage());
+            }
+        }
+        return effects;
+    }
+}
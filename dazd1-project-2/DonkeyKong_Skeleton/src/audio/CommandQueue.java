@@ -0,0 +1,76 @@
+package audio;
+
+import game.SpscRing;
+
+/**
+ * A preallocated single-producer, single-consumer ring of audio commands, from the game thread to
+ * the mixer thread, built on {@link SpscRing} with one command per slot.
+ *
+ * {@link #offer} never allocates, never blocks and finishes in a fixed number of steps: when the
+ * ring is full the command is dropped and counted, since a sound that cannot start now is better
+ * skipped than played late.
+ */
+public class CommandQueue {
+    private final SpscRing ring;
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity Maximum commands held; rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public CommandQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Audio command queue capacity must be positive: " + capacity);
+        }
+        ring = new SpscRing(capacity, 1);
+    }
+
+    /**
+     * Publishes a command. Must only be called from the producer thread.
+     *
+     * @param command The command, which must not be negative
+     * @return true if the command was published, false if the queue was full and it was dropped
+     */
+    public boolean offer(int command) {
+        int slot = ring.claim();
+        if (slot < 0) {
+            return false;
+        }
+        ring.put(slot, command);
+        ring.publish();
+        return true;
+    }
+
+    /**
+     * Takes the oldest published command. Must only be called from the consumer thread.
+     *
+     * @return The command, or -1 if the queue is empty
+     */
+    public int poll() {
+        if (ring.available() == 0) {
+            return -1;
+        }
+        int command = (int) ring.get(ring.slotAt(0));
+        ring.release(1);
+        return command;
+    }
+
+    /**
+     * Checks whether any published commands are waiting to be taken.
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * Gets the number of commands dropped because the queue was full.
+     *
+     * @return Dropped command count
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+}
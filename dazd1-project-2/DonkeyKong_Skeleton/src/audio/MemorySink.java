@@ -0,0 +1,195 @@
+package audio;
+
+import interfaces.AudioSink;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An audio sink that plays nothing, for running the audio engine without a sound device.
+ *
+ * It keeps the effects loaded, records when each effect was started, and plays queued music in
+ * real time: each chunk lasts as long as its samples would, the sink asks for more once one of its
+ * music buffers has finished, and a gap between the last chunk ending and the next being queued is
+ * counted as an underrun. The counters may be read from any thread.
+ */
+public class MemorySink implements AudioSink {
+    private final int musicBuffers;
+    private final List<PcmData> effects = new ArrayList<>();
+
+    // Start times and effects of the plays recorded, up to the array length
+    private final long[] playNanos;
+    private final int[] playEffects;
+    private volatile int plays = 0;
+
+    // End time of each queued music chunk, oldest first
+    private final long[] musicEnds;
+    private int musicQueued = 0;
+    private long lastMusicEnd = 0;
+    private volatile long musicChunks = 0;
+    private volatile long musicBytes = 0;
+    private volatile long underruns = 0;
+
+    private volatile boolean open = false;
+
+    /**
+     * Creates a sink.
+     *
+     * @param maxPlays Effect plays to record the times of; later plays are only counted
+     * @param musicBuffers Music chunks that can be queued at once
+     */
+    public MemorySink(int maxPlays, int musicBuffers) {
+        if (musicBuffers < 1) {
+            throw new IllegalArgumentException("Music needs at least one buffer: " + musicBuffers);
+        }
+        this.playNanos = new long[maxPlays];
+        this.playEffects = new int[maxPlays];
+        this.musicBuffers = musicBuffers;
+        this.musicEnds = new long[musicBuffers];
+    }
+
+    @Override
+    public void open() {
+        open = true;
+    }
+
+    @Override
+    public int loadEffect(AudioFormat format, byte[] data) {
+        effects.add(new PcmData(format, data.clone()));
+        return effects.size() - 1;
+    }
+
+    @Override
+    public void playEffect(int effect, float gain) {
+        int play = plays;
+        if (play < playNanos.length) {
+            playNanos[play] = System.nanoTime();
+            playEffects[play] = effect;
+        }
+        plays = play + 1;
+    }
+
+    @Override
+    public boolean needsMusic() {
+        long now = System.nanoTime();
+        int finished = 0;
+        while (finished < musicQueued && musicEnds[finished] <= now) {
+            finished++;
+        }
+        if (finished > 0) {
+            System.arraycopy(musicEnds, finished, musicEnds, 0, musicQueued - finished);
+            musicQueued -= finished;
+        }
+        return musicQueued < musicBuffers;
+    }
+
+    @Override
+    public void queueMusic(AudioFormat format, byte[] data, int length, float gain) {
+        long now = System.nanoTime();
+        long duration = (long) (length / format.getFrameSize() / (double) format.getFrameRate() * 1e9);
+        if (musicQueued == musicBuffers) {
+            throw new IllegalStateException("Music queued with no free buffer");
+        }
+        long start = lastMusicEnd;
+        if (start < now) {
+            if (musicChunks > 0) {
+                underruns++;
+            }
+            start = now;
+        }
+        lastMusicEnd = start + duration;
+        musicEnds[musicQueued++] = lastMusicEnd;
+        musicChunks++;
+        musicBytes += length;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    /**
+     * Checks whether the sink has been opened and not yet closed.
+     *
+     * @return true while open
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Gets the number of effects loaded.
+     *
+     * @return Loaded effect count
+     */
+    public int getEffectCount() {
+        return effects.size();
+    }
+
+    /**
+     * Gets a loaded effect.
+     *
+     * @param effect The effect's handle
+     * @return The effect's samples
+     */
+    public PcmData getEffect(int effect) {
+        return effects.get(effect);
+    }
+
+    /**
+     * Gets the number of effects played, including those whose times were not recorded.
+     *
+     * @return Play count
+     */
+    public int getPlayCount() {
+        return plays;
+    }
+
+    /**
+     * Gets when a recorded effect play started.
+     *
+     * @param play The index of the play, in order
+     * @return The {@link System#nanoTime()} of the play
+     */
+    public long getPlayNanos(int play) {
+        return playNanos[play];
+    }
+
+    /**
+     * Gets which effect a recorded play started.
+     *
+     * @param play The index of the play, in order
+     * @return The effect's handle
+     */
+    public int getPlayEffect(int play) {
+        return playEffects[play];
+    }
+
+    /**
+     * Gets the number of music chunks queued.
+     *
+     * @return Queued chunk count
+     */
+    public long getMusicChunks() {
+        return musicChunks;
+    }
+
+    /**
+     * Gets the number of bytes of music queued.
+     *
+     * @return Queued byte count
+     */
+    public long getMusicBytes() {
+        return musicBytes;
+    }
+
+    /**
+     * Gets the number of times the music ran out before the next chunk was queued.
+     *
+     * @return Underrun count
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+}
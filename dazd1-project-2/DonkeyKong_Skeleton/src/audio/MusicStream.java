@@ -0,0 +1,165 @@
+package audio;
+
+import interfaces.AudioSink;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams a music file in a loop, decoding it on its own thread so that neither the game nor the
+ * mixer ever waits on the file.
+ *
+ * Decoding is double-buffered: the decoder thread fills one of two chunks while the mixer hands the
+ * other to the sink. A chunk's length is published with an ordered write once its samples are in
+ * place and cleared by the mixer once the sink has copied them, so the two threads never touch the
+ * same chunk at once. When the file ends it is reopened from the start.
+ */
+public class MusicStream {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final Path file;
+    private final int chunkMillis;
+
+    // Written by the decoder before a chunk is first published
+    private AudioFormat format = null;
+    private final byte[][] chunks = new byte[2][];
+    private final AtomicIntegerArray lengths = new AtomicIntegerArray(2); // 0 while a chunk is free
+
+    private int nextChunk = 0; // Next chunk the mixer hands over; mixer thread only
+    private volatile long chunksDecoded = 0;
+
+    private final Thread decoder;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a music stream and starts its decoder thread.
+     *
+     * @param file The music file to loop
+     * @param chunkMillis Length of each decoded chunk, in milliseconds
+     */
+    public MusicStream(Path file, int chunkMillis) {
+        if (chunkMillis <= 0) {
+            throw new IllegalArgumentException("Music chunks must be longer than 0 ms: " + chunkMillis);
+        }
+        this.file = file;
+        this.chunkMillis = chunkMillis;
+
+        decoder = new Thread(this::decodeLoop, "audio-music");
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    /**
+     * Hands the next decoded chunk to a sink, if one is ready. Must only be called from the mixer
+     * thread; never waits for decoding.
+     *
+     * @param sink The sink to queue the chunk on
+     * @param gain The music volume
+     * @return true if a chunk was queued, false if none was ready
+     */
+    public boolean feed(AudioSink sink, float gain) {
+        int length = lengths.get(nextChunk);
+        if (length == 0) {
+            return false;
+        }
+        sink.queueMusic(format, chunks[nextChunk], length, gain);
+        lengths.set(nextChunk, 0);
+        nextChunk ^= 1;
+        LockSupport.unpark(decoder);
+        return true;
+    }
+
+    /**
+     * Gets the number of chunks decoded so far.
+     *
+     * @return Decoded chunk count
+     */
+    public long getChunksDecoded() {
+        return chunksDecoded;
+    }
+
+    /**
+     * Stops the decoder thread and closes the file.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(decoder);
+        try {
+            decoder.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that fills whichever chunk is free next, reopening the file when it ends.
+     * Stops if the file cannot be read, leaving the music silent.
+     */
+    private void decodeLoop() {
+        AudioInputStream in = null;
+        boolean readSinceOpen = false;
+        int chunk = 0;
+        try {
+            while (running) {
+                if (lengths.get(chunk) != 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                if (in == null) {
+                    in = open();
+                    readSinceOpen = false;
+                }
+                int length = WavDecoder.readFully(in, chunks[chunk]);
+                if (length == 0) {
+                    if (!readSinceOpen) {
+                        throw new IOException("No samples");
+                    }
+                    in.close();
+                    in = null;
+                    continue;
+                }
+                readSinceOpen = true;
+                lengths.set(chunk, length);
+                chunksDecoded++;
+                chunk ^= 1;
+            }
+        } catch (IOException e) {
+            System.err.println("Error streaming music " + file + ": " + e.getMessage());
+        } finally {
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Error closing music " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Opens the music file from the start, sizing the chunks from its format the first time.
+     *
+     * @return The stream of samples
+     * @throws IOException if the file cannot be read, is empty, or its format changed
+     */
+    private AudioInputStream open() throws IOException {
+        AudioInputStream in = WavDecoder.open(file);
+        AudioFormat opened = in.getFormat();
+        if (format == null) {
+            int frameBytes = opened.getFrameSize();
+            int frames = Math.max(1, (int) (opened.getFrameRate() * chunkMillis / 1000));
+            chunks[0] = new byte[frames * frameBytes];
+            chunks[1] = new byte[frames * frameBytes];
+            format = opened;
+        } else if (!opened.matches(format)) {
+            in.close();
+            throw new IOException("Format changed while looping");
+        }
+        return in;
+    }
+}
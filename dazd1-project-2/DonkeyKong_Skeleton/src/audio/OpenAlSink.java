@@ -0,0 +1,193 @@
+package audio;
+
+import interfaces.AudioSink;
+import org.lwjgl.openal.AL;
+import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.ALC;
+import org.lwjgl.openal.ALC10;
+import org.lwjgl.openal.ALCCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Plays sound through the default OpenAL device.
+ *
+ * Each effect is uploaded once into its own buffer, and a fixed pool of sources plays them; when
+ * every source is busy the one started longest ago is cut off. Music is streamed through one more
+ * source with a queue of buffers: buffers the source has finished with are unqueued and refilled,
+ * and the source is restarted if it ran dry. Samples are copied into OpenAL through one direct
+ * staging buffer, so streaming does not allocate.
+ *
+ * The device and context are created by {@link #open()} and belong to the thread that called it.
+ */
+public class OpenAlSink implements AudioSink {
+    private final int voiceCount;
+    private final int musicBufferCount;
+
+    private long device = 0;
+    private long context = 0;
+    private int[] voices;
+    private int nextVoice = 0;
+    private int[] effectBuffers = new int[0];
+
+    private int musicSource = 0;
+    private int[] musicBuffers;
+    private int[] freeMusicBuffers;
+    private int freeMusicCount = 0;
+    private ByteBuffer staging = null;
+
+    /**
+     * Creates a sink. Nothing is opened until {@link #open()}.
+     *
+     * @param voiceCount Effects that can play at once
+     * @param musicBufferCount Music chunks queued at once
+     */
+    public OpenAlSink(int voiceCount, int musicBufferCount) {
+        if (voiceCount < 1 || musicBufferCount < 2) {
+            throw new IllegalArgumentException("OpenAL needs a voice and two music buffers");
+        }
+        this.voiceCount = voiceCount;
+        this.musicBufferCount = musicBufferCount;
+    }
+
+    @Override
+    public void open() {
+        try {
+            device = ALC10.alcOpenDevice((ByteBuffer) null);
+        } catch (LinkageError e) {
+            throw new IllegalStateException("OpenAL is not available: " + e.getMessage());
+        }
+        if (device == 0) {
+            throw new IllegalStateException("No audio device");
+        }
+        ALCCapabilities deviceCapabilities = ALC.createCapabilities(device);
+        context = ALC10.alcCreateContext(device, (IntBuffer) null);
+        if (context == 0 || !ALC10.alcMakeContextCurrent(context)) {
+            close();
+            throw new IllegalStateException("Cannot create an OpenAL context");
+        }
+        AL.createCapabilities(deviceCapabilities);
+
+        voices = new int[voiceCount];
+        AL10.alGenSources(voices);
+        musicSource = AL10.alGenSources();
+        musicBuffers = new int[musicBufferCount];
+        AL10.alGenBuffers(musicBuffers);
+        freeMusicBuffers = musicBuffers.clone();
+        freeMusicCount = musicBufferCount;
+    }
+
+    @Override
+    public int loadEffect(AudioFormat format, byte[] data) {
+        int buffer = AL10.alGenBuffers();
+        ByteBuffer samples = MemoryUtil.memAlloc(data.length);
+        try {
+            samples.put(data).flip();
+            AL10.alBufferData(buffer, toAlFormat(format), samples, (int) format.getSampleRate());
+        } finally {
+            MemoryUtil.memFree(samples);
+        }
+
+        int effect = effectBuffers.length;
+        effectBuffers = Arrays.copyOf(effectBuffers, effect + 1);
+        effectBuffers[effect] = buffer;
+        return effect;
+    }
+
+    @Override
+    public void playEffect(int effect, float gain) {
+        // Prefer a voice that has finished; otherwise cut off the oldest
+        int index = nextVoice;
+        for (int i = 0; i < voiceCount; i++) {
+            int candidate = (nextVoice + i) % voiceCount;
+            if (AL10.alGetSourcei(voices[candidate], AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+                index = candidate;
+                break;
+            }
+        }
+        nextVoice = (index + 1) % voiceCount;
+
+        int voice = voices[index];
+        AL10.alSourceStop(voice);
+        AL10.alSourcei(voice, AL10.AL_BUFFER, effectBuffers[effect]);
+        AL10.alSourcef(voice, AL10.AL_GAIN, gain);
+        AL10.alSourcePlay(voice);
+    }
+
+    @Override
+    public boolean needsMusic() {
+        int processed = AL10.alGetSourcei(musicSource, AL10.AL_BUFFERS_PROCESSED);
+        for (int i = 0; i < processed; i++) {
+            freeMusicBuffers[freeMusicCount++] = AL10.alSourceUnqueueBuffers(musicSource);
+        }
+        return freeMusicCount > 0;
+    }
+
+    @Override
+    public void queueMusic(AudioFormat format, byte[] data, int length, float gain) {
+        if (freeMusicCount == 0) {
+            throw new IllegalStateException("Music queued with no free buffer");
+        }
+        if (staging == null || staging.capacity() < length) {
+            MemoryUtil.memFree(staging);
+            staging = MemoryUtil.memAlloc(length);
+        }
+        staging.clear();
+        staging.put(data, 0, length).flip();
+
+        int buffer = freeMusicBuffers[--freeMusicCount];
+        AL10.alBufferData(buffer, toAlFormat(format), staging, (int) format.getSampleRate());
+        AL10.alSourceQueueBuffers(musicSource, buffer);
+        AL10.alSourcef(musicSource, AL10.AL_GAIN, gain);
+        if (AL10.alGetSourcei(musicSource, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+            AL10.alSourcePlay(musicSource);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (context != 0 && voices != null) {
+            // Detach every buffer so they can be deleted
+            for (int voice : voices) {
+                AL10.alSourceStop(voice);
+                AL10.alSourcei(voice, AL10.AL_BUFFER, 0);
+            }
+            AL10.alSourceStop(musicSource);
+            AL10.alSourcei(musicSource, AL10.AL_BUFFER, 0);
+            AL10.alDeleteSources(voices);
+            AL10.alDeleteSources(musicSource);
+            AL10.alDeleteBuffers(musicBuffers);
+            AL10.alDeleteBuffers(effectBuffers);
+            voices = null;
+        }
+        if (context != 0) {
+            ALC10.alcMakeContextCurrent(0);
+            ALC10.alcDestroyContext(context);
+            context = 0;
+        }
+        if (device != 0) {
+            ALC10.alcCloseDevice(device);
+            device = 0;
+        }
+        MemoryUtil.memFree(staging);
+        staging = null;
+    }
+
+    /**
+     * Gets the OpenAL format for a sample format.
+     *
+     * @param format An 8 or 16-bit, mono or stereo format
+     * @return The OpenAL format constant
+     */
+    private static int toAlFormat(AudioFormat format) {
+        boolean stereo = format.getChannels() == 2;
+        if (format.getSampleSizeInBits() == 8) {
+            return stereo ? AL10.AL_FORMAT_STEREO8 : AL10.AL_FORMAT_MONO8;
+        }
+        return stereo ? AL10.AL_FORMAT_STEREO16 : AL10.AL_FORMAT_MONO16;
+    }
+}
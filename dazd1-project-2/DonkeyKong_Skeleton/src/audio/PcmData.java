@@ -0,0 +1,40 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * A decoded sound held in memory.
+ */
+public final class PcmData {
+    private final AudioFormat format;
+    private final byte[] samples;
+
+    /**
+     * Creates decoded sound data.
+     *
+     * @param format The sample format
+     * @param samples The samples
+     */
+    public PcmData(AudioFormat format, byte[] samples) {
+        this.format = format;
+        this.samples = samples;
+    }
+
+    /**
+     * Gets the sample format.
+     *
+     * @return The format
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the samples.
+     *
+     * @return The samples
+     */
+    public byte[] getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,32 @@
+package audio;
+
+/**
+ * The sound effects the game plays, each loaded from the file named by its property.
+ */
+public enum Sound {
+    JUMP("audio.jump"),
+    HAMMER("audio.hammer"),
+    SHOT("audio.shot"),
+    DESTROY("audio.destroy"),
+    BANANA("audio.banana");
+
+    private final String property;
+
+    /**
+     * Creates a sound.
+     *
+     * @param property The game property holding the sound's file
+     */
+    Sound(String property) {
+        this.property = property;
+    }
+
+    /**
+     * Gets the game property holding the sound's file.
+     *
+     * @return The property key
+     */
+    public String getProperty() {
+        return property;
+    }
+}
@@ -0,0 +1,103 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Decodes sound files into the PCM formats every {@link interfaces.AudioSink} accepts: unsigned
+ * 8-bit or signed 16-bit little-endian samples, mono or stereo. Files already in one of those
+ * formats are read as they are; anything else Java Sound can read is converted to 16-bit.
+ */
+public final class WavDecoder {
+    private WavDecoder() {
+    }
+
+    /**
+     * Opens a sound file for streaming.
+     *
+     * @param file The file to open
+     * @return A stream of samples in a playable format
+     * @throws IOException if the file cannot be read or its format cannot be played
+     */
+    public static AudioInputStream open(Path file) throws IOException {
+        AudioInputStream in;
+        try {
+            in = AudioSystem.getAudioInputStream(file.toFile());
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported sound file " + file, e);
+        }
+
+        AudioFormat format = in.getFormat();
+        if (format.getChannels() < 1 || format.getChannels() > 2) {
+            in.close();
+            throw new IOException("Sound files must be mono or stereo: " + file);
+        }
+        if (isPlayable(format)) {
+            return in;
+        }
+        AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        try {
+            return AudioSystem.getAudioInputStream(target, in);
+        } catch (IllegalArgumentException e) {
+            in.close();
+            throw new IOException("Cannot convert " + file + " from " + format, e);
+        }
+    }
+
+    /**
+     * Reads a whole sound file into memory.
+     *
+     * @param file The file to read
+     * @return The samples and their format
+     * @throws IOException if the file cannot be read or its format cannot be played
+     */
+    public static PcmData readAll(Path file) throws IOException {
+        try (AudioInputStream in = open(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+            return new PcmData(in.getFormat(), out.toByteArray());
+        }
+    }
+
+    /**
+     * Reads as many bytes as are available up to the length of the array.
+     *
+     * @param in The stream to read
+     * @param data Receives the samples
+     * @return The number of bytes read, 0 at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public static int readFully(InputStream in, byte[] data) throws IOException {
+        int total = 0;
+        int read;
+        while (total < data.length && (read = in.read(data, total, data.length - total)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether samples can be handed to a sink without converting them.
+     *
+     * @param format The sample format
+     * @return true for unsigned 8-bit or signed little-endian 16-bit PCM
+     */
+    private static boolean isPlayable(AudioFormat format) {
+        if (format.getSampleSizeInBits() == 8) {
+            return format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED;
+        }
+        return format.getSampleSizeInBits() == 16 && !format.isBigEndian()
+                && format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED;
+    }
+}
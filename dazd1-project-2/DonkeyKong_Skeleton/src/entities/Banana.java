@@ -1,6 +1,6 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 
 /**
@@ -9,7 +9,7 @@ import interfaces.Collidable;
  */
 public class Banana extends Projectile {
     // Banana image
-    private static final Image BANANA_IMAGE = new Image("res/banana.png");
+    private static final Sprite BANANA_IMAGE = new Sprite("res/banana.png");
     
     // Banana physics
     private static final double BANANA_SPEED = 1.8;
@@ -1,17 +1,22 @@
 package entities;
 
-import bagel.Image;
+import game.AnimationClip;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Destroyable;
 import interfaces.Movable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a barrel obstacle in the game.
  * Barrels are affected by gravity and can be destroyed by a hammer.
  */
 public class Barrel extends Entity implements Movable, Destroyable {
     // Barrel image
-    private static final Image BARREL_IMAGE = new Image("res/barrel.png");
+    private static final Sprite BARREL_IMAGE = new Sprite("res/barrel.png");
+    private static final AnimationClip ROLL_RIGHT = new AnimationClip(new Sprite("res/barrel_roll.png"), 4, 1, 4, 6);
+    private static final AnimationClip ROLL_LEFT = ROLL_RIGHT.reversed();
     
     // Physics constants for barrels
     private static final double INITIAL_DOWNWARD_VELOCITY = 0.4; // Initial downward velocity from section 2.3.2
@@ -26,6 +31,10 @@ public class Barrel extends Entity implements Movable, Destroyable {
     private double horizontalVelocity = 0;
     private boolean onGround = false;
     private boolean destroyed = false;
+    
+    // Where the barrel was created or last reset, before falling or rolling
+    private double spawnX;
+    private double spawnY;
 
     /**
      * Creates a new Barrel at the specified position.
@@ -35,11 +44,31 @@ public class Barrel extends Entity implements Movable, Destroyable {
      */
     public Barrel(double x, double y) {
         super(x, y, BARREL_IMAGE);
+        this.spawnX = x;
+        this.spawnY = y;
+    }
+
+    /**
+     * Resets a retired barrel so it can be thrown again, e.g. by a {@link BarrelPool}.
+     *
+     * @param x The x-coordinate of the center
+     * @param y The y-coordinate of the center
+     */
+    public void reset(double x, double y) {
+        setX(x);
+        setY(y);
+        spawnX = x;
+        spawnY = y;
+        verticalVelocity = INITIAL_DOWNWARD_VELOCITY;
+        horizontalVelocity = 0;
+        onGround = false;
+        destroyed = false;
+        updateAnimation();
     }
 
     /**
      * Updates the barrel's state.
-     * Applies gravity if not on ground.
+     * Applies gravity if not on ground, and rolls while moving along a platform.
      */
     @Override
     public void update() {
@@ -48,6 +77,19 @@ public class Barrel extends Entity implements Movable, Destroyable {
         }
         
         move();
+        updateAnimation();
+    }
+    
+    /**
+     * Shows the barrel rolling in its direction of travel while it moves along a platform,
+     * and still otherwise.
+     */
+    private void updateAnimation() {
+        if (onGround && horizontalVelocity != 0) {
+            setAnimation(horizontalVelocity > 0 ? ROLL_RIGHT : ROLL_LEFT);
+        } else {
+            setAnimation(null);
+        }
     }
     
     /**
@@ -91,6 +133,24 @@ public class Barrel extends Entity implements Movable, Destroyable {
         return horizontalVelocity;
     }
     
+    /**
+     * Gets the x-coordinate the barrel was created or last reset at.
+     *
+     * @return The spawn point's x-coordinate
+     */
+    public double getSpawnX() {
+        return spawnX;
+    }
+    
+    /**
+     * Gets the y-coordinate the barrel was created or last reset at.
+     *
+     * @return The spawn point's y-coordinate
+     */
+    public double getSpawnY() {
+        return spawnY;
+    }
+    
     /**
      * Gets the barrel's vertical velocity.
      *
@@ -136,6 +196,16 @@ public class Barrel extends Entity implements Movable, Destroyable {
         destroyed = true;
     }
     
+    /**
+     * Destroyed barrels are not drawn.
+     *
+     * @return true if the barrel has not been destroyed
+     */
+    @Override
+    public boolean isShown() {
+        return !destroyed;
+    }
+    
     /**
      * Checks if the barrel has been destroyed.
      * Implements the Destroyable interface.
@@ -175,4 +245,37 @@ public class Barrel extends Entity implements Movable, Destroyable {
     public boolean isOnGround() {
         return onGround;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the barrel's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(verticalVelocity);
+        buffer.putDouble(horizontalVelocity);
+        buffer.putDouble(spawnX);
+        buffer.putDouble(spawnY);
+        buffer.put((byte) ((onGround ? 1 : 0) | (destroyed ? 2 : 0)));
+    }
+    
+    /**
+     * Restores the barrel's state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        verticalVelocity = buffer.getDouble();
+        horizontalVelocity = buffer.getDouble();
+        spawnX = buffer.getDouble();
+        spawnY = buffer.getDouble();
+        int flags = buffer.get();
+        onGround = (flags & 1) != 0;
+        destroyed = (flags & 2) != 0;
+        updateAnimation();
+    }
+}
@@ -0,0 +1,70 @@
+package entities;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of reusable barrels.
+ * Modes that throw barrels continuously take them from the pool and hand them back once they
+ * leave the screen or are destroyed, so a steady stream of barrels creates no garbage.
+ */
+public class BarrelPool {
+    private final ArrayDeque<Barrel> free;
+    private int created = 0;
+
+    /**
+     * Creates a new pool holding the given number of ready barrels.
+     *
+     * @param initialSize Number of barrels to create up front
+     */
+    public BarrelPool(int initialSize) {
+        free = new ArrayDeque<>(Math.max(initialSize, 16));
+        for (int i = 0; i < initialSize; i++) {
+            free.push(new Barrel(0, 0));
+            created++;
+        }
+    }
+
+    /**
+     * Takes a barrel from the pool, creating a new one if the pool is empty.
+     *
+     * @param x The x-coordinate of the barrel's center
+     * @param y The y-coordinate of the barrel's center
+     * @return A barrel reset to its initial state at the given position
+     */
+    public Barrel obtain(double x, double y) {
+        Barrel barrel = free.poll();
+        if (barrel == null) {
+            barrel = new Barrel(x, y);
+            created++;
+        }
+        barrel.reset(x, y);
+        return barrel;
+    }
+
+    /**
+     * Returns a barrel to the pool. The barrel must no longer be used by the caller.
+     *
+     * @param barrel The barrel to return
+     */
+    public void release(Barrel barrel) {
+        free.push(barrel);
+    }
+
+    /**
+     * Gets the number of barrels waiting in the pool.
+     *
+     * @return Number of free barrels
+     */
+    public int getFreeCount() {
+        return free.size();
+    }
+
+    /**
+     * Gets the total number of barrels this pool has created.
+     *
+     * @return Number of barrels created
+     */
+    public int getCreatedCount() {
+        return created;
+    }
+}
@@ -1,16 +1,18 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Weapon;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a blaster that can be collected by the player.
  * Blasters allow the player to shoot bullets at monkeys and Donkey Kong.
  */
 public class Blaster extends Entity implements Weapon {
     // Blaster image
-    private static final Image BLASTER_IMAGE = new Image("res/blaster.png");
+    private static final Sprite BLASTER_IMAGE = new Sprite("res/blaster.png");
     
     // Blaster properties
     private static final int INITIAL_BULLET_COUNT = 5;
@@ -38,13 +40,13 @@ public class Blaster extends Entity implements Weapon {
     }
     
     /**
-     * Draws the blaster if it hasn't been collected.
+     * The blaster is drawn until it is collected.
+     *
+     * @return true if the blaster has not been collected
      */
     @Override
-    public void draw() {
-        if (!collected) {
-            super.draw();
-        }
+    public boolean isShown() {
+        return !collected;
     }
     
     /**
@@ -107,4 +109,26 @@ public class Blaster extends Entity implements Weapon {
     public int getInitialBulletCount() {
         return INITIAL_BULLET_COUNT;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the blaster's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) (collected ? 1 : 0));
+    }
+    
+    /**
+     * Restores the blaster's state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        collected = buffer.get() != 0;
+    }
+}
@@ -1,16 +1,18 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a bullet fired by the player with a blaster.
  * Bullets can damage Donkey Kong and destroy monkeys.
  */
 public class Bullet extends Projectile {
     // Bullet images
-    private static final Image BULLET_RIGHT_IMAGE = new Image("res/bullet_right.png");
-    private static final Image BULLET_LEFT_IMAGE = new Image("res/bullet_left.png");
+    private static final Sprite BULLET_RIGHT_IMAGE = new Sprite("res/bullet_right.png");
+    private static final Sprite BULLET_LEFT_IMAGE = new Sprite("res/bullet_left.png");
     
     // Bullet physics
     private static final double BULLET_SPEED = 3.8;
@@ -65,4 +67,16 @@ public class Bullet extends Projectile {
     public int getDamage() {
         return 1;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Restores the bullet's state from a snapshot buffer.
+     * Refreshes the image so it matches the restored direction.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        setImage(isFacingRight() ? BULLET_RIGHT_IMAGE : BULLET_LEFT_IMAGE);
+    }
+}
@@ -1,9 +1,11 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Movable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents Donkey Kong in the game.
  * Donkey Kong is stationary and placed at the top of the level.
@@ -12,7 +14,7 @@ import interfaces.Movable;
  */
 public class DonkeyKong extends Entity implements Movable {
     // DonkeyKong image
-    private static final Image DONKEY_KONG_IMAGE = new Image("res/donkey_kong.png");
+    private static final Sprite DONKEY_KONG_IMAGE = new Sprite("res/donkey_kong.png");
     
     // Physics constants
     private static final double GRAVITY = 0.4;
@@ -218,4 +220,32 @@ public class DonkeyKong extends Entity implements Movable {
     public static int getMaxHealth() {
         return MAX_HEALTH;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes Donkey Kong's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(verticalVelocity);
+        buffer.putDouble(horizontalVelocity);
+        buffer.put((byte) (onGround ? 1 : 0));
+        buffer.putInt(health);
+    }
+    
+    /**
+     * Restores Donkey Kong's state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        verticalVelocity = buffer.getDouble();
+        horizontalVelocity = buffer.getDouble();
+        onGround = buffer.get() != 0;
+        health = buffer.getInt();
+    }
+}
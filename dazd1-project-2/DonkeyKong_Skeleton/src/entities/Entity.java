@@ -1,17 +1,25 @@
 package entities;
 
-import bagel.Image;
+import game.AnimationClip;
+import game.AnimationClock;
+import game.Camera;
+import game.Sprite;
 import bagel.util.Rectangle;
 import interfaces.Collidable;
+import interfaces.Renderer;
+import interfaces.Snapshottable;
+
+import java.nio.ByteBuffer;
 
 /**
  * Abstract base class for all game entities.
  * Provides common attributes and methods that all entities share.
  */
-public abstract class Entity implements Collidable {
+public abstract class Entity implements Collidable, Snapshottable {
     private double x;
     private double y;
-    private Image image;
+    private Sprite image;
+    private AnimationClip animation = null; // Drawn instead of the image while set
 
     /**
      * Creates a new entity with the given position and image.
@@ -21,17 +29,35 @@ public abstract class Entity implements Collidable {
      * @param y     The y-coordinate of the entity's center
      * @param image The image representing the entity
      */
-    public Entity(double x, double y, Image image) {
+    public Entity(double x, double y, Sprite image) {
         this.x = x;
         this.y = y;
         this.image = image;
     }
 
     /**
-     * Draws the entity on the screen from its center point.
+     * Draws the entity on the screen from its center point, showing its animation if it has one.
+     *
+     * @param renderer The renderer to draw with
+     * @param camera The camera converting the entity's world position to the screen
+     * @param clock The clock picking the animation frame
+     */
+    public void draw(Renderer renderer, Camera camera, AnimationClock clock) {
+        if (animation != null) {
+            animation.draw(renderer, camera.toScreenX(x), camera.toScreenY(y), clock);
+        } else {
+            renderer.drawImage(image, camera.toScreenX(x), camera.toScreenY(y));
+        }
+    }
+
+    /**
+     * Checks whether the entity is still part of the level's picture, as opposed to destroyed,
+     * collected or spent. Entities that are not shown are left out of the frame's draw list.
+     *
+     * @return true if the entity should be drawn when it is in view
      */
-    public void draw() {
-        image.draw(x, y);
+    public boolean isShown() {
+        return true;
     }
 
     /**
@@ -61,9 +87,29 @@ public abstract class Entity implements Collidable {
      */
     @Override
     public boolean collidesWith(Collidable other) {
+        if (other instanceof Entity) {
+            return intersects((Entity) other);
+        }
         return this.getBoundingBox().intersects(other.getBoundingBox());
     }
     
+    /**
+     * Checks if this entity's bounding box overlaps another entity's.
+     * Gives the same result as comparing {@link #getBoundingBox()} rectangles, but without
+     * creating them, so it can be used freely in per-tick collision checks.
+     *
+     * @param other The other entity
+     * @return true if the bounding boxes overlap
+     */
+    public boolean intersects(Entity other) {
+        double halfWidth = image.getWidth() / 2;
+        double halfHeight = image.getHeight() / 2;
+        double otherHalfWidth = other.image.getWidth() / 2;
+        double otherHalfHeight = other.image.getHeight() / 2;
+        return x - halfWidth < other.x + otherHalfWidth && x + halfWidth > other.x - otherHalfWidth
+                && y - halfHeight < other.y + otherHalfHeight && y + halfHeight > other.y - otherHalfHeight;
+    }
+    
     /**
      * Handles the effects of a collision with another entity.
      * Each subclass should implement this method to define its collision behavior.
@@ -73,6 +119,29 @@ public abstract class Entity implements Collidable {
     @Override
     public abstract void handleCollision(Collidable other);
 
+    /**
+     * Writes the entity's position to a snapshot buffer.
+     * Subclasses with more state should call this first and then write their own fields.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putDouble(x);
+        buffer.putDouble(y);
+    }
+    
+    /**
+     * Restores the entity's position from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+    }
+
     /**
      * Gets the entity's center x-coordinate.
      *
@@ -132,7 +201,7 @@ public abstract class Entity implements Collidable {
      *
      * @return The entity's image
      */
-    public Image getImage() {
+    public Sprite getImage() {
         return image;
     }
     
@@ -141,10 +210,29 @@ public abstract class Entity implements Collidable {
      *
      * @param image The new image for the entity
      */
-    public void setImage(Image image) {
+    public void setImage(Sprite image) {
         this.image = image;
     }
     
+    /**
+     * Gets the animation the entity is playing.
+     *
+     * @return The animation, or null if the entity shows its image
+     */
+    public AnimationClip getAnimation() {
+        return animation;
+    }
+    
+    /**
+     * Sets the animation drawn for the entity. The entity's image still defines its size, so the
+     * animation's frames should be the same size as the image.
+     *
+     * @param animation The animation, or null to show the image
+     */
+    public void setAnimation(AnimationClip animation) {
+        this.animation = animation;
+    }
+    
     /**
      * Gets the entity's top left x-coordinate.
      *
@@ -1,15 +1,17 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Weapon;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents the hammer power-up in the game.
  * When collected by the player, it grants invincibility and the ability to destroy barrels.
  */
 public class Hammer extends Entity implements Weapon {
-    private static final Image HAMMER_IMAGE = new Image("res/hammer.png");
+    private static final Sprite HAMMER_IMAGE = new Sprite("res/hammer.png");
     private boolean collected = false;
     private boolean active = false;
 
@@ -63,6 +65,14 @@ public class Hammer extends Entity implements Weapon {
         active = true;
     }
     
+    /**
+     * Puts the hammer back in place so it can be collected again.
+     */
+    public void respawn() {
+        collected = false;
+        active = false;
+    }
+    
     /**
      * Uses the hammer's ability.
      * For the hammer, this method doesn't need to do anything specific
@@ -95,12 +105,36 @@ public class Hammer extends Entity implements Weapon {
     }
 
     /**
-     * Draws the hammer on the screen if it hasn't been collected.
+     * The hammer is drawn until it is collected.
+     *
+     * @return true if the hammer has not been collected
      */
     @Override
-    public void draw() {
-        if (!collected) {
-            super.draw();
-        }
+    public boolean isShown() {
+        return !collected;
+    }
+    
+    /**
+     * Writes the hammer's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) ((collected ? 1 : 0) | (active ? 2 : 0)));
+    }
+    
+    /**
+     * Restores the hammer's state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        int flags = buffer.get();
+        collected = (flags & 1) != 0;
+        active = (flags & 2) != 0;
     }
-} 
\ No newline at end of file
+}
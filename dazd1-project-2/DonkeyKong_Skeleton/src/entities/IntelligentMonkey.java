@@ -1,6 +1,9 @@
 package entities;
 
-import bagel.Image;
+import game.AnimationClip;
+import game.Sprite;
+
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -8,12 +11,16 @@ import java.util.List;
  * Intelligent monkeys shoot bananas every 5 seconds.
  */
 public class IntelligentMonkey extends Monkey {
-    private static final Image MONKEY_RIGHT_IMAGE = new Image("res/intelli_monkey_right.png");
-    private static final Image MONKEY_LEFT_IMAGE = new Image("res/intelli_monkey_left.png");
+    private static final Sprite MONKEY_RIGHT_IMAGE = new Sprite("res/intelli_monkey_right.png");
+    private static final Sprite MONKEY_LEFT_IMAGE = new Sprite("res/intelli_monkey_left.png");
+    private static final AnimationClip WALK_RIGHT =
+            new AnimationClip(new Sprite("res/intelli_monkey_right_walk.png"), 2, 1, 2, 12);
+    private static final AnimationClip WALK_LEFT =
+            new AnimationClip(new Sprite("res/intelli_monkey_left_walk.png"), 2, 1, 2, 12);
     
     // Shooting behavior
-    private static final long BANANA_INTERVAL = 5000; // 5 seconds in milliseconds
-    private long lastBananaTime = 0;
+    private static final int BANANA_INTERVAL = 300; // 5 seconds at 60 frames per second
+    private int framesSinceLastBanana = 0;
     
     /**
      * Creates a new intelligent monkey at the specified position.
@@ -27,9 +34,7 @@ public class IntelligentMonkey extends Monkey {
         super(x, y, "right".equalsIgnoreCase(initialDirection), 
               patrolPath, 
               "right".equalsIgnoreCase(initialDirection) ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE);
-        
-        // Initialize timer for banana shooting
-        lastBananaTime = System.currentTimeMillis();
+        updateImage();
     }
     
     /**
@@ -43,6 +48,9 @@ public class IntelligentMonkey extends Monkey {
         if (isDestroyed()) {
             return;
         }
+        
+        // Advance the banana timer in frames so the simulation stays deterministic
+        framesSinceLastBanana++;
     }
     
     /**
@@ -51,12 +59,12 @@ public class IntelligentMonkey extends Monkey {
      */
     @Override
     protected void patrol() {
-        List<Integer> patrolDistances = getPatrolDistances();
-        if (patrolDistances.isEmpty() || getCurrentPathIndex() >= patrolDistances.size()) {
+        int patrolDistanceCount = getPatrolDistanceCount();
+        if (patrolDistanceCount == 0 || getCurrentPathIndex() >= patrolDistanceCount) {
             return; // No path to follow or reached end of path
         }
         
-        int currentPatrolDistance = patrolDistances.get(getCurrentPathIndex());
+        int currentPatrolDistance = getPatrolDistance(getCurrentPathIndex());
         
         // Check if reached current patrol distance
         if (getDistanceTraveled() >= currentPatrolDistance) {
@@ -65,16 +73,17 @@ public class IntelligentMonkey extends Monkey {
             changeDirection();
             
             // Move to next patrol distance, loop back if at end
-            setCurrentPathIndex((getCurrentPathIndex() + 1) % patrolDistances.size());
+            setCurrentPathIndex((getCurrentPathIndex() + 1) % patrolDistanceCount);
         }
     }
     
     /**
-     * Updates the monkey's image based on direction.
+     * Updates the monkey's image and walk animation based on direction.
      */
     @Override
     protected void updateImage() {
         setImage(isFacingRight() ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE);
+        setAnimation(isFacingRight() ? WALK_RIGHT : WALK_LEFT);
     }
     
     /**
@@ -83,9 +92,8 @@ public class IntelligentMonkey extends Monkey {
      * @return true if enough time has passed since the last throw
      */
     public boolean canThrowBanana() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastBananaTime >= BANANA_INTERVAL) {
-            lastBananaTime = currentTime;
+        if (framesSinceLastBanana >= BANANA_INTERVAL) {
+            framesSinceLastBanana = 0;
             return true;
         }
         return false;
@@ -102,4 +110,26 @@ public class IntelligentMonkey extends Monkey {
         }
         return null;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the monkey's state, including the banana timer, to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(framesSinceLastBanana);
+    }
+    
+    /**
+     * Restores the monkey's state, including the banana timer, from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        framesSinceLastBanana = buffer.getInt();
+    }
+}
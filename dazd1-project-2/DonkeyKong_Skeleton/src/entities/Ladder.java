@@ -1,15 +1,17 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import interfaces.Collidable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a ladder in the game.
  * Ladders allow the player to climb up and down between platforms.
  */
 public class Ladder extends Entity {
     // Ladder image
-    private static final Image LADDER_IMAGE = new Image("res/ladder.png");
+    private static final Sprite LADDER_IMAGE = new Sprite("res/ladder.png");
     
     // Physics constants
     private static final double GRAVITY = 0.25;
@@ -176,4 +178,28 @@ public class Ladder extends Entity {
         // Ladders don't need to respond to collisions
         // The colliding entities handle the effects
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the ladder's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(verticalVelocity);
+        buffer.put((byte) (onGround ? 1 : 0));
+    }
+    
+    /**
+     * Restores the ladder's state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        verticalVelocity = buffer.getDouble();
+        onGround = buffer.get() != 0;
+    }
+}
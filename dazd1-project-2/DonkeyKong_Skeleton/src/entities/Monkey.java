@@ -1,11 +1,12 @@
 package entities;
 
-import bagel.Image;
+import game.Sprite;
 import bagel.util.Rectangle;
 import interfaces.Collidable;
 import interfaces.Destroyable;
 import interfaces.Movable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,7 +45,7 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
      * @param patrolPath List of patrol distances
      * @param image The monkey image
      */
-    public Monkey(double x, double y, boolean initialDirection, List<Integer> patrolPath, Image image) {
+    public Monkey(double x, double y, boolean initialDirection, List<Integer> patrolPath, Sprite image) {
         super(x, y, image);
         this.facingRight = initialDirection;
         this.patrolDistances = new ArrayList<>(patrolPath);
@@ -129,6 +130,22 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
      */
     protected abstract void patrol();
     
+    /**
+     * Replaces the monkey's patrol, e.g. after the level data was edited.
+     * The monkey starts the new route from its current position.
+     *
+     * @param facingRight Direction the route starts in (true for right, false for left)
+     * @param patrolPath List of patrol distances
+     */
+    public void setPatrol(boolean facingRight, List<Integer> patrolPath) {
+        this.facingRight = facingRight;
+        this.patrolDistances = new ArrayList<>(patrolPath);
+        this.currentPathIndex = 0;
+        this.distanceTraveled = 0;
+        this.horizontalVelocity = facingRight ? MOVE_SPEED : -MOVE_SPEED;
+        updateImage();
+    }
+    
     /**
      * Changes the monkey's direction and updates velocity accordingly.
      */
@@ -184,7 +201,8 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
         double monkeyHalfWidth = monkeyWidth / 2;
         
         // Check if the monkey would still be on any platform
-        for (Platform platform : platforms) {
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform platform = platforms.get(i);
             double platformLeft = platform.getX() - platform.getWidth() / 2;
             double platformRight = platform.getX() + platform.getWidth() / 2;
             double platformTop = platform.getY() - platform.getHeight() / 2;
@@ -228,6 +246,16 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
         destroyed = true;
     }
     
+    /**
+     * Destroyed monkeys are not drawn.
+     *
+     * @return true if the monkey has not been destroyed
+     */
+    @Override
+    public boolean isShown() {
+        return !destroyed;
+    }
+    
     /**
      * Checks if this monkey has been destroyed.
      * Implements the Destroyable interface.
@@ -268,6 +296,25 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
         return new ArrayList<>(patrolDistances);
     }
     
+    /**
+     * Gets the number of distances in the patrol path.
+     *
+     * @return Number of patrol distances
+     */
+    public int getPatrolDistanceCount() {
+        return patrolDistances.size();
+    }
+    
+    /**
+     * Gets one distance of the patrol path without copying the path.
+     *
+     * @param index The index of the distance
+     * @return The patrol distance
+     */
+    public int getPatrolDistance(int index) {
+        return patrolDistances.get(index);
+    }
+    
     /**
      * Gets the current path index.
      *
@@ -319,4 +366,40 @@ public abstract class Monkey extends Entity implements Movable, Destroyable {
             currentPathIndex = (currentPathIndex + 1) % patrolDistances.size();
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the monkey's state to a snapshot buffer.
+     * Patrol distances come from the level configuration, so only the progress along them is written.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(verticalVelocity);
+        buffer.putDouble(horizontalVelocity);
+        buffer.put((byte) ((onGround ? 1 : 0) | (facingRight ? 2 : 0) | (destroyed ? 4 : 0)));
+        buffer.putInt(currentPathIndex);
+        buffer.putDouble(distanceTraveled);
+    }
+    
+    /**
+     * Restores the monkey's state from a snapshot buffer.
+     * Also refreshes the image to match the restored direction.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        verticalVelocity = buffer.getDouble();
+        horizontalVelocity = buffer.getDouble();
+        int flags = buffer.get();
+        onGround = (flags & 1) != 0;
+        facingRight = (flags & 2) != 0;
+        destroyed = (flags & 4) != 0;
+        currentPathIndex = buffer.getInt();
+        distanceTraveled = buffer.getDouble();
+        updateImage();
+    }
+}
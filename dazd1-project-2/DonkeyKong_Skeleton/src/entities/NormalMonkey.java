@@ -1,6 +1,7 @@
 package entities;
 
-import bagel.Image;
+import game.AnimationClip;
+import game.Sprite;
 import java.util.List;
 
 /**
@@ -8,8 +9,12 @@ import java.util.List;
  * Normal monkeys move horizontally and don't attack.
  */
 public class NormalMonkey extends Monkey {
-    private static final Image MONKEY_RIGHT_IMAGE = new Image("res/normal_monkey_right.png");
-    private static final Image MONKEY_LEFT_IMAGE = new Image("res/normal_monkey_left.png");
+    private static final Sprite MONKEY_RIGHT_IMAGE = new Sprite("res/normal_monkey_right.png");
+    private static final Sprite MONKEY_LEFT_IMAGE = new Sprite("res/normal_monkey_left.png");
+    private static final AnimationClip WALK_RIGHT =
+            new AnimationClip(new Sprite("res/normal_monkey_right_walk.png"), 2, 1, 2, 12);
+    private static final AnimationClip WALK_LEFT =
+            new AnimationClip(new Sprite("res/normal_monkey_left_walk.png"), 2, 1, 2, 12);
     
     /**
      * Creates a new normal monkey at the specified position.
@@ -23,6 +28,7 @@ public class NormalMonkey extends Monkey {
         super(x, y, "right".equalsIgnoreCase(initialDirection), 
               patrolPath, 
               "right".equalsIgnoreCase(initialDirection) ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE);
+        updateImage();
     }
     
     /**
@@ -31,12 +37,12 @@ public class NormalMonkey extends Monkey {
      */
     @Override
     protected void patrol() {
-        List<Integer> patrolDistances = getPatrolDistances();
-        if (patrolDistances.isEmpty() || getCurrentPathIndex() >= patrolDistances.size()) {
+        int patrolDistanceCount = getPatrolDistanceCount();
+        if (patrolDistanceCount == 0 || getCurrentPathIndex() >= patrolDistanceCount) {
             return; // No path to follow or reached end of path
         }
         
-        int currentPatrolDistance = patrolDistances.get(getCurrentPathIndex());
+        int currentPatrolDistance = getPatrolDistance(getCurrentPathIndex());
         
         // Check if reached current patrol distance
         if (getDistanceTraveled() >= currentPatrolDistance) {
@@ -45,15 +51,16 @@ public class NormalMonkey extends Monkey {
             changeDirection();
             
             // Move to next patrol distance, loop back if at end
-            setCurrentPathIndex((getCurrentPathIndex() + 1) % patrolDistances.size());
+            setCurrentPathIndex((getCurrentPathIndex() + 1) % patrolDistanceCount);
         }
     }
     
     /**
-     * Updates the monkey's image based on direction.
+     * Updates the monkey's image and walk animation based on direction.
      */
     @Override
     protected void updateImage() {
         setImage(isFacingRight() ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE);
+        setAnimation(isFacingRight() ? WALK_RIGHT : WALK_LEFT);
     }
 } 
\ No newline at end of file
@@ -1,16 +1,17 @@
 package entities;
 
-import bagel.Image;
-import bagel.util.Rectangle;
+import game.Sprite;
 import interfaces.Collidable;
 
+import java.util.List;
+
 /**
  * Represents a platform in the game.
  * Platforms provide surfaces for other entities to stand on.
  */
 public class Platform extends Entity {
     // Platform image
-    private static final Image PLATFORM_IMAGE = new Image("res/platform.png");
+    private static final Sprite PLATFORM_IMAGE = new Sprite("res/platform.png");
     
     // Collision detection tolerance (in pixels)
     private static final double COLLISION_TOLERANCE = 5.0;
@@ -122,10 +123,7 @@ public class Platform extends Entity {
      * @return true if the entity overlaps with this platform
      */
     public boolean overlaps(Entity entity) {
-        Rectangle entityBounds = entity.getBoundingBox();
-        Rectangle platformBounds = this.getBoundingBox();
-        
-        return platformBounds.intersects(entityBounds);
+        return intersects(entity);
     }
     
     /**
@@ -149,4 +147,24 @@ public class Platform extends Entity {
             ((Player) entity).setVerticalVelocity(0);
         }
     }
+    
+    /**
+     * Corrects an entity's starting position by placing it on top of the first platform it
+     * overlaps. Used by the screens when a level starts and by the level compiler, so compiled
+     * and uncompiled levels start the same.
+     *
+     * @param entity The entity to correct
+     * @param platforms The level's platforms
+     * @return true if the entity overlapped a platform and was moved on top of it
+     */
+    public static boolean restOnFirstOverlapping(Entity entity, List<Platform> platforms) {
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform platform = platforms.get(i);
+            if (platform.overlaps(entity)) {
+                platform.placeEntityOnTop(entity);
+                return true;
+            }
+        }
+        return false;
+    }
 } 
\ No newline at end of file
@@ -1,23 +1,25 @@
 package entities;
 
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
+import game.InputState;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Movable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents the player character (Mario) in the game.
  * Handles player movement, jumping, and interaction with other entities.
  */
 public class Player extends Entity implements Movable {
     // Player constants
-    private static final Image RIGHT_IMAGE = new Image("res/mario_right.png");
-    private static final Image LEFT_IMAGE = new Image("res/mario_left.png");
-    private static final Image HAMMER_RIGHT_IMAGE = new Image("res/mario_hammer_right.png");
-    private static final Image HAMMER_LEFT_IMAGE = new Image("res/mario_hammer_left.png");
-    private static final Image BLASTER_RIGHT_IMAGE = new Image("res/mario_blaster_right.png");
-    private static final Image BLASTER_LEFT_IMAGE = new Image("res/mario_blaster_left.png");
+    private static final Sprite RIGHT_IMAGE = new Sprite("res/mario_right.png");
+    private static final Sprite LEFT_IMAGE = new Sprite("res/mario_left.png");
+    private static final Sprite HAMMER_RIGHT_IMAGE = new Sprite("res/mario_hammer_right.png");
+    private static final Sprite HAMMER_LEFT_IMAGE = new Sprite("res/mario_hammer_left.png");
+    private static final Sprite BLASTER_RIGHT_IMAGE = new Sprite("res/mario_blaster_right.png");
+    private static final Sprite BLASTER_LEFT_IMAGE = new Sprite("res/mario_blaster_left.png");
     
     // Movement constants
     private static final double MOVE_SPEED = 3.5;
@@ -37,12 +39,20 @@ public class Player extends Entity implements Movable {
     private boolean hasHammer = false;
     private boolean hasBlaster = false;
     private int bulletCount = 0;
+    private boolean jumped = false; // Whether the last input started a jump; not part of the state
     
     // Reference to current ladder (if any)
     private Ladder currentLadder = null;
     
     // Previous position tracking (for collision resolution)
     private double previousY;
+    
+    // Bit flags used to pack boolean state into snapshots
+    private static final int FLAG_FACING_RIGHT = 1;
+    private static final int FLAG_ON_GROUND = 1 << 1;
+    private static final int FLAG_ON_LADDER = 1 << 2;
+    private static final int FLAG_HAS_HAMMER = 1 << 3;
+    private static final int FLAG_HAS_BLASTER = 1 << 4;
 
     /**
      * Creates a new player at the specified position.
@@ -163,10 +173,12 @@ public class Player extends Entity implements Movable {
      * Processes movement, jumping, and weapon usage.
      *
      * @param input The current input state
-     * @param windowWidth The width of the game window
-     * @param windowHeight The height of the game window
+     * @param worldWidth The width of the world the player moves in
+     * @param worldHeight The height of the world the player moves in
      */
-    public void handleInput(Input input, int windowWidth, int windowHeight) {
+    public void handleInput(InputState input, int worldWidth, int worldHeight) {
+        jumped = false;
+        
         // Only reset horizontal velocity if on ground or ladder (not in mid-air)
         if (onGround || onLadder) {
             horizontalVelocity = 0;
@@ -196,7 +208,7 @@ public class Player extends Entity implements Movable {
             }
             
             if (input.isDown(Keys.RIGHT)) {
-                if (getX() < windowWidth - getImage().getWidth()/2) {
+                if (getX() < worldWidth - getImage().getWidth()/2) {
                     horizontalVelocity = MOVE_SPEED;
                 }
                 
@@ -226,7 +238,7 @@ public class Player extends Entity implements Movable {
         
         // Handle right movement - allow air control  
         if (input.isDown(Keys.RIGHT)) {
-            if (getX() < windowWidth - getImage().getWidth()/2) { // Boundary check with center-based positioning
+            if (getX() < worldWidth - getImage().getWidth()/2) { // Boundary check with center-based positioning
                 horizontalVelocity = MOVE_SPEED;
             }
             
@@ -243,6 +255,7 @@ public class Player extends Entity implements Movable {
             verticalVelocity = JUMP_VELOCITY;
             // Player is no longer on the ground
             onGround = false;
+            jumped = true;
         }
     }
     
@@ -325,6 +338,15 @@ public class Player extends Entity implements Movable {
         return onGround;
     }
     
+    /**
+     * Checks whether the last call to {@link #handleInput} started a jump.
+     *
+     * @return true if the player jumped this tick
+     */
+    public boolean hasJumped() {
+        return jumped;
+    }
+    
     /**
      * Checks if the player is on a ladder.
      *
@@ -398,6 +420,15 @@ public class Player extends Entity implements Movable {
         updatePlayerImage();
     }
     
+    /**
+     * Drops the hammer, e.g. when a timed hammer runs out.
+     * Updates the player's image to show they are no longer carrying it.
+     */
+    public void dropHammer() {
+        hasHammer = false;
+        updatePlayerImage();
+    }
+    
     /**
      * Checks if the player has a blaster.
      *
@@ -437,4 +468,57 @@ public class Player extends Entity implements Movable {
     public int getBulletCount() {
         return bulletCount;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Sets the ladder the player is currently climbing.
+     * Used when restoring a snapshot, where the ladder is stored by index.
+     *
+     * @param ladder The ladder being climbed, or null if not climbing
+     */
+    public void setCurrentLadder(Ladder ladder) {
+        this.currentLadder = ladder;
+    }
+    
+    /**
+     * Writes the player's state to a snapshot buffer.
+     * The current ladder is not written here, as the player does not know the ladder list.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        int flags = (facingRight ? FLAG_FACING_RIGHT : 0)
+                | (onGround ? FLAG_ON_GROUND : 0)
+                | (onLadder ? FLAG_ON_LADDER : 0)
+                | (hasHammer ? FLAG_HAS_HAMMER : 0)
+                | (hasBlaster ? FLAG_HAS_BLASTER : 0);
+        buffer.put((byte) flags);
+        buffer.putDouble(verticalVelocity);
+        buffer.putDouble(horizontalVelocity);
+        buffer.putDouble(previousY);
+        buffer.putInt(bulletCount);
+    }
+    
+    /**
+     * Restores the player's state from a snapshot buffer.
+     * Also refreshes the player image to match the restored direction and weapon.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        int flags = buffer.get();
+        facingRight = (flags & FLAG_FACING_RIGHT) != 0;
+        onGround = (flags & FLAG_ON_GROUND) != 0;
+        onLadder = (flags & FLAG_ON_LADDER) != 0;
+        hasHammer = (flags & FLAG_HAS_HAMMER) != 0;
+        hasBlaster = (flags & FLAG_HAS_BLASTER) != 0;
+        verticalVelocity = buffer.getDouble();
+        horizontalVelocity = buffer.getDouble();
+        previousY = buffer.getDouble();
+        bulletCount = buffer.getInt();
+        updatePlayerImage();
+    }
+}
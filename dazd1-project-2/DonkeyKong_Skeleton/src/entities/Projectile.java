@@ -1,10 +1,11 @@
 package entities;
 
-import bagel.Image;
-import bagel.Window;
+import game.Sprite;
 import interfaces.Collidable;
 import interfaces.Movable;
 
+import java.nio.ByteBuffer;
+
 /**
  * Abstract base class for all projectiles in the game.
  * Defines common behavior for bullets and bananas.
@@ -28,14 +29,14 @@ public abstract class Projectile extends Entity implements Movable {
      * @param facingRight Direction the projectile is facing
      * @param image The projectile image
      */
-    public Projectile(double x, double y, boolean facingRight, Image image) {
+    public Projectile(double x, double y, boolean facingRight, Sprite image) {
         super(x, y, image);
         this.facingRight = facingRight;
     }
     
     /**
      * Updates the projectile's position based on velocity.
-     * Also tracks distance traveled and checks for boundaries.
+     * Also tracks distance traveled, but does not check the world bounds.
      */
     @Override
     public void update() {
@@ -50,9 +51,19 @@ public abstract class Projectile extends Entity implements Movable {
         if (distanceTraveled >= MAX_DISTANCE) {
             deactivate();
         }
+    }
+    
+    /**
+     * Updates the projectile's position and deactivates it once it leaves the world.
+     *
+     * @param worldWidth The width of the world the projectile flies in
+     * @param worldHeight The height of the world the projectile flies in
+     */
+    public void update(double worldWidth, double worldHeight) {
+        update();
         
-        // Check if projectile is out of screen bounds
-        if (isOutOfBounds()) {
+        // Check if projectile is out of the world's bounds
+        if (isOutOfBounds(worldWidth, worldHeight)) {
             deactivate();
         }
     }
@@ -115,12 +126,14 @@ public abstract class Projectile extends Entity implements Movable {
     }
     
     /**
-     * Checks if the projectile is out of screen bounds.
+     * Checks if the projectile has left the world.
      *
+     * @param worldWidth The width of the world
+     * @param worldHeight The height of the world
      * @return true if out of bounds, false otherwise
      */
-    private boolean isOutOfBounds() {
-        return getX() < 0 || getX() > Window.getWidth() || getY() < 0 || getY() > Window.getHeight();
+    private boolean isOutOfBounds(double worldWidth, double worldHeight) {
+        return getX() < 0 || getX() > worldWidth || getY() < 0 || getY() > worldHeight;
     }
     
     /**
@@ -185,12 +198,43 @@ public abstract class Projectile extends Entity implements Movable {
     }
     
     /**
-     * Overrides the draw method to not render inactive projectiles.
+     * Inactive projectiles are not drawn.
+     *
+     * @return true if the projectile is still flying
      */
     @Override
-    public void draw() {
-        if (active) {
-            super.draw();
-        }
+    public boolean isShown() {
+        return active;
+    }
+    
+    /**
+     * Writes the projectile's state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(horizontalVelocity);
+        buffer.putDouble(verticalVelocity);
+        buffer.putDouble(distanceTraveled);
+        buffer.put((byte) ((facingRight ? 1 : 0) | (active ? 2 : 0)));
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Restores the projectile's state from a snapshot buffer.
+     * Subclasses with direction-dependent images should refresh them afterwards.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        horizontalVelocity = buffer.getDouble();
+        verticalVelocity = buffer.getDouble();
+        distanceTraveled = buffer.getDouble();
+        int flags = buffer.get();
+        facingRight = (flags & 1) != 0;
+        active = (flags & 2) != 0;
+    }
+}
@@ -0,0 +1,128 @@
+package game;
+
+import interfaces.Renderer;
+
+/**
+ * A looping animation whose frames are laid out on a sprite sheet.
+ *
+ * Frames are equal cells of the sheet, read left to right and then top to bottom. A clip has no
+ * per-entity timer and no state of its own: the frame shown is worked out from the tick of the
+ * level's {@link AnimationClock}, so entities playing the same clip are always in step, and one
+ * clip can be shared by every level and thread.
+ */
+public class AnimationClip {
+    private final Sprite sheet;
+    private final int columns;
+    private final int rows;
+    private final int frameCount;
+    private final int ticksPerFrame;
+    private final boolean reversed;
+    private final double frameWidth;
+    private final double frameHeight;
+
+    private final DrawStyle[] frameStyles; // One per frame, selecting its cell of the sheet
+
+    /**
+     * Creates a new clip from a sprite sheet.
+     *
+     * @param sheet The sprite sheet
+     * @param columns Number of frame columns on the sheet
+     * @param rows Number of frame rows on the sheet
+     * @param frameCount Number of frames in the clip, at most columns * rows
+     * @param ticksPerFrame Number of simulation ticks each frame is shown for
+     * @throws IllegalArgumentException if the layout or timing is invalid
+     */
+    public AnimationClip(Sprite sheet, int columns, int rows, int frameCount, int ticksPerFrame) {
+        this(sheet, columns, rows, frameCount, ticksPerFrame, false);
+    }
+
+    /**
+     * Creates a new clip from a sprite sheet, optionally playing it backwards.
+     *
+     * @param sheet The sprite sheet
+     * @param columns Number of frame columns on the sheet
+     * @param rows Number of frame rows on the sheet
+     * @param frameCount Number of frames in the clip, at most columns * rows
+     * @param ticksPerFrame Number of simulation ticks each frame is shown for
+     * @param reversed true to play the frames from last to first
+     * @throws IllegalArgumentException if the layout or timing is invalid
+     */
+    private AnimationClip(Sprite sheet, int columns, int rows, int frameCount, int ticksPerFrame,
+                          boolean reversed) {
+        if (columns <= 0 || rows <= 0 || frameCount <= 0 || frameCount > columns * rows || ticksPerFrame <= 0) {
+            throw new IllegalArgumentException("Invalid animation layout for " + sheet.getPath());
+        }
+        this.sheet = sheet;
+        this.columns = columns;
+        this.rows = rows;
+        this.frameCount = frameCount;
+        this.ticksPerFrame = ticksPerFrame;
+        this.reversed = reversed;
+        this.frameWidth = sheet.getWidth() / columns;
+        this.frameHeight = sheet.getHeight() / rows;
+        this.frameStyles = new DrawStyle[frameCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            frameStyles[frame] = DrawStyle.section(
+                    (frame % columns) * frameWidth, (frame / columns) * frameHeight, frameWidth, frameHeight);
+        }
+    }
+
+    /**
+     * Creates a clip that plays this clip's frames backwards, e.g. for rolling the other way.
+     *
+     * @return The reversed clip
+     */
+    public AnimationClip reversed() {
+        return new AnimationClip(sheet, columns, rows, frameCount, ticksPerFrame, !reversed);
+    }
+
+    /**
+     * Draws the frame for a tick centered at the given position.
+     *
+     * @param renderer The renderer to draw with
+     * @param x The x-coordinate of the center, on screen
+     * @param y The y-coordinate of the center, on screen
+     * @param clock The clock of the level being drawn
+     */
+    public void draw(Renderer renderer, double x, double y, AnimationClock clock) {
+        renderer.drawImage(sheet, x, y, frameStyles[getFrame(clock.getTick())]);
+    }
+
+    /**
+     * Gets the frame shown for a simulation tick.
+     *
+     * @param tick The simulation tick
+     * @return The frame index
+     */
+    public int getFrame(int tick) {
+        int frame = (Math.max(tick, 0) / ticksPerFrame) % frameCount;
+        return reversed ? frameCount - 1 - frame : frame;
+    }
+
+    /**
+     * Gets the number of frames in the clip.
+     *
+     * @return Number of frames
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the width of a frame.
+     *
+     * @return Frame width in pixels
+     */
+    public double getFrameWidth() {
+        return frameWidth;
+    }
+
+    /**
+     * Gets the height of a frame.
+     *
+     * @return Frame height in pixels
+     */
+    public double getFrameHeight() {
+        return frameHeight;
+    }
+}
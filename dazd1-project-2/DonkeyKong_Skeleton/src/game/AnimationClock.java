@@ -0,0 +1,53 @@
+package game;
+
+import interfaces.Snapshottable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The timeline that drives the {@link AnimationClip}s of one level.
+ *
+ * Each gameplay screen owns a clock and advances it once per simulation tick, and entities draw
+ * their clips at the clock's tick. The clock is part of the screen's snapshot, so animations pause
+ * with the game and follow it when a snapshot is restored or rewound, and screens run side by side
+ * (e.g. the matches of a server) each keep their own time.
+ */
+public final class AnimationClock implements Snapshottable {
+    private int tick = 0;
+
+    /**
+     * Moves the clock on by one simulation tick.
+     */
+    public void advance() {
+        tick++;
+    }
+
+    /**
+     * Gets the tick the clips are showing.
+     *
+     * @return The simulation tick
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Writes the clock's tick to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(tick);
+    }
+
+    /**
+     * Restores the clock's tick from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        tick = buffer.getInt();
+    }
+}
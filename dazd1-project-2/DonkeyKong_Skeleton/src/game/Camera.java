@@ -0,0 +1,144 @@
+package game;
+
+import entities.Entity;
+
+/**
+ * The view into a level's world.
+ * Entities live in world coordinates, which can extend beyond the window; the camera decides
+ * which part of the world is on screen and converts world positions to screen positions.
+ * When the world is the same size as the window the camera never moves.
+ */
+public class Camera {
+    private final double viewWidth;
+    private final double viewHeight;
+    private final double worldWidth;
+    private final double worldHeight;
+
+    // Top-left corner of the view, in world coordinates
+    private double x = 0;
+    private double y = 0;
+
+    /**
+     * Creates a new camera at the top-left corner of the world.
+     *
+     * @param viewWidth Width of the window in pixels
+     * @param viewHeight Height of the window in pixels
+     * @param worldWidth Width of the world in pixels
+     * @param worldHeight Height of the world in pixels
+     */
+    public Camera(double viewWidth, double viewHeight, double worldWidth, double worldHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.worldWidth = Math.max(worldWidth, viewWidth);
+        this.worldHeight = Math.max(worldHeight, viewHeight);
+    }
+
+    /**
+     * Centers the view on a point, without showing anything outside the world.
+     *
+     * @param targetX The x-coordinate to center on, in world coordinates
+     * @param targetY The y-coordinate to center on, in world coordinates
+     */
+    public void follow(double targetX, double targetY) {
+        x = clamp(targetX - viewWidth / 2, worldWidth - viewWidth);
+        y = clamp(targetY - viewHeight / 2, worldHeight - viewHeight);
+    }
+
+    /**
+     * Converts a world x-coordinate to a screen x-coordinate.
+     *
+     * @param worldX The x-coordinate in the world
+     * @return The x-coordinate on screen
+     */
+    public double toScreenX(double worldX) {
+        return worldX - x;
+    }
+
+    /**
+     * Converts a world y-coordinate to a screen y-coordinate.
+     *
+     * @param worldY The y-coordinate in the world
+     * @return The y-coordinate on screen
+     */
+    public double toScreenY(double worldY) {
+        return worldY - y;
+    }
+
+    /**
+     * Checks whether any part of an entity's bounding box is in view.
+     *
+     * @param entity The entity
+     * @return true if the entity overlaps the view
+     */
+    public boolean isVisible(Entity entity) {
+        double left = entity.getTopLeftX();
+        double top = entity.getTopLeftY();
+        return left < x + viewWidth && left + entity.getWidth() > x
+                && top < y + viewHeight && top + entity.getHeight() > y;
+    }
+
+    /**
+     * Gets the left edge of the view.
+     *
+     * @return The x-coordinate of the view's top-left corner, in world coordinates
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets the top edge of the view.
+     *
+     * @return The y-coordinate of the view's top-left corner, in world coordinates
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Gets the width of the view.
+     *
+     * @return View width in pixels
+     */
+    public double getViewWidth() {
+        return viewWidth;
+    }
+
+    /**
+     * Gets the height of the view.
+     *
+     * @return View height in pixels
+     */
+    public double getViewHeight() {
+        return viewHeight;
+    }
+
+    /**
+     * Gets the width of the world.
+     *
+     * @return World width in pixels
+     */
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    /**
+     * Gets the height of the world.
+     *
+     * @return World height in pixels
+     */
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    /**
+     * Limits a view coordinate to the range [0, max].
+     *
+     * @param value The coordinate
+     * @param max The largest allowed coordinate
+     * @return The clamped coordinate
+     */
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
@@ -0,0 +1,129 @@
+package game;
+
+/**
+ * Encodes the difference between two snapshots of the same object.
+ *
+ * A delta starts with the size of the later snapshot, followed by a sequence of
+ * (unchanged byte count, changed byte count, XOR bytes) runs. All sizes and counts are written as
+ * variable-length integers. Most of a gameplay snapshot is unchanged from one tick to the next, so
+ * deltas are usually a small fraction of the snapshot. The earlier snapshot is compared as if cut
+ * or zero-padded to the size of the later one, so a delta against an empty snapshot carries the
+ * whole state.
+ */
+public final class DeltaCodec {
+    private DeltaCodec() {
+    }
+
+    /**
+     * Gets the largest delta that {@link #encode} can produce for a snapshot size.
+     * The worst case is every other byte changed, costing a skip and a length byte per changed byte.
+     *
+     * @param length Size of the later snapshot in bytes
+     * @return Maximum delta size in bytes
+     */
+    public static int maxEncodedLength(int length) {
+        return 2 * length + 16;
+    }
+
+    /**
+     * Encodes the XOR difference between two snapshots.
+     *
+     * @param before The earlier state, cut or zero-padded to the size of the later state
+     * @param after The later state
+     * @param length Size of the later state in bytes
+     * @param out The array to write the delta to, at least {@link #maxEncodedLength} bytes long
+     * @param offset The position in the output to start writing at
+     * @return Number of bytes written
+     */
+    public static int encode(byte[] before, byte[] after, int length, byte[] out, int offset) {
+        int written = writeVarInt(out, offset, length);
+        int i = 0;
+        while (i < length) {
+            int skipStart = i;
+            while (i < length && before[i] == after[i]) {
+                i++;
+            }
+            if (i == length) {
+                break; // Trailing unchanged bytes need no run
+            }
+            int literalStart = i;
+            while (i < length && before[i] != after[i]) {
+                i++;
+            }
+            written = writeVarInt(out, written, literalStart - skipStart);
+            written = writeVarInt(out, written, i - literalStart);
+            for (int j = literalStart; j < i; j++) {
+                out[written++] = (byte) (before[j] ^ after[j]);
+            }
+        }
+        return written - offset;
+    }
+
+    /**
+     * Applies a delta produced by {@link #encode} to a snapshot in place, resizing it first.
+     *
+     * @param delta The array holding the encoded delta
+     * @param offset The position of the delta's first byte
+     * @param deltaLength Number of bytes in the delta
+     * @param snapshot The snapshot to update, holding the earlier state
+     * @throws IllegalArgumentException if the delta is malformed
+     */
+    public static void apply(byte[] delta, int offset, int deltaLength, StateSnapshot snapshot) {
+        int end = offset + deltaLength;
+        int read = offset;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = delta[read++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        snapshot.resize(length);
+        byte[] state = snapshot.array();
+
+        int position = 0;
+        while (read < end) {
+            int skip = 0;
+            shift = 0;
+            do {
+                b = delta[read++];
+                skip |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            int literal = 0;
+            shift = 0;
+            do {
+                b = delta[read++];
+                literal |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            position += skip;
+            if (position + literal > length || read + literal > end) {
+                throw new IllegalArgumentException("Delta run exceeds the snapshot or the delta");
+            }
+            for (int j = 0; j < literal; j++) {
+                state[position++] ^= delta[read++];
+            }
+        }
+    }
+
+    /**
+     * Writes a non-negative integer using 7 bits per byte.
+     *
+     * @param out The array to write to
+     * @param offset The position to write at
+     * @param value The value to write
+     * @return The position after the written bytes
+     */
+    private static int writeVarInt(byte[] out, int offset, int value) {
+        while (value >= 0x80) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+}
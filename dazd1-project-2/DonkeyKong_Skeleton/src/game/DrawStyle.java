@@ -0,0 +1,84 @@
+package game;
+
+import bagel.DrawOptions;
+import bagel.util.Colour;
+
+/**
+ * How an image is drawn beyond its position: the part of the image shown and a blend colour.
+ *
+ * Styles are plain values that can be created without a window, so they are made up front (e.g.
+ * one per animation frame or particle fade step) and handed to a {@link interfaces.Renderer} with
+ * every draw. The matching bagel {@link DrawOptions} needs the window's graphics context, so the
+ * GL renderer creates it on the style's first draw and reuses it afterwards.
+ */
+public class DrawStyle {
+    private final boolean hasSection;
+    private final double sectionX;
+    private final double sectionY;
+    private final double sectionWidth;
+    private final double sectionHeight;
+    private final Colour blendColour;
+    private DrawOptions options = null;
+
+    /**
+     * Creates a style.
+     *
+     * @param hasSection Whether only a section of the image is drawn
+     * @param sectionX The x-coordinate of the section's left edge on the image
+     * @param sectionY The y-coordinate of the section's top edge on the image
+     * @param sectionWidth The width of the section
+     * @param sectionHeight The height of the section
+     * @param blendColour The colour the image is blended with, or null for none
+     */
+    private DrawStyle(boolean hasSection, double sectionX, double sectionY, double sectionWidth,
+                      double sectionHeight, Colour blendColour) {
+        this.hasSection = hasSection;
+        this.sectionX = sectionX;
+        this.sectionY = sectionY;
+        this.sectionWidth = sectionWidth;
+        this.sectionHeight = sectionHeight;
+        this.blendColour = blendColour;
+    }
+
+    /**
+     * Creates a style that draws one rectangle of an image, such as a frame of a sprite sheet.
+     *
+     * @param x The x-coordinate of the section's left edge on the image
+     * @param y The y-coordinate of the section's top edge on the image
+     * @param width The width of the section
+     * @param height The height of the section
+     * @return The style
+     */
+    public static DrawStyle section(double x, double y, double width, double height) {
+        return new DrawStyle(true, x, y, width, height, null);
+    }
+
+    /**
+     * Creates a style that draws a whole image blended with a colour.
+     *
+     * @param colour The blend colour, including its alpha
+     * @return The style
+     */
+    public static DrawStyle blend(Colour colour) {
+        return new DrawStyle(false, 0, 0, 0, 0, colour);
+    }
+
+    /**
+     * Gets the bagel draw options for this style, creating them on first use.
+     * Must only be called from the render thread once the window exists.
+     *
+     * @return The draw options
+     */
+    DrawOptions getOptions() {
+        if (options == null) {
+            options = new DrawOptions();
+            if (hasSection) {
+                options.setSection(sectionX, sectionY, sectionWidth, sectionHeight);
+            }
+            if (blendColour != null) {
+                options.setBlendColour(blendColour);
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,278 @@
+package game;
+
+import profiling.Histogram;
+import screens.GameplayScreen;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Releases frames on a fixed cadence, waiting for each frame's deadline by parking until shortly
+ * before it and spinning the rest of the way, since parking alone can overshoot by a scheduler
+ * quantum.
+ *
+ * Call {@link #beginFrame()} at the start of each update and {@link #endFrame()} at its end. The
+ * wait happens in one of the two: waiting at the end holds each finished frame until its deadline,
+ * so frames reach the screen evenly, while waiting at the start reads input straight after the wait,
+ * so it is fresher when shown but the frame's own work adds to its delivery jitter.
+ *
+ * Deadlines follow a fixed grid, so a frame that is slightly late is followed by a shorter one;
+ * after a frame more than a whole period late the grid restarts from that frame. For each missed
+ * deadline the phase that took longest that frame is counted and how late it was is recorded; the
+ * pacer never prints, so a late frame is not made later, and the counts are read by another thread
+ * such as the metrics server. Phases are timed by the caller with {@link #recordPhase} and
+ * {@link #recordTick}, and the time between two updates, when the window draws, swaps and polls
+ * events, is timed here.
+ */
+public class FramePacer {
+    // Frame phases blamed for missed deadlines; gameplay tick phases follow PHASE_TICK
+    public static final int PHASE_PRESENT = 0;
+    public static final int PHASE_TEXTURES = 1;
+    public static final int PHASE_UPDATE = 2;
+    public static final int PHASE_DRAW = 3;
+    public static final int PHASE_TICK = 4;
+    public static final int PHASE_COUNT = PHASE_TICK + GameplayScreen.PHASE_COUNT;
+
+    // Pacing error histogram bucket upper bounds, in seconds
+    private static final double[] ERROR_BUCKETS = {
+            1e-6, 5e-6, 1e-5, 2.5e-5, 5e-5, 1e-4, 2.5e-4, 5e-4, 1e-3, 2e-3, 4e-3, 8e-3, 1.67e-2
+    };
+
+    // Lateness histogram bucket upper bounds, in seconds
+    private static final double[] LATE_BUCKETS = {
+            1e-4, 5e-4, 1e-3, 2e-3, 4e-3, 8e-3, 1.67e-2, 3.33e-2, 0.1, 0.25, 1
+    };
+
+    private static final String[] PHASE_NAMES = new String[PHASE_COUNT];
+
+    static {
+        PHASE_NAMES[PHASE_PRESENT] = "present";
+        PHASE_NAMES[PHASE_TEXTURES] = "textures";
+        PHASE_NAMES[PHASE_UPDATE] = "update";
+        PHASE_NAMES[PHASE_DRAW] = "draw";
+        for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+            PHASE_NAMES[PHASE_TICK + phase] = "tick:" + GameplayScreen.getPhaseName(phase);
+        }
+    }
+
+    private final long periodNanos;
+    private final long spinNanos;
+    private final boolean waitBeforeInput;
+
+    private final long[] phaseNanos = new long[PHASE_COUNT];
+    private final AtomicLongArray misses = new AtomicLongArray(PHASE_COUNT);
+    private final Histogram wakeError = new Histogram(ERROR_BUCKETS);
+    private final Histogram intervalError = new Histogram(ERROR_BUCKETS);
+    private final Histogram lateness = new Histogram(LATE_BUCKETS);
+
+    private long deadline = 0;
+    private long lastRelease = 0;
+    private long lastFrameEnd = 0;
+    private volatile long frames = 0;
+    private volatile long missedFrames = 0;
+
+    /**
+     * Creates a pacer.
+     *
+     * @param framesPerSecond The frame rate to pace to
+     * @param spinNanos How long before each deadline to stop parking and spin instead
+     * @param waitBeforeInput true to wait at the start of each update for lower input latency,
+     *                        false to wait at the end for even frame delivery
+     */
+    public FramePacer(double framesPerSecond, long spinNanos, boolean waitBeforeInput) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + framesPerSecond);
+        }
+        this.periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / framesPerSecond);
+        this.spinNanos = Math.max(0, spinNanos);
+        this.waitBeforeInput = waitBeforeInput;
+    }
+
+    /**
+     * Starts timing a frame, waiting for its deadline first if the pacer waits before input.
+     */
+    public void beginFrame() {
+        long now = System.nanoTime();
+        if (lastFrameEnd != 0) {
+            phaseNanos[PHASE_PRESENT] = now - lastFrameEnd;
+        }
+        if (waitBeforeInput) {
+            release(now);
+        }
+    }
+
+    /**
+     * Finishes a frame, waiting for its deadline if the pacer waits before presenting.
+     */
+    public void endFrame() {
+        if (!waitBeforeInput) {
+            release(System.nanoTime());
+        }
+        lastFrameEnd = System.nanoTime();
+    }
+
+    /**
+     * Records how long a phase of the current frame took.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordPhase(int phase, long nanos) {
+        phaseNanos[phase] += nanos;
+    }
+
+    /**
+     * Records the phases of a gameplay tick run this frame, and the rest of the update around it.
+     *
+     * @param screen The screen that was just updated
+     * @param updateNanos How long the whole update took
+     */
+    public void recordTick(GameplayScreen screen, long updateNanos) {
+        if (screen.isRewinding()) {
+            phaseNanos[PHASE_UPDATE] += updateNanos;
+            return;
+        }
+        long ticked = 0;
+        for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+            long nanos = screen.getPhaseNanos(phase);
+            phaseNanos[PHASE_TICK + phase] += nanos;
+            ticked += nanos;
+        }
+        phaseNanos[PHASE_UPDATE] += Math.max(0, updateNanos - ticked);
+    }
+
+    /**
+     * Gets the name of a phase.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @return The phase name
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    /**
+     * Gets the number of frames paced.
+     *
+     * @return Frame count
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the number of frames whose work finished after their deadline.
+     *
+     * @return Missed frame count
+     */
+    public long getMissedFrames() {
+        return missedFrames;
+    }
+
+    /**
+     * Gets the number of missed deadlines blamed on a phase, being the longest phase of the frame.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @return Missed deadline count
+     */
+    public long getMisses(int phase) {
+        return misses.get(phase);
+    }
+
+    /**
+     * Gets how far past their deadlines missed frames finished.
+     *
+     * @return The lateness histogram
+     */
+    public Histogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * Gets how late frames were released after their deadlines, for frames that were on time.
+     *
+     * @return The wake error histogram
+     */
+    public Histogram getWakeError() {
+        return wakeError;
+    }
+
+    /**
+     * Gets how far the time between consecutive frame releases was from the frame period.
+     *
+     * @return The interval error histogram
+     */
+    public Histogram getIntervalError() {
+        return intervalError;
+    }
+
+    /**
+     * Waits for the frame's deadline, or records the miss if it has passed, then moves the deadline
+     * to the next frame.
+     *
+     * @param now The current time
+     */
+    private void release(long now) {
+        if (deadline == 0) {
+            deadline = now;
+        }
+        long late = now - deadline;
+        long released;
+        if (late > 0) {
+            released = now;
+            recordMiss(late);
+            if (late > periodNanos) {
+                deadline = now;
+            }
+        } else {
+            released = waitUntil(deadline);
+            wakeError.record(released - deadline);
+        }
+
+        if (lastRelease != 0) {
+            intervalError.record(Math.abs(released - lastRelease - periodNanos));
+        }
+        lastRelease = released;
+        deadline += periodNanos;
+        frames++;
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            phaseNanos[i] = 0;
+        }
+    }
+
+    /**
+     * Parks until shortly before a deadline, then spins until it.
+     *
+     * @param target The deadline
+     * @return The time the wait ended
+     */
+    private long waitUntil(long target) {
+        long remaining;
+        while ((remaining = target - System.nanoTime()) > spinNanos) {
+            LockSupport.parkNanos(remaining - spinNanos);
+        }
+        long now;
+        while ((now = System.nanoTime()) < target) {
+            Thread.onSpinWait();
+        }
+        return now;
+    }
+
+    /**
+     * Counts a missed deadline against the frame's longest phase and records how late it was.
+     *
+     * @param late How far past the deadline the frame finished
+     */
+    private void recordMiss(long late) {
+        int slowest = 0;
+        for (int phase = 1; phase < PHASE_COUNT; phase++) {
+            if (phaseNanos[phase] > phaseNanos[slowest]) {
+                slowest = phase;
+            }
+        }
+        misses.lazySet(slowest, misses.get(slowest) + 1);
+        lateness.record(late);
+        missedFrames++;
+    }
+}
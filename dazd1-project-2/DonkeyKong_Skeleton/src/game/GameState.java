@@ -31,5 +31,12 @@ public enum GameState {
      * touched Donkey Kong without a hammer, touched a monkey, hit by a banana,
      * or ran out of time).
      */
-    GAME_OVER_LOSE
+    GAME_OVER_LOSE,
+    
+    /**
+     * Survival mode gameplay state. Donkey Kong throws barrels at an ever increasing rate
+     * until the player is hit. Declared last so the ordinals stored in snapshots, session
+     * recordings and the high-score journal keep their meaning.
+     */
+    SURVIVAL
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package game;
+
+import interfaces.Renderer;
+
+/**
+ * Renderer that draws with bagel into the game window.
+ * Must only be used from the render thread once the window exists.
+ */
+public class GlRenderer implements Renderer {
+    @Override
+    public void beginFrame() {
+        // bagel clears and presents the window around the game's update
+    }
+
+    // Sprites whose texture is still being loaded are skipped rather than loaded mid-frame
+    @Override
+    public void drawImage(Sprite sprite, double x, double y) {
+        if (sprite.isReady()) {
+            sprite.getImage().draw(x, y);
+        }
+    }
+
+    @Override
+    public void drawImage(Sprite sprite, double x, double y, DrawStyle style) {
+        if (sprite.isReady()) {
+            sprite.getImage().draw(x, y, style.getOptions());
+        }
+    }
+
+    @Override
+    public void drawText(TextFont font, String text, double x, double y) {
+        font.getFont().drawString(text, x, y);
+    }
+
+    @Override
+    public void endFrame() {
+        // bagel clears and presents the window around the game's update
+    }
+}
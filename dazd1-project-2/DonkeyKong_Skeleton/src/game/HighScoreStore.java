@@ -0,0 +1,443 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent high-score table.
+ *
+ * Every finished run is appended to a binary journal by a background writer thread, which
+ * batches fsync calls so the game thread never waits on disk. An in-memory top-N index answers
+ * queries immediately. When the journal grows large, the writer compacts the index into a
+ * segment file, which is memory-mapped at startup to rebuild the index quickly.
+ *
+ * Crash safety: records carry a CRC so a torn write at the end of the journal is ignored, the
+ * segment is replaced atomically, and each segment records which journal generation it has
+ * absorbed so a journal is never replayed twice.
+ */
+public class HighScoreStore {
+    // File format constants
+    private static final int JOURNAL_MAGIC = 0x444B484A; // "DKHJ"
+    private static final int SEGMENT_MAGIC = 0x444B4853; // "DKHS"
+    private static final int JOURNAL_HEADER_SIZE = 12;   // magic + generation
+    private static final int SEGMENT_HEADER_SIZE = 16;   // magic + absorbed generation + count
+    private static final int RECORD_SIZE = 24;           // score + bonus + timestamp + level + crc
+
+    // Writer tuning constants
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int SYNC_BATCH = 64;            // Records written before forcing an fsync
+    private static final long SYNC_INTERVAL_MS = 250;    // Longest time a record stays unsynced
+    private static final int COMPACT_THRESHOLD = 4096;   // Journal records before compacting
+
+    private final Path journalPath;
+    private final Path segmentPath;
+
+    // Index answered to the game thread, including runs that may not be on disk yet
+    private final TopScores index;
+    // Index of runs already written to the journal, owned by the writer thread
+    private final TopScores persisted;
+
+    private final BlockingQueue<ScoreRecord> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private FileChannel journal;
+    private long journalGeneration;
+    private int journalRecords = 0;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * A single finished run.
+     */
+    private static final class ScoreRecord {
+        final int score;
+        final int timeBonus;
+        final long timestamp;
+        final int level;
+
+        ScoreRecord(int score, int timeBonus, long timestamp, int level) {
+            this.score = score;
+            this.timeBonus = timeBonus;
+            this.timestamp = timestamp;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Fixed-size table of the best runs, ordered by score (highest first) and then by time (oldest first).
+     */
+    private static final class TopScores {
+        final int[] scores;
+        final int[] timeBonuses;
+        final long[] timestamps;
+        final int[] levels;
+        int count = 0;
+
+        TopScores(int size) {
+            scores = new int[size];
+            timeBonuses = new int[size];
+            timestamps = new long[size];
+            levels = new int[size];
+        }
+
+        void insert(int score, int timeBonus, long timestamp, int level) {
+            // Find the insertion point, keeping earlier runs ahead of later runs with the same score
+            int position = count;
+            while (position > 0 && (scores[position - 1] < score
+                    || (scores[position - 1] == score && timestamps[position - 1] > timestamp))) {
+                position--;
+            }
+            if (position >= scores.length) {
+                return; // Not good enough for the table
+            }
+            int moved = Math.min(count, scores.length - 1) - position;
+            System.arraycopy(scores, position, scores, position + 1, moved);
+            System.arraycopy(timeBonuses, position, timeBonuses, position + 1, moved);
+            System.arraycopy(timestamps, position, timestamps, position + 1, moved);
+            System.arraycopy(levels, position, levels, position + 1, moved);
+            scores[position] = score;
+            timeBonuses[position] = timeBonus;
+            timestamps[position] = timestamp;
+            levels[position] = level;
+            count = Math.min(count + 1, scores.length);
+        }
+
+        void copyFrom(TopScores other) {
+            System.arraycopy(other.scores, 0, scores, 0, other.count);
+            System.arraycopy(other.timeBonuses, 0, timeBonuses, 0, other.count);
+            System.arraycopy(other.timestamps, 0, timestamps, 0, other.count);
+            System.arraycopy(other.levels, 0, levels, 0, other.count);
+            count = other.count;
+        }
+    }
+
+    /**
+     * Opens (or creates) a high-score store and starts its background writer.
+     * If the files cannot be read, the store starts empty and reports the error.
+     *
+     * @param directory The directory holding the journal and segment files
+     * @param tableSize Number of runs kept in the high-score table
+     */
+    public HighScoreStore(Path directory, int tableSize) {
+        this.journalPath = directory.resolve("journal.bin");
+        this.segmentPath = directory.resolve("scores.seg");
+        this.index = new TopScores(tableSize);
+        this.persisted = new TopScores(tableSize);
+
+        try {
+            Files.createDirectories(directory);
+            long absorbedGeneration = loadSegment();
+            openJournal(absorbedGeneration);
+        } catch (IOException e) {
+            System.err.println("Error loading high scores: " + e.getMessage());
+        }
+        index.copyFrom(persisted);
+
+        writer = new Thread(this::writeLoop, "high-score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records a finished run. Returns immediately; the run is written in the background.
+     *
+     * @param score The final score
+     * @param timeBonus The time bonus included in the score
+     * @param level The level reached
+     * @param timestamp When the run finished, in milliseconds since the epoch
+     */
+    public void record(int score, int timeBonus, GameState level, long timestamp) {
+        synchronized (index) {
+            index.insert(score, timeBonus, timestamp, level.ordinal());
+        }
+        if (!pending.offer(new ScoreRecord(score, timeBonus, timestamp, level.ordinal()))) {
+            System.err.println("High score queue full, dropping run with score " + score);
+        }
+    }
+
+    /**
+     * Gets the number of runs in the high-score table.
+     *
+     * @return Number of entries
+     */
+    public int getCount() {
+        synchronized (index) {
+            return index.count;
+        }
+    }
+
+    /**
+     * Gets the score at the given rank.
+     *
+     * @param rank The rank, starting at 0 for the best run
+     * @return The score
+     */
+    public int getScore(int rank) {
+        synchronized (index) {
+            return index.scores[rank];
+        }
+    }
+
+    /**
+     * Gets the level reached by the run at the given rank.
+     *
+     * @param rank The rank, starting at 0 for the best run
+     * @return The level reached
+     */
+    public GameState getLevel(int rank) {
+        synchronized (index) {
+            return GameState.values()[index.levels[rank]];
+        }
+    }
+
+    /**
+     * Writes any pending runs, syncs them to disk and stops the writer thread.
+     */
+    public void close() {
+        // Not interrupted, since an interrupt during a write or force closes the journal and the
+        // runs still queued are lost; the writer drains them and stops within one poll timeout
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that appends queued runs to the journal, batching fsync calls
+     * and compacting the journal when it gets large.
+     */
+    private void writeLoop() {
+        int unsynced = 0;
+        long lastSync = System.currentTimeMillis();
+
+        while (running || !pending.isEmpty()) {
+            ScoreRecord record = null;
+            try {
+                record = pending.poll(SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer; keep draining until close() stops the loop
+            }
+
+            try {
+                if (record != null && journal != null) {
+                    appendToJournal(record);
+                    persisted.insert(record.score, record.timeBonus, record.timestamp, record.level);
+                    unsynced++;
+                }
+
+                long now = System.currentTimeMillis();
+                if (unsynced > 0 && (unsynced >= SYNC_BATCH || now - lastSync >= SYNC_INTERVAL_MS || !running)) {
+                    journal.force(false);
+                    unsynced = 0;
+                    lastSync = now;
+                }
+
+                if (journalRecords >= COMPACT_THRESHOLD) {
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing high scores: " + e.getMessage());
+            }
+        }
+
+        try {
+            if (journal != null) {
+                journal.force(false);
+                journal.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing high score journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the compacted segment into the persisted index using a memory-mapped read.
+     *
+     * @return The journal generation already absorbed by the segment, or -1 if there is no segment
+     * @throws IOException if the segment exists but cannot be read
+     */
+    private long loadSegment() throws IOException {
+        if (!Files.exists(segmentPath)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            if (channel.size() < SEGMENT_HEADER_SIZE) {
+                return -1;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != SEGMENT_MAGIC) {
+                System.err.println("Error parsing high score segment: bad header");
+                return -1;
+            }
+            long absorbedGeneration = mapped.getLong();
+            int count = mapped.getInt();
+            for (int i = 0; i < count && mapped.remaining() >= RECORD_SIZE; i++) {
+                readRecord(mapped);
+            }
+            return absorbedGeneration;
+        }
+    }
+
+    /**
+     * Opens the journal, replaying any records the segment has not absorbed yet.
+     * A torn record at the end (from a crash mid-write) is cut off.
+     *
+     * @param absorbedGeneration The journal generation already contained in the segment
+     * @throws IOException if the journal cannot be opened
+     */
+    private void openJournal(long absorbedGeneration) throws IOException {
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        journal.read(header, 0);
+        header.flip();
+
+        if (header.remaining() < JOURNAL_HEADER_SIZE || header.getInt() != JOURNAL_MAGIC) {
+            startJournal(absorbedGeneration + 1);
+            return;
+        }
+        journalGeneration = header.getLong();
+        if (journalGeneration <= absorbedGeneration) {
+            // Crashed after compacting but before starting a new journal: its runs are in the segment
+            startJournal(absorbedGeneration + 1);
+            return;
+        }
+
+        // Replay valid records and drop anything after the first damaged one
+        long validEnd = JOURNAL_HEADER_SIZE;
+        if (journal.size() > JOURNAL_HEADER_SIZE) {
+            MappedByteBuffer mapped = journal.map(FileChannel.MapMode.READ_ONLY,
+                    JOURNAL_HEADER_SIZE, journal.size() - JOURNAL_HEADER_SIZE);
+            while (mapped.remaining() >= RECORD_SIZE && readRecord(mapped)) {
+                validEnd += RECORD_SIZE;
+                journalRecords++;
+            }
+        }
+        journal.truncate(validEnd);
+        journal.position(validEnd);
+    }
+
+    /**
+     * Empties the journal and writes a fresh header for a new generation.
+     *
+     * @param generation The new journal generation
+     * @throws IOException if the journal cannot be written
+     */
+    private void startJournal(long generation) throws IOException {
+        journal.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putLong(generation).flip();
+        journal.write(header, 0);
+        journal.force(false);
+        journal.position(JOURNAL_HEADER_SIZE);
+        journalGeneration = generation;
+        journalRecords = 0;
+    }
+
+    /**
+     * Reads one record and adds it to the persisted index if its checksum is valid.
+     *
+     * @param buffer The buffer positioned at the record
+     * @return true if the record was valid
+     */
+    private boolean readRecord(ByteBuffer buffer) {
+        int start = buffer.position();
+        int score = buffer.getInt();
+        int timeBonus = buffer.getInt();
+        long timestamp = buffer.getLong();
+        int level = buffer.getInt();
+        int storedCrc = buffer.getInt();
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(start).limit(start + RECORD_SIZE - Integer.BYTES);
+        crc.reset();
+        crc.update(body);
+        if ((int) crc.getValue() != storedCrc || level < 0 || level >= GameState.values().length) {
+            return false;
+        }
+        persisted.insert(score, timeBonus, timestamp, level);
+        return true;
+    }
+
+    /**
+     * Appends one record to the journal.
+     *
+     * @param record The run to write
+     * @throws IOException if the journal cannot be written
+     */
+    private void appendToJournal(ScoreRecord record) throws IOException {
+        writeRecord(recordBuffer, record.score, record.timeBonus, record.timestamp, record.level);
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining()) {
+            journal.write(recordBuffer);
+        }
+        journalRecords++;
+    }
+
+    /**
+     * Writes one record, including its checksum, into a buffer.
+     *
+     * @param buffer The buffer to write to (cleared first)
+     * @param score The final score
+     * @param timeBonus The time bonus
+     * @param timestamp When the run finished
+     * @param level The level reached
+     */
+    private void writeRecord(ByteBuffer buffer, int score, int timeBonus, long timestamp, int level) {
+        buffer.clear();
+        buffer.putInt(score).putInt(timeBonus).putLong(timestamp).putInt(level);
+        ByteBuffer body = buffer.duplicate();
+        body.flip();
+        crc.reset();
+        crc.update(body);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes the persisted index to a new segment, atomically replaces the old segment,
+     * and starts a new journal generation.
+     *
+     * @throws IOException if the segment cannot be written
+     */
+    private void compact() throws IOException {
+        journal.force(false);
+
+        Path tempPath = segmentPath.resolveSibling(segmentPath.getFileName() + ".tmp");
+        ByteBuffer segment = ByteBuffer.allocate(SEGMENT_HEADER_SIZE + persisted.count * RECORD_SIZE);
+        segment.putInt(SEGMENT_MAGIC).putLong(journalGeneration).putInt(persisted.count);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (int i = 0; i < persisted.count; i++) {
+            writeRecord(record, persisted.scores[i], persisted.timeBonuses[i],
+                    persisted.timestamps[i], persisted.levels[i]);
+            record.flip();
+            segment.put(record);
+        }
+        segment.flip();
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (segment.hasRemaining()) {
+                channel.write(segment);
+            }
+            channel.force(true);
+        }
+        Files.move(tempPath, segmentPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // The segment now holds this generation, so the journal can start over
+        startJournal(journalGeneration + 1);
+    }
+}
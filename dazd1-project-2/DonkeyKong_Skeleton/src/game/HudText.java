@@ -0,0 +1,51 @@
+package game;
+
+import interfaces.Renderer;
+
+/**
+ * A line of HUD text made of a fixed label and a number, such as "SCORE 300".
+ *
+ * The string is only rebuilt when the number changes, so a HUD drawn every frame does not create
+ * a new string every frame; the score changes a few times a level and the timer once a second.
+ */
+public class HudText {
+    private final String label;
+    private int value = 0;
+    private String text = null;
+
+    /**
+     * Creates a HUD line.
+     *
+     * @param label The text before the number, including any separating space
+     */
+    public HudText(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the text for a value, rebuilding it only if the value changed since the last call.
+     *
+     * @param value The number to show
+     * @return The label followed by the number
+     */
+    public String getText(int value) {
+        if (text == null || value != this.value) {
+            this.value = value;
+            text = label + value;
+        }
+        return text;
+    }
+
+    /**
+     * Draws the text for a value.
+     *
+     * @param renderer The renderer to draw with
+     * @param font The font to draw with
+     * @param value The number to show
+     * @param x The x-coordinate of the text's left edge
+     * @param y The y-coordinate of the text's baseline
+     */
+    public void draw(Renderer renderer, TextFont font, int value, double x, double y) {
+        renderer.drawText(font, getText(value), x, y);
+    }
+}
@@ -0,0 +1,188 @@
+package game;
+
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.glfw.GLFWKeyCallback;
+import profiling.Histogram;
+
+/**
+ * Reads gameplay keys from the window's raw key events instead of polling their state once a frame.
+ *
+ * A GLFW key callback, chained in front of Bagel's own so {@link bagel.Input} keeps working,
+ * timestamps each press and release of a tracked key into a {@link KeyEventQueue}. Each tick then
+ * folds the queued events into its {@link InputState}: a key is down for the tick if it is held
+ * now or was pressed since the last tick, so a tap released within one frame, which polling would
+ * miss, still reaches the simulation for one tick.
+ *
+ * Two latencies are recorded for each press: from the event to the tick that consumed it, and
+ * from the event to that tick's frame being presented. GLFW delivers events while the window polls
+ * them at the start of each frame, so a press is timestamped when it is polled rather than when
+ * the key went down; the swap that showed a tick has returned by the start of the next frame, which
+ * is taken as its present time.
+ */
+public class InputSampler {
+    // Latency histogram bucket upper bounds, in seconds
+    private static final double[] LATENCY_BUCKETS = {
+            0.0001, 0.0005, 0.001, 0.002, 0.004, 0.008, 0.0167, 0.025, 0.0334, 0.05, 0.1, 0.25
+    };
+    private static final int MAX_PENDING_PRESSES = 32;
+
+    private final KeyEventQueue queue;
+    private final Histogram simulationLatency = new Histogram(LATENCY_BUCKETS);
+    private final Histogram presentLatency = new Histogram(LATENCY_BUCKETS);
+
+    // Consumer state, on the game thread
+    private int heldKeys = 0;
+    private final long[] pendingPresses = new long[MAX_PENDING_PRESSES]; // Presses awaiting their frame
+    private int pendingCount = 0;
+    private volatile long taps = 0;
+
+    // Key callbacks, kept referenced while installed
+    private GLFWKeyCallback callback = null;
+    private GLFWKeyCallback bagelCallback = null;
+
+    /**
+     * Creates a sampler. Events only arrive once it is installed on a window, or are offered
+     * directly with {@link #keyEvent}.
+     *
+     * @param capacity Key events queued between ticks before new ones are dropped
+     */
+    public InputSampler(int capacity) {
+        this.queue = new KeyEventQueue(capacity);
+    }
+
+    /**
+     * Installs the key callback on the window whose context is current on this thread, in front of
+     * the callback already there.
+     *
+     * @return true if installed, false if there is no window
+     */
+    public boolean install() {
+        long window;
+        try {
+            window = GLFW.glfwGetCurrentContext();
+        } catch (LinkageError e) {
+            return false;
+        }
+        if (window == 0) {
+            return false;
+        }
+        callback = GLFWKeyCallback.create((handle, key, scancode, action, mods) -> {
+            keyEvent(key, action, System.nanoTime());
+            if (bagelCallback != null) {
+                bagelCallback.invoke(handle, key, scancode, action, mods);
+            }
+        });
+        bagelCallback = GLFW.glfwSetKeyCallback(window, callback);
+        return true;
+    }
+
+    /**
+     * Queues a raw key event. Key repeats and untracked keys are ignored. Must only be called from
+     * one thread; allocation-free and never blocks.
+     *
+     * @param key The GLFW key code
+     * @param action {@link GLFW#GLFW_PRESS}, {@link GLFW#GLFW_RELEASE} or {@link GLFW#GLFW_REPEAT}
+     * @param nanos When the event arrived
+     */
+    public void keyEvent(int key, int action, long nanos) {
+        int bit = InputState.bitForGlfwKey(key);
+        if (bit == 0 || action == GLFW.GLFW_REPEAT) {
+            return;
+        }
+        queue.offer(action == GLFW.GLFW_PRESS ? bit | KeyEventQueue.PRESSED : bit, nanos);
+    }
+
+    /**
+     * Folds the events queued since the last tick into the input for the next tick.
+     *
+     * @param state Receives the keys down this tick
+     */
+    public void sampleTick(InputState state) {
+        long now = System.nanoTime();
+        int pressed = 0;
+        int event;
+        while ((event = queue.poll()) != 0) {
+            int bit = event & ~KeyEventQueue.PRESSED;
+            if ((event & KeyEventQueue.PRESSED) == 0) {
+                heldKeys &= ~bit;
+                continue;
+            }
+            if ((heldKeys & bit) == 0 && (pressed & bit) == 0) {
+                long pressNanos = queue.getPolledNanos();
+                simulationLatency.record(now - pressNanos);
+                if (pendingCount < pendingPresses.length) {
+                    pendingPresses[pendingCount++] = pressNanos;
+                }
+            }
+            pressed |= bit;
+            heldKeys |= bit;
+        }
+
+        int tapped = pressed & ~heldKeys;
+        if (tapped != 0) {
+            taps += Integer.bitCount(tapped);
+        }
+        state.set(heldKeys | pressed);
+    }
+
+    /**
+     * Folds the queued events into the held keys without running a tick, e.g. while a menu is shown,
+     * so they do not pile up for the next tick. No latency is recorded for them.
+     */
+    public void skipTick() {
+        int event;
+        while ((event = queue.poll()) != 0) {
+            int bit = event & ~KeyEventQueue.PRESSED;
+            heldKeys = (event & KeyEventQueue.PRESSED) != 0 ? heldKeys | bit : heldKeys & ~bit;
+        }
+    }
+
+    /**
+     * Records that the frame showing the last tick has been presented.
+     *
+     * @param nanos When the frame was presented
+     */
+    public void framePresented(long nanos) {
+        for (int i = 0; i < pendingCount; i++) {
+            presentLatency.record(nanos - pendingPresses[i]);
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Gets the latency from a key press to the tick that consumed it.
+     *
+     * @return The latency histogram
+     */
+    public Histogram getSimulationLatency() {
+        return simulationLatency;
+    }
+
+    /**
+     * Gets the latency from a key press to the frame showing its tick.
+     *
+     * @return The latency histogram
+     */
+    public Histogram getPresentLatency() {
+        return presentLatency;
+    }
+
+    /**
+     * Gets the number of presses released before the tick that consumed them, which polling the
+     * key state would have missed.
+     *
+     * @return Tap count
+     */
+    public long getTaps() {
+        return taps;
+    }
+
+    /**
+     * Gets the number of key events dropped because too many arrived between ticks.
+     *
+     * @return Dropped event count
+     */
+    public long getDropped() {
+        return queue.getDropped();
+    }
+}
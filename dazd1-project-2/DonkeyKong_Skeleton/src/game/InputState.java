@@ -0,0 +1,142 @@
+package game;
+
+import bagel.Input;
+import bagel.Keys;
+import org.lwjgl.glfw.GLFW;
+
+/**
+ * The state of the gameplay keys for one tick, stored as a bitmask.
+ * Gameplay reads input through this class instead of {@link Input} so that a tick's input
+ * fits in a single int, which lets sessions be recorded and replayed without a window.
+ * A key was pressed this tick if it is down now but was not down on the previous tick.
+ */
+public class InputState {
+    // Key bits
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int SPACE = 1 << 4;
+    public static final int SHOOT = 1 << 5;
+    public static final int REWIND = 1 << 6;
+    public static final int FORWARD = 1 << 7;
+
+    // Keys sampled each tick, in bit order
+    private static final Keys[] TRACKED_KEYS = {
+        Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN, Keys.SPACE, Keys.S, Keys.R, Keys.F
+    };
+
+    // GLFW key codes of the same keys, for reading raw key events
+    private static final int[] TRACKED_GLFW_KEYS = {
+        GLFW.GLFW_KEY_LEFT, GLFW.GLFW_KEY_RIGHT, GLFW.GLFW_KEY_UP, GLFW.GLFW_KEY_DOWN,
+        GLFW.GLFW_KEY_SPACE, GLFW.GLFW_KEY_S, GLFW.GLFW_KEY_R, GLFW.GLFW_KEY_F
+    };
+
+    private int keys = 0;
+    private int previousKeys = 0;
+
+    /**
+     * Samples the tracked keys from the window input as the next tick.
+     *
+     * @param input The current window input
+     */
+    public void sample(Input input) {
+        int sampled = 0;
+        for (int i = 0; i < TRACKED_KEYS.length; i++) {
+            if (input.isDown(TRACKED_KEYS[i])) {
+                sampled |= 1 << i;
+            }
+        }
+        set(sampled);
+    }
+
+    /**
+     * Sets the keys held down for the next tick, e.g. from a recorded session.
+     *
+     * @param keys Bitmask of the keys held down
+     */
+    public void set(int keys) {
+        this.previousKeys = this.keys;
+        this.keys = keys;
+    }
+
+    /**
+     * Resets the state, e.g. before replaying a session that started with keys already held.
+     *
+     * @param keys Bitmask of the keys held down this tick
+     * @param previousKeys Bitmask of the keys held down on the previous tick
+     */
+    public void reset(int keys, int previousKeys) {
+        this.keys = keys;
+        this.previousKeys = previousKeys;
+    }
+
+    /**
+     * Checks if a key is held down this tick.
+     *
+     * @param key The key to check
+     * @return true if the key is down
+     */
+    public boolean isDown(Keys key) {
+        return (keys & bit(key)) != 0;
+    }
+
+    /**
+     * Checks if a key was pressed this tick (down now, but not on the previous tick).
+     *
+     * @param key The key to check
+     * @return true if the key was just pressed
+     */
+    public boolean wasPressed(Keys key) {
+        int bit = bit(key);
+        return (keys & bit) != 0 && (previousKeys & bit) == 0;
+    }
+
+    /**
+     * Gets the keys held down this tick.
+     *
+     * @return Bitmask of the keys held down
+     */
+    public int getKeys() {
+        return keys;
+    }
+
+    /**
+     * Gets the keys held down on the previous tick.
+     *
+     * @return Bitmask of the keys held down
+     */
+    public int getPreviousKeys() {
+        return previousKeys;
+    }
+
+    /**
+     * Gets the bit used for a key from its GLFW key code.
+     *
+     * @param key The GLFW key code
+     * @return The key's bit, or 0 if the key is not tracked
+     */
+    public static int bitForGlfwKey(int key) {
+        for (int i = 0; i < TRACKED_GLFW_KEYS.length; i++) {
+            if (TRACKED_GLFW_KEYS[i] == key) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the bit used for a key.
+     *
+     * @param key The key
+     * @return The key's bit, or 0 if the key is not tracked
+     */
+    private static int bit(Keys key) {
+        for (int i = 0; i < TRACKED_KEYS.length; i++) {
+            if (TRACKED_KEYS[i] == key) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+}
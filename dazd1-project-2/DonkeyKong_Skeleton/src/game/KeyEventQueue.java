@@ -0,0 +1,87 @@
+package game;
+
+/**
+ * A preallocated single-producer, single-consumer ring of timestamped key events, from the window's
+ * key callback to the tick that folds them into an {@link InputState}.
+ *
+ * Built on {@link SpscRing}: {@link #offer} never allocates or blocks, and drops and counts the
+ * event if the ring is full. Each event is a key bit from {@link InputState} with {@link #PRESSED}
+ * set for a press, and the {@link System#nanoTime()} it arrived at.
+ */
+public class KeyEventQueue {
+    /** Flag set on an event's key bit when the key was pressed rather than released. */
+    public static final int PRESSED = 1 << 31;
+
+    // Each slot holds the event and its time
+    private static final int SLOT_LONGS = 2;
+
+    private final SpscRing ring;
+
+    // Written by the consumer only
+    private long polledNanos = 0;
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity Maximum events held; rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public KeyEventQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Key event queue capacity must be positive: " + capacity);
+        }
+        ring = new SpscRing(capacity, SLOT_LONGS);
+    }
+
+    /**
+     * Publishes an event. Must only be called from the producer thread.
+     *
+     * @param event The key bit, with {@link #PRESSED} set for a press
+     * @param nanos When the event arrived
+     * @return true if the event was published, false if the queue was full and it was dropped
+     */
+    public boolean offer(int event, long nanos) {
+        int slot = ring.claim();
+        if (slot < 0) {
+            return false;
+        }
+        ring.put(slot, event);
+        ring.put(slot + 1, nanos);
+        ring.publish();
+        return true;
+    }
+
+    /**
+     * Takes the oldest published event. Must only be called from the consumer thread.
+     *
+     * @return The event, or 0 if the queue is empty
+     */
+    public int poll() {
+        if (ring.available() == 0) {
+            return 0;
+        }
+        int slot = ring.slotAt(0);
+        int event = (int) ring.get(slot);
+        polledNanos = ring.get(slot + 1);
+        ring.release(1);
+        return event;
+    }
+
+    /**
+     * Gets when the event last returned by {@link #poll} arrived. Consumer thread only.
+     *
+     * @return The event's {@link System#nanoTime()}
+     */
+    public long getPolledNanos() {
+        return polledNanos;
+    }
+
+    /**
+     * Gets the number of events dropped because the queue was full.
+     *
+     * @return Dropped event count
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+}
@@ -0,0 +1,389 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * A level's starting layout, compiled ahead of time by {@code tools.LevelCompiler}.
+ *
+ * The compiler parses and checks the level data in app.properties at build time and stores every
+ * entity at the position the level would move it to when it starts, so a screen built from
+ * compiled data neither parses coordinates nor corrects positions. The compiled file records a
+ * fingerprint of the level data it was made from; if app.properties has been edited since, the
+ * compiled level is ignored and the screen parses the properties as before.
+ *
+ * File layout:
+ * <pre>
+ * int magic          "DKLV"
+ * short version
+ * int levels
+ * per level:  byte level (GameState ordinal), long fingerprint,
+ *             per kind: int count, then per entity: double x, double y, byte flags,
+ *                       int patrol length, int[] patrol distances
+ * </pre>
+ */
+public class LevelData {
+    private static final int MAGIC = 0x444B4C56; // "DKLV"
+    private static final short VERSION = 1;
+
+    // Kinds of entity in a level
+    public static final int PLAYER = 0;
+    public static final int DONKEY_KONG = 1;
+    public static final int HAMMER = 2;
+    public static final int PLATFORM = 3;
+    public static final int LADDER = 4;
+    public static final int BARREL = 5;
+    public static final int NORMAL_MONKEY = 6;
+    public static final int INTELLIGENT_MONKEY = 7;
+    public static final int BLASTER = 8;
+    public static final int KIND_COUNT = 9;
+
+    // Spawn flags
+    private static final int FLAG_GROUNDED = 1;
+    private static final int FLAG_FACING_RIGHT = 2;
+
+    // Key prefixes of a level's data, each followed by the level's name (e.g. "barrel.level1.3")
+    private static final String[] LEVEL_KEY_PREFIXES = {
+        "mario.", "donkey.", "hammer.", "platforms.", "barrel.", "ladder.", "normalMonkey.",
+        "intelligentMonkey.", "blaster."
+    };
+
+    /**
+     * The starting state of one entity.
+     */
+    public static class Spawn {
+        private final double x;
+        private final double y;
+        private final boolean grounded;
+        private final boolean facingRight;
+        private final int[] patrol;
+
+        /**
+         * Creates a spawn for an entity without a patrol.
+         *
+         * @param x The x-coordinate of the entity's centre
+         * @param y The y-coordinate of the entity's centre
+         * @param grounded Whether the entity starts resting on a platform
+         */
+        public Spawn(double x, double y, boolean grounded) {
+            this(x, y, grounded, false, new int[0]);
+        }
+
+        /**
+         * Creates a spawn for a patrolling entity.
+         *
+         * @param x The x-coordinate of the entity's centre
+         * @param y The y-coordinate of the entity's centre
+         * @param grounded Whether the entity starts resting on a platform
+         * @param facingRight Whether the patrol starts to the right
+         * @param patrol The patrol distances
+         */
+        public Spawn(double x, double y, boolean grounded, boolean facingRight, int[] patrol) {
+            this.x = x;
+            this.y = y;
+            this.grounded = grounded;
+            this.facingRight = facingRight;
+            this.patrol = patrol.clone();
+        }
+
+        /**
+         * Gets the x-coordinate of the entity's centre.
+         *
+         * @return The x-coordinate
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Gets the y-coordinate of the entity's centre.
+         *
+         * @return The y-coordinate
+         */
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * Checks whether the entity starts resting on a platform.
+         *
+         * @return true if the entity is on the ground
+         */
+        public boolean isGrounded() {
+            return grounded;
+        }
+
+        /**
+         * Gets the patrol's starting direction in the form the level data uses.
+         *
+         * @return "right" or "left"
+         */
+        public String getDirection() {
+            return facingRight ? "right" : "left";
+        }
+
+        /**
+         * Gets the patrol distances.
+         *
+         * @return A new list of the distances
+         */
+        public List<Integer> getPatrol() {
+            List<Integer> distances = new ArrayList<>(patrol.length);
+            for (int distance : patrol) {
+                distances.add(distance);
+            }
+            return distances;
+        }
+    }
+
+    private final GameState level;
+    private final long fingerprint;
+    private final List<List<Spawn>> spawns = new ArrayList<>(KIND_COUNT);
+
+    /**
+     * Creates an empty compiled level.
+     *
+     * @param level The level
+     * @param fingerprint Fingerprint of the level data it is compiled from, see {@link #fingerprint}
+     */
+    public LevelData(GameState level, long fingerprint) {
+        this.level = level;
+        this.fingerprint = fingerprint;
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            spawns.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Gets the level this data is for.
+     *
+     * @return The level
+     */
+    public GameState getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the fingerprint of the level data this was compiled from.
+     *
+     * @return The fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Adds an entity.
+     *
+     * @param kind The kind of entity
+     * @param spawn Its starting state
+     */
+    public void add(int kind, Spawn spawn) {
+        spawns.get(kind).add(spawn);
+    }
+
+    /**
+     * Gets the entities of one kind, in the order of the level data.
+     *
+     * @param kind The kind of entity
+     * @return The spawns (read-only)
+     */
+    public List<Spawn> getSpawns(int kind) {
+        return Collections.unmodifiableList(spawns.get(kind));
+    }
+
+    /**
+     * Gets the only entity of a kind, such as the player.
+     *
+     * @param kind The kind of entity
+     * @return The first spawn of that kind, or null if there is none
+     */
+    public Spawn getFirst(int kind) {
+        List<Spawn> list = spawns.get(kind);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Gets the name a level's data is stored under in app.properties.
+     *
+     * @param level The level
+     * @return The name, e.g. "level1"
+     */
+    public static String getLevelName(GameState level) {
+        return level == GameState.LEVEL2 ? "level2" : "level1";
+    }
+
+    /**
+     * Computes a fingerprint of one level's data in the game properties, so compiled data can be
+     * matched with the properties it was made from. The order of the properties does not matter.
+     *
+     * @param gameProps The game properties
+     * @param level The level
+     * @return The fingerprint
+     */
+    public static long fingerprint(Properties gameProps, GameState level) {
+        String name = getLevelName(level);
+        CRC32 crc = new CRC32();
+        long fingerprint = 0;
+        for (String key : gameProps.stringPropertyNames()) {
+            if (isLevelKey(key, name)) {
+                crc.reset();
+                crc.update((key + '=' + gameProps.getProperty(key)).getBytes(StandardCharsets.UTF_8));
+                // Spread each entry's bits before summing so the sum does not depend on order
+                long mixed = crc.getValue() * 0x9E3779B97F4A7C15L;
+                fingerprint += mixed ^ (mixed >>> 29);
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Checks whether a property belongs to a level's data.
+     *
+     * @param key The property key
+     * @param name The level's name
+     * @return true if the key is one of the level's entries
+     */
+    private static boolean isLevelKey(String key, String name) {
+        for (String prefix : LEVEL_KEY_PREFIXES) {
+            if (key.startsWith(prefix) && key.startsWith(name, prefix.length())) {
+                int end = prefix.length() + name.length();
+                if (key.length() == end || key.charAt(end) == '.') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the compiled data for a level, if the game is set up to use it.
+     * Returns null, so the level is read from the properties instead, if no compiled file is
+     * configured or built, if it was compiled from different level data, or while levels are
+     * being edited live with {@code levels.hotReload}.
+     *
+     * @param gameProps The game properties
+     * @param level The level
+     * @return The compiled level, or null
+     */
+    public static LevelData find(Properties gameProps, GameState level) {
+        String path = gameProps.getProperty("levels.compiled", "");
+        if (path.isEmpty() || Boolean.parseBoolean(gameProps.getProperty("levels.hotReload", "false"))) {
+            return null;
+        }
+
+        List<LevelData> levels;
+        try {
+            levels = read(Paths.get(path));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error reading compiled levels: " + e.getMessage());
+            return null;
+        }
+        for (LevelData data : levels) {
+            if (data.level == level) {
+                if (data.fingerprint != fingerprint(gameProps, level)) {
+                    System.err.println("Compiled " + getLevelName(level) + " in " + path
+                            + " is out of date; reading it from the properties");
+                    return null;
+                }
+                return data;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes compiled levels to a file.
+     *
+     * @param path The file to write
+     * @param levels The levels
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, List<LevelData> levels) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(levels.size());
+            for (LevelData data : levels) {
+                out.writeByte(data.level.ordinal());
+                out.writeLong(data.fingerprint);
+                for (List<Spawn> list : data.spawns) {
+                    out.writeInt(list.size());
+                    for (Spawn spawn : list) {
+                        out.writeDouble(spawn.x);
+                        out.writeDouble(spawn.y);
+                        out.writeByte((spawn.grounded ? FLAG_GROUNDED : 0) | (spawn.facingRight ? FLAG_FACING_RIGHT : 0));
+                        out.writeInt(spawn.patrol.length);
+                        for (int distance : spawn.patrol) {
+                            out.writeInt(distance);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads compiled levels written with {@link #write}.
+     *
+     * @param path The file to read
+     * @return The levels
+     * @throws IOException if the file cannot be read or is not a compiled level file
+     */
+    public static List<LevelData> read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a compiled level file: " + path);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compiled level version " + version + ": " + path);
+            }
+
+            int count = in.readInt();
+            List<LevelData> levels = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int levelOrdinal = in.readByte();
+                if (levelOrdinal < 0 || levelOrdinal >= GameState.values().length) {
+                    throw new IOException("Invalid level in compiled level file: " + path);
+                }
+                LevelData data = new LevelData(GameState.values()[levelOrdinal], in.readLong());
+                for (int kind = 0; kind < KIND_COUNT; kind++) {
+                    int spawnCount = in.readInt();
+                    for (int j = 0; j < spawnCount; j++) {
+                        double x = in.readDouble();
+                        double y = in.readDouble();
+                        int flags = in.readByte();
+                        int patrolLength = in.readInt();
+                        if (patrolLength < 0) {
+                            throw new IOException("Invalid patrol in compiled level file: " + path);
+                        }
+                        int[] patrol = new int[patrolLength];
+                        for (int k = 0; k < patrol.length; k++) {
+                            patrol[k] = in.readInt();
+                        }
+                        data.add(kind, new Spawn(x, y, (flags & FLAG_GROUNDED) != 0,
+                                (flags & FLAG_FACING_RIGHT) != 0, patrol));
+                    }
+                }
+                levels.add(data);
+            }
+            return levels;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches a properties file and re-reads it whenever it changes, so level data can be tuned
+ * while the game is running.
+ *
+ * A background thread waits on a {@link WatchService} for the file's directory. Editors often
+ * write a file in several steps, so the file is only read once it has stopped changing for a
+ * moment. The parsed properties are handed to the game thread through {@link #poll()}, which the
+ * game calls once per frame; the game applies them itself, since screens are not thread-safe.
+ */
+public class LevelReloader implements Closeable {
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Path file;
+    private final WatchService watcher;
+    private final AtomicReference<Properties> pending = new AtomicReference<>();
+    private final Thread thread;
+
+    /**
+     * Starts watching a properties file.
+     *
+     * @param file The properties file
+     * @throws IOException if the file's directory cannot be watched
+     */
+    public LevelReloader(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.watcher = file.getFileSystem().newWatchService();
+        this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::watchLoop, "level-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Takes the most recently re-read properties, if the file has changed since the last call.
+     *
+     * @return The new properties, or null if the file has not changed
+     */
+    public Properties poll() {
+        return pending.getAndSet(null);
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println("Error closing level reloader: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Background loop that waits for the file to change and re-reads it.
+     */
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = drainEvents(key);
+                // Keep waiting while the file is still being written
+                while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drainEvents(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed; stop watching
+        }
+    }
+
+    /**
+     * Takes a key's events and re-arms it.
+     *
+     * @param key The signalled key
+     * @return true if any event was for the watched file
+     */
+    private boolean drainEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Reads the file and makes its properties available to {@link #poll()}.
+     * If the file cannot be read the error is reported and the game keeps its current data.
+     */
+    private void reload() {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reloading " + file + ": " + e.getMessage());
+            return;
+        }
+        pending.set(properties);
+    }
+}
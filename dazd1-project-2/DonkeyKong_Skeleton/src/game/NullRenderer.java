@@ -0,0 +1,29 @@
+package game;
+
+import interfaces.Renderer;
+
+/**
+ * Renderer that discards every draw, for drawing screens without a window (e.g. in benchmarks).
+ * It never touches a texture or font, so nothing is loaded.
+ */
+public class NullRenderer implements Renderer {
+    @Override
+    public void beginFrame() {
+    }
+
+    @Override
+    public void drawImage(Sprite sprite, double x, double y) {
+    }
+
+    @Override
+    public void drawImage(Sprite sprite, double x, double y, DrawStyle style) {
+    }
+
+    @Override
+    public void drawText(TextFont font, String text, double x, double y) {
+    }
+
+    @Override
+    public void endFrame() {
+    }
+}
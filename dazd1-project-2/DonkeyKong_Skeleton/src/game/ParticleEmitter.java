@@ -0,0 +1,51 @@
+package game;
+
+import bagel.util.Colour;
+
+/**
+ * A kind of particle burst, such as the splinters of a smashed barrel.
+ * Emitters are configured in the properties file as
+ * {@code count,speed,lifeFrames,red,green,blue}, with colour components between 0 and 1.
+ */
+public class ParticleEmitter {
+    private final ParticleSystem particles;
+    private final int count;
+    private final double speed;
+    private final int lifeFrames;
+    private final int colourIndex;
+
+    /**
+     * Creates a new emitter from its properties value, adding its colour to the system's palette.
+     *
+     * @param particles The particle system to emit into
+     * @param spec The emitter settings, as {@code count,speed,lifeFrames,red,green,blue}
+     * @throws IllegalArgumentException if the settings are malformed
+     */
+    public ParticleEmitter(ParticleSystem particles, String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Particle emitter needs count,speed,lifeFrames,red,green,blue: " + spec);
+        }
+        this.particles = particles;
+        this.count = Integer.parseInt(parts[0].trim());
+        this.speed = Double.parseDouble(parts[1].trim());
+        this.lifeFrames = Integer.parseInt(parts[2].trim());
+        if (count < 0 || lifeFrames <= 0) {
+            throw new IllegalArgumentException("Particle emitter count must not be negative and life must be positive: " + spec);
+        }
+        this.colourIndex = particles.addColour(new Colour(
+                Double.parseDouble(parts[3].trim()),
+                Double.parseDouble(parts[4].trim()),
+                Double.parseDouble(parts[5].trim())));
+    }
+
+    /**
+     * Emits one burst at a point.
+     *
+     * @param x The x-coordinate of the burst, in world coordinates
+     * @param y The y-coordinate of the burst, in world coordinates
+     */
+    public void emit(double x, double y) {
+        particles.emit(x, y, count, speed, lifeFrames, colourIndex);
+    }
+}
@@ -0,0 +1,195 @@
+package game;
+
+import bagel.util.Colour;
+import interfaces.Renderer;
+
+/**
+ * A fixed-capacity pool of short-lived particles for visual effects such as splinters from a
+ * smashed barrel or sparks from a bullet impact.
+ *
+ * Particles are stored as parallel arrays (one array per field) rather than as objects, so a full
+ * pool is a handful of allocations made up front and updating it is a linear pass over primitive
+ * arrays. Dead particles are replaced by the last live one, which keeps the live particles packed
+ * at the front. When the pool is full, new particles are dropped.
+ *
+ * Every particle is drawn with the same small white texture, tinted by a {@link DrawStyle}
+ * prepared in advance for each colour and fade step, so drawing creates no styles of its own and
+ * bagel can batch all particles into one run of draws with a single texture. Particles are purely
+ * visual: they are not part of the gameplay snapshot and never affect the simulation.
+ */
+public class ParticleSystem {
+    private static final Sprite PARTICLE_IMAGE = new Sprite("res/particle.png");
+    private static final int MAX_COLOURS = 16;
+    private static final int FADE_STEPS = 8;
+    private static final long DEFAULT_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int capacity;
+    private final float gravity;
+    private int count = 0;
+
+    // Particle fields, indexed by particle
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final int[] life;       // Frames left to live
+    private final int[] lifetime;   // Frames the particle started with
+    private final byte[] colour;    // Index into the palette
+
+    // Tinted draw styles per palette colour and fade step
+    private final DrawStyle[] drawStyles = new DrawStyle[MAX_COLOURS * FADE_STEPS];
+    private int colourCount = 0;
+
+    private long randomState = DEFAULT_SEED; // xorshift state for particle directions
+
+    /**
+     * Creates a new particle system.
+     *
+     * @param capacity Maximum number of live particles
+     * @param gravity Downward acceleration applied to every particle, in pixels per frame squared
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ParticleSystem(int capacity, double gravity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Particle capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.gravity = (float) gravity;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        life = new int[capacity];
+        lifetime = new int[capacity];
+        colour = new byte[capacity];
+    }
+
+    /**
+     * Adds a colour to the palette.
+     *
+     * @param tint The colour
+     * @return The colour's palette index, to pass to {@link #emit}
+     * @throws IllegalArgumentException if the palette is full
+     */
+    public int addColour(Colour tint) {
+        if (colourCount == MAX_COLOURS) {
+            throw new IllegalArgumentException("Particle palette is limited to " + MAX_COLOURS + " colours");
+        }
+        for (int step = 0; step < FADE_STEPS; step++) {
+            double alpha = tint.a * (step + 1) / FADE_STEPS;
+            drawStyles[colourCount * FADE_STEPS + step] = DrawStyle.blend(new Colour(tint.r, tint.g, tint.b, alpha));
+        }
+        return colourCount++;
+    }
+
+    /**
+     * Emits a burst of particles in random directions from a point.
+     *
+     * @param originX The x-coordinate of the burst, in world coordinates
+     * @param originY The y-coordinate of the burst, in world coordinates
+     * @param amount Number of particles to emit
+     * @param speed Largest initial speed, in pixels per frame
+     * @param lifeFrames Number of frames each particle lives
+     * @param colourIndex Palette index returned by {@link #addColour}
+     * @return Number of particles emitted, which is lower than requested if the pool is full
+     */
+    public int emit(double originX, double originY, int amount, double speed, int lifeFrames, int colourIndex) {
+        int emitted = Math.min(amount, capacity - count);
+        for (int n = 0; n < emitted; n++) {
+            int i = count++;
+            double angle = nextRandom() * 2 * Math.PI;
+            double particleSpeed = speed * (0.25 + 0.75 * nextRandom());
+            x[i] = (float) originX;
+            y[i] = (float) originY;
+            velocityX[i] = (float) (Math.cos(angle) * particleSpeed);
+            velocityY[i] = (float) (Math.sin(angle) * particleSpeed);
+            // Vary the lifetime a little so a burst does not vanish all at once
+            life[i] = lifeFrames - (int) (nextRandom() * lifeFrames / 4);
+            lifetime[i] = life[i];
+            colour[i] = (byte) colourIndex;
+        }
+        return emitted;
+    }
+
+    /**
+     * Moves every particle by one frame and removes the ones that have died.
+     */
+    public void update() {
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                // Fill the gap with the last particle; it is updated on this index next
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                velocityX[i] = velocityX[count];
+                velocityY[i] = velocityY[count];
+                life[i] = life[count];
+                lifetime[i] = lifetime[count];
+                colour[i] = colour[count];
+                continue;
+            }
+            velocityY[i] += gravity;
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+            i++;
+        }
+    }
+
+    /**
+     * Draws every particle in view, fading each one out over its lifetime.
+     *
+     * @param renderer The renderer to draw with
+     * @param camera The camera to draw through
+     */
+    public void draw(Renderer renderer, Camera camera) {
+        double left = camera.getX();
+        double top = camera.getY();
+        double right = left + camera.getViewWidth();
+        double bottom = top + camera.getViewHeight();
+        for (int i = 0; i < count; i++) {
+            if (x[i] < left || x[i] > right || y[i] < top || y[i] > bottom) {
+                continue;
+            }
+            int step = (life[i] * FADE_STEPS - 1) / lifetime[i];
+            renderer.drawImage(PARTICLE_IMAGE, x[i] - left, y[i] - top, drawStyles[colour[i] * FADE_STEPS + step]);
+        }
+    }
+
+    /**
+     * Removes every particle, e.g. when the gameplay state is restored.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Gets the number of live particles.
+     *
+     * @return Number of live particles
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the maximum number of live particles.
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the next pseudo-random number from the system's xorshift generator.
+     *
+     * @return A number in [0, 1)
+     */
+    private double nextRandom() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (randomState >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,183 @@
+package game;
+
+import interfaces.Renderer;
+
+/**
+ * Renderer that counts the draws of every frame and passes them on to another renderer.
+ *
+ * For each frame it counts the draw calls (images and text), the texture switches and the text
+ * draws. A texture switch is a draw whose texture differs from the previous draw's, which is what
+ * breaks bagel's batching: images share a texture when they have the same file, and each font has
+ * its own glyph texture. The first draw of a frame counts as a switch.
+ *
+ * Wrapped around a {@link NullRenderer} it measures the cost of submitting frames without a
+ * window; wrapped around a {@link GlRenderer} it reports what the game draws while it is played.
+ * Counting never allocates.
+ */
+public class RecordingRenderer implements Renderer {
+    private final Renderer target;
+
+    // Counts for the frame being drawn
+    private int drawCalls = 0;
+    private int textureSwitches = 0;
+    private int textDraws = 0;
+    private Object lastTexture = null; // Path of the last image, or the last font
+
+    // Counts for the last finished frame
+    private int frameDrawCalls = 0;
+    private int frameTextureSwitches = 0;
+    private int frameTextDraws = 0;
+
+    // Totals over every finished frame
+    private long frames = 0;
+    private long totalDrawCalls = 0;
+    private long totalTextureSwitches = 0;
+    private long totalTextDraws = 0;
+    private int maxDrawCalls = 0;
+
+    /**
+     * Creates a recording renderer.
+     *
+     * @param target The renderer every draw is passed on to
+     */
+    public RecordingRenderer(Renderer target) {
+        this.target = target;
+    }
+
+    @Override
+    public void beginFrame() {
+        drawCalls = 0;
+        textureSwitches = 0;
+        textDraws = 0;
+        lastTexture = null;
+        target.beginFrame();
+    }
+
+    @Override
+    public void drawImage(Sprite sprite, double x, double y) {
+        countDraw(sprite.getPath());
+        target.drawImage(sprite, x, y);
+    }
+
+    @Override
+    public void drawImage(Sprite sprite, double x, double y, DrawStyle style) {
+        countDraw(sprite.getPath());
+        target.drawImage(sprite, x, y, style);
+    }
+
+    @Override
+    public void drawText(TextFont font, String text, double x, double y) {
+        countDraw(font);
+        textDraws++;
+        target.drawText(font, text, x, y);
+    }
+
+    @Override
+    public void endFrame() {
+        target.endFrame();
+        frameDrawCalls = drawCalls;
+        frameTextureSwitches = textureSwitches;
+        frameTextDraws = textDraws;
+        frames++;
+        totalDrawCalls += drawCalls;
+        totalTextureSwitches += textureSwitches;
+        totalTextDraws += textDraws;
+        maxDrawCalls = Math.max(maxDrawCalls, drawCalls);
+    }
+
+    /**
+     * Counts one draw and whether it switches texture.
+     *
+     * @param texture The image path or font drawn with
+     */
+    private void countDraw(Object texture) {
+        drawCalls++;
+        if (!texture.equals(lastTexture)) {
+            textureSwitches++;
+            lastTexture = texture;
+        }
+    }
+
+    /**
+     * Clears the totals, e.g. after a warm-up.
+     */
+    public void reset() {
+        frames = 0;
+        totalDrawCalls = 0;
+        totalTextureSwitches = 0;
+        totalTextDraws = 0;
+        maxDrawCalls = 0;
+    }
+
+    /**
+     * Gets the draw calls of the last finished frame.
+     *
+     * @return Number of image and text draws
+     */
+    public int getDrawCalls() {
+        return frameDrawCalls;
+    }
+
+    /**
+     * Gets the texture switches of the last finished frame.
+     *
+     * @return Number of draws with a different texture from the draw before
+     */
+    public int getTextureSwitches() {
+        return frameTextureSwitches;
+    }
+
+    /**
+     * Gets the text draws of the last finished frame.
+     *
+     * @return Number of text draws
+     */
+    public int getTextDraws() {
+        return frameTextDraws;
+    }
+
+    /**
+     * Gets the number of frames finished since the last reset.
+     *
+     * @return Number of frames
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Gets the draw calls of every frame since the last reset.
+     *
+     * @return Total draw calls
+     */
+    public long getTotalDrawCalls() {
+        return totalDrawCalls;
+    }
+
+    /**
+     * Gets the texture switches of every frame since the last reset.
+     *
+     * @return Total texture switches
+     */
+    public long getTotalTextureSwitches() {
+        return totalTextureSwitches;
+    }
+
+    /**
+     * Gets the text draws of every frame since the last reset.
+     *
+     * @return Total text draws
+     */
+    public long getTotalTextDraws() {
+        return totalTextDraws;
+    }
+
+    /**
+     * Gets the most draw calls made in one frame since the last reset.
+     *
+     * @return The largest frame's draw calls
+     */
+    public int getMaxDrawCalls() {
+        return maxDrawCalls;
+    }
+}
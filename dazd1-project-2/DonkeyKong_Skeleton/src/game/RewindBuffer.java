@@ -0,0 +1,231 @@
+package game;
+
+import interfaces.Snapshottable;
+
+/**
+ * A bounded history of gameplay states that can be scrubbed backward and forward.
+ *
+ * Every recorded tick occupies one slot of a ring buffer. Every {@code keyframeInterval} ticks
+ * (or whenever the delta would be no smaller than the snapshot) the full snapshot is stored as a
+ * keyframe. All other ticks store only the {@link DeltaCodec} difference to the previous tick,
+ * because most entities are static or settled from one tick to the next.
+ * A delta also carries the new snapshot size, so ticks that add or remove entities (e.g. firing a
+ * bullet, or survival mode throwing a barrel) are still stored as deltas.
+ *
+ * Seeking copies the nearest earlier keyframe and replays at most {@code keyframeInterval - 1}
+ * deltas on top of it, so the cost of a seek is bounded regardless of how far back it goes.
+ */
+public class RewindBuffer {
+    private static final int INITIAL_SLOT_SIZE = 64; // Bytes; slots grow to fit and are then reused
+
+    private final int capacity;
+    private final int keyframeInterval;
+
+    // Ring buffer slots, indexed by frame % capacity
+    private final byte[][] slotData;
+    private final int[] slotLength;      // Number of valid bytes in the slot
+    private final boolean[] keyframe;
+
+    // Scratch snapshots: the latest recorded state and the state being decoded
+    private final StateSnapshot current = new StateSnapshot();
+    private final StateSnapshot previous = new StateSnapshot();
+    private final StateSnapshot work = new StateSnapshot();
+    private byte[] deltaScratch = new byte[0];
+
+    private int newestFrame = -1;  // Most recently recorded frame, or -1 if empty
+    private int cursor = -1;       // Frame the target was last recorded at or restored to
+
+    /**
+     * Creates a new rewind buffer.
+     *
+     * @param capacityFrames Number of ticks of history to keep
+     * @param keyframeInterval Number of ticks between full keyframes
+     */
+    public RewindBuffer(int capacityFrames, int keyframeInterval) {
+        if (capacityFrames <= 0 || keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Rewind capacity and keyframe interval must be positive");
+        }
+        this.keyframeInterval = keyframeInterval;
+        // Round up to a whole number of keyframe intervals so keyframes always land in the same slots
+        this.capacity = ((capacityFrames + keyframeInterval - 1) / keyframeInterval) * keyframeInterval;
+        this.slotData = new byte[capacity][];
+        this.slotLength = new int[capacity];
+        this.keyframe = new boolean[capacity];
+    }
+
+    /**
+     * Records the source's current state as the next frame.
+     * If the cursor was moved back by a seek, any frames after the cursor are discarded first.
+     *
+     * @param source The object to record
+     */
+    public void record(Snapshottable source) {
+        current.capture(source);
+
+        int frame = cursor + 1;
+        int slot = frame % capacity;
+        int length = current.size();
+        boolean isKeyframe = frame % keyframeInterval == 0 || frame == 0;
+
+        int deltaLength = 0;
+        if (!isKeyframe) {
+            if (deltaScratch.length < DeltaCodec.maxEncodedLength(length)) {
+                deltaScratch = new byte[DeltaCodec.maxEncodedLength(length)];
+            }
+            // Compare against the previous state cut or zero-padded to the new size
+            previous.resize(length);
+            deltaLength = DeltaCodec.encode(previous.array(), current.array(), length, deltaScratch, 0);
+            // After a restore almost every byte differs, so the delta can outgrow the full state
+            isKeyframe = deltaLength >= length;
+        }
+
+        if (isKeyframe) {
+            byte[] data = ensureSlot(slot, length);
+            System.arraycopy(current.array(), 0, data, 0, length);
+            slotLength[slot] = length;
+        } else {
+            byte[] data = ensureSlot(slot, deltaLength);
+            System.arraycopy(deltaScratch, 0, data, 0, deltaLength);
+            slotLength[slot] = deltaLength;
+        }
+        keyframe[slot] = isKeyframe;
+
+        previous.copyFrom(current);
+        newestFrame = frame;
+        cursor = frame;
+    }
+
+    /**
+     * Restores the state recorded at the given frame into the target.
+     *
+     * @param frame The frame to restore
+     * @param target The object to restore into
+     * @return true if the frame was available and restored, false otherwise
+     */
+    public boolean seek(int frame, Snapshottable target) {
+        if (frame < getOldestFrame() || frame > newestFrame) {
+            return false;
+        }
+
+        // Find the nearest keyframe at or before the requested frame
+        int start = frame;
+        while (!keyframe[start % capacity]) {
+            start--;
+        }
+
+        // Copy the keyframe, then replay the deltas up to the requested frame
+        int slot = start % capacity;
+        work.load(slotData[slot], 0, slotLength[slot]);
+        for (int f = start + 1; f <= frame; f++) {
+            slot = f % capacity;
+            DeltaCodec.apply(slotData[slot], 0, slotLength[slot], work);
+        }
+
+        work.restore(target);
+        previous.copyFrom(work);
+        cursor = frame;
+        return true;
+    }
+
+    /**
+     * Restores the frame before the cursor.
+     *
+     * @param target The object to restore into
+     * @return true if an earlier frame was available
+     */
+    public boolean stepBack(Snapshottable target) {
+        return seek(cursor - 1, target);
+    }
+
+    /**
+     * Restores the frame after the cursor, if the player has rewound past it.
+     *
+     * @param target The object to restore into
+     * @return true if a later frame was available
+     */
+    public boolean stepForward(Snapshottable target) {
+        return seek(cursor + 1, target);
+    }
+
+    /**
+     * Forgets every recorded frame, e.g. when the level has changed so that the recorded states
+     * no longer fit it. The next recorded frame is frame 0 again.
+     */
+    public void clear() {
+        newestFrame = -1;
+        cursor = -1;
+    }
+
+    /**
+     * Gets the oldest frame that can still be restored.
+     * This is the first keyframe still inside the ring, as older deltas have lost their base.
+     *
+     * @return The oldest restorable frame, or 0 if nothing has been recorded
+     */
+    public int getOldestFrame() {
+        int oldest = Math.max(0, newestFrame - capacity + 1);
+        while (oldest < newestFrame && !keyframe[oldest % capacity]) {
+            oldest++;
+        }
+        return oldest;
+    }
+
+    /**
+     * Gets the most recently recorded frame.
+     *
+     * @return The newest frame, or -1 if nothing has been recorded
+     */
+    public int getNewestFrame() {
+        return newestFrame;
+    }
+
+    /**
+     * Gets the frame that was last recorded or restored.
+     *
+     * @return The cursor frame, or -1 if nothing has been recorded
+     */
+    public int getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Gets the number of ticks of history kept.
+     *
+     * @return Capacity in frames
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the total number of bytes held by the ring buffer slots.
+     *
+     * @return Memory used by recorded frames in bytes
+     */
+    public long getMemoryUsed() {
+        long total = 0;
+        for (byte[] data : slotData) {
+            if (data != null) {
+                total += data.length;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Makes sure a slot can hold at least the given number of bytes.
+     *
+     * @param slot The slot index
+     * @param size The required size in bytes
+     * @return The slot's byte array
+     */
+    private byte[] ensureSlot(int slot, int size) {
+        byte[] data = slotData[slot];
+        if (data == null || data.length < size) {
+            // Grow to the next power of two so a slot is only reallocated a few times over a session
+            data = new byte[Math.max(Integer.highestOneBit(size) << 1, INITIAL_SLOT_SIZE)];
+            slotData[slot] = data;
+        }
+        return data;
+    }
+}
@@ -2,12 +2,15 @@ package game;
 
 import bagel.Font;
 import bagel.Window;
+import interfaces.Snapshottable;
+
+import java.nio.ByteBuffer;
 
 /**
  * Manages the scoring system for the game.
  * Handles score calculation, updates, and display.
  */
-public class ScoreManager {
+public class ScoreManager implements Snapshottable {
     // Score constants
     private static final int BARREL_JUMP_SCORE = 30;
     private static final int BARREL_DESTROY_SCORE = 100;
@@ -124,4 +127,28 @@ public class ScoreManager {
     public int getBaseScore() {
         return score;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Writes the score state to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(score);
+        buffer.putInt(timeBonusScore);
+        buffer.put((byte) (timeBonus ? 1 : 0));
+    }
+    
+    /**
+     * Restores the score state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        score = buffer.getInt();
+        timeBonusScore = buffer.getInt();
+        timeBonus = buffer.get() != 0;
+    }
+}
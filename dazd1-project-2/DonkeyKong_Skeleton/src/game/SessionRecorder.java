@@ -0,0 +1,133 @@
+package game;
+
+import interfaces.Snapshottable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records gameplay sessions to a directory, one file per session, for later replay and analysis.
+ * A session ends when the level ends or when the state is restored (rewind or quick load),
+ * since the recorded inputs no longer lead to the current state after a restore.
+ *
+ * Finished sessions are written by a background writer thread, so the game thread never waits on
+ * disk. Recordings are reused: the writer hands each one back once it is saved, and a new one is
+ * only created if every recording is still waiting to be written.
+ */
+public class SessionRecorder {
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long POLL_INTERVAL_MS = 250;
+
+    private final Path directory;
+    private SessionRecording recording = new SessionRecording();
+    private boolean active = false;
+
+    private final BlockingQueue<SessionRecording> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<SessionRecording> free = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+    private int sessionCount = 0;
+
+    /**
+     * Creates a new session recorder and starts its background writer.
+     *
+     * @param directory The directory to write sessions to (created if missing)
+     */
+    public SessionRecorder(Path directory) {
+        this.directory = directory;
+
+        writer = new Thread(this::writeLoop, "session-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Starts recording a new session from the source's current state.
+     * Any session in progress is discarded.
+     *
+     * @param source The gameplay screen being recorded
+     * @param level The level being played
+     * @param previousKeys The keys held on the tick before the first recorded tick
+     */
+    public void begin(Snapshottable source, GameState level, int previousKeys) {
+        recording.begin(source, level, previousKeys);
+        active = true;
+    }
+
+    /**
+     * Records the keys held on the next tick of the current session.
+     *
+     * @param keys Bitmask of the keys held down
+     */
+    public void recordTick(int keys) {
+        if (active) {
+            recording.recordTick(keys);
+        }
+    }
+
+    /**
+     * Ends the current session and queues it to be written to a new file in the sessions directory.
+     * Returns immediately. Sessions without any ticks are not written.
+     */
+    public void finish() {
+        if (!active) {
+            return;
+        }
+        active = false;
+        if (recording.getTickCount() == 0) {
+            return;
+        }
+
+        if (!pending.offer(recording)) {
+            System.err.println("Session queue full, dropping session of " + recording.getTickCount() + " ticks");
+            return;
+        }
+        SessionRecording next = free.poll();
+        recording = next != null ? next : new SessionRecording();
+    }
+
+    /**
+     * Writes any finished sessions still queued and stops the writer thread.
+     */
+    public void close() {
+        // Not interrupted, since interrupting a file write closes its channel; the writer notices
+        // within one poll interval
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that saves queued sessions and hands their recordings back for reuse.
+     */
+    private void writeLoop() {
+        while (running || !pending.isEmpty()) {
+            SessionRecording session;
+            try {
+                session = pending.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (session == null) {
+                continue;
+            }
+
+            sessionCount++;
+            Path path = directory.resolve("session-" + System.currentTimeMillis() + "-" + sessionCount + ".rec");
+            try {
+                Files.createDirectories(directory);
+                session.save(path);
+            } catch (IOException e) {
+                System.err.println("Error saving session recording: " + e.getMessage());
+            }
+            free.offer(session);
+        }
+    }
+}
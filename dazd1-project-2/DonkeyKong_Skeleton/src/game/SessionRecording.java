@@ -0,0 +1,225 @@
+package game;
+
+import interfaces.Snapshottable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A recorded stretch of play that can be replayed deterministically.
+ * It holds a snapshot of the level at the start of the session and the gameplay keys held
+ * on every tick after it. Keys rarely change between ticks, so they are stored as runs of
+ * (keys, tick count), which keeps a full level to a few hundred bytes plus the snapshot.
+ *
+ * A recording object can be reused for many sessions to avoid garbage.
+ */
+public class SessionRecording {
+    private static final int MAGIC = 0x444B5352; // "DKSR"
+    private static final short VERSION = 1;
+    private static final int INITIAL_RUNS = 256;
+
+    private final StateSnapshot snapshot = new StateSnapshot();
+    private GameState level = GameState.LEVEL1;
+    private int previousKeys = 0;
+
+    private int[] runKeys = new int[INITIAL_RUNS];
+    private int[] runLengths = new int[INITIAL_RUNS];
+    private int runCount = 0;
+    private int tickCount = 0;
+
+    /**
+     * Starts a new recording from the source's current state, discarding any previous contents.
+     *
+     * @param source The gameplay screen being recorded
+     * @param level The level being played
+     * @param previousKeys The keys held on the tick before the first recorded tick
+     */
+    public void begin(Snapshottable source, GameState level, int previousKeys) {
+        snapshot.capture(source);
+        this.level = level;
+        this.previousKeys = previousKeys;
+        runCount = 0;
+        tickCount = 0;
+    }
+
+    /**
+     * Records the keys held on the next tick.
+     *
+     * @param keys Bitmask of the keys held down
+     */
+    public void recordTick(int keys) {
+        if (runCount > 0 && runKeys[runCount - 1] == keys) {
+            runLengths[runCount - 1]++;
+        } else {
+            ensureRunCapacity(runCount + 1);
+            runKeys[runCount] = keys;
+            runLengths[runCount] = 1;
+            runCount++;
+        }
+        tickCount++;
+    }
+
+    /**
+     * Writes the recording to a file.
+     *
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(19 + 8 * runCount);
+        header.putInt(MAGIC).putShort(VERSION).put((byte) level.ordinal());
+        header.putInt(previousKeys);
+        header.putInt(runCount);
+        for (int i = 0; i < runCount; i++) {
+            header.putInt(runKeys[i]).putInt(runLengths[i]);
+        }
+        header.putInt(snapshot.size());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer state = snapshot.getBuffer();
+            while (header.hasRemaining() || state.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, state});
+            }
+        }
+    }
+
+    /**
+     * Loads a recording previously written with {@link #save(Path)}, replacing the current contents.
+     *
+     * @param path The file to read
+     * @throws IOException if the file cannot be read or is not a valid recording
+     */
+    public void load(Path path) throws IOException {
+        snapshot.load(path);
+        ByteBuffer buffer = snapshot.getBuffer();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a session recording: " + path);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported recording version " + version + ": " + path);
+            }
+            int levelOrdinal = buffer.get();
+            if (levelOrdinal < 0 || levelOrdinal >= GameState.values().length) {
+                throw new IOException("Invalid level in recording: " + path);
+            }
+            GameState loadedLevel = GameState.values()[levelOrdinal];
+            int loadedPreviousKeys = buffer.getInt();
+
+            int loadedRuns = buffer.getInt();
+            if (loadedRuns < 0 || loadedRuns > buffer.remaining() / 8) {
+                throw new IOException("Invalid run count in recording: " + path);
+            }
+            ensureRunCapacity(loadedRuns);
+            int loadedTicks = 0;
+            for (int i = 0; i < loadedRuns; i++) {
+                runKeys[i] = buffer.getInt();
+                runLengths[i] = buffer.getInt();
+                loadedTicks += runLengths[i];
+            }
+
+            int stateLength = buffer.getInt();
+            if (stateLength != buffer.remaining()) {
+                throw new IOException("Truncated recording: " + path);
+            }
+            // Move the level snapshot to the front of the buffer
+            int stateOffset = buffer.position();
+            byte[] bytes = snapshot.array();
+            System.arraycopy(bytes, stateOffset, bytes, 0, stateLength);
+            snapshot.load(bytes, 0, stateLength);
+
+            level = loadedLevel;
+            previousKeys = loadedPreviousKeys;
+            runCount = loadedRuns;
+            tickCount = loadedTicks;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated recording: " + path, e);
+        }
+    }
+
+    /**
+     * Gets the snapshot of the level at the start of the session.
+     *
+     * @return The starting snapshot
+     */
+    public StateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the level the session was played on.
+     *
+     * @return The level
+     */
+    public GameState getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the keys held on the tick before the first recorded tick.
+     *
+     * @return Bitmask of the keys held down
+     */
+    public int getPreviousKeys() {
+        return previousKeys;
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     *
+     * @return Number of ticks
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the number of runs of identical keys.
+     *
+     * @return Number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Gets the keys held during a run.
+     *
+     * @param run The run index
+     * @return Bitmask of the keys held down
+     */
+    public int getRunKeys(int run) {
+        return runKeys[run];
+    }
+
+    /**
+     * Gets the number of ticks in a run.
+     *
+     * @param run The run index
+     * @return Number of ticks
+     */
+    public int getRunLength(int run) {
+        return runLengths[run];
+    }
+
+    /**
+     * Makes sure the run arrays can hold at least the given number of runs.
+     *
+     * @param capacity The required number of runs
+     */
+    private void ensureRunCapacity(int capacity) {
+        if (runKeys.length < capacity) {
+            int newCapacity = Math.max(capacity, runKeys.length * 2);
+            runKeys = Arrays.copyOf(runKeys, newCapacity);
+            runLengths = Arrays.copyOf(runLengths, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package game;
+
+import bagel.Image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A handle to an image file whose GPU texture is created by the {@link TextureLoader},
+ * normally ahead of the first draw; until it is, the sprite is not drawn. The width and height
+ * are read from the image header when the sprite is created, so sizes and bounding boxes work
+ * without a window (e.g. when replaying sessions headlessly). Sprites are drawn through a
+ * {@link interfaces.Renderer}.
+ */
+public class Sprite {
+    private final String path;
+    private final double width;
+    private final double height;
+    private Image image = null;
+
+    /**
+     * Creates a sprite for the given image file.
+     *
+     * @param path The path of the image file
+     * @throws IllegalArgumentException if the file cannot be read or is not a supported image
+     */
+    public Sprite(String path) {
+        this.path = path;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new File(path))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image: " + path);
+            }
+            // Only the header is parsed; the pixels are decoded by the texture loader
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                this.width = reader.getWidth(0);
+                this.height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error reading image " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the underlying image.
+     * Must only be called from the render thread, once {@link #isReady()} has returned true.
+     *
+     * @return The loaded image, or null if the sprite is not ready yet
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Checks whether the texture has been uploaded, so the sprite can be drawn without stalling.
+     * If it has not, the loader queues the file for decoding if it has not already.
+     * Must only be called from the render thread.
+     *
+     * @return true if the sprite can be drawn
+     */
+    public boolean isReady() {
+        if (image == null) {
+            image = TextureLoader.getImage(path);
+        }
+        return image != null;
+    }
+
+    /**
+     * Gets the path of the image file.
+     *
+     * @return The image path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return Width in pixels
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return Height in pixels
+     */
+    public double getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,159 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated single-producer, single-consumer ring of fixed-size slots of longs, shared by the
+ * queues that hand data from one thread to another without locks or allocation.
+ *
+ * The producer claims the next free slot with {@link #claim}, fills it with {@link #put} and makes
+ * it visible with {@link #publish}. Claiming never allocates, never blocks and finishes in a fixed
+ * number of steps: if the ring is full it fails and the drop is counted rather than waiting for the
+ * consumer. The consumer reads published slots with {@link #available}, {@link #slotAt} and
+ * {@link #get}, then frees them with {@link #release}.
+ *
+ * The producer publishes a slot with an ordered write of the tail and the consumer frees slots the
+ * same way with the head. Each side keeps a cached copy of the other's index so it only reads the
+ * shared one when the ring looks full (or empty).
+ */
+public final class SpscRing {
+    private final long[] slots;
+    private final int slotLongs;
+    private final int mask;
+
+    // Written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead = 0;
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    private long cachedTail = 0;
+
+    /**
+     * Creates a ring.
+     *
+     * @param capacity Maximum slots held; rounded up to a power of two
+     * @param slotLongs Number of longs in each slot
+     * @throws IllegalArgumentException if the capacity or slot size is not positive
+     */
+    public SpscRing(int capacity, int slotLongs) {
+        if (capacity <= 0 || slotLongs <= 0) {
+            throw new IllegalArgumentException("Ring capacity and slot size must be positive: "
+                    + capacity + " x " + slotLongs);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new long[size * slotLongs];
+        this.slotLongs = slotLongs;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Claims the next free slot for writing. Must only be called from the producer thread, and
+     * must be followed by {@link #publish()} before the next claim.
+     *
+     * @return The index of the slot's first long, or -1 if the ring is full and the entry was dropped
+     */
+    public int claim() {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                dropped.lazySet(dropped.get() + 1);
+                return -1;
+            }
+        }
+        return (int) (t & mask) * slotLongs;
+    }
+
+    /**
+     * Writes one long of a claimed slot. Producer thread only.
+     *
+     * @param index The slot's first index from {@link #claim()} plus the long's offset in the slot
+     * @param value The value
+     */
+    public void put(int index, long value) {
+        slots[index] = value;
+    }
+
+    /**
+     * Makes the claimed slot visible to the consumer. Producer thread only.
+     */
+    public void publish() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /**
+     * Gets the number of published slots waiting to be read. Consumer thread only.
+     *
+     * @return Number of slots that can be read before the next {@link #release}
+     */
+    public int available() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+        }
+        return (int) (cachedTail - h);
+    }
+
+    /**
+     * Finds a published slot. Consumer thread only.
+     *
+     * @param i The slot's position from the oldest, less than {@link #available()}
+     * @return The index of the slot's first long
+     */
+    public int slotAt(int i) {
+        return (int) ((head.get() + i) & mask) * slotLongs;
+    }
+
+    /**
+     * Reads one long of a published slot. Consumer thread only.
+     *
+     * @param index The slot's first index from {@link #slotAt} plus the long's offset in the slot
+     * @return The value
+     */
+    public long get(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Frees the oldest published slots for the producer to reuse. Consumer thread only.
+     *
+     * @param count Number of slots to free, at most {@link #available()}
+     */
+    public void release(int count) {
+        if (count > 0) {
+            head.lazySet(head.get() + count);
+        }
+    }
+
+    /**
+     * Checks whether any published slots are waiting to be read.
+     *
+     * @return true if the ring is empty
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Gets the number of slots the ring can hold.
+     *
+     * @return Capacity in slots
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets the number of entries dropped because the ring was full.
+     *
+     * @return Dropped entry count
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
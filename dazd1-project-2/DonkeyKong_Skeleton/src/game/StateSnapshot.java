@@ -0,0 +1,193 @@
+package game;
+
+import interfaces.Snapshottable;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A reusable binary snapshot of a {@link Snapshottable} object, such as a gameplay screen.
+ * The backing buffer is allocated once and reused for every capture, so taking a snapshot
+ * does not create garbage. Used for save states, crash reproduction and state synchronisation.
+ */
+public class StateSnapshot {
+    private static final int DEFAULT_CAPACITY = 16 * 1024; // Comfortably fits a level 2 snapshot
+
+    private ByteBuffer buffer;
+    private int size = 0;
+
+    /**
+     * Creates a new empty snapshot with the default capacity.
+     */
+    public StateSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty snapshot.
+     *
+     * @param capacity Initial capacity in bytes (grows automatically if exceeded)
+     */
+    public StateSnapshot(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Captures the current state of the source into this snapshot, replacing any previous contents.
+     *
+     * @param source The object to capture
+     */
+    public void capture(Snapshottable source) {
+        while (true) {
+            buffer.clear();
+            try {
+                source.writeState(buffer);
+                size = buffer.position();
+                return;
+            } catch (BufferOverflowException e) {
+                // Only happens when the state outgrows the buffer, so growing is rare
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Restores the target's state from this snapshot.
+     *
+     * @param target The object to restore
+     * @throws IllegalStateException if the snapshot is empty or was not fully consumed
+     */
+    public void restore(Snapshottable target) {
+        if (size == 0) {
+            throw new IllegalStateException("Snapshot is empty");
+        }
+        buffer.clear();
+        buffer.limit(size);
+        target.readState(buffer);
+        if (buffer.position() != size) {
+            throw new IllegalStateException("Snapshot was not fully read: " + buffer.position() + " of " + size + " bytes");
+        }
+    }
+
+    /**
+     * Copies the contents of another snapshot into this one.
+     *
+     * @param other The snapshot to copy
+     */
+    public void copyFrom(StateSnapshot other) {
+        load(other.buffer.array(), 0, other.size);
+    }
+
+    /**
+     * Loads raw snapshot bytes into this snapshot, replacing any previous contents.
+     *
+     * @param bytes The array holding the snapshot bytes
+     * @param offset The offset of the first byte
+     * @param length The number of bytes
+     */
+    public void load(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer.array(), 0, length);
+        size = length;
+    }
+
+    /**
+     * Changes the size of the snapshot, keeping its contents.
+     * Bytes added at the end are zero.
+     *
+     * @param newSize The new size in bytes
+     */
+    public void resize(int newSize) {
+        if (buffer.capacity() < newSize) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(newSize, buffer.capacity() * 2));
+            System.arraycopy(buffer.array(), 0, grown.array(), 0, size);
+            buffer = grown;
+        } else if (newSize > size) {
+            Arrays.fill(buffer.array(), size, newSize, (byte) 0);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Makes sure the backing buffer can hold at least the given number of bytes.
+     * Any existing contents are discarded if the buffer has to grow.
+     *
+     * @param capacity The required capacity in bytes
+     */
+    public void ensureCapacity(int capacity) {
+        if (buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+            size = 0;
+        }
+    }
+
+    /**
+     * Gets the backing array. Only the first {@link #size()} bytes are valid.
+     *
+     * @return The backing array
+     */
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * Gets the snapshot contents as a buffer positioned at the start and limited to the snapshot size.
+     * The returned buffer is shared and is only valid until the next capture.
+     *
+     * @return The snapshot buffer
+     */
+    public ByteBuffer getBuffer() {
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Gets the size of the captured snapshot.
+     *
+     * @return Size in bytes, or 0 if nothing has been captured
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Saves the snapshot to a file, e.g. for a save state or crash dump.
+     *
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = getBuffer();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot previously written with {@link #save(Path)}.
+     *
+     * @param path The file to read
+     * @throws IOException if the file cannot be read
+     */
+    public void load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int length = (int) channel.size();
+            ensureCapacity(length);
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole file is loaded
+            }
+            size = buffer.position();
+        }
+    }
+}
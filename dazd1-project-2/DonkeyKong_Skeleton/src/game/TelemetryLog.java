@@ -0,0 +1,296 @@
+package game;
+
+import interfaces.GameplayListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logs gameplay events to rotating binary files without slowing down the game thread.
+ *
+ * The game thread publishes events into a {@link TelemetryRing}, which is allocation-free and never
+ * waits; if the writer falls far enough behind for the ring to fill, events are dropped and
+ * counted. A background thread drains the ring in batches into a direct buffer and appends them to
+ * the current log file. When a file reaches its size limit a new one is started, and the oldest
+ * files are deleted so at most a fixed number are kept.
+ *
+ * Attach the log to a gameplay screen as its {@link GameplayListener}, and report state changes
+ * with {@link #onStateTransition}. All publishing must happen on one thread.
+ *
+ * Each file starts with a header:
+ * <pre>
+ * int magic          "DKTL"
+ * short version
+ * short recordSize   TelemetryRing.RECORD_SIZE
+ * long startMillis   wall-clock time the file was started
+ * long startNanos    System.nanoTime() at the same moment, to convert record times
+ * </pre>
+ * followed by records in the layout described by {@link TelemetryRing#RECORD_SIZE}.
+ */
+public class TelemetryLog implements GameplayListener {
+    // Event types
+    public static final int BARREL_JUMP = 1;
+    public static final int BARREL_DESTROYED = 2;
+    public static final int MONKEY_SHOT = 3;
+    public static final int MONKEY_SMASHED = 4;
+    public static final int BANANA_THROWN = 5;
+    public static final int BANANA_HIT = 6;
+    public static final int PLAYER_DEATH = 7;
+    public static final int STATE_TRANSITION = 8;
+    public static final int TIME_BONUS = 9;
+
+    private static final int MAGIC = 0x444B544C; // "DKTL"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int BATCH_RECORDS = 512;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final TelemetryRing ring;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_RECORDS * TelemetryRing.RECORD_SIZE);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    private FileChannel file = null;
+    private long fileBytes = 0;
+    private int fileCount = 0;
+    private final long sessionMillis = System.currentTimeMillis();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long recordsWritten = 0;
+
+    /**
+     * Creates a telemetry log and starts its writer thread.
+     *
+     * @param directory The directory to write log files to (created if missing)
+     * @param capacity Events the ring holds before new ones are dropped
+     * @param maxFileBytes Size at which a new log file is started
+     * @param maxFiles Number of log files kept, including the current one
+     */
+    public TelemetryLog(Path directory, int capacity, long maxFileBytes, int maxFiles) {
+        if (maxFileBytes < HEADER_SIZE + TelemetryRing.RECORD_SIZE || maxFiles < 1) {
+            throw new IllegalArgumentException("Telemetry files must hold at least one record");
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.ring = new TelemetryRing(capacity);
+
+        writer = new Thread(this::writeLoop, "telemetry-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Publishes an event. Allocation-free and never blocks; the event is dropped if the ring is full.
+     *
+     * @param type The event type
+     * @param level The level (or state) the event happened in
+     * @param frame The gameplay frame
+     * @param x The event x-coordinate
+     * @param y The event y-coordinate
+     * @param value An event-specific value
+     * @return true if the event was queued
+     */
+    public boolean publish(int type, GameState level, int frame, double x, double y, int value) {
+        return ring.offer(type, level.ordinal(), frame, (float) x, (float) y, value);
+    }
+
+    @Override
+    public void onBarrelJump(GameState level, int frame, double x, double y) {
+        publish(BARREL_JUMP, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onBarrelDestroyed(GameState level, int frame, double x, double y) {
+        publish(BARREL_DESTROYED, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onMonkeyDestroyed(GameState level, int frame, double x, double y, boolean shot) {
+        publish(shot ? MONKEY_SHOT : MONKEY_SMASHED, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onBananaThrown(GameState level, int frame, double x, double y) {
+        publish(BANANA_THROWN, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onBananaHit(GameState level, int frame, double x, double y) {
+        publish(BANANA_HIT, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onPlayerDeath(GameState level, int frame, double x, double y) {
+        publish(PLAYER_DEATH, level, frame, x, y, 0);
+    }
+
+    @Override
+    public void onTimeBonus(GameState level, int frame, int bonus) {
+        publish(TIME_BONUS, level, frame, 0, 0, bonus);
+    }
+
+    /**
+     * Publishes a change of game state. The record's level is the state left and its value the
+     * ordinal of the state entered.
+     *
+     * @param from The state left
+     * @param to The state entered
+     * @param frame The frame reached in the state left, or 0 if it was not a gameplay state
+     */
+    public void onStateTransition(GameState from, GameState to, int frame) {
+        publish(STATE_TRANSITION, from, frame, 0, 0, to.ordinal());
+    }
+
+    /**
+     * Gets the number of events dropped because the writer fell behind.
+     *
+     * @return Dropped event count
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    /**
+     * Gets the number of events written to log files so far.
+     *
+     * @return Written event count
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Writes any queued events and stops the writer thread.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that drains the ring into batches and appends them to the log.
+     * A batch is written once it is full, once it has waited long enough, or on close.
+     */
+    private void writeLoop() {
+        long lastWrite = System.nanoTime();
+
+        while (running || !ring.isEmpty()) {
+            int drained = ring.drainTo(batch);
+
+            long now = System.nanoTime();
+            if (batch.position() > 0 && (!batch.hasRemaining() || now - lastWrite >= FLUSH_INTERVAL_NANOS
+                    || !running)) {
+                writeBatch();
+                lastWrite = now;
+            }
+            if (drained == 0 && running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        if (batch.position() > 0) {
+            writeBatch();
+        }
+        try {
+            if (file != null) {
+                file.force(false);
+                file.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing telemetry log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the batch to the current log file, starting a new file first if it would overflow.
+     * If writing fails the batch is discarded and the error reported, so the ring keeps draining.
+     */
+    private void writeBatch() {
+        batch.flip();
+        int records = batch.remaining() / TelemetryRing.RECORD_SIZE;
+        try {
+            if (file == null || fileBytes + batch.remaining() > maxFileBytes) {
+                rotate();
+            }
+            while (batch.hasRemaining()) {
+                fileBytes += file.write(batch);
+            }
+            recordsWritten += records;
+        } catch (IOException e) {
+            System.err.println("Error writing telemetry log: " + e.getMessage());
+        }
+        batch.clear();
+    }
+
+    /**
+     * Closes the current log file, starts a new one and deletes the oldest files beyond the limit.
+     *
+     * @throws IOException if the new file cannot be created
+     */
+    private void rotate() throws IOException {
+        if (file != null) {
+            file.force(false);
+            file.close();
+            file = null;
+        }
+
+        Files.createDirectories(directory);
+        fileCount++;
+        // Padded to the widest values, so names sort in the order the files were started
+        Path path = directory.resolve(String.format("telemetry-%013d-%010d.bin", sessionMillis, fileCount));
+        file = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        header.clear();
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) TelemetryRing.RECORD_SIZE)
+                .putLong(System.currentTimeMillis()).putLong(System.nanoTime()).flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        fileBytes = HEADER_SIZE;
+
+        deleteOldFiles();
+    }
+
+    /**
+     * Deletes the oldest log files so no more than the configured number remain.
+     * File names sort by the time they were started.
+     */
+    private void deleteOldFiles() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "telemetry-*.bin")) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing telemetry logs: " + e.getMessage());
+            return;
+        }
+        Collections.sort(files);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            try {
+                Files.delete(files.get(i));
+            } catch (IOException e) {
+                System.err.println("Error deleting old telemetry log: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A preallocated single-producer, single-consumer ring of fixed-size telemetry records.
+ *
+ * The game thread publishes with {@link #offer}, which never allocates, never blocks and finishes
+ * in a fixed number of steps: if the ring is full the record is dropped and counted rather than
+ * waiting for the consumer. A background thread drains records with {@link #drainTo}.
+ *
+ * Records are kept as four longs per slot of an {@link SpscRing}.
+ *
+ * Every offered record, published or dropped, takes the next sequence number, so gaps in the
+ * drained sequence numbers show where records were dropped.
+ */
+public class TelemetryRing {
+    /**
+     * Bytes per record written by {@link #drainTo}:
+     * <pre>
+     * long time        System.nanoTime() when published
+     * int sequence     offer count, including dropped records
+     * int frame        gameplay frame
+     * byte type        event type
+     * byte level       GameState ordinal
+     * short reserved   always 0
+     * float x          event x-coordinate
+     * float y          event y-coordinate
+     * int value        event-specific value
+     * </pre>
+     */
+    public static final int RECORD_SIZE = 32;
+
+    private static final int SLOT_LONGS = 4;
+
+    private final SpscRing ring;
+
+    // Written by the producer only
+    private long sequence = 0;
+
+    /**
+     * Creates a ring.
+     *
+     * @param capacity Maximum records held; rounded up to a power of two
+     */
+    public TelemetryRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Telemetry ring capacity must be positive: " + capacity);
+        }
+        ring = new SpscRing(capacity, SLOT_LONGS);
+    }
+
+    /**
+     * Publishes a record. Must only be called from the producer thread.
+     *
+     * @param type The event type
+     * @param level The GameState ordinal
+     * @param frame The gameplay frame
+     * @param x The event x-coordinate
+     * @param y The event y-coordinate
+     * @param value An event-specific value
+     * @return true if the record was published, false if the ring was full and it was dropped
+     */
+    public boolean offer(int type, int level, int frame, float x, float y, int value) {
+        long seq = sequence++;
+        int slot = ring.claim();
+        if (slot < 0) {
+            return false;
+        }
+        ring.put(slot, System.nanoTime());
+        ring.put(slot + 1, (seq << 32) | (frame & 0xFFFFFFFFL));
+        ring.put(slot + 2, ((long) (type & 0xFF) << 56) | ((long) (level & 0xFF) << 48) | (value & 0xFFFFFFFFL));
+        ring.put(slot + 3, ((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL));
+        ring.publish();
+        return true;
+    }
+
+    /**
+     * Moves as many published records as fit into a buffer, in the layout of {@link #RECORD_SIZE}.
+     * Must only be called from the consumer thread.
+     *
+     * @param buffer The buffer to write records to, at its position
+     * @return The number of records moved
+     */
+    public int drainTo(ByteBuffer buffer) {
+        int count = Math.min(ring.available(), buffer.remaining() / RECORD_SIZE);
+
+        for (int i = 0; i < count; i++) {
+            int slot = ring.slotAt(i);
+            long packed = ring.get(slot + 2);
+            long position = ring.get(slot + 3);
+            buffer.putLong(ring.get(slot));
+            buffer.putInt((int) (ring.get(slot + 1) >>> 32));
+            buffer.putInt((int) ring.get(slot + 1));
+            buffer.put((byte) (packed >>> 56));
+            buffer.put((byte) (packed >>> 48));
+            buffer.putShort((short) 0);
+            buffer.putInt((int) (position >>> 32));
+            buffer.putInt((int) position);
+            buffer.putInt((int) packed);
+        }
+        ring.release(count);
+        return count;
+    }
+
+    /**
+     * Checks whether any published records are waiting to be drained.
+     *
+     * @return true if the ring is empty
+     */
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * Gets the number of records the ring can hold.
+     *
+     * @return Capacity in records
+     */
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    /**
+     * Gets the number of records dropped because the ring was full.
+     *
+     * @return Dropped record count
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+}
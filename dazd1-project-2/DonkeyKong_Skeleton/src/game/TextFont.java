@@ -0,0 +1,61 @@
+package game;
+
+import bagel.Font;
+import profiling.AssetLoadEvent;
+
+/**
+ * A handle to a font file at one size whose bagel {@link Font} is created on first use.
+ *
+ * Like a {@link Sprite}, a text font can be created and passed to a {@link interfaces.Renderer}
+ * without a window, so screens with text can be drawn headlessly through a renderer that does not
+ * draw. Loading the font and measuring text need the window's graphics context.
+ */
+public class TextFont {
+    private final String path;
+    private final int size;
+    private Font font = null;
+
+    /**
+     * Creates a handle to a font.
+     *
+     * @param path The path of the font file
+     * @param size The font size
+     */
+    public TextFont(String path, int size) {
+        this.path = path;
+        this.size = size;
+    }
+
+    /**
+     * Gets the bagel font, loading it now if it has not been used yet.
+     * Must only be called from the render thread once the window exists.
+     *
+     * @return The loaded font
+     */
+    public Font getFont() {
+        if (font == null) {
+            AssetLoadEvent event = new AssetLoadEvent();
+            event.begin();
+            font = new Font(path, size);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.kind = "font";
+                event.size = size;
+                event.commit();
+            }
+        }
+        return font;
+    }
+
+    /**
+     * Measures the width of a string in this font.
+     * Must only be called from the render thread once the window exists.
+     *
+     * @param text The text to measure
+     * @return Width in pixels
+     */
+    public double getWidth(String text) {
+        return getFont().getWidth(text);
+    }
+}
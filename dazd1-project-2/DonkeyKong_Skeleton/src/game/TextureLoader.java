@@ -0,0 +1,253 @@
+package game;
+
+import bagel.Image;
+import profiling.AssetLoadEvent;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads every texture in the resource directory ahead of use, so that drawing a sprite during
+ * gameplay never stalls the frame.
+ *
+ * Loading happens in two stages. At startup a small pool of background threads decodes each
+ * image file into RGBA pixels in a direct buffer. The render thread then uploads the decoded
+ * textures to the GPU in batches, spending at most a fixed time budget per frame. Bagel caches
+ * textures by path, so each upload is placed in that cache and any later {@code new Image(path)}
+ * for it is free.
+ *
+ * A sprite whose texture has not been uploaded yet is not ready: {@link #getImage(String)} returns
+ * null and queues the file for decoding if it was not already, and the sprite is skipped until its
+ * texture arrives. Nothing is ever decoded on the render thread.
+ */
+public final class TextureLoader {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // Textures decoded by a background thread, waiting to be uploaded
+    private static final Queue<DecodedTexture> decoded = new ConcurrentLinkedQueue<>();
+
+    // Uploaded textures and the paths already sent for decoding; only touched on the render thread
+    private static final Map<String, Image> images = new HashMap<>();
+    private static final Set<String> requested = new HashSet<>();
+
+    private static ExecutorService pool = null;
+
+    // Bagel's package-private texture constructor and texture cache, looked up on first upload
+    private static Constructor<?> textureConstructor = null;
+    private static Map<String, Object> bagelTextures = null;
+    private static boolean bagelCacheChecked = false;
+
+    /**
+     * An image file's pixels, decoded off the render thread.
+     */
+    private static final class DecodedTexture {
+        final String path;
+        final int width;
+        final int height;
+        final ByteBuffer pixels;
+
+        DecodedTexture(String path, int width, int height, ByteBuffer pixels) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+    }
+
+    private TextureLoader() {
+    }
+
+    /**
+     * Starts decoding every image in a directory on background threads.
+     * Has no effect if loading has already been started. Must be called from the render thread.
+     *
+     * @param directory The directory containing the images
+     * @param threads Number of background threads to use
+     */
+    public static void start(String directory, int threads) {
+        if (pool != null) {
+            return;
+        }
+        pool = createPool(threads);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*.{png,jpg,jpeg}")) {
+            for (Path file : files) {
+                // Build the path the same way the entities do, since bagel caches textures by path string
+                request(directory + "/" + file.getFileName());
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing textures in " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads decoded textures until the queue is empty or the time budget is spent.
+     * Must be called from the render thread once the window exists, e.g. at the start of each frame.
+     *
+     * @param budgetNanos Maximum time to spend, in nanoseconds
+     * @return Number of textures uploaded
+     */
+    public static int uploadPending(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int uploaded = 0;
+        // At least one texture is uploaded per call so the queue always drains
+        while (uploaded == 0 || System.nanoTime() < deadline) {
+            DecodedTexture texture = decoded.poll();
+            if (texture == null) {
+                break;
+            }
+            if (!images.containsKey(texture.path)) {
+                images.put(texture.path, upload(texture));
+                uploaded++;
+            }
+        }
+        return uploaded;
+    }
+
+    /**
+     * Gets the texture for an image file if it has been uploaded. Otherwise the file is queued for
+     * decoding, unless it already has been, and is uploaded by a later {@link #uploadPending} call.
+     * Must be called from the render thread.
+     *
+     * @param path The path of the image file
+     * @return The texture, or null if it is not ready yet
+     */
+    public static Image getImage(String path) {
+        Image image = images.get(path);
+        if (image == null) {
+            request(path);
+        }
+        return image;
+    }
+
+    /**
+     * Queues an image file for decoding on a background thread, unless it already has been.
+     *
+     * @param path The path of the image file
+     */
+    private static void request(String path) {
+        if (!requested.add(path)) {
+            return;
+        }
+        if (pool == null) {
+            pool = createPool(1);
+        }
+        pool.execute(() -> decode(path));
+    }
+
+    /**
+     * Creates the pool of background decoding threads.
+     *
+     * @param threads Number of threads
+     * @return The pool
+     */
+    private static ExecutorService createPool(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "texture-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Decodes an image file into RGBA pixels on a background thread and queues it for upload.
+     * A file that cannot be decoded is reported and never drawn.
+     *
+     * @param path The path of the image file
+     */
+    private static void decode(String path) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new File(path));
+        } catch (IOException e) {
+            System.err.println("Error decoding texture " + path + ": " + e.getMessage());
+            return;
+        }
+        if (image == null) {
+            System.err.println("Error decoding texture " + path + ": unsupported image format");
+            return;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        ByteBuffer pixels = ByteBuffer.allocateDirect(argb.length * BYTES_PER_PIXEL);
+        for (int pixel : argb) {
+            pixels.put((byte) (pixel >> 16)).put((byte) (pixel >> 8)).put((byte) pixel).put((byte) (pixel >>> 24));
+        }
+        pixels.flip();
+        decoded.add(new DecodedTexture(path, width, height, pixels));
+    }
+
+    /**
+     * Uploads a decoded texture to the GPU and creates its bagel image.
+     *
+     * @param texture The decoded texture
+     * @return The loaded image
+     */
+    private static Image upload(DecodedTexture texture) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        if (findBagelCache()) {
+            try {
+                bagelTextures.put(texture.path, textureConstructor.newInstance(
+                        texture.path, texture.width, texture.height, BYTES_PER_PIXEL, texture.pixels));
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Error uploading texture " + texture.path + ": " + e);
+            }
+        }
+        // Finds the uploaded texture in bagel's cache; only if it could not be placed there does
+        // bagel decode the file again itself
+        Image image = new Image(texture.path);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = texture.path;
+            event.kind = "image";
+            event.size = (long) texture.width * (long) texture.height;
+            event.commit();
+        }
+        return image;
+    }
+
+    /**
+     * Looks up bagel's texture constructor and texture cache, which it does not expose, so that
+     * decoded pixels can be uploaded without bagel decoding the file again.
+     *
+     * @return true if both were found
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean findBagelCache() {
+        if (!bagelCacheChecked) {
+            bagelCacheChecked = true;
+            try {
+                Constructor<?> constructor = Class.forName("bagel.Texture").getDeclaredConstructor(
+                        String.class, int.class, int.class, int.class, ByteBuffer.class);
+                constructor.setAccessible(true);
+                Field cache = Class.forName("bagel.TextureManager").getDeclaredField("loadedTextures");
+                cache.setAccessible(true);
+                bagelTextures = (Map<String, Object>) cache.get(null);
+                textureConstructor = constructor;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.err.println("Textures will be decoded by bagel on the render thread: " + e);
+            }
+        }
+        return textureConstructor != null;
+    }
+}
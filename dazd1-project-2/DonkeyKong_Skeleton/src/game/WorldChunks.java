@@ -0,0 +1,301 @@
+package game;
+
+import entities.Entity;
+import interfaces.EntitySpawner;
+import interfaces.Snapshottable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a level's world into square chunks so that only the area around the camera costs
+ * memory and simulation time.
+ *
+ * The chunks covering the view, plus a margin of chunks around it, are active. Entities from
+ * the level data are registered as spawn points and only created when their chunk first becomes
+ * active, and levels skip updating entities that are outside the active chunks. Which chunks have
+ * been loaded is part of the gameplay state, so restoring a snapshot neither repeats nor loses a
+ * spawn. When the whole world fits in the margin around the view, everything is loaded at the
+ * start and nothing is ever suspended.
+ */
+public class WorldChunks implements Snapshottable {
+    private static final int INITIAL_SPAWNS = 16;
+
+    private final double chunkSize;
+    private final int columns;
+    private final int rows;
+    private final int margin;
+    private final boolean[] loaded;
+
+    // Spawn points registered from level data
+    private int spawnCount = 0;
+    private int[] spawnKind = new int[INITIAL_SPAWNS];
+    private int[] spawnChunk = new int[INITIAL_SPAWNS];
+    private double[] spawnX = new double[INITIAL_SPAWNS];
+    private double[] spawnY = new double[INITIAL_SPAWNS];
+
+    // Active chunk range, inclusive
+    private int firstColumn = 0;
+    private int lastColumn = -1;
+    private int firstRow = 0;
+    private int lastRow = -1;
+
+    /**
+     * Creates a new chunk grid covering the world.
+     *
+     * @param worldWidth Width of the world in pixels
+     * @param worldHeight Height of the world in pixels
+     * @param chunkSize Width and height of a chunk in pixels
+     * @param margin Number of chunks around the view that are also active
+     * @throws IllegalArgumentException if the chunk size is not positive or the margin is negative
+     */
+    public WorldChunks(double worldWidth, double worldHeight, double chunkSize, int margin) {
+        if (chunkSize <= 0 || margin < 0) {
+            throw new IllegalArgumentException("Chunk size must be positive and margin must not be negative");
+        }
+        this.chunkSize = chunkSize;
+        this.columns = Math.max(1, (int) Math.ceil(worldWidth / chunkSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / chunkSize));
+        this.margin = margin;
+        this.loaded = new boolean[columns * rows];
+    }
+
+    /**
+     * Registers an entity from the level data, to be created when its chunk is loaded.
+     *
+     * @param kind The kind of entity, passed back to the spawner
+     * @param x The x-coordinate of the entity's center, in world coordinates
+     * @param y The y-coordinate of the entity's center, in world coordinates
+     */
+    public void addSpawn(int kind, double x, double y) {
+        if (spawnCount == spawnKind.length) {
+            int capacity = spawnCount * 2;
+            spawnKind = Arrays.copyOf(spawnKind, capacity);
+            spawnChunk = Arrays.copyOf(spawnChunk, capacity);
+            spawnX = Arrays.copyOf(spawnX, capacity);
+            spawnY = Arrays.copyOf(spawnY, capacity);
+        }
+        spawnKind[spawnCount] = kind;
+        spawnChunk[spawnCount] = getColumn(x) + getRow(y) * columns;
+        spawnX[spawnCount] = x;
+        spawnY[spawnCount] = y;
+        spawnCount++;
+    }
+
+    /**
+     * Moves a spawn point that has not been created yet, e.g. after the level data was edited.
+     *
+     * @param kind The kind of entity
+     * @param oldX The spawn point's current x-coordinate
+     * @param oldY The spawn point's current y-coordinate
+     * @param x The new x-coordinate
+     * @param y The new y-coordinate
+     * @return true if a matching spawn point was found and moved
+     */
+    public boolean moveSpawn(int kind, double oldX, double oldY, double x, double y) {
+        int index = findSpawn(kind, oldX, oldY);
+        if (index < 0) {
+            return false;
+        }
+        spawnChunk[index] = getColumn(x) + getRow(y) * columns;
+        spawnX[index] = x;
+        spawnY[index] = y;
+        return true;
+    }
+
+    /**
+     * Removes a spawn point, e.g. after the level data was edited.
+     *
+     * @param kind The kind of entity
+     * @param x The spawn point's x-coordinate
+     * @param y The spawn point's y-coordinate
+     * @return true if a matching spawn point was found and removed
+     */
+    public boolean removeSpawn(int kind, double x, double y) {
+        int index = findSpawn(kind, x, y);
+        if (index < 0) {
+            return false;
+        }
+        // Keep the remaining spawn points in the order they were added
+        int moved = spawnCount - index - 1;
+        System.arraycopy(spawnKind, index + 1, spawnKind, index, moved);
+        System.arraycopy(spawnChunk, index + 1, spawnChunk, index, moved);
+        System.arraycopy(spawnX, index + 1, spawnX, index, moved);
+        System.arraycopy(spawnY, index + 1, spawnY, index, moved);
+        spawnCount--;
+        return true;
+    }
+
+    /**
+     * Finds a spawn point by kind and position.
+     *
+     * @param kind The kind of entity
+     * @param x The spawn point's x-coordinate
+     * @param y The spawn point's y-coordinate
+     * @return The spawn point's index, or -1 if there is none
+     */
+    private int findSpawn(int kind, double x, double y) {
+        for (int i = 0; i < spawnCount; i++) {
+            if (spawnKind[i] == kind && spawnX[i] == x && spawnY[i] == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the active area to the camera's view.
+     *
+     * @param camera The camera
+     */
+    public void update(Camera camera) {
+        firstColumn = Math.max(0, getColumn(camera.getX()) - margin);
+        lastColumn = Math.min(columns - 1, getColumn(camera.getX() + camera.getViewWidth()) + margin);
+        firstRow = Math.max(0, getRow(camera.getY()) - margin);
+        lastRow = Math.min(rows - 1, getRow(camera.getY() + camera.getViewHeight()) + margin);
+    }
+
+    /**
+     * Loads every active chunk that has not been loaded yet, creating its entities.
+     *
+     * @param spawner Creates the entities of the newly loaded chunks
+     * @return Number of chunks loaded
+     */
+    public int loadActive(EntitySpawner spawner) {
+        int newlyLoaded = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int chunk = column + row * columns;
+                if (loaded[chunk]) {
+                    continue;
+                }
+                loaded[chunk] = true;
+                newlyLoaded++;
+                for (int i = 0; i < spawnCount; i++) {
+                    if (spawnChunk[i] == chunk) {
+                        spawner.spawn(spawnKind[i], spawnX[i], spawnY[i]);
+                    }
+                }
+            }
+        }
+        return newlyLoaded;
+    }
+
+    /**
+     * Checks whether a point is in the active area.
+     *
+     * @param x The x-coordinate, in world coordinates
+     * @param y The y-coordinate, in world coordinates
+     * @return true if the point's chunk is active
+     */
+    public boolean isActive(double x, double y) {
+        int column = getColumn(x);
+        int row = getRow(y);
+        return column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow;
+    }
+
+    /**
+     * Checks whether the chunk containing a point has been loaded, so its spawn points have
+     * already been created.
+     *
+     * @param x The x-coordinate, in world coordinates
+     * @param y The y-coordinate, in world coordinates
+     * @return true if the point's chunk has been loaded
+     */
+    public boolean isLoaded(double x, double y) {
+        return loaded[getColumn(x) + getRow(y) * columns];
+    }
+
+    /**
+     * Checks whether an entity is in the active area and should be simulated.
+     *
+     * @param entity The entity
+     * @return true if the entity's center is in an active chunk
+     */
+    public boolean isActive(Entity entity) {
+        return isActive(entity.getX(), entity.getY());
+    }
+
+    /**
+     * Gets the number of chunks that have been loaded.
+     *
+     * @return Number of loaded chunks
+     */
+    public int getLoadedCount() {
+        int count = 0;
+        for (boolean chunkLoaded : loaded) {
+            if (chunkLoaded) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the total number of chunks in the world.
+     *
+     * @return Number of chunks
+     */
+    public int getChunkCount() {
+        return loaded.length;
+    }
+
+    /**
+     * Writes which chunks have been loaded to a snapshot buffer.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(loaded.length);
+        for (int i = 0; i < loaded.length; i += 8) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && i + bit < loaded.length; bit++) {
+                if (loaded[i + bit]) {
+                    bits |= 1 << bit;
+                }
+            }
+            buffer.put((byte) bits);
+        }
+    }
+
+    /**
+     * Restores which chunks have been loaded from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     * @throws IllegalArgumentException if the snapshot is for a world with a different chunk grid
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count != loaded.length) {
+            throw new IllegalArgumentException("Snapshot has " + count + " chunks, world has " + loaded.length);
+        }
+        for (int i = 0; i < loaded.length; i += 8) {
+            int bits = buffer.get();
+            for (int bit = 0; bit < 8 && i + bit < loaded.length; bit++) {
+                loaded[i + bit] = (bits & (1 << bit)) != 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the chunk column holding an x-coordinate, limited to the grid.
+     *
+     * @param x The x-coordinate, in world coordinates
+     * @return The column index
+     */
+    private int getColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / chunkSize)));
+    }
+
+    /**
+     * Gets the chunk row holding a y-coordinate, limited to the grid.
+     *
+     * @param y The y-coordinate, in world coordinates
+     * @return The row index
+     */
+    private int getRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / chunkSize)));
+    }
+}
@@ -0,0 +1,60 @@
+package interfaces;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Interface for the backends the audio engine's mixer thread plays through.
+ *
+ * Effects are loaded once into the backend and then started by handle; music is streamed as a
+ * queue of decoded chunks that the backend asks for with {@link #needsMusic()} as it plays them.
+ * Every method is called from the mixer thread only. Sample data is signed 16-bit little-endian
+ * or unsigned 8-bit PCM.
+ */
+public interface AudioSink {
+    /**
+     * Opens the backend.
+     *
+     * @throws IllegalStateException if there is no device to play on
+     */
+    void open();
+
+    /**
+     * Loads a sound effect.
+     *
+     * @param format The sample format
+     * @param data The samples
+     * @return A handle to play the effect with
+     */
+    int loadEffect(AudioFormat format, byte[] data);
+
+    /**
+     * Starts playing a loaded effect. Effects may overlap; if every voice is busy the backend
+     * may cut off the oldest.
+     *
+     * @param effect The handle returned by {@link #loadEffect}
+     * @param gain The volume, from 0 to 1
+     */
+    void playEffect(int effect, float gain);
+
+    /**
+     * Checks whether the music queue has room for another chunk.
+     *
+     * @return true if {@link #queueMusic} should be called
+     */
+    boolean needsMusic();
+
+    /**
+     * Queues the next chunk of music, starting the music if it is not playing.
+     *
+     * @param format The sample format
+     * @param data The samples; the backend copies them, so the array can be reused
+     * @param length The number of bytes of samples in the array
+     * @param gain The volume, from 0 to 1
+     */
+    void queueMusic(AudioFormat format, byte[] data, int length, float gain);
+
+    /**
+     * Stops all sound and releases the backend.
+     */
+    void close();
+}
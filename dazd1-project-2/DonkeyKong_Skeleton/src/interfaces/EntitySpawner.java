@@ -0,0 +1,16 @@
+package interfaces;
+
+/**
+ * Interface for objects that create entities from level data when the part of the world
+ * holding them is loaded.
+ */
+public interface EntitySpawner {
+    /**
+     * Creates an entity described by the level data.
+     *
+     * @param kind The kind of entity, as registered with the spawn point
+     * @param x The x-coordinate of the entity's center, in world coordinates
+     * @param y The y-coordinate of the entity's center, in world coordinates
+     */
+    void spawn(int kind, double x, double y);
+}
@@ -0,0 +1,119 @@
+package interfaces;
+
+import game.GameState;
+
+/**
+ * Interface for objects that observe notable gameplay events, e.g. to collect statistics.
+ * All methods have empty defaults so listeners only implement the events they need.
+ */
+public interface GameplayListener {
+    /**
+     * Called when the player dies by touching an enemy or projectile.
+     *
+     * @param level The level being played
+     * @param frame The frame the death happened on
+     * @param x The player's center x-coordinate
+     * @param y The player's center y-coordinate
+     */
+    default void onPlayerDeath(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player jumps.
+     *
+     * @param level The level being played
+     * @param frame The frame the jump started on
+     * @param x The player's center x-coordinate
+     * @param y The player's center y-coordinate
+     */
+    default void onJump(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player picks up a hammer.
+     *
+     * @param level The level being played
+     * @param frame The frame the hammer was picked up on
+     * @param x The player's center x-coordinate
+     * @param y The player's center y-coordinate
+     */
+    default void onHammerCollected(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player fires a bullet.
+     *
+     * @param level The level being played
+     * @param frame The frame the bullet was fired on
+     * @param x The bullet's center x-coordinate
+     * @param y The bullet's center y-coordinate
+     */
+    default void onShot(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player scores by jumping over a barrel.
+     *
+     * @param level The level being played
+     * @param frame The frame the jump was scored on
+     * @param x The player's center x-coordinate
+     * @param y The player's center y-coordinate
+     */
+    default void onBarrelJump(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when a banana hits the player.
+     *
+     * @param level The level being played
+     * @param frame The frame the hit happened on
+     * @param x The player's center x-coordinate
+     * @param y The player's center y-coordinate
+     */
+    default void onBananaHit(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player smashes a barrel with the hammer.
+     *
+     * @param level The level being played
+     * @param frame The frame the barrel was destroyed on
+     * @param x The barrel's center x-coordinate
+     * @param y The barrel's center y-coordinate
+     */
+    default void onBarrelDestroyed(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when the player destroys a monkey, by shooting it or with the hammer.
+     *
+     * @param level The level being played
+     * @param frame The frame the monkey was destroyed on
+     * @param x The monkey's center x-coordinate
+     * @param y The monkey's center y-coordinate
+     * @param shot true if a bullet destroyed it, false if the hammer did
+     */
+    default void onMonkeyDestroyed(GameState level, int frame, double x, double y, boolean shot) {
+    }
+
+    /**
+     * Called when a monkey throws a banana.
+     *
+     * @param level The level being played
+     * @param frame The frame the banana was thrown on
+     * @param x The banana's center x-coordinate
+     * @param y The banana's center y-coordinate
+     */
+    default void onBananaThrown(GameState level, int frame, double x, double y) {
+    }
+
+    /**
+     * Called when a time bonus is added to the score for finishing a level early.
+     *
+     * @param level The level being played
+     * @param frame The frame the level was finished on
+     * @param bonus The bonus points
+     */
+    default void onTimeBonus(GameState level, int frame, int bonus) {
+    }
+}
@@ -0,0 +1,54 @@
+package interfaces;
+
+import game.DrawStyle;
+import game.Sprite;
+import game.TextFont;
+
+/**
+ * Interface for the backends that screens, entities and the HUD draw through.
+ *
+ * Drawing code only submits draws; what happens to them depends on the backend: the GL renderer
+ * draws with bagel, a null renderer discards them so screens can be drawn without a window, and
+ * a recording renderer counts them, so the cost of submitting a frame can be measured separately
+ * from the time the GPU takes to draw it.
+ */
+public interface Renderer {
+    /**
+     * Starts a frame. Called before the first draw of every frame.
+     */
+    void beginFrame();
+
+    /**
+     * Draws a whole image centered at a position.
+     *
+     * @param sprite The image
+     * @param x The x-coordinate of the center, on screen
+     * @param y The y-coordinate of the center, on screen
+     */
+    void drawImage(Sprite sprite, double x, double y);
+
+    /**
+     * Draws an image centered at a position with a style, such as a sprite sheet frame or a tint.
+     *
+     * @param sprite The image
+     * @param x The x-coordinate of the center, on screen
+     * @param y The y-coordinate of the center, on screen
+     * @param style How to draw the image
+     */
+    void drawImage(Sprite sprite, double x, double y, DrawStyle style);
+
+    /**
+     * Draws a line of text.
+     *
+     * @param font The font
+     * @param text The text
+     * @param x The x-coordinate of the text's left edge, on screen
+     * @param y The y-coordinate of the text's baseline, on screen
+     */
+    void drawText(TextFont font, String text, double x, double y);
+
+    /**
+     * Ends a frame. Called after the last draw of every frame.
+     */
+    void endFrame();
+}
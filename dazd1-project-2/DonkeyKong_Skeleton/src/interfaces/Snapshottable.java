@@ -0,0 +1,25 @@
+package interfaces;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface for objects whose state can be captured into a binary snapshot.
+ * Used for save states, replays, and synchronising simulations.
+ */
+public interface Snapshottable {
+    /**
+     * Writes the object's current state to the buffer.
+     * Implementations should not allocate, so that capturing stays cheap.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    void writeState(ByteBuffer buffer);
+    
+    /**
+     * Restores the object's state from the buffer.
+     * Must read exactly what {@link #writeState(ByteBuffer)} wrote.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    void readState(ByteBuffer buffer);
+}
@@ -0,0 +1,401 @@
+package net;
+
+import game.DeltaCodec;
+import game.StateSnapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Client side of the multiplayer protocol.
+ *
+ * The client sends its keys for each tick and rebuilds every player's state from the server's
+ * delta snapshots. It keeps as much history as the server, so any snapshot can be applied to the
+ * tick it was encoded against, and acknowledges the latest snapshot with every input packet.
+ * Snapshots that fail their checksum are dropped; the next one is encoded against an older,
+ * acknowledged tick.
+ *
+ * Non-blocking: call {@link #poll()} once per frame to process waiting packets.
+ */
+public class GameClient implements Closeable {
+    private static final int INITIAL_STATE_CAPACITY = 1024;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(Protocol.HEADER_SIZE + 12 + Protocol.INPUT_REDUNDANCY);
+    private final CRC32 crc = new CRC32();
+
+    // Match asked for and the server's cookie, echoed in join requests
+    private boolean joinRequested = false;
+    private int requestedMatchId = 0;
+    private long cookie = 0;
+
+    // Match details from the welcome packet
+    private int matchId = -1;
+    private int playerIndex = -1;
+    private int maxPlayers = 0;
+    private byte rejectReason = 0;
+
+    // Reconstructed states, indexed by tick % history size and then player
+    private final int historySize;
+    private final int[] historyTick;
+    private StateSnapshot[][] history;
+    private boolean[][] present;
+    private byte[][] status;
+    private int[][] score;
+    private int latestTick = -1;
+
+    // Keys sent for recent ticks, resent with every input packet
+    private final int[] sentKeys = new int[Protocol.INPUT_REDUNDANCY];
+    private final int[] sentTicks = new int[Protocol.INPUT_REDUNDANCY];
+
+    private long snapshotsReceived = 0;
+    private long bytesReceived = 0;
+    private long checksumFailures = 0;
+
+    /**
+     * Opens a client socket for a server.
+     *
+     * @param server The server's address
+     * @param historySize Ticks of state to keep; at least the server's {@code server.snapshotHistory}
+     * @throws IOException if the socket cannot be opened
+     */
+    public GameClient(SocketAddress server, int historySize) throws IOException {
+        this.historySize = historySize;
+        this.historyTick = new int[historySize];
+        Arrays.fill(historyTick, -1);
+        Arrays.fill(sentTicks, -1);
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(server);
+    }
+
+    /**
+     * Asks to join a match. Repeat until {@link #isJoined()} or {@link #getRejectReason()} says
+     * the server has answered, as the request or its reply may be lost. The server's challenge is
+     * answered by {@link #poll()}.
+     *
+     * @param matchId The match to join
+     * @throws IOException if sending fails
+     */
+    public void join(int matchId) throws IOException {
+        if (!joinRequested || matchId != requestedMatchId) {
+            joinRequested = true;
+            requestedMatchId = matchId;
+            cookie = 0;
+        }
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.JOIN);
+        sendBuffer.putInt(matchId);
+        sendBuffer.putLong(cookie);
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    /**
+     * Sends the keys held for a tick, along with the keys of the ticks before it.
+     *
+     * @param tick The match tick the keys are for
+     * @param keys The keys held, as {@link game.InputState} bits
+     * @throws IOException if sending fails
+     */
+    public void sendInput(int tick, int keys) throws IOException {
+        int slot = Math.floorMod(tick, Protocol.INPUT_REDUNDANCY);
+        sentKeys[slot] = keys & Protocol.GAMEPLAY_KEYS;
+        sentTicks[slot] = tick;
+
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.INPUT);
+        sendBuffer.putInt(latestTick);
+        sendBuffer.putInt(tick);
+        sendBuffer.put((byte) Protocol.INPUT_REDUNDANCY);
+        for (int t = tick - Protocol.INPUT_REDUNDANCY + 1; t <= tick; t++) {
+            int i = Math.floorMod(t, Protocol.INPUT_REDUNDANCY);
+            // Ticks never sent (e.g. skipped frames) repeat the nearest earlier keys
+            sendBuffer.put((byte) (sentTicks[i] == t ? sentKeys[i] : keysBefore(t)));
+        }
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    /**
+     * Finds the keys most recently sent before a tick.
+     *
+     * @param tick The tick
+     * @return The keys, or 0 if none were sent in the redundancy window
+     */
+    private int keysBefore(int tick) {
+        int best = -1;
+        int keys = 0;
+        for (int i = 0; i < Protocol.INPUT_REDUNDANCY; i++) {
+            if (sentTicks[i] < tick && sentTicks[i] > best) {
+                best = sentTicks[i];
+                keys = sentKeys[i];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Tells the server this client is leaving.
+     *
+     * @throws IOException if sending fails
+     */
+    public void leave() throws IOException {
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.LEAVE);
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    /**
+     * Processes every waiting packet.
+     *
+     * @return true if a newer snapshot was applied
+     * @throws IOException if reading from the socket fails
+     */
+    public boolean poll() throws IOException {
+        boolean updated = false;
+        while (true) {
+            receiveBuffer.clear();
+            int length = channel.read(receiveBuffer);
+            if (length <= 0) {
+                return updated;
+            }
+            bytesReceived += length;
+            receiveBuffer.flip();
+            try {
+                int type = Protocol.readHeader(receiveBuffer);
+                if (type == Protocol.WELCOME) {
+                    readWelcome();
+                } else if (type == Protocol.CHALLENGE && playerIndex < 0 && joinRequested) {
+                    cookie = receiveBuffer.getLong();
+                    join(requestedMatchId);
+                } else if (type == Protocol.REJECT) {
+                    rejectReason = receiveBuffer.get();
+                } else if (type == Protocol.SNAPSHOT && playerIndex >= 0) {
+                    updated |= readSnapshot();
+                }
+            } catch (RuntimeException e) {
+                // A truncated or malformed packet; the next snapshot will correct the state
+            }
+        }
+    }
+
+    /**
+     * Reads a welcome packet and sets up the state history for the match.
+     */
+    private void readWelcome() {
+        int id = receiveBuffer.getInt();
+        int index = receiveBuffer.get();
+        int players = receiveBuffer.get();
+        if (playerIndex >= 0) {
+            return; // A repeated welcome
+        }
+        matchId = id;
+        playerIndex = index;
+        maxPlayers = players;
+        history = new StateSnapshot[historySize][maxPlayers];
+        present = new boolean[historySize][maxPlayers];
+        status = new byte[historySize][maxPlayers];
+        score = new int[historySize][maxPlayers];
+    }
+
+    /**
+     * Reads a snapshot packet and rebuilds every player's state for its tick.
+     *
+     * @return true if the snapshot was newer than any before and was applied
+     */
+    private boolean readSnapshot() {
+        int tick = receiveBuffer.getInt();
+        int baseTick = receiveBuffer.getInt();
+        int count = receiveBuffer.get() & 0xFF;
+        if (tick <= latestTick) {
+            return false; // Late or duplicated
+        }
+        int baseEntry = -1;
+        if (baseTick >= 0) {
+            baseEntry = baseTick % historySize;
+            if (historyTick[baseEntry] != baseTick) {
+                return false; // Encoded against a tick this client no longer has
+            }
+        }
+
+        int entry = tick % historySize;
+        historyTick[entry] = -1;
+        Arrays.fill(present[entry], false);
+        byte[] data = receiveBuffer.array();
+        for (int c = 0; c < count; c++) {
+            int index = receiveBuffer.get();
+            byte playerStatus = receiveBuffer.get();
+            int playerScore = receiveBuffer.getInt();
+            int checksum = receiveBuffer.getInt();
+            int length = receiveBuffer.getInt();
+            if (index < 0 || index >= maxPlayers || length > receiveBuffer.remaining()) {
+                return false;
+            }
+
+            if (history[entry][index] == null) {
+                history[entry][index] = new StateSnapshot(INITIAL_STATE_CAPACITY);
+            }
+            StateSnapshot state = history[entry][index];
+            if (baseEntry >= 0 && present[baseEntry][index]) {
+                state.copyFrom(history[baseEntry][index]);
+            } else {
+                state.resize(0);
+            }
+            DeltaCodec.apply(data, receiveBuffer.position(), length, state);
+            receiveBuffer.position(receiveBuffer.position() + length);
+
+            crc.reset();
+            crc.update(state.array(), 0, state.size());
+            if ((int) crc.getValue() != checksum) {
+                checksumFailures++;
+                return false;
+            }
+            present[entry][index] = true;
+            status[entry][index] = playerStatus;
+            score[entry][index] = playerScore;
+        }
+        historyTick[entry] = tick;
+        latestTick = tick;
+        snapshotsReceived++;
+        return true;
+    }
+
+    /**
+     * Checks whether a player is in the latest snapshot.
+     *
+     * @param index The player's index
+     * @return true if the player's state is available
+     */
+    public boolean isPresent(int index) {
+        return latestTick >= 0 && present[latestTick % historySize][index];
+    }
+
+    /**
+     * Gets a player's state at the latest snapshot, which can be restored into a level screen.
+     *
+     * @param index The player's index
+     * @return The state, or null if the player is not in the latest snapshot
+     */
+    public StateSnapshot getState(int index) {
+        return isPresent(index) ? history[latestTick % historySize][index] : null;
+    }
+
+    /**
+     * Gets a player's status at the latest snapshot.
+     *
+     * @param index The player's index
+     * @return One of the {@code Protocol.STATUS_} values
+     */
+    public byte getStatus(int index) {
+        return isPresent(index) ? status[latestTick % historySize][index] : Protocol.STATUS_PLAYING;
+    }
+
+    /**
+     * Gets a player's score at the latest snapshot.
+     *
+     * @param index The player's index
+     * @return The score, or 0 if the player is not in the latest snapshot
+     */
+    public int getScore(int index) {
+        return isPresent(index) ? score[latestTick % historySize][index] : 0;
+    }
+
+    /**
+     * Checks whether the server has accepted this client into a match.
+     *
+     * @return true once a welcome has been received
+     */
+    public boolean isJoined() {
+        return playerIndex >= 0;
+    }
+
+    /**
+     * Gets the match this client joined.
+     *
+     * @return The match id, or -1 before joining
+     */
+    public int getMatchId() {
+        return matchId;
+    }
+
+    /**
+     * Gets this client's player index in its match.
+     *
+     * @return The index, or -1 before joining
+     */
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /**
+     * Gets the number of player slots in the match.
+     *
+     * @return Maximum players, or 0 before joining
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * Gets why the server refused to let this client join.
+     *
+     * @return One of the {@code Protocol.REJECT_} values, or 0 if not rejected
+     */
+    public byte getRejectReason() {
+        return rejectReason;
+    }
+
+    /**
+     * Gets the tick of the latest applied snapshot.
+     *
+     * @return The tick, or -1 before the first snapshot
+     */
+    public int getLatestTick() {
+        return latestTick;
+    }
+
+    /**
+     * Gets the number of snapshots applied.
+     *
+     * @return Snapshot count
+     */
+    public long getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    /**
+     * Gets the number of bytes received.
+     *
+     * @return Bytes received in all packets
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Gets the number of snapshots dropped because a rebuilt state failed its checksum.
+     *
+     * @return Checksum failure count
+     */
+    public long getChecksumFailures() {
+        return checksumFailures;
+    }
+
+    /**
+     * Closes the client socket.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,573 @@
+package net;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authoritative multiplayer server for Shadow Donkey Kong.
+ *
+ * A single thread owns the UDP socket: it waits on a selector until the next tick is due, drains
+ * every waiting packet, and after each tick sends every player a snapshot of their match. Matches
+ * are independent, so each tick they are simulated in parallel on a fixed pool of workers, each
+ * owning a fixed slice of the matches; the network thread waits for all slices before sending.
+ *
+ * Joining takes a challenge round trip (see {@link Protocol}). Cookies are a keyed hash of the
+ * client's address, the match and the current cookie period, with a key chosen at random at
+ * startup, so the server checks them without remembering which it handed out. A cookie is
+ * accepted during the period it was made in and the next one.
+ *
+ * The server listens on {@code server.bindAddress}, the loopback address unless configured.
+ *
+ * Usage: {@code java net.GameServer [app.properties] [message.properties]}
+ */
+public class GameServer implements Runnable, Closeable {
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+    private static final long COOKIE_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int COOKIE_KEY_BYTES = 32;
+
+    private final Properties gameProps;
+    private final Properties messageProps;
+    private final int maxPlayersPerMatch;
+    private final int maxMatches;
+    private final int historySize;
+    private final long timeoutNanos;
+    private final long statusIntervalNanos;
+
+    private final Selector selector;
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final Mac cookieMac;
+    private final ByteBuffer cookieInput = ByteBuffer.allocate(16);
+
+    private final Map<Integer, Match> matchesById = new HashMap<>();
+    private final List<Match> matches = new ArrayList<>();
+    private final Map<SocketAddress, Match> matchesByPlayer = new HashMap<>();
+    private final List<SocketAddress> removedPlayers = new ArrayList<>();
+
+    // Parallel ticking; each task ticks every matches.size() / workers-th match
+    private final ExecutorService workers;
+    private final List<Callable<Object>> tickTasks = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    // Statistics, only touched by the network thread
+    private long ticks = 0;
+    private long tickNanosTotal = 0;
+    private long tickNanosMax = 0;
+    private long packetsReceived = 0;
+    private long packetsSent = 0;
+    private long bytesSent = 0;
+    private long snapshotsDropped = 0;
+
+    /**
+     * Creates a server bound to a UDP port on the address in {@code server.bindAddress}.
+     *
+     * @param gameProps Properties containing game configuration
+     * @param messageProps Properties containing game messages
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException if the socket cannot be opened
+     */
+    public GameServer(Properties gameProps, Properties messageProps, int port) throws IOException {
+        // Server levels never rewind or record; clients send everything the server needs
+        this.gameProps = new Properties();
+        this.gameProps.putAll(gameProps);
+        this.gameProps.setProperty("gamePlay.rewind.seconds", "0");
+        this.gameProps.setProperty("sessions.dir", "");
+        this.messageProps = messageProps;
+
+        maxPlayersPerMatch = Integer.parseInt(gameProps.getProperty("server.maxPlayersPerMatch", "4"));
+        maxMatches = Integer.parseInt(gameProps.getProperty("server.maxMatches", "512"));
+        historySize = Integer.parseInt(gameProps.getProperty("server.snapshotHistory", "32"));
+        timeoutNanos = (long) (Double.parseDouble(gameProps.getProperty("server.timeoutSeconds", "10")) * 1e9);
+        statusIntervalNanos = (long) (Double.parseDouble(gameProps.getProperty("server.statusSeconds", "10")) * 1e9);
+        if (maxPlayersPerMatch < 1 || maxPlayersPerMatch > 127) {
+            throw new IllegalArgumentException("server.maxPlayersPerMatch must be between 1 and 127");
+        }
+        if (historySize < 2) {
+            throw new IllegalArgumentException("server.snapshotHistory must be at least 2");
+        }
+
+        int threads = Integer.parseInt(gameProps.getProperty("server.threads", "0"));
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "match-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            final int first = i;
+            final int stride = threads;
+            tickTasks.add(() -> {
+                for (int m = first; m < matches.size(); m += stride) {
+                    matches.get(m).tick();
+                }
+                return null;
+            });
+        }
+
+        try {
+            byte[] key = new byte[COOKIE_KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            cookieMac = Mac.getInstance("HmacSHA256");
+            cookieMac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            // Every Java platform provides HmacSHA256
+            throw new IllegalStateException("Cannot create join cookies: " + e.getMessage(), e);
+        }
+
+        String bindAddress = gameProps.getProperty("server.bindAddress", "127.0.0.1");
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(bindAddress, port));
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    /**
+     * Gets the address the server is listening on.
+     *
+     * @return The local address and UDP port
+     * @throws IOException if the socket has been closed
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local UDP port
+     * @throws IOException if the socket has been closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Runs the server until {@link #close()} is called.
+     */
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + TICK_NANOS;
+        long nextStatus = System.nanoTime() + statusIntervalNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                    selector.selectedKeys().clear();
+                }
+                receivePackets();
+
+                long now = System.nanoTime();
+                if (now < nextTick) {
+                    continue;
+                }
+                // Fall behind by at most one tick rather than running a burst of catch-up ticks
+                nextTick = Math.max(nextTick + TICK_NANOS, now);
+                tickMatches();
+                sendSnapshots();
+                removeIdlePlayers(now);
+
+                if (statusIntervalNanos > 0 && now >= nextStatus) {
+                    nextStatus = now + statusIntervalNanos;
+                    System.out.println(getStatus());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing server socket: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the server. The socket is closed once the server thread leaves its loop.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Reads every waiting packet.
+     *
+     * @throws IOException if reading from the socket fails
+     */
+    private void receivePackets() throws IOException {
+        long now = System.nanoTime();
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress sender = channel.receive(receiveBuffer);
+            if (sender == null) {
+                return;
+            }
+            packetsReceived++;
+            receiveBuffer.flip();
+            try {
+                handlePacket(sender, Protocol.readHeader(receiveBuffer), now);
+            } catch (RuntimeException e) {
+                // A truncated or malformed packet; ignore it rather than trusting any of it
+            }
+        }
+    }
+
+    /**
+     * Handles one received packet.
+     *
+     * @param sender The sender's address
+     * @param type The packet type from its header
+     * @param now The current time in nanoseconds
+     * @throws IOException if a reply cannot be sent
+     */
+    private void handlePacket(SocketAddress sender, int type, long now) throws IOException {
+        Match match = matchesByPlayer.get(sender);
+        if (type == Protocol.JOIN) {
+            int matchId = receiveBuffer.getInt();
+            long cookie = receiveBuffer.getLong();
+            if (match != null) {
+                // The welcome was lost; send it again. The player has already answered a challenge
+                sendWelcome(sender, match, match.findPlayer(sender));
+            } else if (isValidCookie(sender, matchId, cookie, now)) {
+                join(sender, matchId, now);
+            } else {
+                sendChallenge(sender, makeCookie(sender, matchId, Math.floorDiv(now, COOKIE_PERIOD_NANOS)));
+            }
+        } else if (type == Protocol.INPUT && match != null) {
+            match.receiveInput(match.findPlayer(sender), receiveBuffer, now);
+        } else if (type == Protocol.LEAVE && match != null) {
+            match.removePlayer(match.findPlayer(sender));
+            matchesByPlayer.remove(sender);
+            removeIfEmpty(match);
+        }
+    }
+
+    /**
+     * Adds a player to a match, creating the match if it does not exist yet.
+     *
+     * @param sender The player's address
+     * @param matchId The match to join
+     * @param now The current time in nanoseconds
+     * @throws IOException if the reply cannot be sent
+     */
+    private void join(SocketAddress sender, int matchId, long now) throws IOException {
+        Match match = matchesById.get(matchId);
+        if (match == null) {
+            if (matches.size() >= maxMatches) {
+                sendReject(sender, Protocol.REJECT_SERVER_FULL);
+                return;
+            }
+            match = new Match(matchId, maxPlayersPerMatch, historySize, gameProps, messageProps);
+            matchesById.put(matchId, match);
+            matches.add(match);
+        }
+        int index = match.addPlayer(sender, now);
+        if (index < 0) {
+            sendReject(sender, Protocol.REJECT_MATCH_FULL);
+            return;
+        }
+        matchesByPlayer.put(sender, match);
+        sendWelcome(sender, match, index);
+    }
+
+    /**
+     * Checks a cookie echoed in a join request.
+     *
+     * @param sender The sender's address
+     * @param matchId The match the sender asked to join
+     * @param cookie The cookie from the request, 0 if it has not been challenged yet
+     * @param now The current time in nanoseconds
+     * @return true if the cookie was made for this sender and match in this or the last period
+     */
+    private boolean isValidCookie(SocketAddress sender, int matchId, long cookie, long now) {
+        if (cookie == 0) {
+            return false;
+        }
+        long period = Math.floorDiv(now, COOKIE_PERIOD_NANOS);
+        return cookie == makeCookie(sender, matchId, period) || cookie == makeCookie(sender, matchId, period - 1);
+    }
+
+    /**
+     * Derives the join cookie for an address, match and cookie period.
+     *
+     * @param sender The client's address
+     * @param matchId The match
+     * @param period The cookie period
+     * @return The cookie
+     */
+    private long makeCookie(SocketAddress sender, int matchId, long period) {
+        InetSocketAddress address = (InetSocketAddress) sender;
+        cookieMac.update(address.getAddress().getAddress());
+        cookieInput.clear();
+        cookieInput.putInt(address.getPort()).putInt(matchId).putLong(period);
+        cookieInput.flip();
+        cookieMac.update(cookieInput);
+        return ByteBuffer.wrap(cookieMac.doFinal()).getLong();
+    }
+
+    /**
+     * Simulates one tick of every match on the worker pool.
+     *
+     * @throws InterruptedException if the server thread is interrupted while waiting
+     */
+    private void tickMatches() throws InterruptedException {
+        long start = System.nanoTime();
+        if (!matches.isEmpty()) {
+            for (Future<Object> result : workers.invokeAll(tickTasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    System.err.println("Error ticking matches: " + e.getCause());
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        ticks++;
+        tickNanosTotal += elapsed;
+        tickNanosMax = Math.max(tickNanosMax, elapsed);
+    }
+
+    /**
+     * Sends every player the latest snapshot of their match.
+     *
+     * @throws IOException if sending fails
+     */
+    private void sendSnapshots() throws IOException {
+        for (int m = 0; m < matches.size(); m++) {
+            Match match = matches.get(m);
+            for (int i = 0; i < match.getMaxPlayers(); i++) {
+                SocketAddress address = match.getAddress(i);
+                if (address == null) {
+                    continue;
+                }
+                if (match.writeSnapshot(i, sendBuffer)) {
+                    send(address);
+                } else {
+                    snapshotsDropped++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops players that have stopped sending input, and matches left without players.
+     *
+     * @param now The current time in nanoseconds
+     */
+    private void removeIdlePlayers(long now) {
+        for (int m = matches.size() - 1; m >= 0; m--) {
+            Match match = matches.get(m);
+            removedPlayers.clear();
+            match.removeIdlePlayers(now, timeoutNanos, removedPlayers);
+            for (int i = 0; i < removedPlayers.size(); i++) {
+                matchesByPlayer.remove(removedPlayers.get(i));
+            }
+            removeIfEmpty(match);
+        }
+    }
+
+    /**
+     * Removes a match once its last player has left.
+     *
+     * @param match The match
+     */
+    private void removeIfEmpty(Match match) {
+        if (match.getPlayerCount() == 0) {
+            matchesById.remove(match.getId());
+            matches.remove(match);
+        }
+    }
+
+    /**
+     * Sends a player their index in the match they joined.
+     *
+     * @param address The player's address
+     * @param match The match
+     * @param index The player's index
+     * @throws IOException if sending fails
+     */
+    private void sendWelcome(SocketAddress address, Match match, int index) throws IOException {
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.WELCOME);
+        sendBuffer.putInt(match.getId());
+        sendBuffer.put((byte) index);
+        sendBuffer.put((byte) match.getMaxPlayers());
+        sendBuffer.putInt(match.getTick());
+        sendBuffer.flip();
+        send(address);
+    }
+
+    /**
+     * Asks a client to prove it can receive at its address by echoing a cookie.
+     *
+     * @param address The client's address
+     * @param cookie The cookie to echo in its next join request
+     * @throws IOException if sending fails
+     */
+    private void sendChallenge(SocketAddress address, long cookie) throws IOException {
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.CHALLENGE);
+        sendBuffer.putLong(cookie);
+        sendBuffer.flip();
+        send(address);
+    }
+
+    /**
+     * Tells a client their join was refused.
+     *
+     * @param address The client's address
+     * @param reason Why the join was refused
+     * @throws IOException if sending fails
+     */
+    private void sendReject(SocketAddress address, byte reason) throws IOException {
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.REJECT);
+        sendBuffer.put(reason);
+        sendBuffer.flip();
+        send(address);
+    }
+
+    /**
+     * Sends the contents of the send buffer.
+     * A full socket buffer drops the packet, as the network would.
+     *
+     * @param address The destination
+     * @throws IOException if sending fails
+     */
+    private void send(SocketAddress address) throws IOException {
+        int length = sendBuffer.remaining();
+        if (channel.send(sendBuffer, address) > 0) {
+            packetsSent++;
+            bytesSent += length;
+        }
+    }
+
+    /**
+     * Gets a one-line summary of the server's load since it started.
+     *
+     * @return Matches, players, tick times and traffic
+     */
+    public String getStatus() {
+        return String.format("matches=%d players=%d ticks=%d avgTick=%.3fms maxTick=%.3fms "
+                        + "packetsIn=%d packetsOut=%d bytesOut=%d dropped=%d",
+                matches.size(), matchesByPlayer.size(), ticks,
+                ticks > 0 ? tickNanosTotal / 1e6 / ticks : 0.0, tickNanosMax / 1e6,
+                packetsReceived, packetsSent, bytesSent, snapshotsDropped);
+    }
+
+    /**
+     * Gets the number of ticks simulated.
+     *
+     * @return Tick count
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the average time taken to simulate all matches for one tick.
+     *
+     * @return Average tick time in nanoseconds
+     */
+    public long getAverageTickNanos() {
+        return ticks > 0 ? tickNanosTotal / ticks : 0;
+    }
+
+    /**
+     * Gets the longest time taken to simulate all matches for one tick.
+     *
+     * @return Maximum tick time in nanoseconds
+     */
+    public long getMaxTickNanos() {
+        return tickNanosMax;
+    }
+
+    /**
+     * Gets the number of bytes sent.
+     *
+     * @return Bytes sent in all packets
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Gets the number of packets sent.
+     *
+     * @return Packets sent
+     */
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Entry point for a standalone server.
+     *
+     * @param args Optional paths to app.properties and message.properties
+     */
+    public static void main(String[] args) {
+        Properties gameProps = loadProperties(args.length > 0 ? args[0] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 1 ? args[1] : "res/message.properties");
+        int port = Integer.parseInt(gameProps.getProperty("server.port", "7777"));
+        try {
+            GameServer server = new GameServer(gameProps, messageProps, port);
+            System.out.println("Listening on UDP " + server.getAddress());
+            server.run();
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads a properties file, exiting if it cannot be read.
+     *
+     * @param path Path to the file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,112 @@
+package net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+
+/**
+ * Sends datagrams as if over a worse network, for testing netcode on one machine.
+ *
+ * Each packet is held back for the configured latency plus or minus a random jitter, so packets
+ * may arrive out of order, and a share of packets is dropped. Held packets are copied into a fixed
+ * pool of buffers; if the pool is full the packet is dropped, as a full router queue would.
+ */
+public class LinkSimulator {
+    private static final int POOL_SIZE = 256;
+
+    private final DatagramChannel channel;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double lossRate;
+    private final Random random;
+
+    private final ByteBuffer[] packets = new ByteBuffer[POOL_SIZE];
+    private final SocketAddress[] destinations = new SocketAddress[POOL_SIZE];
+    private final long[] dueNanos = new long[POOL_SIZE];
+    private final boolean[] used = new boolean[POOL_SIZE];
+
+    private long packetsDropped = 0;
+
+    /**
+     * Creates a link simulator sending through a channel.
+     *
+     * @param channel The channel to send through
+     * @param maxPacketSize Largest packet that will be sent
+     * @param latencyMillis Average one-way delay in milliseconds
+     * @param jitterMillis Largest random change to the delay in milliseconds
+     * @param lossPercent Share of packets dropped, from 0 to 100
+     * @param seed Seed for the random delays and losses
+     */
+    public LinkSimulator(DatagramChannel channel, int maxPacketSize, double latencyMillis, double jitterMillis,
+                         double lossPercent, long seed) {
+        if (latencyMillis < 0 || jitterMillis < 0 || lossPercent < 0 || lossPercent > 100) {
+            throw new IllegalArgumentException("Latency, jitter and loss must not be negative, and loss at most 100%");
+        }
+        this.channel = channel;
+        this.latencyNanos = (long) (latencyMillis * 1e6);
+        this.jitterNanos = (long) (jitterMillis * 1e6);
+        this.lossRate = lossPercent / 100;
+        this.random = new Random(seed);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            packets[i] = ByteBuffer.allocate(maxPacketSize);
+        }
+    }
+
+    /**
+     * Queues a packet to be sent once its delay has passed.
+     *
+     * @param packet The packet, between its position and limit
+     * @param destination Where to send it
+     * @param now The current time in nanoseconds
+     * @throws IOException if sending fails
+     */
+    public void send(ByteBuffer packet, SocketAddress destination, long now) throws IOException {
+        if (random.nextDouble() < lossRate) {
+            packetsDropped++;
+            return;
+        }
+        long delay = latencyNanos + (jitterNanos > 0 ? (long) ((random.nextDouble() * 2 - 1) * jitterNanos) : 0);
+        if (delay <= 0) {
+            channel.send(packet, destination);
+            return;
+        }
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (!used[i]) {
+                packets[i].clear();
+                packets[i].put(packet);
+                packets[i].flip();
+                destinations[i] = destination;
+                dueNanos[i] = now + delay;
+                used[i] = true;
+                return;
+            }
+        }
+        packetsDropped++;
+    }
+
+    /**
+     * Sends every queued packet whose delay has passed.
+     *
+     * @param now The current time in nanoseconds
+     * @throws IOException if sending fails
+     */
+    public void flush(long now) throws IOException {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (used[i] && now >= dueNanos[i]) {
+                channel.send(packets[i], destinations[i]);
+                used[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of packets dropped by the simulated loss or a full queue.
+     *
+     * @return Dropped packet count
+     */
+    public long getPacketsDropped() {
+        return packetsDropped;
+    }
+}
@@ -0,0 +1,344 @@
+package net;
+
+import game.DeltaCodec;
+import game.GameState;
+import game.InputState;
+import game.StateSnapshot;
+import screens.Level2Screen;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * One multiplayer match hosted by the {@link GameServer}.
+ *
+ * Every player in the match races through their own authoritative copy of Level 2, driven only by
+ * the inputs they send; clients never simulate for the server. After each tick the match records
+ * every player's state in a short history, so a snapshot for a client can be sent as a delta
+ * against the last tick that client acknowledged, whatever packets were lost in between.
+ */
+class Match {
+    private static final int INITIAL_STATE_CAPACITY = 1024;
+
+    // Ticks of input a client may send ahead of the server
+    private static final int INPUT_WINDOW = 64;
+
+    private final int id;
+    private final Properties gameProps;
+    private final Properties messageProps;
+    private final Slot[] slots;
+    private int playerCount = 0;
+    private int tick = 0;
+
+    // History of every player's state, indexed by tick % history size and then player
+    private final int historySize;
+    private final int[] historyTick;
+    private final StateSnapshot[][] history;
+    private final boolean[][] present;
+    private final byte[][] status;
+    private final int[][] score;
+    private final int[][] checksum;
+
+    // Scratch used while building snapshots
+    private final StateSnapshot base = new StateSnapshot(INITIAL_STATE_CAPACITY);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * A player taking part in the match.
+     */
+    private static class Slot {
+        private final SocketAddress address;
+        private final Level2Screen screen;
+        private final InputState input = new InputState();
+
+        // Keys received for upcoming ticks, indexed by tick % INPUT_WINDOW
+        private final int[] inputKeys = new int[INPUT_WINDOW];
+        private final int[] inputTicks = new int[INPUT_WINDOW];
+        private int lastKeys = 0;
+
+        private int ackTick = -1;
+        private byte status = Protocol.STATUS_PLAYING;
+        private long lastHeardNanos;
+
+        /**
+         * Creates a new player slot with a fresh level.
+         *
+         * @param address The player's address
+         * @param screen The player's level
+         * @param now The current time in nanoseconds
+         */
+        Slot(SocketAddress address, Level2Screen screen, long now) {
+            this.address = address;
+            this.screen = screen;
+            this.lastHeardNanos = now;
+            Arrays.fill(inputTicks, -1);
+        }
+    }
+
+    /**
+     * Creates a new empty match.
+     *
+     * @param id The match id clients join with
+     * @param maxPlayers Maximum number of players
+     * @param historySize Number of ticks of state kept for delta snapshots
+     * @param gameProps Properties containing game configuration
+     * @param messageProps Properties containing game messages
+     */
+    Match(int id, int maxPlayers, int historySize, Properties gameProps, Properties messageProps) {
+        this.id = id;
+        this.gameProps = gameProps;
+        this.messageProps = messageProps;
+        this.slots = new Slot[maxPlayers];
+        this.historySize = historySize;
+        this.historyTick = new int[historySize];
+        this.history = new StateSnapshot[historySize][maxPlayers];
+        this.present = new boolean[historySize][maxPlayers];
+        this.status = new byte[historySize][maxPlayers];
+        this.score = new int[historySize][maxPlayers];
+        this.checksum = new int[historySize][maxPlayers];
+        Arrays.fill(historyTick, -1);
+    }
+
+    /**
+     * Adds a player to the match with a fresh copy of the level.
+     *
+     * @param address The player's address
+     * @param now The current time in nanoseconds
+     * @return The player's index, or -1 if the match is full
+     */
+    int addPlayer(SocketAddress address, long now) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == null) {
+                slots[i] = new Slot(address, new Level2Screen(gameProps, messageProps), now);
+                playerCount++;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes a player from the match.
+     *
+     * @param index The player's index
+     */
+    void removePlayer(int index) {
+        if (slots[index] != null) {
+            slots[index] = null;
+            playerCount--;
+        }
+    }
+
+    /**
+     * Finds the player with the given address.
+     *
+     * @param address The address
+     * @return The player's index, or -1 if the address is not in this match
+     */
+    int findPlayer(SocketAddress address) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slots[i].address.equals(address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads an input packet from a player.
+     * Keys for ticks that have already been simulated are ignored; the server has used the
+     * player's previous keys for them.
+     *
+     * @param index The player's index
+     * @param packet The packet, positioned after the header
+     * @param now The current time in nanoseconds
+     */
+    void receiveInput(int index, ByteBuffer packet, long now) {
+        Slot slot = slots[index];
+        int ackTick = packet.getInt();
+        int lastTick = packet.getInt();
+        int count = packet.get() & 0xFF;
+        if (packet.remaining() < count) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int inputTick = lastTick - count + 1 + i;
+            int keys = packet.get() & Protocol.GAMEPLAY_KEYS;
+            if (inputTick > tick && inputTick <= tick + INPUT_WINDOW) {
+                slot.inputKeys[inputTick % INPUT_WINDOW] = keys;
+                slot.inputTicks[inputTick % INPUT_WINDOW] = inputTick;
+            }
+        }
+        if (ackTick > slot.ackTick && ackTick <= tick) {
+            slot.ackTick = ackTick;
+        }
+        slot.lastHeardNanos = now;
+    }
+
+    /**
+     * Simulates one tick for every player and records the results.
+     */
+    void tick() {
+        tick++;
+        int entry = tick % historySize;
+        historyTick[entry] = tick;
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            present[entry][i] = slot != null;
+            if (slot == null) {
+                continue;
+            }
+
+            if (slot.status == Protocol.STATUS_PLAYING) {
+                int inputIndex = tick % INPUT_WINDOW;
+                if (slot.inputTicks[inputIndex] == tick) {
+                    slot.lastKeys = slot.inputKeys[inputIndex];
+                }
+                // Missing input repeats the last keys, as if they were still held
+                slot.input.set(slot.lastKeys);
+                GameState result = slot.screen.update(slot.input);
+                if (result == GameState.GAME_OVER_WIN) {
+                    slot.status = Protocol.STATUS_WON;
+                } else if (result != null) {
+                    slot.status = Protocol.STATUS_LOST;
+                }
+            }
+
+            if (history[entry][i] == null) {
+                history[entry][i] = new StateSnapshot(INITIAL_STATE_CAPACITY);
+            }
+            StateSnapshot state = history[entry][i];
+            state.capture(slot.screen);
+            crc.reset();
+            crc.update(state.array(), 0, state.size());
+            checksum[entry][i] = (int) crc.getValue();
+            status[entry][i] = slot.status;
+            score[entry][i] = slot.screen.getScoreManager().getScore();
+        }
+    }
+
+    /**
+     * Writes the snapshot of the latest tick for one player, as deltas against the last tick the
+     * player acknowledged, or against empty states if that tick is no longer in the history.
+     *
+     * @param index The receiving player's index
+     * @param out The buffer to write the packet to
+     * @return true if the packet was written, false if it did not fit in the buffer
+     */
+    boolean writeSnapshot(int index, ByteBuffer out) {
+        int entry = tick % historySize;
+        int baseTick = slots[index].ackTick;
+        int baseEntry = baseTick >= 0 ? baseTick % historySize : -1;
+        if (baseTick < 0 || tick - baseTick >= historySize || historyTick[baseEntry] != baseTick) {
+            baseTick = -1;
+            baseEntry = -1;
+        }
+
+        out.clear();
+        Protocol.writeHeader(out, Protocol.SNAPSHOT);
+        out.putInt(tick);
+        out.putInt(baseTick);
+        int countPosition = out.position();
+        out.put((byte) 0);
+
+        int count = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (!present[entry][i]) {
+                continue;
+            }
+            StateSnapshot state = history[entry][i];
+            int length = state.size();
+            if (out.remaining() < 14 + DeltaCodec.maxEncodedLength(length)) {
+                return false;
+            }
+
+            // The delta codec expects the earlier state at the later state's size
+            if (baseEntry >= 0 && present[baseEntry][i]) {
+                base.copyFrom(history[baseEntry][i]);
+            } else {
+                base.resize(0);
+            }
+            base.resize(length);
+
+            out.put((byte) i);
+            out.put(status[entry][i]);
+            out.putInt(score[entry][i]);
+            out.putInt(checksum[entry][i]);
+            int lengthPosition = out.position();
+            int deltaLength = DeltaCodec.encode(base.array(), state.array(), length,
+                    out.array(), out.arrayOffset() + lengthPosition + 4);
+            out.putInt(lengthPosition, deltaLength);
+            out.position(lengthPosition + 4 + deltaLength);
+            count++;
+        }
+        out.put(countPosition, (byte) count);
+        out.flip();
+        return true;
+    }
+
+    /**
+     * Removes players that have not sent anything for a while.
+     *
+     * @param now The current time in nanoseconds
+     * @param timeoutNanos How long a player may stay silent
+     * @param removed Receives the addresses of the removed players
+     */
+    void removeIdlePlayers(long now, long timeoutNanos, List<SocketAddress> removed) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && now - slots[i].lastHeardNanos > timeoutNanos) {
+                removed.add(slots[i].address);
+                removePlayer(i);
+            }
+        }
+    }
+
+    /**
+     * Gets a player's address.
+     *
+     * @param index The player's index
+     * @return The address, or null if the slot is empty
+     */
+    SocketAddress getAddress(int index) {
+        return slots[index] != null ? slots[index].address : null;
+    }
+
+    /**
+     * Gets the match id.
+     *
+     * @return The id clients join with
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the latest simulated tick.
+     *
+     * @return The match tick
+     */
+    int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the maximum number of players.
+     *
+     * @return Number of player slots
+     */
+    int getMaxPlayers() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the number of players in the match.
+     *
+     * @return Number of players
+     */
+    int getPlayerCount() {
+        return playerCount;
+    }
+}
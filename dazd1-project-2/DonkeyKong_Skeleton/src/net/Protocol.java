@@ -0,0 +1,99 @@
+package net;
+
+import game.InputState;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packet layout shared by the game server and its clients.
+ *
+ * Every datagram starts with {@link #MAGIC}, {@link #VERSION} and a packet type byte. All numbers
+ * are big-endian. Ticks are match ticks, counted by the server from the moment the match was
+ * created.
+ *
+ * A client proves it can receive at its address before the server keeps any state for it or sends
+ * it more than it sent: the first JOIN is answered with a CHALLENGE carrying a cookie derived from
+ * the client's address, and only a JOIN echoing that cookie is given a player slot. A CHALLENGE is
+ * smaller than a JOIN, so a JOIN with a forged source address cannot be used to flood that address.
+ *
+ * <pre>
+ * JOIN      client to server   int matchId, long cookie (0 until challenged)
+ * CHALLENGE server to client   long cookie
+ * INPUT     client to server   int ackTick, int lastTick, byte count, count x byte keys
+ *                              (keys for ticks lastTick - count + 1 to lastTick; sent redundantly
+ *                              so a lost packet does not lose input)
+ * LEAVE     client to server   (empty)
+ * WELCOME   server to client   int matchId, byte playerIndex, byte maxPlayers, int tick
+ * REJECT    server to client   byte reason
+ * SNAPSHOT  server to client   int tick, int baseTick, byte slotCount, then per slot:
+ *                              byte playerIndex, byte status, int score, int crc32, int length,
+ *                              length bytes of delta against the slot's state at baseTick
+ *                              (baseTick -1 means against an empty state)
+ * PEER_INPUT peer to peer      int ackTick, int firstTick, byte count, count x byte keys,
+ *                              int checksumTick, int checksum
+ *                              (keys for ticks firstTick onwards; ackTick is the last tick of the
+ *                              receiver's input the sender has, so the receiver resends from there)
+ * </pre>
+ */
+public final class Protocol {
+    public static final int MAGIC = 0x444B4E50; // "DKNP"
+    public static final byte VERSION = 2;
+    public static final int HEADER_SIZE = 6;
+
+    // Largest UDP payload over IPv4
+    public static final int MAX_PACKET_SIZE = 65507;
+
+    // Packet types
+    public static final byte JOIN = 1;
+    public static final byte INPUT = 2;
+    public static final byte LEAVE = 3;
+    public static final byte WELCOME = 4;
+    public static final byte REJECT = 5;
+    public static final byte SNAPSHOT = 6;
+    public static final byte PEER_INPUT = 7;
+    public static final byte CHALLENGE = 8;
+
+    // Reasons for rejecting a join
+    public static final byte REJECT_MATCH_FULL = 1;
+    public static final byte REJECT_SERVER_FULL = 2;
+
+    // Player status in a snapshot
+    public static final byte STATUS_PLAYING = 0;
+    public static final byte STATUS_WON = 1;
+    public static final byte STATUS_LOST = 2;
+
+    // Number of past ticks of input repeated in every input packet
+    public static final int INPUT_REDUNDANCY = 8;
+
+    // Keys a remote player may press; rewinding is not allowed in multiplayer
+    public static final int GAMEPLAY_KEYS = InputState.LEFT | InputState.RIGHT | InputState.UP
+            | InputState.DOWN | InputState.SPACE | InputState.SHOOT;
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes the packet header.
+     *
+     * @param buffer The buffer to write to
+     * @param type The packet type
+     */
+    public static void writeHeader(ByteBuffer buffer, byte type) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(type);
+    }
+
+    /**
+     * Reads and checks the packet header.
+     *
+     * @param buffer The received packet, positioned at its start
+     * @return The packet type, or -1 if the packet is not for this protocol version
+     */
+    public static int readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            return -1;
+        }
+        return buffer.get();
+    }
+}
@@ -0,0 +1,190 @@
+package net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Carries a {@link RollbackSession}'s inputs to and from the other player over UDP.
+ *
+ * Every frame each peer sends all of its keys the other peer has not acknowledged yet, so lost or
+ * reordered packets only delay input until the next packet arrives. Each packet also carries the
+ * sender's latest checksum of a confirmed state.
+ */
+public class RollbackPeer implements Closeable {
+    // Enough to catch up after a short burst of losses; older ticks are resent in later packets
+    private static final int MAX_INPUTS_PER_PACKET = 64;
+    private static final int PACKET_SIZE = Protocol.HEADER_SIZE + 9 + MAX_INPUTS_PER_PACKET + 8;
+
+    private final RollbackSession session;
+    private final DatagramChannel channel;
+    private final SocketAddress remote;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(PACKET_SIZE);
+    private LinkSimulator link = null;
+
+    // Latest local tick the other player has received
+    private int remoteAck = 0;
+    private long packetsSent = 0;
+    private long packetsReceived = 0;
+
+    /**
+     * Opens a peer connection.
+     *
+     * @param session The local session
+     * @param localPort The UDP port to receive on
+     * @param remote The other player's address
+     * @throws IOException if the socket cannot be opened
+     */
+    public RollbackPeer(RollbackSession session, int localPort, SocketAddress remote) throws IOException {
+        this.session = session;
+        this.remote = remote;
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(localPort));
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Sends through a simulated network from now on, for testing.
+     *
+     * @param latencyMillis Average one-way delay in milliseconds
+     * @param jitterMillis Largest random change to the delay in milliseconds
+     * @param lossPercent Share of packets dropped, from 0 to 100
+     * @param seed Seed for the random delays and losses
+     */
+    public void simulateLink(double latencyMillis, double jitterMillis, double lossPercent, long seed) {
+        link = new LinkSimulator(channel, PACKET_SIZE, latencyMillis, jitterMillis, lossPercent, seed);
+    }
+
+    /**
+     * Runs one frame: reads the other player's inputs, advances the session and sends the local
+     * inputs.
+     *
+     * @param localKeys The keys the local player holds
+     * @return true if the session simulated a tick, false if it is waiting for the other player
+     * @throws IOException if the socket fails
+     */
+    public boolean advanceFrame(int localKeys) throws IOException {
+        receive();
+        boolean advanced = session.advanceFrame(localKeys);
+        send();
+        return advanced;
+    }
+
+    /**
+     * Reads every waiting packet from the other player.
+     *
+     * @throws IOException if reading fails
+     */
+    public void receive() throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress sender = channel.receive(receiveBuffer);
+            if (sender == null) {
+                return;
+            }
+            if (!sender.equals(remote)) {
+                continue;
+            }
+            receiveBuffer.flip();
+            try {
+                if (Protocol.readHeader(receiveBuffer) == Protocol.PEER_INPUT) {
+                    readInput();
+                }
+            } catch (RuntimeException e) {
+                // A truncated packet; its inputs will be sent again
+            }
+        }
+    }
+
+    /**
+     * Reads an input packet into the session.
+     */
+    private void readInput() {
+        int ackTick = receiveBuffer.getInt();
+        int firstTick = receiveBuffer.getInt();
+        int count = receiveBuffer.get() & 0xFF;
+        if (receiveBuffer.remaining() < count + 8) {
+            return;
+        }
+        packetsReceived++;
+        remoteAck = Math.max(remoteAck, ackTick);
+        for (int i = 0; i < count; i++) {
+            session.addRemoteInput(firstTick + i, receiveBuffer.get());
+        }
+        int checksumTick = receiveBuffer.getInt();
+        int checksum = receiveBuffer.getInt();
+        session.addRemoteChecksum(checksumTick, checksum);
+    }
+
+    /**
+     * Sends the local inputs the other player has not acknowledged, and any queued delayed packets.
+     *
+     * @throws IOException if sending fails
+     */
+    public void send() throws IOException {
+        int firstTick = remoteAck + 1;
+        int count = Math.max(0, Math.min(session.getLatestLocalTick() - remoteAck, MAX_INPUTS_PER_PACKET));
+
+        sendBuffer.clear();
+        Protocol.writeHeader(sendBuffer, Protocol.PEER_INPUT);
+        sendBuffer.putInt(session.getConfirmedRemoteTick());
+        sendBuffer.putInt(firstTick);
+        sendBuffer.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            sendBuffer.put((byte) session.getLocalInput(firstTick + i));
+        }
+        sendBuffer.putInt(session.getLatestChecksumTick());
+        sendBuffer.putInt(session.getLatestChecksum());
+        sendBuffer.flip();
+
+        packetsSent++;
+        if (link != null) {
+            long now = System.nanoTime();
+            link.send(sendBuffer, remote, now);
+            link.flush(now);
+        } else {
+            channel.send(sendBuffer, remote);
+        }
+    }
+
+    /**
+     * Gets the number of packets sent, including any dropped by a simulated link.
+     *
+     * @return Sent packet count
+     */
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Gets the number of input packets received from the other player.
+     *
+     * @return Received packet count
+     */
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    /**
+     * Gets the number of packets dropped by the simulated link.
+     *
+     * @return Dropped packet count, or 0 without a simulated link
+     */
+    public long getPacketsDropped() {
+        return link != null ? link.getPacketsDropped() : 0;
+    }
+
+    /**
+     * Closes the socket.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
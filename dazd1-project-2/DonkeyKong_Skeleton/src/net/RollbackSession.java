@@ -0,0 +1,441 @@
+package net;
+
+import game.GameState;
+import game.InputState;
+import game.StateSnapshot;
+import screens.Level2Screen;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Two-player versus with rollback, independent of how inputs travel between the players.
+ *
+ * Both players race through their own copy of Level 2 on both machines. Each frame the session
+ * simulates the next tick straight away, predicting that the remote player still holds the keys
+ * from their last known tick. The state after every tick is saved, so when the remote player's
+ * real keys for a tick arrive and differ from the prediction, the session restores the state
+ * before that tick and replays up to the present with the real keys, all within one frame. Replayed
+ * ticks run with {@link screens.GameplayScreen#setResimulating} set, so they draw nothing and
+ * repeat no effects.
+ *
+ * The session stops advancing rather than predict more than {@link #MAX_ROLLBACK} ticks ahead of
+ * the remote player's confirmed input. Once a tick is confirmed by both players, its state must be
+ * the same on both machines; checksums of confirmed states are exchanged to detect desyncs.
+ */
+public class RollbackSession {
+    public static final int PLAYERS = 2;
+    public static final int MAX_ROLLBACK = 8;
+    public static final int CHECKSUM_INTERVAL = 30;
+
+    // Size of the input rings; inputs are never needed further back than the rollback window
+    private static final int INPUT_WINDOW = 128;
+    private static final int SAVED_STATES = MAX_ROLLBACK + 1;
+    private static final int CHECKSUM_HISTORY = 16;
+    private static final int INITIAL_STATE_CAPACITY = 1024;
+
+    private final Level2Screen[] screens = new Level2Screen[PLAYERS];
+    private final InputState[] inputs = new InputState[PLAYERS];
+    private final byte[] status = new byte[PLAYERS];
+    private final int localPlayer;
+    private final int remotePlayer;
+    private final int inputDelay;
+
+    // Keys by tick % INPUT_WINDOW for each player; for the remote player, the keys used so far,
+    // which are predictions for ticks after the confirmed tick
+    private final int[][] keys = new int[PLAYERS][INPUT_WINDOW];
+    private int latestLocalTick;
+    private int confirmedRemoteTick = 0;
+
+    // Last simulated tick, and the state after each of the last SAVED_STATES ticks
+    private int tick = 0;
+    private final StateSnapshot[][] saved = new StateSnapshot[SAVED_STATES][PLAYERS];
+    private final byte[][] savedStatus = new byte[SAVED_STATES][PLAYERS];
+    private int rollbackFrom = Integer.MAX_VALUE;
+
+    // Checksums of confirmed states, by tick / CHECKSUM_INTERVAL % CHECKSUM_HISTORY
+    private final CRC32 crc = new CRC32();
+    private final int[] localChecksumTick = new int[CHECKSUM_HISTORY];
+    private final int[] localChecksum = new int[CHECKSUM_HISTORY];
+    private final int[] remoteChecksumTick = new int[CHECKSUM_HISTORY];
+    private final int[] remoteChecksum = new int[CHECKSUM_HISTORY];
+    private final int[] comparedTick = new int[CHECKSUM_HISTORY];
+    private int nextChecksumTick = CHECKSUM_INTERVAL;
+    private int latestChecksumTick = -1;
+
+    // Statistics
+    private long rollbacks = 0;
+    private long ticksResimulated = 0;
+    private int maxRollbackTicks = 0;
+    private long maxRollbackNanos = 0;
+    private long totalRollbackNanos = 0;
+    private long stalls = 0;
+    private long checksumsCompared = 0;
+    private int desyncTick = -1;
+
+    /**
+     * Creates a session at tick 0 with both players at the start of the level.
+     *
+     * @param gameProps Properties containing game configuration; must match the other player's
+     * @param messageProps Properties containing game messages
+     * @param localPlayer This machine's player, 0 or 1
+     * @param inputDelay Ticks between sampling local keys and using them, which hides some latency
+     */
+    public RollbackSession(Properties gameProps, Properties messageProps, int localPlayer, int inputDelay) {
+        if (localPlayer < 0 || localPlayer >= PLAYERS) {
+            throw new IllegalArgumentException("Local player must be 0 or 1");
+        }
+        if (inputDelay < 0 || inputDelay > MAX_ROLLBACK) {
+            throw new IllegalArgumentException("Input delay must be between 0 and " + MAX_ROLLBACK);
+        }
+        this.localPlayer = localPlayer;
+        this.remotePlayer = 1 - localPlayer;
+        this.inputDelay = inputDelay;
+        // Ticks before the first sampled keys are played with no keys held
+        this.latestLocalTick = inputDelay;
+
+        // Neither player's level may rewind or record; the session owns the timeline
+        Properties props = new Properties();
+        props.putAll(gameProps);
+        props.setProperty("gamePlay.rewind.seconds", "0");
+        props.setProperty("sessions.dir", "");
+        for (int p = 0; p < PLAYERS; p++) {
+            screens[p] = new Level2Screen(props, messageProps);
+            inputs[p] = new InputState();
+            for (int s = 0; s < SAVED_STATES; s++) {
+                saved[s][p] = new StateSnapshot(INITIAL_STATE_CAPACITY);
+            }
+            saved[0][p].capture(screens[p]);
+        }
+        Arrays.fill(localChecksumTick, -1);
+        Arrays.fill(remoteChecksumTick, -1);
+        Arrays.fill(comparedTick, -1);
+    }
+
+    /**
+     * Runs the next frame: samples the local keys, corrects any mispredicted ticks and simulates
+     * the next tick.
+     *
+     * @param localKeys The keys the local player holds, as {@link InputState} bits
+     * @return true if a tick was simulated, false if waiting for the remote player
+     */
+    public boolean advanceFrame(int localKeys) {
+        // Keys are sampled once per tick, so a stalled frame does not overwrite an unsent tick
+        if (latestLocalTick < tick + 1 + inputDelay) {
+            latestLocalTick++;
+            keys[localPlayer][latestLocalTick % INPUT_WINDOW] = localKeys & Protocol.GAMEPLAY_KEYS;
+        }
+
+        if (rollbackFrom <= tick) {
+            rollback();
+        }
+        if (tick + 1 - confirmedRemoteTick > MAX_ROLLBACK) {
+            stalls++;
+            return false;
+        }
+
+        tick++;
+        if (tick > confirmedRemoteTick) {
+            keys[remotePlayer][tick % INPUT_WINDOW] = keys[remotePlayer][confirmedRemoteTick % INPUT_WINDOW];
+        }
+        simulate(tick);
+        updateChecksums();
+        return true;
+    }
+
+    /**
+     * Adds the remote player's keys for a tick. Keys must arrive in tick order; keys for ticks
+     * already known, or beyond the next unknown tick, are ignored.
+     *
+     * @param remoteTick The tick the keys are for
+     * @param remoteKeys The keys held, as {@link InputState} bits
+     */
+    public void addRemoteInput(int remoteTick, int remoteKeys) {
+        if (remoteTick != confirmedRemoteTick + 1 || remoteTick > tick + INPUT_WINDOW - MAX_ROLLBACK) {
+            return;
+        }
+        remoteKeys &= Protocol.GAMEPLAY_KEYS;
+        int index = remoteTick % INPUT_WINDOW;
+        // Ticks already simulated with a wrong prediction must be replayed
+        if (remoteTick <= tick && keys[remotePlayer][index] != remoteKeys) {
+            rollbackFrom = Math.min(rollbackFrom, remoteTick);
+        }
+        keys[remotePlayer][index] = remoteKeys;
+        confirmedRemoteTick = remoteTick;
+
+        // Later ticks were predicted from the previous confirmed keys; predict from these instead
+        for (int t = remoteTick + 1; t <= tick; t++) {
+            if (keys[remotePlayer][t % INPUT_WINDOW] != remoteKeys) {
+                keys[remotePlayer][t % INPUT_WINDOW] = remoteKeys;
+                rollbackFrom = Math.min(rollbackFrom, t);
+            }
+        }
+    }
+
+    /**
+     * Adds the checksum of a confirmed state from the remote player.
+     *
+     * @param checksumTick The tick of the state
+     * @param checksum The remote CRC32 of both players' states at that tick
+     */
+    public void addRemoteChecksum(int checksumTick, int checksum) {
+        if (checksumTick <= 0 || checksumTick % CHECKSUM_INTERVAL != 0) {
+            return;
+        }
+        int index = checksumTick / CHECKSUM_INTERVAL % CHECKSUM_HISTORY;
+        remoteChecksumTick[index] = checksumTick;
+        remoteChecksum[index] = checksum;
+        compareChecksums(index);
+    }
+
+    /**
+     * Restores the state before the earliest mispredicted tick and replays up to the present.
+     */
+    private void rollback() {
+        long start = System.nanoTime();
+        int from = rollbackFrom;
+        rollbackFrom = Integer.MAX_VALUE;
+
+        int entry = (from - 1) % SAVED_STATES;
+        for (int p = 0; p < PLAYERS; p++) {
+            screens[p].setResimulating(true);
+            saved[entry][p].restore(screens[p]);
+            status[p] = savedStatus[entry][p];
+        }
+        for (int t = from; t <= tick; t++) {
+            simulate(t);
+        }
+        for (int p = 0; p < PLAYERS; p++) {
+            screens[p].setResimulating(false);
+        }
+
+        int depth = tick - from + 1;
+        long elapsed = System.nanoTime() - start;
+        rollbacks++;
+        ticksResimulated += depth;
+        maxRollbackTicks = Math.max(maxRollbackTicks, depth);
+        maxRollbackNanos = Math.max(maxRollbackNanos, elapsed);
+        totalRollbackNanos += elapsed;
+    }
+
+    /**
+     * Simulates one tick for both players and saves the resulting states.
+     *
+     * @param simulatedTick The tick to simulate
+     */
+    private void simulate(int simulatedTick) {
+        int entry = simulatedTick % SAVED_STATES;
+        for (int p = 0; p < PLAYERS; p++) {
+            if (status[p] == Protocol.STATUS_PLAYING) {
+                inputs[p].reset(keys[p][simulatedTick % INPUT_WINDOW], keys[p][(simulatedTick - 1) % INPUT_WINDOW]);
+                GameState result = screens[p].update(inputs[p]);
+                if (result == GameState.GAME_OVER_WIN) {
+                    status[p] = Protocol.STATUS_WON;
+                } else if (result != null) {
+                    status[p] = Protocol.STATUS_LOST;
+                }
+            }
+            saved[entry][p].capture(screens[p]);
+            savedStatus[entry][p] = status[p];
+        }
+    }
+
+    /**
+     * Records the checksum of each newly confirmed state that falls on the checksum interval.
+     */
+    private void updateChecksums() {
+        int confirmed = Math.min(tick, confirmedRemoteTick);
+        while (nextChecksumTick <= confirmed) {
+            // States older than the rollback window are no longer saved; skip them
+            if (tick - nextChecksumTick < SAVED_STATES) {
+                int entry = nextChecksumTick % SAVED_STATES;
+                crc.reset();
+                for (int p = 0; p < PLAYERS; p++) {
+                    crc.update(saved[entry][p].array(), 0, saved[entry][p].size());
+                    crc.update(savedStatus[entry][p]);
+                }
+                int index = nextChecksumTick / CHECKSUM_INTERVAL % CHECKSUM_HISTORY;
+                localChecksumTick[index] = nextChecksumTick;
+                localChecksum[index] = (int) crc.getValue();
+                latestChecksumTick = nextChecksumTick;
+                compareChecksums(index);
+            }
+            nextChecksumTick += CHECKSUM_INTERVAL;
+        }
+    }
+
+    /**
+     * Compares the local and remote checksums in a history entry, if both are for the same tick.
+     *
+     * @param index The checksum history entry
+     */
+    private void compareChecksums(int index) {
+        int checksumTick = localChecksumTick[index];
+        // The remote checksum is repeated in every packet; compare each tick once
+        if (checksumTick < 0 || checksumTick != remoteChecksumTick[index] || checksumTick == comparedTick[index]) {
+            return;
+        }
+        comparedTick[index] = checksumTick;
+        checksumsCompared++;
+        if (localChecksum[index] != remoteChecksum[index] && desyncTick < 0) {
+            desyncTick = checksumTick;
+        }
+    }
+
+    /**
+     * Gets the local player's keys for a tick, to send to the remote player.
+     *
+     * @param inputTick A tick no later than {@link #getLatestLocalTick()} and within the input window
+     * @return The keys, as {@link InputState} bits
+     */
+    public int getLocalInput(int inputTick) {
+        return keys[localPlayer][inputTick % INPUT_WINDOW];
+    }
+
+    /**
+     * Gets the latest tick the local player's keys have been sampled for.
+     *
+     * @return The tick
+     */
+    public int getLatestLocalTick() {
+        return latestLocalTick;
+    }
+
+    /**
+     * Gets the latest tick for which the remote player's keys are known.
+     *
+     * @return The tick, or 0 before any remote input
+     */
+    public int getConfirmedRemoteTick() {
+        return confirmedRemoteTick;
+    }
+
+    /**
+     * Gets the latest local checksum, to send to the remote player.
+     *
+     * @return The tick of the latest checksum, or -1 if none has been taken yet
+     */
+    public int getLatestChecksumTick() {
+        return latestChecksumTick;
+    }
+
+    /**
+     * Gets the local checksum taken at {@link #getLatestChecksumTick()}.
+     *
+     * @return The CRC32 of both players' states at that tick
+     */
+    public int getLatestChecksum() {
+        return latestChecksumTick < 0 ? 0 : localChecksum[latestChecksumTick / CHECKSUM_INTERVAL % CHECKSUM_HISTORY];
+    }
+
+    /**
+     * Gets the latest simulated tick.
+     *
+     * @return The tick
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets a player's level, e.g. to draw it.
+     *
+     * @param player The player, 0 or 1
+     * @return The player's level screen
+     */
+    public Level2Screen getScreen(int player) {
+        return screens[player];
+    }
+
+    /**
+     * Gets a player's status at the latest tick, which may change if the tick is rolled back.
+     *
+     * @param player The player, 0 or 1
+     * @return One of the {@code Protocol.STATUS_} values
+     */
+    public byte getStatus(int player) {
+        return status[player];
+    }
+
+    /**
+     * Gets this machine's player.
+     *
+     * @return 0 or 1
+     */
+    public int getLocalPlayer() {
+        return localPlayer;
+    }
+
+    /**
+     * Gets the number of rollbacks.
+     *
+     * @return Rollback count
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * Gets the number of ticks replayed by all rollbacks.
+     *
+     * @return Replayed tick count
+     */
+    public long getTicksResimulated() {
+        return ticksResimulated;
+    }
+
+    /**
+     * Gets the most ticks replayed by a single rollback.
+     *
+     * @return Deepest rollback in ticks
+     */
+    public int getMaxRollbackTicks() {
+        return maxRollbackTicks;
+    }
+
+    /**
+     * Gets the longest time taken by a single rollback, including restoring the state.
+     *
+     * @return Longest rollback in nanoseconds
+     */
+    public long getMaxRollbackNanos() {
+        return maxRollbackNanos;
+    }
+
+    /**
+     * Gets the time taken by all rollbacks, including restoring the states.
+     *
+     * @return Total rollback time in nanoseconds
+     */
+    public long getTotalRollbackNanos() {
+        return totalRollbackNanos;
+    }
+
+    /**
+     * Gets the number of frames spent waiting for the remote player.
+     *
+     * @return Stalled frame count
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Gets the number of confirmed states checked against the remote player.
+     *
+     * @return Checksum comparison count
+     */
+    public long getChecksumsCompared() {
+        return checksumsCompared;
+    }
+
+    /**
+     * Gets the first tick at which the two machines' states differed.
+     *
+     * @return The tick, or -1 if no desync has been detected
+     */
+    public int getDesyncTick() {
+        return desyncTick;
+    }
+}
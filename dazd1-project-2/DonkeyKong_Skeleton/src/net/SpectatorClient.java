@@ -0,0 +1,209 @@
+package net;
+
+import game.DeltaCodec;
+import game.StateSnapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Watches a game streamed by a {@link SpectatorServer}.
+ *
+ * Rebuilds the watched screen's state from the stream's keyframes and deltas, and checks each
+ * rebuilt state against the frame's checksum. The state can be restored into a gameplay screen of
+ * the same level to draw it. Non-blocking: call {@link #poll()} once per frame.
+ */
+public class SpectatorClient implements Closeable {
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private final SocketChannel channel;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private final StateSnapshot state = new StateSnapshot(INITIAL_BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private int tick = -1;
+    private int level = -1;
+    private boolean synced = false;
+
+    private long keyframes = 0;
+    private long deltas = 0;
+    private long checksumFailures = 0;
+    private long bytesReceived = 0;
+
+    /**
+     * Connects to a spectator server.
+     *
+     * @param server The server's address
+     * @param receiveBufferSize Socket receive buffer in bytes, or 0 for the system default
+     * @throws IOException if the connection fails
+     */
+    public SpectatorClient(SocketAddress server, int receiveBufferSize) throws IOException {
+        channel = SocketChannel.open();
+        if (receiveBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+        channel.connect(server);
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Reads every waiting frame.
+     *
+     * @return true if the state moved to a newer tick
+     * @throws IOException if the connection fails or the server closed it
+     */
+    public boolean poll() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            throw new EOFException("Spectator server closed the connection");
+        }
+        bytesReceived += read;
+
+        boolean updated = false;
+        readBuffer.flip();
+        while (readBuffer.remaining() >= 4) {
+            int length = readBuffer.getInt(readBuffer.position());
+            if (readBuffer.remaining() < 4 + length) {
+                // Make room for frames larger than the buffer
+                if (4 + length > readBuffer.capacity()) {
+                    ByteBuffer grown = ByteBuffer.allocate(Math.max(4 + length, readBuffer.capacity() * 2));
+                    grown.put(readBuffer);
+                    grown.flip();
+                    readBuffer = grown;
+                }
+                break;
+            }
+            int frameEnd = readBuffer.position() + 4 + length;
+            readBuffer.getInt();
+            updated |= readFrame(length);
+            readBuffer.position(frameEnd);
+        }
+        readBuffer.compact();
+        return updated;
+    }
+
+    /**
+     * Reads one complete frame from the read buffer.
+     *
+     * @param length Bytes in the frame after its length field
+     * @return true if the state moved to the frame's tick
+     */
+    private boolean readFrame(int length) {
+        byte type = readBuffer.get();
+        int frameLevel = readBuffer.get();
+        int frameTick = readBuffer.getInt();
+        int checksum = readBuffer.getInt();
+        int payloadLength = length - (SpectatorServer.FRAME_HEADER_SIZE - 4);
+        int payloadOffset = readBuffer.arrayOffset() + readBuffer.position();
+
+        if (type == SpectatorServer.KEYFRAME) {
+            state.load(readBuffer.array(), payloadOffset, payloadLength);
+            keyframes++;
+        } else if (type == SpectatorServer.DELTA && synced && frameTick == tick + 1) {
+            DeltaCodec.apply(readBuffer.array(), payloadOffset, payloadLength, state);
+            deltas++;
+        } else {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(state.array(), 0, state.size());
+        synced = (int) crc.getValue() == checksum;
+        if (!synced) {
+            // TCP does not corrupt frames, so this is an encoding bug; ignore deltas until a keyframe
+            checksumFailures++;
+            return false;
+        }
+        tick = frameTick;
+        level = frameLevel;
+        return true;
+    }
+
+    /**
+     * Checks whether the client holds a state that matches the stream.
+     *
+     * @return true once a keyframe has been received and every frame since has applied cleanly
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Gets the watched screen's state at the latest tick.
+     *
+     * @return The state; only valid while {@link #isSynced()}
+     */
+    public StateSnapshot getState() {
+        return state;
+    }
+
+    /**
+     * Gets the level of the watched screen.
+     *
+     * @return The GameState ordinal, or -1 before the first keyframe
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the latest tick received.
+     *
+     * @return The broadcast tick, or -1 before the first keyframe
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the number of keyframes received.
+     *
+     * @return Keyframe count
+     */
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    /**
+     * Gets the number of deltas applied.
+     *
+     * @return Delta count
+     */
+    public long getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Gets the number of frames whose rebuilt state did not match the checksum.
+     *
+     * @return Checksum failure count
+     */
+    public long getChecksumFailures() {
+        return checksumFailures;
+    }
+
+    /**
+     * Gets the number of bytes received.
+     *
+     * @return Bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
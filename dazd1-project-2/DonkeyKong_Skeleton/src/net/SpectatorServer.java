@@ -0,0 +1,486 @@
+package net;
+
+import game.DeltaCodec;
+import game.StateSnapshot;
+import screens.GameplayScreen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a running gameplay screen to spectators, e.g. for lobby displays.
+ *
+ * Viewers connect over TCP. The game thread only copies the screen's state each tick with
+ * {@link #broadcast}; everything else happens on the server's own selector thread. That thread
+ * takes the newest state, encodes it once as a delta against the last state it sent, and as a
+ * keyframe holding the whole state if any viewer needs one, and writes the encoded frames to every
+ * viewer. Frames live in direct buffers and each viewer writes its own duplicate of the shared
+ * frame, so nothing is copied per viewer, by this class or by the socket. A viewer whose socket has
+ * not taken the whole of its previous frame by the next tick skips ticks until it has, then
+ * receives a keyframe, so a slow viewer falls behind by whole frames rather than holding frames in
+ * memory; the selector thread keeps writing a partly sent frame as the socket drains.
+ *
+ * States pass from the game thread to the selector thread through three snapshots: one being
+ * captured, one being encoded and the newest finished one between them. If the selector thread
+ * falls behind, the ticks it missed are never sent and broadcast ticks count the states it sent.
+ *
+ * Each frame on the stream is:
+ * <pre>
+ * int length       bytes after this field
+ * byte type        KEYFRAME or DELTA
+ * byte level       GameState ordinal of the screen
+ * int tick         broadcast tick, counted from the server's start
+ * int crc32        of the whole state at this tick
+ * payload          KEYFRAME: the state; DELTA: a DeltaCodec delta against the previous tick
+ * </pre>
+ */
+public class SpectatorServer implements Closeable {
+    public static final byte KEYFRAME = 1;
+    public static final byte DELTA = 2;
+    public static final int FRAME_HEADER_SIZE = 14;
+
+    private static final int INITIAL_STATE_CAPACITY = 1024;
+
+    // Set on the shared state index while it holds a state the selector thread has not taken
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    /**
+     * An encoded frame, shared by every viewer it is being written to.
+     */
+    private static class Frame {
+        private ByteBuffer data = ByteBuffer.allocateDirect(INITIAL_STATE_CAPACITY);
+        private int tick = -1; // Tick the frame was encoded for
+        private int users;     // Viewers still writing this frame
+
+        /**
+         * Makes sure the frame can hold at least the given number of bytes.
+         *
+         * @param capacity The required capacity in bytes
+         */
+        void ensureCapacity(int capacity) {
+            if (data.capacity() < capacity) {
+                data = ByteBuffer.allocateDirect(Math.max(capacity, data.capacity() * 2));
+            }
+        }
+    }
+
+    /**
+     * A connected viewer.
+     */
+    private static class Viewer {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private Frame pendingFrame = null; // Frame being written, if the socket has not taken it all
+        private ByteBuffer pending;        // This viewer's view of the pending frame
+        private int lastTick = -1;         // Last tick written in full or in part
+
+        /**
+         * Creates a viewer for an accepted connection.
+         *
+         * @param channel The viewer's socket
+         */
+        Viewer(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final int maxViewers;
+    private final int sendBufferSize;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Snapshots handed from the game thread to the selector thread; latest holds the index of the
+    // finished one between them, with FRESH set until the selector thread takes it
+    private final StateSnapshot[] states = {
+            new StateSnapshot(INITIAL_STATE_CAPACITY),
+            new StateSnapshot(INITIAL_STATE_CAPACITY),
+            new StateSnapshot(INITIAL_STATE_CAPACITY)
+    };
+    private final AtomicInteger latest = new AtomicInteger(1);
+    private int captureIndex = 0; // Game thread only
+    private int encodeIndex = 2;  // Selector thread only
+
+    // Selector thread only
+    private final List<Viewer> viewers = new ArrayList<>();
+    private final List<Frame> frames = new ArrayList<>();
+    private final StateSnapshot previous = new StateSnapshot(INITIAL_STATE_CAPACITY);
+    private byte[] encoded = new byte[DeltaCodec.maxEncodedLength(INITIAL_STATE_CAPACITY)];
+    private final CRC32 crc = new CRC32();
+
+    // Statistics, written by the selector thread
+    private volatile int tick = -1;
+    private volatile int viewerCount = 0;
+    private volatile long keyframesSent = 0;
+    private volatile long deltasSent = 0;
+    private volatile long ticksSkipped = 0;
+    private volatile long bytesSent = 0;
+    private volatile long encodeNanos = 0;
+
+    /**
+     * Starts listening for viewers on a selector thread.
+     *
+     * @param port The TCP port, or 0 for any free port
+     * @param maxViewers Connections beyond this are closed straight away
+     * @param sendBufferSize Socket send buffer per viewer in bytes, or 0 for the system default;
+     *                       smaller buffers make a lagging viewer drop to keyframes sooner
+     * @throws IOException if the port cannot be opened
+     */
+    public SpectatorServer(int port, int maxViewers, int sendBufferSize) throws IOException {
+        this.maxViewers = maxViewers;
+        this.sendBufferSize = sendBufferSize;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), maxViewers);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(this::run, "spectator-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local TCP port
+     * @throws IOException if the socket has been closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Hands the screen's state for a new tick to the selector thread, which sends it to every
+     * viewer. Must only be called from one thread, once per tick after updating the screen; only
+     * copies the state, and never allocates once the snapshots have grown to the state's size.
+     *
+     * @param screen The screen being watched
+     */
+    public void broadcast(GameplayScreen screen) {
+        states[captureIndex].capture(screen);
+        captureIndex = latest.getAndSet(captureIndex | FRESH) & INDEX_MASK;
+        selector.wakeup();
+    }
+
+    /**
+     * Selector thread loop: accepts viewers, keeps writing partly sent frames and sends each new
+     * state, until closed.
+     */
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptViewers();
+                    } else if (key.isWritable()) {
+                        Viewer viewer = (Viewer) key.attachment();
+                        try {
+                            flush(viewer);
+                        } catch (IOException e) {
+                            disconnect(viewer);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                if ((latest.get() & FRESH) != 0) {
+                    encodeIndex = latest.getAndSet(encodeIndex) & INDEX_MASK;
+                    send(states[encodeIndex]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Spectator server error: " + e.getMessage());
+        } finally {
+            for (int i = viewers.size() - 1; i >= 0; i--) {
+                disconnect(viewers.get(i));
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing spectator server: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Encodes a new tick's state and starts writing it to every viewer.
+     *
+     * @param current The state for the tick
+     */
+    private void send(StateSnapshot current) {
+        long start = System.nanoTime();
+        int frameTick = tick + 1;
+        int length = current.size();
+        crc.reset();
+        crc.update(current.array(), 0, length);
+        int checksum = (int) crc.getValue();
+        byte level = current.array()[6]; // The level ordinal from the snapshot header
+
+        Frame delta = null;
+        if (frameTick > 0) {
+            previous.resize(length);
+            int maxLength = DeltaCodec.maxEncodedLength(length);
+            if (encoded.length < maxLength) {
+                encoded = new byte[Math.max(maxLength, encoded.length * 2)];
+            }
+            int deltaLength = DeltaCodec.encode(previous.array(), current.array(), length, encoded, 0);
+            delta = acquireFrame(frameTick, FRAME_HEADER_SIZE + deltaLength);
+            writeFrame(delta, DELTA, level, frameTick, checksum, encoded, deltaLength);
+        }
+        Frame keyframe = null;
+        long encodeTime = System.nanoTime() - start;
+
+        for (int i = viewers.size() - 1; i >= 0; i--) {
+            Viewer viewer = viewers.get(i);
+            try {
+                if (viewer.pendingFrame != null && !flush(viewer)) {
+                    ticksSkipped++;
+                    continue;
+                }
+                Frame frame;
+                if (delta != null && viewer.lastTick == frameTick - 1) {
+                    frame = delta;
+                    deltasSent++;
+                } else {
+                    // New, or skipped a tick: the deltas no longer apply, so start again from the whole state
+                    if (keyframe == null) {
+                        long keyframeStart = System.nanoTime();
+                        keyframe = acquireFrame(frameTick, FRAME_HEADER_SIZE + length);
+                        writeFrame(keyframe, KEYFRAME, level, frameTick, checksum, current.array(), length);
+                        encodeTime += System.nanoTime() - keyframeStart;
+                    }
+                    frame = keyframe;
+                    keyframesSent++;
+                }
+                viewer.pendingFrame = frame;
+                viewer.pending = frame.data.duplicate();
+                viewer.pending.flip();
+                viewer.lastTick = frameTick;
+                frame.users++;
+                flush(viewer);
+            } catch (IOException e) {
+                disconnect(viewer);
+            }
+        }
+
+        previous.copyFrom(current);
+        encodeNanos += encodeTime;
+        tick = frameTick;
+    }
+
+    /**
+     * Writes as much of a viewer's pending frame as its socket accepts, and asks the selector to
+     * report when the socket can take more if it did not take it all.
+     *
+     * @param viewer The viewer
+     * @return true if the whole frame has been written
+     * @throws IOException if the connection has failed
+     */
+    private boolean flush(Viewer viewer) throws IOException {
+        if (viewer.pendingFrame == null) {
+            return true;
+        }
+        int written = viewer.channel.write(viewer.pending);
+        bytesSent += written;
+        if (viewer.pending.hasRemaining()) {
+            viewer.key.interestOps(SelectionKey.OP_WRITE);
+            return false;
+        }
+        viewer.pendingFrame.users--;
+        viewer.pendingFrame = null;
+        viewer.pending = null;
+        viewer.key.interestOps(0);
+        return true;
+    }
+
+    /**
+     * Accepts every waiting connection.
+     */
+    private void acceptViewers() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                if (viewers.size() >= maxViewers) {
+                    channel.close();
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (sendBufferSize > 0) {
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+                }
+                Viewer viewer = new Viewer(channel);
+                viewer.key = channel.register(selector, 0, viewer);
+                viewers.add(viewer);
+                viewerCount = viewers.size();
+            }
+        } catch (IOException e) {
+            System.err.println("Error accepting spectator: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes a viewer's connection and forgets it.
+     *
+     * @param viewer The viewer
+     */
+    private void disconnect(Viewer viewer) {
+        if (viewer.pendingFrame != null) {
+            viewer.pendingFrame.users--;
+            viewer.pendingFrame = null;
+        }
+        try {
+            viewer.channel.close();
+        } catch (IOException e) {
+            // Already broken; nothing more to do
+        }
+        viewers.remove(viewer);
+        viewerCount = viewers.size();
+    }
+
+    /**
+     * Gets a frame no viewer is still writing, reusing one where possible.
+     *
+     * @param frameTick The tick the frame is for
+     * @param capacity Bytes the frame must hold
+     * @return The frame
+     */
+    private Frame acquireFrame(int frameTick, int capacity) {
+        Frame frame = null;
+        for (int i = 0; i < frames.size(); i++) {
+            // A frame encoded this tick is still to be handed out, even if no viewer has it yet
+            if (frames.get(i).users == 0 && frames.get(i).tick != frameTick) {
+                frame = frames.get(i);
+                break;
+            }
+        }
+        if (frame == null) {
+            frame = new Frame();
+            frames.add(frame);
+        }
+        frame.ensureCapacity(capacity);
+        frame.tick = frameTick;
+        return frame;
+    }
+
+    /**
+     * Writes a frame's header and payload into its direct buffer, leaving the buffer's position at
+     * the end of the frame.
+     *
+     * @param frame The frame
+     * @param type KEYFRAME or DELTA
+     * @param level The level ordinal
+     * @param frameTick The broadcast tick
+     * @param checksum CRC32 of the whole state
+     * @param payload The array holding the payload
+     * @param payloadLength Bytes of payload after the header
+     */
+    private void writeFrame(Frame frame, byte type, byte level, int frameTick, int checksum,
+                            byte[] payload, int payloadLength) {
+        ByteBuffer data = frame.data;
+        data.clear();
+        data.putInt(FRAME_HEADER_SIZE - 4 + payloadLength);
+        data.put(type);
+        data.put(level);
+        data.putInt(frameTick);
+        data.putInt(checksum);
+        data.put(payload, 0, payloadLength);
+    }
+
+    /**
+     * Gets the number of connected viewers.
+     *
+     * @return Viewer count
+     */
+    public int getViewerCount() {
+        return viewerCount;
+    }
+
+    /**
+     * Gets the latest broadcast tick.
+     *
+     * @return The tick, or -1 before the first broadcast
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the number of keyframes written to viewers.
+     *
+     * @return Keyframe count, counting each viewer separately
+     */
+    public long getKeyframesSent() {
+        return keyframesSent;
+    }
+
+    /**
+     * Gets the number of deltas written to viewers.
+     *
+     * @return Delta count, counting each viewer separately
+     */
+    public long getDeltasSent() {
+        return deltasSent;
+    }
+
+    /**
+     * Gets the number of ticks skipped because a viewer had not taken its previous frame.
+     *
+     * @return Skipped tick count, counting each viewer separately
+     */
+    public long getTicksSkipped() {
+        return ticksSkipped;
+    }
+
+    /**
+     * Gets the number of bytes written to viewers.
+     *
+     * @return Bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Gets the time spent capturing and encoding states.
+     *
+     * @return Total encoding time in nanoseconds
+     */
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    /**
+     * Stops the selector thread, which disconnects every viewer and stops listening.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering the loading of an image texture or font.
+ */
+@Name("donkeykong.AssetLoad")
+@Label("Asset Load")
+@Category({"Donkey Kong", "Assets"})
+@Description("Loading of an image texture or font")
+public class AssetLoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Kind")
+    @Description("image or font")
+    public String kind;
+
+    @Label("Size")
+    @Description("Font size, or image width times height in pixels")
+    public long size;
+}
@@ -0,0 +1,305 @@
+package profiling;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import entities.BarrelPool;
+import game.FramePacer;
+import game.GameState;
+import game.InputSampler;
+import game.ParticleSystem;
+import game.RecordingRenderer;
+import game.ScoreManager;
+import screens.GameplayScreen;
+import screens.SurvivalScreen;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Frame, tick, entity and garbage collection statistics for monitoring, in Prometheus text format.
+ *
+ * The game thread records into striped {@link LongAdder} counters and an {@link AtomicLongArray}
+ * of gauges, so recording never allocates or takes a lock, and a scrape on another thread only
+ * reads them. A scrape can see one tick's values half updated; each value is still correct on
+ * its own.
+ *
+ * Garbage collection pauses are recorded from the JVM's collection notifications, which arrive on
+ * a JMX thread.
+ */
+public class GameMetrics {
+    // Histogram bucket upper bounds, in seconds
+    private static final double[] FRAME_BUCKETS = {
+            0.004, 0.008, 0.012, 0.0167, 0.02, 0.025, 0.0334, 0.05, 0.1, 0.25, 1
+    };
+    private static final double[] PHASE_BUCKETS = {
+            1e-6, 2.5e-6, 5e-6, 1e-5, 2.5e-5, 5e-5, 1e-4, 2.5e-4, 5e-4, 1e-3, 2.5e-3, 5e-3, 1e-2
+    };
+    private static final double[] GC_BUCKETS = {
+            0.001, 0.002, 0.005, 0.01, 0.02, 0.05, 0.1, 0.2, 0.5, 1, 5
+    };
+
+    // Gauges set by the game thread each tick
+    private static final int GAUGE_BARRELS = 0;
+    private static final int GAUGE_MONKEYS = 1;
+    private static final int GAUGE_BULLETS = 2;
+    private static final int GAUGE_BANANAS = 3;
+    private static final int GAUGE_PARTICLES = 4;
+    private static final int GAUGE_PARTICLE_CAPACITY = 5;
+    private static final int GAUGE_BARREL_POOL_FREE = 6;
+    private static final int GAUGE_BARREL_POOL_CREATED = 7;
+    private static final int GAUGE_SCORE = 8;
+    private static final int GAUGE_BASE_SCORE = 9;
+    private static final int GAUGE_TIME_BONUS = 10;
+    private static final int GAUGE_LEVEL = 11;
+    private static final int GAUGE_DRAW_CALLS = 12;
+    private static final int GAUGE_TEXTURE_SWITCHES = 13;
+    private static final int GAUGE_TEXT_DRAWS = 14;
+    private static final int GAUGE_COUNT = 15;
+
+    private static final String[] ENTITY_TYPES = {"barrel", "monkey", "bullet", "banana", "particle"};
+
+    private final Histogram frames = new Histogram(FRAME_BUCKETS);
+    private final Histogram[] phases = new Histogram[GameplayScreen.PHASE_COUNT];
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder rewindTicks = new LongAdder();
+    private final LongAdder[] transitions = new LongAdder[GameState.values().length * GameState.values().length];
+    private final AtomicLongArray gauges = new AtomicLongArray(GAUGE_COUNT);
+
+    private volatile InputSampler input = null;
+    private volatile FramePacer pacer = null;
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Histogram[] gcPauses = new Histogram[collectors.size()];
+
+    /**
+     * Creates empty metrics and starts listening for garbage collections.
+     */
+    public GameMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram(PHASE_BUCKETS);
+        }
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = new LongAdder();
+        }
+        gauges.set(GAUGE_LEVEL, -1);
+
+        for (int i = 0; i < collectors.size(); i++) {
+            gcPauses[i] = new Histogram(GC_BUCKETS);
+            if (collectors.get(i) instanceof NotificationEmitter) {
+                Histogram pauses = gcPauses[i];
+                ((NotificationEmitter) collectors.get(i)).addNotificationListener((notification, handback) -> {
+                    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                        GarbageCollectionNotificationInfo info =
+                                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                        pauses.record(info.getGcInfo().getDuration() * 1_000_000L);
+                    }
+                }, null, null);
+            }
+        }
+    }
+
+    /**
+     * Records the time between two frames.
+     *
+     * @param nanos Nanoseconds since the previous frame started
+     */
+    public void recordFrame(long nanos) {
+        frames.record(nanos);
+    }
+
+    /**
+     * Records a gameplay tick: its phase durations, the live entities and the score.
+     * Call on the game thread after the screen's update.
+     *
+     * @param screen The screen that was just updated
+     */
+    public void recordTick(GameplayScreen screen) {
+        ticks.increment();
+        if (screen.isRewinding()) {
+            rewindTicks.increment();
+        } else {
+            for (int phase = 0; phase < phases.length; phase++) {
+                phases[phase].record(screen.getPhaseNanos(phase));
+            }
+        }
+
+        ParticleSystem particles = screen.getParticles();
+        ScoreManager score = screen.getScoreManager();
+        gauges.lazySet(GAUGE_BARRELS, screen.getActiveBarrelCount());
+        gauges.lazySet(GAUGE_MONKEYS, screen.getActiveMonkeyCount());
+        gauges.lazySet(GAUGE_BULLETS, screen.getActiveBulletCount());
+        gauges.lazySet(GAUGE_BANANAS, screen.getActiveBananaCount());
+        gauges.lazySet(GAUGE_PARTICLES, particles.getCount());
+        gauges.lazySet(GAUGE_PARTICLE_CAPACITY, particles.getCapacity());
+        if (screen instanceof SurvivalScreen) {
+            BarrelPool pool = ((SurvivalScreen) screen).getBarrelPool();
+            gauges.lazySet(GAUGE_BARREL_POOL_FREE, pool.getFreeCount());
+            gauges.lazySet(GAUGE_BARREL_POOL_CREATED, pool.getCreatedCount());
+        }
+        gauges.lazySet(GAUGE_SCORE, score.getScore());
+        gauges.lazySet(GAUGE_BASE_SCORE, score.getBaseScore());
+        gauges.lazySet(GAUGE_TIME_BONUS, score.getTimeBonus());
+        gauges.lazySet(GAUGE_LEVEL, screen.getLevel().ordinal());
+    }
+
+    /**
+     * Records what the last frame drew.
+     * Call on the game thread after the frame is drawn.
+     *
+     * @param draws The renderer that counted the frame's draws
+     */
+    public void recordDraws(RecordingRenderer draws) {
+        gauges.lazySet(GAUGE_DRAW_CALLS, draws.getDrawCalls());
+        gauges.lazySet(GAUGE_TEXTURE_SWITCHES, draws.getTextureSwitches());
+        gauges.lazySet(GAUGE_TEXT_DRAWS, draws.getTextDraws());
+    }
+
+    /**
+     * Serves the input latency recorded by a sampler.
+     *
+     * @param sampler The sampler reading the gameplay keys
+     */
+    public void watchInput(InputSampler sampler) {
+        this.input = sampler;
+    }
+
+    /**
+     * Serves the pacing error and missed deadlines recorded by a frame pacer.
+     *
+     * @param framePacer The pacer releasing frames
+     */
+    public void watchPacer(FramePacer framePacer) {
+        this.pacer = framePacer;
+    }
+
+    /**
+     * Records a change of game state.
+     *
+     * @param from The state left
+     * @param to The state entered
+     */
+    public void recordTransition(GameState from, GameState to) {
+        transitions[from.ordinal() * GameState.values().length + to.ordinal()].increment();
+    }
+
+    /**
+     * Writes every metric in Prometheus text exposition format.
+     *
+     * @param out Receives the metrics
+     */
+    public void write(StringBuilder out) {
+        out.append("# HELP dk_frame_seconds Time between the starts of consecutive frames.\n");
+        out.append("# TYPE dk_frame_seconds histogram\n");
+        frames.write(out, "dk_frame_seconds", "");
+
+        out.append("# HELP dk_tick_phase_seconds Duration of each phase of a simulated gameplay tick.\n");
+        out.append("# TYPE dk_tick_phase_seconds histogram\n");
+        for (int phase = 0; phase < phases.length; phase++) {
+            phases[phase].write(out, "dk_tick_phase_seconds",
+                    "phase=\"" + GameplayScreen.getPhaseName(phase) + "\"");
+        }
+
+        out.append("# HELP dk_ticks_total Gameplay ticks run, including rewound ticks.\n");
+        out.append("# TYPE dk_ticks_total counter\n");
+        out.append("dk_ticks_total ").append(ticks.sum()).append('\n');
+        out.append("# HELP dk_rewind_ticks_total Gameplay ticks that restored a rewound state.\n");
+        out.append("# TYPE dk_rewind_ticks_total counter\n");
+        out.append("dk_rewind_ticks_total ").append(rewindTicks.sum()).append('\n');
+
+        out.append("# HELP dk_entities Live entities of each type in the current level.\n");
+        out.append("# TYPE dk_entities gauge\n");
+        for (int i = 0; i < ENTITY_TYPES.length; i++) {
+            out.append("dk_entities{type=\"").append(ENTITY_TYPES[i]).append("\"} ")
+                    .append(gauges.get(GAUGE_BARRELS + i)).append('\n');
+        }
+        writeGauge(out, "dk_particle_capacity", "Particles the particle system can hold.", GAUGE_PARTICLE_CAPACITY);
+        writeGauge(out, "dk_barrel_pool_free", "Barrels waiting in the survival barrel pool.", GAUGE_BARREL_POOL_FREE);
+        writeGauge(out, "dk_barrel_pool_created", "Barrels created by the survival barrel pool.",
+                GAUGE_BARREL_POOL_CREATED);
+
+        writeGauge(out, "dk_score", "Score in the current level, including any time bonus.", GAUGE_SCORE);
+        writeGauge(out, "dk_base_score", "Score in the current level, excluding the time bonus.", GAUGE_BASE_SCORE);
+        writeGauge(out, "dk_time_bonus", "Time bonus awarded in the current level.", GAUGE_TIME_BONUS);
+        writeGauge(out, "dk_level", "GameState ordinal of the level last played.", GAUGE_LEVEL);
+
+        writeGauge(out, "dk_draw_calls", "Image and text draws submitted in the last frame.", GAUGE_DRAW_CALLS);
+        writeGauge(out, "dk_texture_switches", "Draws in the last frame with a different texture from the draw before.",
+                GAUGE_TEXTURE_SWITCHES);
+        writeGauge(out, "dk_text_draws", "Text draws submitted in the last frame.", GAUGE_TEXT_DRAWS);
+
+        InputSampler sampler = input;
+        if (sampler != null) {
+            out.append("# HELP dk_input_latency_seconds Time from a key press to the tick that consumed it and to its frame.\n");
+            out.append("# TYPE dk_input_latency_seconds histogram\n");
+            sampler.getSimulationLatency().write(out, "dk_input_latency_seconds", "stage=\"simulation\"");
+            sampler.getPresentLatency().write(out, "dk_input_latency_seconds", "stage=\"present\"");
+            out.append("# HELP dk_input_taps_total Key presses released before the tick that consumed them.\n");
+            out.append("# TYPE dk_input_taps_total counter\n");
+            out.append("dk_input_taps_total ").append(sampler.getTaps()).append('\n');
+            out.append("# HELP dk_input_dropped_total Key events dropped because too many arrived between ticks.\n");
+            out.append("# TYPE dk_input_dropped_total counter\n");
+            out.append("dk_input_dropped_total ").append(sampler.getDropped()).append('\n');
+        }
+
+        FramePacer framePacer = pacer;
+        if (framePacer != null) {
+            out.append("# HELP dk_frame_wake_error_seconds How late on-time frames were released after their deadline.\n");
+            out.append("# TYPE dk_frame_wake_error_seconds histogram\n");
+            framePacer.getWakeError().write(out, "dk_frame_wake_error_seconds", "");
+            out.append("# HELP dk_frame_interval_error_seconds Difference between the time between frame releases and the frame period.\n");
+            out.append("# TYPE dk_frame_interval_error_seconds histogram\n");
+            framePacer.getIntervalError().write(out, "dk_frame_interval_error_seconds", "");
+            out.append("# HELP dk_frame_deadline_late_seconds How far past their deadline missed frames finished.\n");
+            out.append("# TYPE dk_frame_deadline_late_seconds histogram\n");
+            framePacer.getLateness().write(out, "dk_frame_deadline_late_seconds", "");
+            out.append("# HELP dk_frame_deadline_misses_total Frames finished after their deadline, by their longest phase.\n");
+            out.append("# TYPE dk_frame_deadline_misses_total counter\n");
+            for (int phase = 0; phase < FramePacer.PHASE_COUNT; phase++) {
+                out.append("dk_frame_deadline_misses_total{phase=\"").append(FramePacer.getPhaseName(phase))
+                        .append("\"} ").append(framePacer.getMisses(phase)).append('\n');
+            }
+        }
+
+        out.append("# HELP dk_state_transitions_total Changes of game state.\n");
+        out.append("# TYPE dk_state_transitions_total counter\n");
+        GameState[] states = GameState.values();
+        for (int i = 0; i < transitions.length; i++) {
+            long count = transitions[i].sum();
+            if (count > 0) {
+                out.append("dk_state_transitions_total{from=\"").append(states[i / states.length])
+                        .append("\",to=\"").append(states[i % states.length]).append("\"} ")
+                        .append(count).append('\n');
+            }
+        }
+
+        out.append("# HELP jvm_gc_pause_seconds Duration of each garbage collection, per collector.\n");
+        out.append("# TYPE jvm_gc_pause_seconds histogram\n");
+        for (int i = 0; i < collectors.size(); i++) {
+            gcPauses[i].write(out, "jvm_gc_pause_seconds", "gc=\"" + collectors.get(i).getName() + "\"");
+        }
+        out.append("# HELP jvm_gc_collection_seconds_total Time spent in garbage collection, per collector.\n");
+        out.append("# TYPE jvm_gc_collection_seconds_total counter\n");
+        for (GarbageCollectorMXBean collector : collectors) {
+            out.append("jvm_gc_collection_seconds_total{gc=\"").append(collector.getName()).append("\"} ")
+                    .append(collector.getCollectionTime() / 1000.0).append('\n');
+        }
+    }
+
+    /**
+     * Writes one gauge with its help and type lines.
+     *
+     * @param out Receives the gauge
+     * @param name The metric name
+     * @param help The help text
+     * @param gauge The gauge index
+     */
+    private void writeGauge(StringBuilder out, String name, String help, int gauge) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(gauges.get(gauge)).append('\n');
+    }
+}
@@ -0,0 +1,123 @@
+package profiling;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed buckets, written in Prometheus text format.
+ *
+ * Each bucket counts the observations at or below its bound and above the previous one; the
+ * counts are summed into cumulative buckets when written. Recording uses {@link LongAdder}s, so it
+ * never allocates or takes a lock, and the histogram may be read while another thread records.
+ */
+public class Histogram {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final double[] bounds;
+    private final long[] boundNanos;
+    private final LongAdder[] buckets; // One more than the bounds, for observations above them all
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param bounds Bucket upper bounds in seconds, in increasing order
+     */
+    public Histogram(double[] bounds) {
+        this.bounds = bounds;
+        this.boundNanos = new long[bounds.length];
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            boundNanos[i] = (long) (bounds[i] * NANOS_PER_SECOND);
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        // The JVM links an adder's compare-and-set on its first use, which allocates; adding zero
+        // does that here rather than in the first record, which may be on a game tick
+        sumNanos.add(0);
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < boundNanos.length && nanos > boundNanos[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of observations recorded.
+     *
+     * @return Observation count
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the mean of the observations recorded.
+     *
+     * @return Mean duration in nanoseconds, or 0 if there are none
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sumNanos.sum() / count;
+    }
+
+    /**
+     * Gets an upper bound on a percentile: the bound of the bucket the percentile falls in.
+     *
+     * @param quantile The percentile as a fraction, e.g. 0.99
+     * @return The bucket bound in nanoseconds, {@link Long#MAX_VALUE} if the percentile is above
+     *         every bound, or 0 if there are no observations
+     */
+    public long getPercentileNanos(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long cumulative = 0;
+        for (int i = 0; i < boundNanos.length; i++) {
+            cumulative += buckets[i].sum();
+            if (cumulative >= rank) {
+                return boundNanos[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes the histogram's bucket, sum and count lines.
+     *
+     * @param out Receives the lines
+     * @param name The metric name
+     * @param labels Labels added to every line, e.g. {@code phase="input"}, or an empty string
+     */
+    public void write(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket").append(prefix).append("le=\"").append(bounds[i])
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += buckets[bounds.length].sum();
+        out.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix)
+                .append(String.format(Locale.ROOT, "%.9f", sumNanos.sum() / NANOS_PER_SECOND)).append('\n');
+        out.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+    }
+}
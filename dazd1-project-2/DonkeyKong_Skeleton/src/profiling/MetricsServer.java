@@ -0,0 +1,91 @@
+package profiling;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link GameMetrics} on {@code http://localhost:<port>/metrics} for Prometheus to scrape.
+ *
+ * Only the loopback interface is bound, so the metrics are not reachable from other machines
+ * unless a local agent forwards them. Requests are handled on one daemon thread, never on the
+ * game thread.
+ */
+public class MetricsServer implements Closeable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final GameMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving metrics.
+     *
+     * @param metrics The metrics to serve
+     * @param port The TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public MetricsServer(GameMetrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local TCP port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers one scrape with the current metrics.
+     *
+     * @param exchange The HTTP request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder(8192);
+            metrics.write(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Stops serving metrics.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
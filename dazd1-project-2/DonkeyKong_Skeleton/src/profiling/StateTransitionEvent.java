@@ -0,0 +1,25 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering a change of game state. The event's duration is the time
+ * taken to build the new screen, which includes loading the level.
+ */
+@Name("donkeykong.StateTransition")
+@Label("State Transition")
+@Category({"Donkey Kong", "Screens"})
+@Description("A change of game state and the construction of its screen")
+public class StateTransitionEvent extends jdk.jfr.Event {
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Screen")
+    public String screen;
+}
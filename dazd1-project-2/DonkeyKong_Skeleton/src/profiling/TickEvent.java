@@ -0,0 +1,57 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event covering one gameplay tick, with the duration of each tick phase
+ * and the number of active entities. The event's own duration is the whole tick.
+ */
+@Name("donkeykong.Tick")
+@Label("Gameplay Tick")
+@Category({"Donkey Kong", "Gameplay"})
+@Description("One tick of the gameplay simulation")
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+    @Label("Level")
+    public String level;
+
+    @Label("Frame")
+    public int frame;
+
+    @Label("Rewinding")
+    @Description("The tick restored a rewound state instead of simulating")
+    public boolean rewinding;
+
+    @Label("Input Phase")
+    @Timespan
+    public long inputNanos;
+
+    @Label("Entities Phase")
+    @Timespan
+    public long entitiesNanos;
+
+    @Label("Collisions Phase")
+    @Timespan
+    public long collisionsNanos;
+
+    @Label("Level Phase")
+    @Timespan
+    public long levelNanos;
+
+    @Label("Barrels")
+    public int barrels;
+
+    @Label("Monkeys")
+    public int monkeys;
+
+    @Label("Bullets")
+    public int bullets;
+
+    @Label("Bananas")
+    public int bananas;
+}
@@ -2,18 +2,21 @@ package screens;
 
 import bagel.*;
 import game.GameState;
+import game.HighScoreStore;
+import game.TextFont;
+import interfaces.Renderer;
 
 import java.util.Properties;
 
 /**
  * The game over screen shown when the game ends.
- * Displays the win/lose message, final score, and a prompt to continue.
+ * Displays the win/lose message, final score, the best runs so far, and a prompt to continue.
  */
 public class GameOverScreen extends Screen {
     // All layout positions now come from app.properties configuration
     
-    private final Font statusFont;
-    private final Font scoreFont;
+    private final TextFont statusFont;
+    private final TextFont scoreFont;
     private final int statusY;
     private final int scoreY;
     private final String winMessage;
@@ -21,7 +24,19 @@ public class GameOverScreen extends Screen {
     private final String continueMessage;
     
     private final GameState result;
-    private final int finalScore;
+    
+    // The lines never change, so they are built and measured once
+    private final String statusMessage;
+    private final String scoreText;
+    private final double statusLeftX;
+    private final double scoreLeftX;
+    private final double continueLeftX;
+    
+    // The top of the high-score table, heading first, as it stood when the run ended
+    private final String[] tableLines;
+    private final double[] tableLeftX;
+    private final int tableY;
+    private final int tableSpacing;
     
     /**
      * Creates a new game over screen.
@@ -30,12 +45,13 @@ public class GameOverScreen extends Screen {
      * @param messageProps Properties containing game messages
      * @param result The game result (win or lose)
      * @param score The final score
+     * @param highScores The high-score table to show, already holding this run if it was recorded
      */
-    public GameOverScreen(Properties gameProps, Properties messageProps, GameState result, int score) {
+    public GameOverScreen(Properties gameProps, Properties messageProps, GameState result, int score,
+                          HighScoreStore highScores) {
         super(gameProps, messageProps);
         
         this.result = result;
-        this.finalScore = score;
         
         // Load font settings using parent class method
         this.statusFont = createFont("gameEnd.status.fontSize");
@@ -49,6 +65,27 @@ public class GameOverScreen extends Screen {
         this.winMessage = messageProps.getProperty("gameEnd.won");
         this.loseMessage = messageProps.getProperty("gameEnd.lost");
         this.continueMessage = messageProps.getProperty("gameEnd.continue");
+        
+        this.statusMessage = (result == GameState.GAME_OVER_WIN) ? winMessage : loseMessage;
+        this.scoreText = messageProps.getProperty("gameEnd.score") + " " + score;
+        this.statusLeftX = Window.getWidth()/2.0 - statusFont.getWidth(statusMessage)/2.0;
+        this.scoreLeftX = Window.getWidth()/2.0 - scoreFont.getWidth(scoreText)/2.0;
+        this.continueLeftX = Window.getWidth()/2.0 - statusFont.getWidth(continueMessage)/2.0;
+        
+        // Load the high-score table, showing at most the configured number of rows
+        this.tableY = Integer.parseInt(gameProps.getProperty("gameEnd.highScores.y"));
+        this.tableSpacing = Integer.parseInt(gameProps.getProperty("gameEnd.highScores.spacing"));
+        int rows = Math.min(highScores.getCount(),
+                Integer.parseInt(gameProps.getProperty("gameEnd.highScores.rows")));
+        this.tableLines = new String[rows + 1];
+        this.tableLeftX = new double[rows + 1];
+        tableLines[0] = messageProps.getProperty("gameEnd.highScores");
+        for (int rank = 0; rank < rows; rank++) {
+            tableLines[rank + 1] = (rank + 1) + ". " + highScores.getScore(rank) + "  " + highScores.getLevel(rank);
+        }
+        for (int i = 0; i < tableLines.length; i++) {
+            tableLeftX[i] = Window.getWidth()/2.0 - scoreFont.getWidth(tableLines[i])/2.0;
+        }
     }
     
     /**
@@ -70,30 +107,29 @@ public class GameOverScreen extends Screen {
     
     /**
      * Draws the game over screen.
-     * Shows the game result, final score, and continue prompt.
+     * Shows the game result, final score, high-score table, and continue prompt.
+     *
+     * @param renderer The renderer to draw with
      */
     @Override
-    public void draw() {
+    public void draw(Renderer renderer) {
         // Draw background using parent class method
-        drawBackgroundImage();
-        
-        // Determine which message to show
-        String statusMessage = (result == GameState.GAME_OVER_WIN) ? winMessage : loseMessage;
+        drawBackgroundImage(renderer);
         
         // Draw status message (centered horizontally at statusY)
-        double messageWidth = statusFont.getWidth(statusMessage);
-        double centerX = Window.getWidth()/2.0 - messageWidth/2.0;
-        statusFont.drawString(statusMessage, centerX, statusY);
+        renderer.drawText(statusFont, statusMessage, statusLeftX, statusY);
         
         // Draw score (centered horizontally at scoreY from app.properties)
-        String scoreText = getMessageProps().getProperty("gameEnd.score") + " " + finalScore;
-        messageWidth = scoreFont.getWidth(scoreText);
-        centerX = Window.getWidth()/2.0 - messageWidth/2.0;
-        scoreFont.drawString(scoreText, centerX, scoreY);
+        renderer.drawText(scoreFont, scoreText, scoreLeftX, scoreY);
+        
+        // Draw the high-score table (centered horizontally, one line per run below its heading)
+        if (tableLines.length > 1) {
+            for (int i = 0; i < tableLines.length; i++) {
+                renderer.drawText(scoreFont, tableLines[i], tableLeftX[i], tableY + i * tableSpacing);
+            }
+        }
         
         // Draw continue prompt (centered horizontally)
-        messageWidth = statusFont.getWidth(continueMessage);
-        centerX = Window.getWidth()/2.0 - messageWidth/2.0;
-        statusFont.drawString(continueMessage, centerX, Window.getHeight() - 100);
+        renderer.drawText(statusFont, continueMessage, continueLeftX, Window.getHeight() - 100);
     }
 } 
\ No newline at end of file
@@ -1,28 +1,51 @@
 package screens;
 
 import bagel.*;
+import entities.Entity;
 import entities.Player;
 import entities.Platform;
 import entities.Ladder;
 import entities.DonkeyKong;
 import entities.Barrel;
 import entities.Hammer;
+import game.AnimationClock;
+import game.Camera;
 import game.GameState;
+import game.HudText;
+import game.InputSampler;
+import game.InputState;
+import game.LevelData;
+import game.ParticleEmitter;
+import game.ParticleSystem;
+import game.RewindBuffer;
 import game.ScoreManager;
+import game.SessionRecorder;
+import game.TextFont;
+import game.WorldChunks;
 import interfaces.Collidable;
+import interfaces.EntitySpawner;
+import interfaces.GameplayListener;
+import interfaces.Renderer;
+import interfaces.Snapshottable;
+import jdk.jfr.EventType;
+import profiling.TickEvent;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for gameplay screens.
  * Provides common functionality for different game levels.
  * Each level should extend this class and implement level-specific behavior.
  */
-public abstract class GameplayScreen extends Screen {
+public abstract class GameplayScreen extends Screen implements Snapshottable {
     // Collision Detection Constants
     private static final double PLATFORM_LADDER_ALIGNMENT_TOLERANCE = 10.0; // Platform-ladder alignment tolerance
     private static final double PLATFORM_PLAYER_COLLISION_TOLERANCE = 5.0; // Player-platform collision tolerance
@@ -32,30 +55,100 @@ public abstract class GameplayScreen extends Screen {
     // Time Calculation Constants
     private static final int FRAMES_PER_SECOND = 60; // Frames per second for time calculation
     
-    // Debug flag
-    private static final boolean DEBUG = false;
+    // Debug output, for the screens and the game's own diagnostics
+    public static final boolean DEBUG = false;
+    
+    // Tick phases, timed every tick for profiling
+    public static final int PHASE_INPUT = 0;
+    public static final int PHASE_ENTITIES = 1;
+    public static final int PHASE_COLLISIONS = 2;
+    public static final int PHASE_LEVEL = 3;
+    public static final int PHASE_COUNT = 4;
+    private static final String[] PHASE_NAMES = {"input", "entities", "collisions", "level"};
+    private static final EventType TICK_EVENT_TYPE = EventType.getEventType(TickEvent.class);
+    
+    // Snapshot format constants
+    private static final int SNAPSHOT_MAGIC = 0x444B5353; // "DKSS"
+    private static final short SNAPSHOT_VERSION = 4; // 2: loaded world chunks, 3: animation clock, 4: barrel spawn points
+    
+    // Kinds of entity streamed in from the level data as their chunk loads
+    private static final int SPAWN_BARREL = 0;         // Read from the properties; rested on a platform when created
+    private static final int SPAWN_PLACED_BARREL = 1;  // Compiled; created exactly where it was placed
+    private static final int SPAWN_RESTING_BARREL = 2; // Compiled; already resting on a platform
+    
+    // Largest distance in x and in y between a level barrel and its spawn point when matching edited level data
+    private static final double RELOAD_POSITION_TOLERANCE = 0.5;
     
     // Common game elements that all levels have
     private final Player player;
     private final int windowWidth;
     private final int windowHeight;
     
-    private final Font scoreFont;
+    // The world can be larger than the window; the camera follows the player through it
+    private final int worldWidth;
+    private final int worldHeight;
+    private final Camera camera;
+    private final WorldChunks chunks;
+    private final EntitySpawner spawner = this::spawnEntity;
+    private List<Barrel> streamedBarrels = null; // Level list that barrels from the level data go to
+    
+    // Visual effects; not part of the gameplay state
+    private final ParticleSystem particles;
+    private final ParticleEmitter barrelBurst;
+    private final ParticleEmitter monkeyBurst;
+    private final ParticleEmitter impactBurst;
+    
+    private final TextFont scoreFont;
     private final int scoreX;
     private final int scoreY;
     private final int timeY;
+    private final HudText scoreText = new HudText("SCORE ");
+    private final HudText timeText = new HudText("TIME ");
     
     private int currentFrame = 0;
+    private final AnimationClock animationClock = new AnimationClock();
     private final int maxFrames;
     
+    // Level layout compiled at build time, or null if the level is read from the properties
+    private final LevelData levelData;
+    
     // Game elements common to all levels
     private final List<Platform> platforms = new ArrayList<>();
     private final List<Ladder> ladders = new ArrayList<>();
     private DonkeyKong donkeyKong;
     
+    // Live entities in view this frame, in drawing order; refilled by the visibility pass each frame
+    private final List<Entity> drawList = new ArrayList<>();
+    
     // Scoring system
     private final ScoreManager scoreManager;
     
+    // Rewind history (null if rewinding is disabled)
+    private final RewindBuffer rewindBuffer;
+    private boolean rewinding = false;
+    
+    // Input for the current tick, sampled from the window
+    private final InputState inputState = new InputState();
+    
+    // Folds raw key events into each tick's input instead of polling the window (null to poll)
+    private InputSampler inputSampler = null;
+    
+    // Duration of each phase of the last tick in nanoseconds
+    private final long[] phaseNanos = new long[PHASE_COUNT];
+    
+    // Bytes allocated by each phase of the last tick, only measured when a counter is set
+    private LongSupplier allocationCounter = null;
+    private final long[] phaseBytes = new long[PHASE_COUNT];
+    private long phaseStartBytes = 0;
+    
+    // Optional observers of this screen's play
+    private GameplayListener[] listeners = new GameplayListener[0];
+    private SessionRecorder sessionRecorder = null;
+    private boolean stateRestored = false;
+    
+    // Set while re-running ticks that were already shown, e.g. after a network rollback
+    private boolean resimulating = false;
+    
     /**
      * Creates a new gameplay screen.
      *
@@ -65,10 +158,29 @@ public abstract class GameplayScreen extends Screen {
     public GameplayScreen(Properties gameProps, Properties messageProps) {
         super(gameProps, messageProps);
         
-        this.windowWidth = Window.getWidth();
-        this.windowHeight = Window.getHeight();
+        this.windowWidth = Integer.parseInt(gameProps.getProperty("window.width"));
+        this.windowHeight = Integer.parseInt(gameProps.getProperty("window.height"));
+        
+        // World size defaults to the window, in which case the camera never moves
+        this.worldWidth = Integer.parseInt(gameProps.getProperty("world.width", String.valueOf(windowWidth)));
+        this.worldHeight = Integer.parseInt(gameProps.getProperty("world.height", String.valueOf(windowHeight)));
+        this.camera = new Camera(windowWidth, windowHeight, worldWidth, worldHeight);
+        this.chunks = new WorldChunks(worldWidth, worldHeight,
+                Double.parseDouble(gameProps.getProperty("world.chunkSize", "512")),
+                Integer.parseInt(gameProps.getProperty("world.chunkMargin", "1")));
         
-        // Load fonts and positions from properties
+        // Particle effects for destroyed enemies and bullet hits
+        this.particles = new ParticleSystem(
+                Integer.parseInt(gameProps.getProperty("particles.capacity", "16384")),
+                Double.parseDouble(gameProps.getProperty("particles.gravity", "0.15")));
+        this.barrelBurst = new ParticleEmitter(particles,
+                gameProps.getProperty("particles.barrel", "24,3,40,0.6,0.35,0.1"));
+        this.monkeyBurst = new ParticleEmitter(particles,
+                gameProps.getProperty("particles.monkey", "20,2.5,36,0.55,0.4,0.25"));
+        this.impactBurst = new ParticleEmitter(particles,
+                gameProps.getProperty("particles.impact", "12,4,20,1,0.85,0.2"));
+        
+        // Load positions from properties
         this.scoreFont = createFont("gamePlay.score.fontSize");
         this.scoreX = Integer.parseInt(gameProps.getProperty("gamePlay.score.x"));
         this.scoreY = Integer.parseInt(gameProps.getProperty("gamePlay.score.y"));
@@ -77,24 +189,40 @@ public abstract class GameplayScreen extends Screen {
         // Load max frames for timing
         this.maxFrames = Integer.parseInt(gameProps.getProperty("gamePlay.maxFrames"));
         
+        // Set up rewind history if enabled
+        int rewindSeconds = Integer.parseInt(gameProps.getProperty("gamePlay.rewind.seconds", "0"));
+        int keyframeInterval = Integer.parseInt(gameProps.getProperty("gamePlay.rewind.keyframeInterval", "30"));
+        this.rewindBuffer = rewindSeconds > 0 && supportsRewind()
+                ? new RewindBuffer(rewindSeconds * FRAMES_PER_SECOND, keyframeInterval)
+                : null;
+        
         // Initialize score manager
         this.scoreManager = new ScoreManager();
         
-        // Load player
-        String playerKey = getPlayerPropertyKey();
-        String[] playerCoords = gameProps.getProperty(playerKey).split(",");
-        double playerX = Double.parseDouble(playerCoords[0]);
-        double playerY = Double.parseDouble(playerCoords[1]);
-        this.player = new Player(playerX, playerY);
-        
-        // Load platforms
-        initializePlatforms(gameProps);
-        
-        // Load ladders
-        initializeLadders(gameProps);
-        
-        // Load Donkey Kong
-        initializeDonkeyKong(gameProps);
+        // Use the compiled layout if the build made one from this level data
+        this.levelData = LevelData.find(gameProps, getLayoutLevel());
+        if (levelData != null) {
+            LevelData.Spawn start = levelData.getFirst(LevelData.PLAYER);
+            this.player = new Player(start.getX(), start.getY());
+            player.setOnGround(start.isGrounded());
+            loadCompiledLayout();
+        } else {
+            // Load player
+            String playerKey = getPlayerPropertyKey();
+            String[] playerCoords = gameProps.getProperty(playerKey).split(",");
+            double playerX = Double.parseDouble(playerCoords[0]);
+            double playerY = Double.parseDouble(playerCoords[1]);
+            this.player = new Player(playerX, playerY);
+            
+            // Load platforms
+            initializePlatforms(gameProps);
+            
+            // Load ladders
+            initializeLadders(gameProps);
+            
+            // Load Donkey Kong
+            initializeDonkeyKong(gameProps);
+        }
         
         // Note: loadLevelEntities() is called by init() after subclass construction
         // to ensure subclass fields are properly initialized
@@ -106,11 +234,46 @@ public abstract class GameplayScreen extends Screen {
      * It loads level-specific entities and corrects positions.
      */
     public void init() {
-        // Load level-specific entities
+        // Load level-specific entities, then create the streamed ones near the player
         loadLevelEntities();
+        updateCamera();
+        chunks.loadActive(spawner);
+        
+        // Initial position correction for all entities; compiled levels were corrected when built
+        if (levelData == null) {
+            correctInitialPositions();
+        }
         
-        // Initial position correction for all entities
-        correctInitialPositions();
+        // Record the starting state so the player can rewind to the very beginning
+        if (rewindBuffer != null) {
+            rewindBuffer.record(this);
+        }
+    }
+    
+    /**
+     * Gets the level this screen plays.
+     *
+     * @return The game state of this level (LEVEL1 or LEVEL2)
+     */
+    public abstract GameState getLevel();
+    
+    /**
+     * Gets the level whose layout this screen plays, for finding its compiled data.
+     * Modes that reuse a level's layout override this.
+     *
+     * @return The level whose data this screen is built from
+     */
+    protected GameState getLayoutLevel() {
+        return getLevel();
+    }
+    
+    /**
+     * Gets the compiled layout this screen was built from.
+     *
+     * @return The compiled level, or null if the level was read from the properties
+     */
+    protected LevelData getLevelData() {
+        return levelData;
     }
     
     /**
@@ -166,7 +329,7 @@ public abstract class GameplayScreen extends Screen {
      * @param input User input
      * @return GameState change if any, or null to continue
      */
-    protected abstract GameState updateLevelSpecific(Input input);
+    protected abstract GameState updateLevelSpecific(InputState input);
     
     /**
      * Checks for level-specific collisions.
@@ -177,10 +340,57 @@ public abstract class GameplayScreen extends Screen {
     protected abstract GameState checkLevelSpecificCollisions();
     
     /**
-     * Draws level-specific entities and UI elements.
+     * Adds the level's own entities that are live and in view to the frame's draw list,
+     * with {@link #addVisible}, in the order they are drawn.
      * Must be implemented by subclasses.
      */
-    protected abstract void drawLevelSpecific();
+    protected abstract void addVisibleLevelEntities();
+    
+    /**
+     * Draws level-specific UI elements over the level.
+     * Levels without their own HUD lines draw nothing.
+     *
+     * @param renderer The renderer to draw with
+     */
+    protected void drawLevelSpecific(Renderer renderer) {
+    }
+    
+    /**
+     * Adds an entity to the frame's draw list if it is live and in view.
+     *
+     * @param entity The entity
+     */
+    protected void addVisible(Entity entity) {
+        if (entity.isShown() && camera.isVisible(entity)) {
+            drawList.add(entity);
+        }
+    }
+    
+    /**
+     * Adds the live entities of a list that are in view to the frame's draw list, in list order.
+     *
+     * @param entities The entities
+     */
+    protected void addVisible(List<? extends Entity> entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            addVisible(entities.get(i));
+        }
+    }
+    
+    /**
+     * Creates the platforms, ladders and Donkey Kong from the compiled layout.
+     */
+    private void loadCompiledLayout() {
+        for (LevelData.Spawn spawn : levelData.getSpawns(LevelData.PLATFORM)) {
+            platforms.add(new Platform(spawn.getX(), spawn.getY()));
+        }
+        for (LevelData.Spawn spawn : levelData.getSpawns(LevelData.LADDER)) {
+            ladders.add(new Ladder(spawn.getX(), spawn.getY()));
+        }
+        LevelData.Spawn donkeyKongStart = levelData.getFirst(LevelData.DONKEY_KONG);
+        donkeyKong = new DonkeyKong(donkeyKongStart.getX(), donkeyKongStart.getY());
+        donkeyKong.setOnGround(donkeyKongStart.isGrounded());
+    }
     
     /**
      * Initializes platforms from the properties file.
@@ -288,6 +498,271 @@ public abstract class GameplayScreen extends Screen {
         }
     }
     
+    /**
+     * Applies edited level data to the running level without restarting it.
+     * The new data is compared with the data the level was loaded from, and only entries that
+     * differ are applied: platforms, ladders and Donkey Kong are moved, added or removed in place,
+     * and levels apply their own entities in {@link #reloadLevelSpecificData}. Everything else,
+     * including the player and the score, carries on as it was.
+     *
+     * If anything changed, the rewind history is restarted from the current state, since states
+     * recorded with the old layout may not fit the new one, and a new recorded session begins.
+     *
+     * @param newProps The edited game properties; the caller replaces the current ones afterwards
+     * @return Number of entries that changed
+     */
+    public int reloadLevelData(Properties newProps) {
+        Properties oldProps = getGameProps();
+        int changes = reloadPlatforms(oldProps, newProps);
+        changes += reloadLadders(oldProps, newProps);
+        
+        double[] oldDonkeyKong = parsePosition(oldProps.getProperty(getDonkeyKongPropertyKey()));
+        double[] newDonkeyKong = parsePosition(newProps.getProperty(getDonkeyKongPropertyKey()));
+        if (newDonkeyKong != null && !Arrays.equals(oldDonkeyKong, newDonkeyKong)) {
+            donkeyKong.setX(newDonkeyKong[0]);
+            donkeyKong.setY(newDonkeyKong[1]);
+            donkeyKong.setOnGround(false);
+            changes++;
+        }
+        
+        changes += reloadLevelSpecificData(oldProps, newProps);
+        
+        if (changes > 0) {
+            if (rewindBuffer != null) {
+                rewindBuffer.clear();
+                rewindBuffer.record(this);
+            }
+            stateRestored = true;
+        }
+        return changes;
+    }
+    
+    /**
+     * Applies edited level data for level-specific entities, comparing it with the old data.
+     * Levels with entities from the level data should override this.
+     *
+     * @param oldProps The properties the level is running with
+     * @param newProps The edited properties
+     * @return Number of entries that changed
+     */
+    protected int reloadLevelSpecificData(Properties oldProps, Properties newProps) {
+        return 0;
+    }
+    
+    /**
+     * Moves, adds and removes platforms to match edited level data.
+     *
+     * @param oldProps The properties the level is running with
+     * @param newProps The edited properties
+     * @return Number of platforms that changed
+     */
+    private int reloadPlatforms(Properties oldProps, Properties newProps) {
+        List<double[]> oldPositions = parsePositions(oldProps.getProperty(getPlatformsPropertyKey()), ";");
+        List<double[]> newPositions = parsePositions(newProps.getProperty(getPlatformsPropertyKey()), ";");
+        int changes = 0;
+        for (int i = 0; i < newPositions.size(); i++) {
+            double[] position = newPositions.get(i);
+            if (i >= oldPositions.size() || i >= platforms.size()) {
+                platforms.add(new Platform(position[0], position[1]));
+                changes++;
+            } else if (!Arrays.equals(oldPositions.get(i), position)) {
+                platforms.get(i).setX(position[0]);
+                platforms.get(i).setY(position[1]);
+                changes++;
+            }
+        }
+        changes += Math.max(0, platforms.size() - newPositions.size());
+        truncate(platforms, newPositions.size());
+        return changes;
+    }
+    
+    /**
+     * Moves, adds and removes ladders to match edited level data.
+     * Moved and added ladders fall onto the platforms below them, as at the start of the level.
+     *
+     * @param oldProps The properties the level is running with
+     * @param newProps The edited properties
+     * @return Number of ladders that changed
+     */
+    private int reloadLadders(Properties oldProps, Properties newProps) {
+        List<double[]> oldPositions = parseNumberedPositions(oldProps, getLaddersCountPropertyKey(),
+                getLadderPropertyKeyFormat());
+        List<double[]> newPositions = parseNumberedPositions(newProps, getLaddersCountPropertyKey(),
+                getLadderPropertyKeyFormat());
+        if (oldPositions == null || newPositions == null) {
+            return 0;
+        }
+        int changes = 0;
+        for (int i = 0; i < newPositions.size(); i++) {
+            double[] position = newPositions.get(i);
+            if (i >= oldPositions.size() || i >= ladders.size()) {
+                ladders.add(new Ladder(position[0], position[1]));
+                changes++;
+            } else if (!Arrays.equals(oldPositions.get(i), position)) {
+                Ladder ladder = ladders.get(i);
+                if (player.getCurrentLadder() == ladder) {
+                    player.stopClimbing();
+                }
+                ladder.setX(position[0]);
+                ladder.setY(position[1]);
+                ladder.setOnGround(false);
+                changes++;
+            }
+        }
+        for (int i = newPositions.size(); i < ladders.size(); i++) {
+            if (player.getCurrentLadder() == ladders.get(i)) {
+                player.stopClimbing();
+            }
+            changes++;
+        }
+        truncate(ladders, newPositions.size());
+        return changes;
+    }
+    
+    /**
+     * Moves, adds and removes barrels from the level data to match edited level data.
+     * Barrels whose chunk has not been loaded yet only have their spawn point changed; barrels
+     * already created are moved or removed in place, and new barrels in loaded chunks are created
+     * straight away.
+     *
+     * @param levelPrefix The level prefix (e.g., "barrel.level1", "barrel.level2")
+     * @param oldProps The properties the level is running with
+     * @param newProps The edited properties
+     * @return Number of barrels that changed
+     */
+    protected int reloadBarrels(String levelPrefix, Properties oldProps, Properties newProps) {
+        if (streamedBarrels == null) {
+            return 0;
+        }
+        String keyFormat = levelPrefix + ".%d";
+        List<double[]> oldPositions = parseNumberedPositions(oldProps, levelPrefix + ".count", keyFormat);
+        List<double[]> newPositions = parseNumberedPositions(newProps, levelPrefix + ".count", keyFormat);
+        if (oldPositions == null || newPositions == null) {
+            return 0;
+        }
+        int changes = 0;
+        for (int i = 0; i < Math.max(oldPositions.size(), newPositions.size()); i++) {
+            double[] oldPosition = i < oldPositions.size() ? oldPositions.get(i) : null;
+            double[] newPosition = i < newPositions.size() ? newPositions.get(i) : null;
+            if (Arrays.equals(oldPosition, newPosition)) {
+                continue;
+            }
+            changes++;
+            
+            if (oldPosition == null) {
+                // Added: create it now if its chunk has already been loaded
+                chunks.addSpawn(SPAWN_BARREL, newPosition[0], newPosition[1]);
+                if (chunks.isLoaded(newPosition[0], newPosition[1])) {
+                    spawnEntity(SPAWN_BARREL, newPosition[0], newPosition[1]);
+                }
+            } else if (!chunks.isLoaded(oldPosition[0], oldPosition[1])) {
+                // Not created yet, so only the spawn point changes
+                if (newPosition == null) {
+                    chunks.removeSpawn(SPAWN_BARREL, oldPosition[0], oldPosition[1]);
+                } else {
+                    chunks.moveSpawn(SPAWN_BARREL, oldPosition[0], oldPosition[1], newPosition[0], newPosition[1]);
+                }
+            } else {
+                // Already created: find the live barrel by the spawn point it was created at
+                Barrel barrel = findSpawnedBarrel(oldPosition[0], oldPosition[1]);
+                if (barrel != null && newPosition == null) {
+                    streamedBarrels.remove(barrel);
+                } else if (barrel != null) {
+                    barrel.reset(newPosition[0], newPosition[1]);
+                }
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * Finds a barrel from the level data that is still in play, by the point it spawned at.
+     * Barrels move once spawned, so their current position cannot identify them.
+     *
+     * @param x The spawn point's x-coordinate
+     * @param y The spawn point's y-coordinate
+     * @return The barrel, or null if it has been destroyed or removed
+     */
+    private Barrel findSpawnedBarrel(double x, double y) {
+        for (int i = 0; i < streamedBarrels.size(); i++) {
+            Barrel barrel = streamedBarrels.get(i);
+            if (!barrel.isDestroyed() && Math.abs(barrel.getSpawnX() - x) < RELOAD_POSITION_TOLERANCE
+                    && Math.abs(barrel.getSpawnY() - y) < RELOAD_POSITION_TOLERANCE) {
+                return barrel;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Parses a position in the format "x,y".
+     *
+     * @param value The property value
+     * @return The x and y coordinates, or null if the value is missing or malformed
+     */
+    protected static double[] parsePosition(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] coords = value.split(",");
+        if (coords.length != 2) {
+            return null;
+        }
+        try {
+            return new double[] {Double.parseDouble(coords[0]), Double.parseDouble(coords[1])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Parses a list of positions in the format "x1,y1;x2,y2;...", skipping malformed entries
+     * as the level does when it loads.
+     *
+     * @param value The property value
+     * @param separator The separator between positions
+     * @return The valid positions, in order
+     */
+    private static List<double[]> parsePositions(String value, String separator) {
+        List<double[]> positions = new ArrayList<>();
+        if (value != null && !value.isEmpty()) {
+            for (String entry : value.split(separator)) {
+                double[] position = parsePosition(entry);
+                if (position != null) {
+                    positions.add(position);
+                }
+            }
+        }
+        return positions;
+    }
+    
+    /**
+     * Parses positions stored as a count plus one numbered property each, skipping malformed
+     * entries as the level does when it loads.
+     *
+     * @param props The properties to read
+     * @param countKey The key of the count
+     * @param keyFormat The format of each position's key, with the 1-based number as its argument
+     * @return The valid positions, in order, or null if the count is malformed
+     */
+    private static List<double[]> parseNumberedPositions(Properties props, String countKey, String keyFormat) {
+        List<double[]> positions = new ArrayList<>();
+        int count;
+        try {
+            count = Integer.parseInt(props.getProperty(countKey, "0"));
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing " + countKey + ": " + props.getProperty(countKey));
+            return null;
+        }
+        for (int i = 1; i <= count; i++) {
+            double[] position = parsePosition(props.getProperty(String.format(keyFormat, i)));
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+    
     /**
      * Corrects entity positions to ensure they don't overlap platforms.
      * Objects like ladders, barrels, and Donkey Kong should be placed on top
@@ -295,21 +770,13 @@ public abstract class GameplayScreen extends Screen {
      */
     protected void correctInitialPositions() {
         // Correct player position if overlapping with a platform
-            for (Platform platform : platforms) {
-            if (platform.overlaps(player)) {
-                platform.placeEntityOnTop(player);
-                player.setOnGround(true);
-                    break;
-            }
+        if (Platform.restOnFirstOverlapping(player, platforms)) {
+            player.setOnGround(true);
         }
         
         // Correct Donkey Kong position if overlapping with a platform
-        for (Platform platform : platforms) {
-            if (platform.overlaps(donkeyKong)) {
-                platform.placeEntityOnTop(donkeyKong);
-                donkeyKong.setOnGround(true);
-                break;
-            }
+        if (Platform.restOnFirstOverlapping(donkeyKong, platforms)) {
+            donkeyKong.setOnGround(true);
         }
         
         // For Project 2, ladders should fall naturally due to gravity (0.25 pixels/frame)
@@ -326,18 +793,35 @@ public abstract class GameplayScreen extends Screen {
      */
     protected abstract void correctLevelSpecificPositions();
     
+    /**
+     * Writes level-specific state (barrels, monkeys, projectiles, etc) to a snapshot buffer.
+     * Must be implemented by subclasses.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    protected abstract void writeLevelState(ByteBuffer buffer);
+    
+    /**
+     * Restores level-specific state from a snapshot buffer.
+     * Must read exactly what {@link #writeLevelState(ByteBuffer)} wrote.
+     *
+     * @param buffer The buffer to read the state from
+     */
+    protected abstract void readLevelState(ByteBuffer buffer);
+    
     /**
      * Checks for player-ladder interactions.
      * Handles player climbing behavior.
      *
      * @param input User input to process climbing actions
      */
-    protected void checkPlayerLadderInteractions(Input input) {
+    protected void checkPlayerLadderInteractions(InputState input) {
         // If player is not currently on a ladder, check if they can start climbing
         if (!player.isOnLadder()) {
             // Check if player wants to climb down a ladder from a platform
             if (player.isOnGround() && input.isDown(Keys.DOWN)) {
-        for (Ladder ladder : ladders) {
+        for (int i = 0; i < ladders.size(); i++) {
+            Ladder ladder = ladders.get(i);
                     // Check if player is positioned to climb down this ladder
                     if (ladder.isPlayerAtTopOfLadder(player)) {
                         player.startClimbing(ladder);
@@ -347,7 +831,8 @@ public abstract class GameplayScreen extends Screen {
     }
     
             // Check if player wants to start climbing a ladder (up or already on it)
-            for (Ladder ladder : ladders) {
+            for (int i = 0; i < ladders.size(); i++) {
+                Ladder ladder = ladders.get(i);
                 if (ladder.canPlayerClimb(player)) {
                     if (input.isDown(Keys.UP) || input.isDown(Keys.DOWN)) {
                         player.startClimbing(ladder);
@@ -376,7 +861,8 @@ public abstract class GameplayScreen extends Screen {
             if (playerTopY < ladderTopY) {
                 // Check if there's a platform at the top that player could climb onto
                 boolean platformAbove = false;
-                for (Platform platform : platforms) {
+                for (int i = 0; i < platforms.size(); i++) {
+                    Platform platform = platforms.get(i);
                     double platformTopY = platform.getY() - platform.getHeight()/2;
                     // Platform must be close to the ladder top and player must be horizontally aligned
                     if (Math.abs(platformTopY - ladderTopY) < PLATFORM_LADDER_ALIGNMENT_TOLERANCE && 
@@ -410,7 +896,8 @@ public abstract class GameplayScreen extends Screen {
             // Handle player at bottom of ladder
             if (playerBottomY > ladderBottomY + PLAYER_PLATFORM_PLACEMENT_OFFSET) {
                 // Check if there's a platform at the bottom of the ladder
-                for (Platform platform : platforms) {
+                for (int i = 0; i < platforms.size(); i++) {
+                    Platform platform = platforms.get(i);
                     double platformTopY = platform.getY() - platform.getHeight()/2;
                     // If platform is directly beneath ladder and player is on it
                     if (Math.abs(platformTopY - ladderBottomY) < PLATFORM_PLAYER_COLLISION_TOLERANCE &&
@@ -449,7 +936,8 @@ public abstract class GameplayScreen extends Screen {
         boolean onAnyPlatform = false;
         
         // Check if player is on any platform
-        for (Platform platform : platforms) {
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform platform = platforms.get(i);
             // Skip platform checks if the player is currently climbing a ladder
             if (player.isOnLadder()) {
                 continue;
@@ -478,7 +966,8 @@ public abstract class GameplayScreen extends Screen {
     protected void checkDonkeyKongPlatformCollisions() {
         boolean onAnyPlatform = false;
         
-        for (Platform platform : platforms) {
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform platform = platforms.get(i);
             if (platform.isCollidingFromTop(donkeyKong)) {
                 onAnyPlatform = true;
                 if (!donkeyKong.isOnGround()) {
@@ -498,10 +987,12 @@ public abstract class GameplayScreen extends Screen {
      * Ensures ladders stay on platforms and don't fall through.
      */
     protected void checkLadderPlatformCollisions() {
-        for (Ladder ladder : ladders) {
+        for (int i = 0; i < ladders.size(); i++) {
+            Ladder ladder = ladders.get(i);
             boolean onPlatform = false;
             
-            for (Platform platform : platforms) {
+            for (int j = 0; j < platforms.size(); j++) {
+                Platform platform = platforms.get(j);
                 if (platform.isCollidingFromTop(ladder)) {
                     // Only place on top if ladder is falling (positive velocity)
                     if (ladder.getVerticalVelocity() > 0) {
@@ -519,34 +1010,173 @@ public abstract class GameplayScreen extends Screen {
     
     /**
      * Updates the gameplay screen based on user input.
-     * Handles player movement, entity updates, and collision detection.
+     * Samples the gameplay keys and runs one tick.
      *
      * @param input Current input state
      * @return Next GameState if state change is needed, null otherwise
      */
     @Override
     public GameState update(Input input) {
+        if (inputSampler != null) {
+            inputSampler.sampleTick(inputState);
+        } else {
+            inputState.sample(input);
+        }
+        return update(inputState);
+    }
+    
+    /**
+     * Updates the gameplay screen for one tick.
+     * Handles player movement, entity updates, and collision detection.
+     * Can be called without a window, e.g. to replay a recorded session.
+     *
+     * @param input The gameplay keys for this tick
+     * @return Next GameState if state change is needed, null otherwise
+     */
+    public GameState update(InputState input) {
+        // Skip the event entirely when Flight Recorder is not recording it. The tick is too large
+        // to inline, so the JIT cannot elide the event object and it would be garbage every tick
+        if (!TICK_EVENT_TYPE.isEnabled()) {
+            return runTick(input);
+        }
+        TickEvent event = new TickEvent();
+        event.begin();
+        
+        GameState nextState = runTick(input);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = getLevel().name();
+            event.frame = currentFrame;
+            event.rewinding = rewinding;
+            if (!rewinding) {
+                event.inputNanos = phaseNanos[PHASE_INPUT];
+                event.entitiesNanos = phaseNanos[PHASE_ENTITIES];
+                event.collisionsNanos = phaseNanos[PHASE_COLLISIONS];
+                event.levelNanos = phaseNanos[PHASE_LEVEL];
+            }
+            event.barrels = getActiveBarrelCount();
+            event.monkeys = getActiveMonkeyCount();
+            event.bullets = getActiveBulletCount();
+            event.bananas = getActiveBananaCount();
+            event.commit();
+        }
+        return nextState;
+    }
+    
+    /**
+     * Runs one tick, either stepping through the rewind history or simulating and recording it.
+     *
+     * @param input The gameplay keys for this tick
+     * @return Next GameState if state change is needed, null otherwise
+     */
+    private GameState runTick(InputState input) {
+        // While rewinding, the simulation is paused and the state comes from the history
+        if (rewindBuffer != null && handleRewind(input)) {
+            return null;
+        }
+        
+        if (sessionRecorder != null) {
+            // A restored state breaks the recorded input sequence, so start a new session from it
+            if (stateRestored) {
+                sessionRecorder.finish();
+                sessionRecorder.begin(this, getLevel(), input.getPreviousKeys());
+            }
+            sessionRecorder.recordTick(input.getKeys());
+        }
+        stateRestored = false;
+        
+        GameState nextState = updateGameplay(input);
+        
+        // Record the completed tick so it can be rewound to later
+        if (rewindBuffer != null && nextState == null) {
+            rewindBuffer.record(this);
+        }
+        if (sessionRecorder != null && nextState != null) {
+            sessionRecorder.finish();
+        }
+        return nextState;
+    }
+    
+    /**
+     * Handles rewind controls.
+     * Holding R steps back one frame per tick, holding F steps forward through frames
+     * that were rewound past, and pressing any movement key resumes play from the
+     * current frame, discarding the frames after it.
+     *
+     * @param input Current input state
+     * @return true if the simulation should stay paused this tick, false to continue playing
+     */
+    private boolean handleRewind(InputState input) {
+        if (input.isDown(Keys.R)) {
+            rewinding = true;
+            rewindBuffer.stepBack(this);
+            return true;
+        }
+        
+        if (!rewinding) {
+            return false;
+        }
+        
+        if (input.isDown(Keys.F)) {
+            rewindBuffer.stepForward(this);
+            return true;
+        }
+        
+        // Resume play once the player takes control again
+        if (input.wasPressed(Keys.LEFT) || input.wasPressed(Keys.RIGHT) || input.wasPressed(Keys.UP)
+                || input.wasPressed(Keys.DOWN) || input.wasPressed(Keys.SPACE)) {
+            rewinding = false;
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Runs one tick of the gameplay simulation.
+     *
+     * @param input Current input state
+     * @return Next GameState if state change is needed, null otherwise
+     */
+    private GameState updateGameplay(InputState input) {
         // Increment frame counter
         currentFrame++;
+        animationClock.advance();
         
         // Check for game timeout
-        if (currentFrame >= maxFrames) {
+        if (hasTimeLimit() && currentFrame >= maxFrames) {
             // Game over due to timeout
             return GameState.GAME_OVER_LOSE;
         }
         
         // Handle player input
-        player.handleInput(input, windowWidth, windowHeight);
+        long phaseStart = startPhases();
+        player.handleInput(input, worldWidth, worldHeight);
+        if (player.hasJumped()) {
+            notifyJump();
+        }
+        phaseStart = endPhase(PHASE_INPUT, phaseStart);
         
         // Update entities
         player.update();
         donkeyKong.update();
         
+        // Follow the player and stream in the level data that comes into range
+        updateCamera();
+        chunks.loadActive(spawner);
+        
         // Update ladders first
-        for (Ladder ladder : ladders) {
+        for (int i = 0; i < ladders.size(); i++) {
+            Ladder ladder = ladders.get(i);
             ladder.update();
         }
         
+        // Move particle effects from earlier frames, once per frame shown
+        if (!resimulating) {
+            particles.update();
+        }
+        phaseStart = endPhase(PHASE_ENTITIES, phaseStart);
+        
         // Then check for collisions
         checkLadderPlatformCollisions();
         checkPlayerPlatformCollisions();
@@ -555,12 +1185,152 @@ public abstract class GameplayScreen extends Screen {
         
         // Check for level-specific collisions that may end the game
         GameState collisionResult = checkLevelSpecificCollisions();
+        phaseStart = endPhase(PHASE_COLLISIONS, phaseStart);
         if (collisionResult != null) {
+            phaseNanos[PHASE_LEVEL] = 0;
+            phaseBytes[PHASE_LEVEL] = 0;
+            if (collisionResult == GameState.GAME_OVER_LOSE && !resimulating) {
+                for (GameplayListener listener : listeners) {
+                    listener.onPlayerDeath(getLevel(), currentFrame, player.getX(), player.getY());
+                }
+            }
             return collisionResult;
         }
         
         // Process level-specific updates
-        return updateLevelSpecific(input);
+        GameState levelResult = updateLevelSpecific(input);
+        endPhase(PHASE_LEVEL, phaseStart);
+        return levelResult;
+    }
+    
+    /**
+     * Starts timing the phases of a tick.
+     *
+     * @return The current time, which is the start of the first phase
+     */
+    private long startPhases() {
+        if (allocationCounter != null) {
+            phaseStartBytes = allocationCounter.getAsLong();
+        }
+        return System.nanoTime();
+    }
+    
+    /**
+     * Records the duration (and, if measured, the allocations) of a tick phase.
+     *
+     * @param phase The phase that just finished
+     * @param phaseStart The time the phase started, from {@link System#nanoTime()}
+     * @return The current time, which is the start of the next phase
+     */
+    private long endPhase(int phase, long phaseStart) {
+        long now = System.nanoTime();
+        phaseNanos[phase] = now - phaseStart;
+        if (allocationCounter != null) {
+            long bytes = allocationCounter.getAsLong();
+            phaseBytes[phase] = bytes - phaseStartBytes;
+            phaseStartBytes = bytes;
+        }
+        return now;
+    }
+    
+    /**
+     * Notifies the listeners that the player jumped.
+     */
+    protected void notifyJump() {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onJump(getLevel(), currentFrame, player.getX(), player.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that the player picked up a hammer.
+     */
+    protected void notifyHammerCollected() {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onHammerCollected(getLevel(), currentFrame, player.getX(), player.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that the player fired a bullet.
+     *
+     * @param bullet The bullet fired
+     */
+    protected void notifyShot(Entity bullet) {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onShot(getLevel(), currentFrame, bullet.getX(), bullet.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that the player scored a barrel jump.
+     */
+    protected void notifyBarrelJump() {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onBarrelJump(getLevel(), currentFrame, player.getX(), player.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that a banana hit the player.
+     */
+    protected void notifyBananaHit() {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onBananaHit(getLevel(), currentFrame, player.getX(), player.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that the player destroyed a barrel or monkey.
+     *
+     * @param entity The destroyed barrel or monkey
+     * @param shot true if a bullet destroyed it, false if the hammer did
+     */
+    protected void notifyDestroyed(Entity entity, boolean shot) {
+        if (resimulating) {
+            return;
+        }
+        for (GameplayListener listener : listeners) {
+            if (entity instanceof Barrel) {
+                listener.onBarrelDestroyed(getLevel(), currentFrame, entity.getX(), entity.getY());
+            } else {
+                listener.onMonkeyDestroyed(getLevel(), currentFrame, entity.getX(), entity.getY(), shot);
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that a monkey threw a banana.
+     *
+     * @param banana The banana thrown
+     */
+    protected void notifyBananaThrown(Entity banana) {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onBananaThrown(getLevel(), currentFrame, banana.getX(), banana.getY());
+            }
+        }
+    }
+    
+    /**
+     * Notifies the listeners that the level's time bonus was added to the score.
+     */
+    protected void notifyTimeBonus() {
+        if (!resimulating) {
+            for (GameplayListener listener : listeners) {
+                listener.onTimeBonus(getLevel(), currentFrame, scoreManager.getTimeBonus());
+            }
+        }
     }
     
     /**
@@ -649,7 +1419,7 @@ public abstract class GameplayScreen extends Screen {
      *
      * @return The score font
      */
-    public Font getScoreFont() {
+    public TextFont getScoreFont() {
         return scoreFont;
     }
     
@@ -687,6 +1457,256 @@ public abstract class GameplayScreen extends Screen {
         return (maxFrames - currentFrame) / FRAMES_PER_SECOND;
     }
     
+    /**
+     * Gets the width of the world, which may be larger than the window.
+     *
+     * @return World width in pixels
+     */
+    public int getWorldWidth() {
+        return worldWidth;
+    }
+    
+    /**
+     * Gets the height of the world, which may be larger than the window.
+     *
+     * @return World height in pixels
+     */
+    public int getWorldHeight() {
+        return worldHeight;
+    }
+    
+    /**
+     * Gets the camera, which converts world positions to screen positions when drawing.
+     *
+     * @return The camera
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+    
+    /**
+     * Gets the world chunks, which decide which entities are simulated.
+     *
+     * @return The world chunks
+     */
+    public WorldChunks getWorldChunks() {
+        return chunks;
+    }
+    
+    /**
+     * Gets the particle effects of this screen.
+     *
+     * @return The particle system
+     */
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+    
+    /**
+     * Bursts an entity into particles where it was destroyed.
+     * Barrels splinter; other enemies burst in their own colour.
+     *
+     * @param entity The destroyed entity
+     */
+    protected void emitDestroyed(Entity entity) {
+        if (resimulating) {
+            return;
+        }
+        ParticleEmitter emitter = entity instanceof Barrel ? barrelBurst : monkeyBurst;
+        emitter.emit(entity.getX(), entity.getY());
+    }
+    
+    /**
+     * Emits sparks where a projectile hit something.
+     *
+     * @param x The x-coordinate of the hit, in world coordinates
+     * @param y The y-coordinate of the hit, in world coordinates
+     */
+    protected void emitImpact(double x, double y) {
+        if (resimulating) {
+            return;
+        }
+        impactBurst.emit(x, y);
+    }
+    
+    /**
+     * Checks whether the level ends when {@code gamePlay.maxFrames} is reached.
+     * Levels without a time limit display the time survived instead.
+     *
+     * @return true if the level has a time limit
+     */
+    protected boolean hasTimeLimit() {
+        return true;
+    }
+    
+    /**
+     * Checks whether the level keeps a rewind history when {@code gamePlay.rewind.seconds} is set.
+     * Called from the constructor, so it must not depend on sub-class fields.
+     *
+     * @return true if the level can be rewound
+     */
+    protected boolean supportsRewind() {
+        return true;
+    }
+    
+    /**
+     * Gets the rewind history.
+     *
+     * @return The rewind buffer, or null if rewinding is disabled
+     */
+    public RewindBuffer getRewindBuffer() {
+        return rewindBuffer;
+    }
+    
+    /**
+     * Gets the number of barrels still in play.
+     * Levels with barrels should override this.
+     *
+     * @return Number of active barrels
+     */
+    public int getActiveBarrelCount() {
+        return 0;
+    }
+    
+    /**
+     * Gets the number of monkeys still in play.
+     * Levels with monkeys should override this.
+     *
+     * @return Number of active monkeys
+     */
+    public int getActiveMonkeyCount() {
+        return 0;
+    }
+    
+    /**
+     * Gets the number of bullets in flight.
+     * Levels with bullets should override this.
+     *
+     * @return Number of active bullets
+     */
+    public int getActiveBulletCount() {
+        return 0;
+    }
+    
+    /**
+     * Gets the number of bananas in flight.
+     * Levels with bananas should override this.
+     *
+     * @return Number of active bananas
+     */
+    public int getActiveBananaCount() {
+        return 0;
+    }
+    
+    /**
+     * Gets the number of entities the last frame drew, not counting the player.
+     *
+     * @return Number of live entities that were in view
+     */
+    public int getVisibleEntityCount() {
+        return drawList.size();
+    }
+    
+    /**
+     * Gets the duration of a phase of the last simulated tick.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @return Duration in nanoseconds
+     */
+    public long getPhaseNanos(int phase) {
+        return phaseNanos[phase];
+    }
+    
+    /**
+     * Gets the bytes allocated by a phase of the last simulated tick.
+     * Only measured while an allocation counter is set.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @return Bytes allocated
+     */
+    public long getPhaseBytes(int phase) {
+        return phaseBytes[phase];
+    }
+    
+    /**
+     * Sets the counter used to measure allocations per phase, e.g. the current thread's
+     * allocated bytes. Measuring is off by default.
+     *
+     * @param allocationCounter Returns a running total of bytes allocated, or null to stop measuring
+     */
+    public void setAllocationCounter(LongSupplier allocationCounter) {
+        this.allocationCounter = allocationCounter;
+    }
+    
+    /**
+     * Gets the name of a tick phase.
+     *
+     * @param phase The phase (one of the PHASE_ constants)
+     * @return The phase name
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+    
+    /**
+     * Adds a listener notified of gameplay events, such as the telemetry log or the sound effects.
+     *
+     * @param listener The listener
+     */
+    public void addListener(GameplayListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+    
+    /**
+     * Marks the following ticks as replays of ticks already shown, as after a network rollback.
+     * Replayed ticks simulate exactly as before but emit no effects and notify no listener, and
+     * restoring a snapshot keeps the effects on screen.
+     *
+     * @param resimulating true while replaying ticks, false to return to normal play
+     */
+    public void setResimulating(boolean resimulating) {
+        this.resimulating = resimulating;
+    }
+    
+    /**
+     * Checks whether ticks are being replayed.
+     *
+     * @return true while replaying ticks already shown
+     */
+    public boolean isResimulating() {
+        return resimulating;
+    }
+    
+    /**
+     * Checks whether the last tick restored a rewound state instead of simulating.
+     *
+     * @return true while the player is rewinding or fast-forwarding
+     */
+    public boolean isRewinding() {
+        return rewinding;
+    }
+    
+    /**
+     * Reads the gameplay keys from raw key events folded by a sampler instead of polling the window.
+     *
+     * @param inputSampler The sampler to read each tick's keys from, or null to poll
+     */
+    public void setInputSampler(InputSampler inputSampler) {
+        this.inputSampler = inputSampler;
+    }
+    
+    /**
+     * Starts recording this screen's play, beginning from its current state.
+     *
+     * @param sessionRecorder The recorder to write sessions to
+     */
+    public void setSessionRecorder(SessionRecorder sessionRecorder) {
+        this.sessionRecorder = sessionRecorder;
+        sessionRecorder.begin(this, getLevel(), inputState.getKeys());
+        stateRestored = false;
+    }
+    
     /**
      * Gets the debug flag value.
      *
@@ -696,53 +1716,193 @@ public abstract class GameplayScreen extends Screen {
         return DEBUG;
     }
     
+    /**
+     * Writes the complete gameplay state to a snapshot buffer.
+     * The snapshot starts with a header (magic, version, level) so that stale or
+     * mismatched snapshots are rejected on restore. Platforms are not written as
+     * they never change during play.
+     *
+     * @param buffer The buffer to write the state to
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putShort(SNAPSHOT_VERSION);
+        buffer.put((byte) getLevel().ordinal());
+        buffer.putInt(currentFrame);
+        animationClock.writeState(buffer);
+        chunks.writeState(buffer);
+        
+        scoreManager.writeState(buffer);
+        player.writeState(buffer);
+        buffer.putInt(ladders.indexOf(player.getCurrentLadder()));
+        donkeyKong.writeState(buffer);
+        writeEntities(buffer, ladders);
+        
+        writeLevelState(buffer);
+    }
+    
+    /**
+     * Restores the complete gameplay state from a snapshot buffer.
+     *
+     * @param buffer The buffer to read the state from
+     * @throws IllegalArgumentException if the snapshot is for another format version or level
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        if (buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IllegalArgumentException("Not a gameplay snapshot");
+        }
+        short version = buffer.getShort();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+        }
+        int level = buffer.get();
+        if (level != getLevel().ordinal()) {
+            throw new IllegalArgumentException("Snapshot is for " + GameState.values()[level] + ", not " + getLevel());
+        }
+        currentFrame = buffer.getInt();
+        animationClock.readState(buffer);
+        chunks.readState(buffer);
+        
+        scoreManager.readState(buffer);
+        player.readState(buffer);
+        int ladderIndex = buffer.getInt();
+        donkeyKong.readState(buffer);
+        readFixedEntities(buffer, ladders);
+        player.setCurrentLadder(ladderIndex >= 0 ? ladders.get(ladderIndex) : null);
+        updateCamera();
+        
+        readLevelState(buffer);
+        // Effects of events that may have been undone should not linger, unless the ticks are
+        // about to be replayed, which keeps the effects already shown
+        if (!resimulating) {
+            particles.clear();
+        }
+        stateRestored = true;
+    }
+    
+    /**
+     * Shortens a list to the given size by removing entries from the end.
+     * Used after compacting a list in place, which avoids rebuilding it every tick.
+     *
+     * @param list The list to shorten
+     * @param size The new size
+     */
+    protected static void truncate(List<?> list, int size) {
+        while (list.size() > size) {
+            list.remove(list.size() - 1);
+        }
+    }
+    
+    /**
+     * Writes a list of entities to a snapshot buffer, prefixed by its size.
+     *
+     * @param buffer The buffer to write to
+     * @param entities The entities to write
+     */
+    protected void writeEntities(ByteBuffer buffer, List<? extends Entity> entities) {
+        buffer.putInt(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            entities.get(i).writeState(buffer);
+        }
+    }
+    
+    /**
+     * Restores a list of entities whose size can change during play (e.g. projectiles).
+     * Existing entities are reused in place; missing ones are created with the factory
+     * and surplus ones are removed.
+     *
+     * @param buffer The buffer to read from
+     * @param entities The list to restore into
+     * @param factory Creates a blank entity when the snapshot holds more entities than the list
+     * @param <T> The entity type
+     */
+    protected <T extends Entity> void readEntities(ByteBuffer buffer, List<T> entities, Supplier<T> factory) {
+        int count = buffer.getInt();
+        while (entities.size() > count) {
+            entities.remove(entities.size() - 1);
+        }
+        while (entities.size() < count) {
+            entities.add(factory.get());
+        }
+        for (int i = 0; i < count; i++) {
+            entities.get(i).readState(buffer);
+        }
+    }
+    
+    /**
+     * Restores a list of entities whose size is fixed by the level configuration (e.g. ladders).
+     *
+     * @param buffer The buffer to read from
+     * @param entities The list to restore into
+     * @throws IllegalArgumentException if the snapshot holds a different number of entities
+     */
+    protected void readFixedEntities(ByteBuffer buffer, List<? extends Entity> entities) {
+        int count = buffer.getInt();
+        if (count != entities.size()) {
+            throw new IllegalArgumentException("Snapshot has " + count + " entities, level has " + entities.size());
+        }
+        for (int i = 0; i < count; i++) {
+            entities.get(i).readState(buffer);
+        }
+    }
+    
     /**
      * Draws the gameplay screen.
      * Renders all game entities and UI elements.
+     *
+     * @param renderer The renderer to draw with
      */
     @Override
-    public void draw() {
+    public void draw(Renderer renderer) {
         // Draw background
-        drawBackgroundImage();
+        drawBackgroundImage(renderer);
         
-        // Draw platforms
-        for (Platform platform : platforms) {
-            platform.draw();
-        }
+        // Visibility pass: platforms, ladders, Donkey Kong, then the level's own entities,
+        // leaving out anything destroyed, collected or off screen
+        drawList.clear();
+        addVisible(platforms);
+        addVisible(ladders);
+        addVisible(donkeyKong);
+        addVisibleLevelEntities();
         
-        // Draw ladders
-        for (Ladder ladder : ladders) {
-            ladder.draw();
+        // Draw what is visible, back to front
+        for (int i = 0; i < drawList.size(); i++) {
+            drawList.get(i).draw(renderer, camera, animationClock);
         }
         
-        // Draw Donkey Kong
-        donkeyKong.draw();
-        
-        // Draw level-specific elements
-        drawLevelSpecific();
+        // Draw particle effects over the level but under the player
+        particles.draw(renderer, camera);
         
         // Draw player (last so it appears on top)
-        player.draw();
+        player.draw(renderer, camera, animationClock);
         
         // Draw score using coordinates from properties file
-        String scoreText = "SCORE " + scoreManager.getScore();
-        scoreFont.drawString(scoreText, scoreX, scoreY);
+        scoreText.draw(renderer, scoreFont, scoreManager.getScore(), scoreX, scoreY);
         
-        // Draw remaining time below score
-        int remainingSeconds = (maxFrames - currentFrame) / FRAMES_PER_SECOND;
-        String timeText = "TIME " + remainingSeconds;
-        scoreFont.drawString(timeText, scoreX, timeY);
+        // Draw remaining time below score (or the time survived, if the level has no time limit)
+        int seconds = hasTimeLimit()
+                ? (maxFrames - currentFrame) / FRAMES_PER_SECOND
+                : currentFrame / FRAMES_PER_SECOND;
+        timeText.draw(renderer, scoreFont, seconds, scoreX, timeY);
+        
+        // Draw level-specific UI elements
+        drawLevelSpecific(renderer);
     }
     
     /**
      * Generic method to initialize barrels for any level.
      * Reduces code duplication between Level1Screen and Level2Screen.
+     * The barrels are registered with the world chunks and only created, in the given list,
+     * once their chunk is loaded.
      *
      * @param levelPrefix The level prefix (e.g., "barrel.level1", "barrel.level2")
      * @param barrelsList The list to add barrels to
      */
     protected void initializeBarrelsForLevel(String levelPrefix, List<Barrel> barrelsList) {
         int barrelCount = Integer.parseInt(getGameProps().getProperty(levelPrefix + ".count", "0"));
+        streamedBarrels = barrelsList;
         
         if (DEBUG) {
             System.out.println("DEBUG - " + levelPrefix + " barrel count: " + barrelCount);
@@ -761,7 +1921,7 @@ public abstract class GameplayScreen extends Screen {
                     try {
                         double x = Double.parseDouble(coords[0]);
                         double y = Double.parseDouble(coords[1]);
-                        barrelsList.add(new Barrel(x, y));
+                        chunks.addSpawn(SPAWN_BARREL, x, y);
                         
                         if (DEBUG) {
                             System.out.println("DEBUG - Added " + levelPrefix + " barrel " + i + ": " + x + "," + y);
@@ -774,6 +1934,60 @@ public abstract class GameplayScreen extends Screen {
         }
     }
     
+    /**
+     * Registers compiled barrels with the world chunks, as {@link #initializeBarrelsForLevel} does
+     * for barrels read from the properties.
+     *
+     * @param spawns The compiled barrels
+     * @param barrelsList The list to add barrels to
+     */
+    protected void initializeBarrels(List<LevelData.Spawn> spawns, List<Barrel> barrelsList) {
+        streamedBarrels = barrelsList;
+        for (LevelData.Spawn spawn : spawns) {
+            chunks.addSpawn(spawn.isGrounded() ? SPAWN_RESTING_BARREL : SPAWN_PLACED_BARREL, spawn.getX(), spawn.getY());
+        }
+    }
+    
+    /**
+     * Creates an entity from the level data when its chunk is loaded.
+     *
+     * @param kind The kind of entity
+     * @param x The x-coordinate of the entity's center
+     * @param y The y-coordinate of the entity's center
+     */
+    private void spawnEntity(int kind, double x, double y) {
+        if ((kind == SPAWN_PLACED_BARREL || kind == SPAWN_RESTING_BARREL) && streamedBarrels != null) {
+            Barrel barrel = new Barrel(x, y);
+            barrel.setOnGround(kind == SPAWN_RESTING_BARREL);
+            streamedBarrels.add(barrel);
+        } else if (kind == SPAWN_BARREL && streamedBarrels != null) {
+            Barrel barrel = new Barrel(x, y);
+            // Rest the barrel on a platform if it overlaps one, as for the initial barrels
+            if (Platform.restOnFirstOverlapping(barrel, platforms)) {
+                barrel.setOnGround(true);
+            }
+            streamedBarrels.add(barrel);
+        }
+    }
+    
+    /**
+     * Moves the camera to follow the player and updates which chunks are active.
+     */
+    private void updateCamera() {
+        camera.follow(player.getX(), player.getY());
+        chunks.update(camera);
+    }
+    
+    /**
+     * Creates the hammer from the compiled layout.
+     *
+     * @return The hammer at its compiled position
+     */
+    protected Hammer initializeCompiledHammer() {
+        LevelData.Spawn spawn = levelData.getFirst(LevelData.HAMMER);
+        return new Hammer(spawn.getX(), spawn.getY());
+    }
+    
     /**
      * Generic method to initialize hammer for any level.
      * Reduces code duplication between Level1Screen and Level2Screen.
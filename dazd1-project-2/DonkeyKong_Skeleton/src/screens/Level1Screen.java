@@ -5,12 +5,19 @@ import entities.Barrel;
 import entities.Hammer;
 import entities.Platform;
 import game.GameState;
+import game.InputState;
+import game.LevelData;
+import interfaces.Snapshottable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Level 1 gameplay screen.
@@ -31,6 +38,8 @@ public class Level1Screen extends GameplayScreen {
     // Track barrel jump statuses
     private static final int JUMP_COOLDOWN = 30; // frames before can jump same barrel again
     private final Map<Barrel, BarrelJumpInfo> barrelJumpStatuses = new HashMap<>();
+    // Restored barrels, reused to find tracking entries left over from barrels no longer in play
+    private final Set<Barrel> restoredBarrels = Collections.newSetFromMap(new IdentityHashMap<>());
     
     // Enhanced global jump prevention - more robust system
     private static final int GLOBAL_JUMP_COOLDOWN = 45; // Increased from 15 to 45 frames
@@ -41,13 +50,32 @@ public class Level1Screen extends GameplayScreen {
     private static final double MAX_JUMP_VERTICAL_DISTANCE = 80.0; // Maximum Y-distance between Mario and barrel for valid jump
     
     // Inner class to track jump status for each barrel
-    private class BarrelJumpInfo {
+    private class BarrelJumpInfo implements Snapshottable {
         boolean isAboveBarrel = false;     // Player is above the barrel (starting jump)
         boolean hasJumpedOver = false;     // Jump has been recorded
         int cooldownTimer = 0;             // Cooldown before next jump can be scored
         double lastPlayerY = 0;            // Last Y position to track downward movement
         int side = 0;                      // Side player was last on (0=none, -1=left, 1=right)
         boolean jumpInProgress = false;    // Tracks if a jump is currently in progress
+        
+        @Override
+        public void writeState(ByteBuffer buffer) {
+            buffer.put((byte) ((isAboveBarrel ? 1 : 0) | (hasJumpedOver ? 2 : 0) | (jumpInProgress ? 4 : 0)));
+            buffer.putInt(cooldownTimer);
+            buffer.putDouble(lastPlayerY);
+            buffer.put((byte) side);
+        }
+        
+        @Override
+        public void readState(ByteBuffer buffer) {
+            int flags = buffer.get();
+            isAboveBarrel = (flags & 1) != 0;
+            hasJumpedOver = (flags & 2) != 0;
+            jumpInProgress = (flags & 4) != 0;
+            cooldownTimer = buffer.getInt();
+            lastPlayerY = buffer.getDouble();
+            side = buffer.get();
+        }
     }
 
     /**
@@ -74,6 +102,11 @@ public class Level1Screen extends GameplayScreen {
         }
     }
 
+    @Override
+    public GameState getLevel() {
+        return GameState.LEVEL1;
+    }
+
     @Override
     protected String getPlayerPropertyKey() {
         return "mario.level1";
@@ -101,6 +134,13 @@ public class Level1Screen extends GameplayScreen {
 
     @Override
     protected void loadLevelEntities() {
+        LevelData compiled = getLevelData();
+        if (compiled != null) {
+            initializeBarrels(compiled.getSpawns(LevelData.BARREL), barrels);
+            hammer = initializeCompiledHammer();
+            return;
+        }
+        
         // Initialize barrels using generic method from parent class
         initializeBarrelsForLevel("barrel.level1", barrels);
         
@@ -108,41 +148,39 @@ public class Level1Screen extends GameplayScreen {
         hammer = initializeHammerForLevel("hammer.level1", 900, 500);
     }
     
+    @Override
+    protected int reloadLevelSpecificData(Properties oldProps, Properties newProps) {
+        return reloadBarrels("barrel.level1", oldProps, newProps);
+    }
+    
     @Override
     protected void correctLevelSpecificPositions() {
         // Position barrels on platforms if they overlap
         for (Barrel barrel : barrels) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(barrel)) {
-                    platform.placeEntityOnTop(barrel);
-                    barrel.setOnGround(true);
-                    break;
-                }
+            if (Platform.restOnFirstOverlapping(barrel, getPlatforms())) {
+                barrel.setOnGround(true);
             }
         }
         
         // Position hammer on a platform if overlapping
-        for (Platform platform : getPlatforms()) {
-            if (platform.overlaps(hammer)) {
-                platform.placeEntityOnTop(hammer);
-                break;
-            }
-        }
+        Platform.restOnFirstOverlapping(hammer, getPlatforms());
     }
     
     @Override
-    protected GameState updateLevelSpecific(Input input) {
-        // Update barrels, filter out destroyed ones
-        List<Barrel> remainingBarrels = new ArrayList<>();
-        for (Barrel barrel : barrels) {
-            // Only update and keep barrels that aren't destroyed
+    protected GameState updateLevelSpecific(InputState input) {
+        // Update barrels, removing destroyed ones in place
+        int remainingBarrels = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            // Only keep barrels that aren't destroyed, and only move those near the player
             if (!barrel.isDestroyed()) {
-                barrel.update();
-                remainingBarrels.add(barrel);
+                if (getWorldChunks().isActive(barrel)) {
+                    barrel.update();
+                }
+                barrels.set(remainingBarrels++, barrel);
             }
         }
-        barrels.clear();
-        barrels.addAll(remainingBarrels);
+        truncate(barrels, remainingBarrels);
         
         // Check for player-hammer collision
         checkHammerCollision();
@@ -162,14 +200,16 @@ public class Level1Screen extends GameplayScreen {
      * Ensures barrels stay on platforms and don't fall through.
      */
     private void checkBarrelPlatformCollisions() {
-        for (Barrel barrel : barrels) {
-            if (barrel.isDestroyed()) {
-                continue; // Skip destroyed barrels
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (barrel.isDestroyed() || !getWorldChunks().isActive(barrel)) {
+                continue; // Skip destroyed barrels and barrels in suspended chunks
             }
             
             boolean onPlatform = false;
             
-            for (Platform platform : getPlatforms()) {
+            for (int j = 0; j < getPlatforms().size(); j++) {
+                Platform platform = getPlatforms().get(j);
                 if (platform.isCollidingFromTop(barrel)) {
                     platform.placeEntityOnTop(barrel);
                     barrel.setOnGround(true);
@@ -187,10 +227,11 @@ public class Level1Screen extends GameplayScreen {
      * If the player touches the hammer, they collect it.
      */
     private void checkHammerCollision() {
-        if (!hammer.isCollected() && getPlayer().getBoundingBox().intersects(hammer.getBoundingBox())) {
+        if (!hammer.isCollected() && getPlayer().intersects(hammer)) {
             // Player collected the hammer
             hammer.collect();
             getPlayer().collectHammer();
+            notifyHammerCollected();
         }
     }
     
@@ -208,7 +249,8 @@ public class Level1Screen extends GameplayScreen {
             globalJumpCooldownTimer--;
         }
         
-        for (Barrel barrel : barrels) {
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
             // Skip destroyed barrels
             if (barrel.isDestroyed()) {
                 continue;
@@ -219,7 +261,12 @@ public class Level1Screen extends GameplayScreen {
             double barrelTopY = barrelY - barrel.getHeight()/2;
             
             // Get or create jump info for this barrel
-            BarrelJumpInfo jumpInfo = barrelJumpStatuses.computeIfAbsent(barrel, b -> new BarrelJumpInfo());
+            // (get/put rather than computeIfAbsent: the lambda would capture this and allocate every tick)
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrel);
+            if (jumpInfo == null) {
+                jumpInfo = new BarrelJumpInfo();
+                barrelJumpStatuses.put(barrel, jumpInfo);
+            }
             
             // Decrement cooldown if active
             if (jumpInfo.cooldownTimer > 0) {
@@ -285,6 +332,7 @@ public class Level1Screen extends GameplayScreen {
                 
                 // Award points for jumping over barrel
                 getScoreManager().addBarrelJumpScore();
+                notifyBarrelJump();
                 
                 // Mark as jumped and start cooldown for this barrel
                 jumpInfo.hasJumpedOver = true;
@@ -303,15 +351,17 @@ public class Level1Screen extends GameplayScreen {
         }
         
         // Clean up destroyed barrels
-        barrels.stream()
-            .filter(Barrel::isDestroyed)
-            .forEach(barrelJumpStatuses::remove);
+        for (int i = 0; i < barrels.size(); i++) {
+            if (barrels.get(i).isDestroyed()) {
+                barrelJumpStatuses.remove(barrels.get(i));
+            }
+        }
     }
     
     @Override
     protected GameState checkLevelSpecificCollisions() {
         // Check for player-DK collision
-        if (getPlayer().getBoundingBox().intersects(getDonkeyKong().getBoundingBox())) {
+        if (getPlayer().intersects(getDonkeyKong())) {
             if (getPlayer().hasHammer()) {
                 // Win condition: Player touched DK with a hammer
                 // Note: Level 1 does not award time bonus - only Level 2 does
@@ -326,11 +376,14 @@ public class Level1Screen extends GameplayScreen {
         }
         
         // Check for player-barrel collisions
-        for (Barrel barrel : barrels) {
-            if (getPlayer().getBoundingBox().intersects(barrel.getBoundingBox())) {
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (getPlayer().intersects(barrel)) {
                 if (getPlayer().hasHammer()) {
                     // Destroy barrel and score points
                     barrel.destroy();
+                    emitDestroyed(barrel);
+                    notifyDestroyed(barrel, false);
                     getScoreManager().addBarrelDestroyScore();
                 } else {
                     // Lose condition: Player touched barrel without a hammer
@@ -344,17 +397,87 @@ public class Level1Screen extends GameplayScreen {
     }
     
     @Override
-    protected void drawLevelSpecific() {
-        // Draw barrels
-        for (Barrel barrel : barrels) {
-            if (!barrel.isDestroyed()) {
-                barrel.draw();
+    protected void writeLevelState(ByteBuffer buffer) {
+        writeEntities(buffer, barrels);
+        writeBarrelJumpStatuses(buffer);
+        hammer.writeState(buffer);
+    }
+    
+    @Override
+    protected void readLevelState(ByteBuffer buffer) {
+        // Destroyed barrels are removed in level 1, so the barrel count can shrink
+        readEntities(buffer, barrels, () -> new Barrel(0, 0));
+        readBarrelJumpStatuses(buffer);
+        hammer.readState(buffer);
+    }
+    
+    /**
+     * Writes the jump tracking state of each barrel, in barrel list order.
+     *
+     * @param buffer The buffer to write to
+     */
+    private void writeBarrelJumpStatuses(ByteBuffer buffer) {
+        for (int i = 0; i < barrels.size(); i++) {
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrels.get(i));
+            if (jumpInfo == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1);
+                jumpInfo.writeState(buffer);
             }
         }
-        
-        // Draw hammer if not collected
-        if (!hammer.isCollected()) {
-            hammer.draw();
+        buffer.putInt(globalJumpCooldownTimer);
+        buffer.putDouble(lastScoredJumpY);
+    }
+    
+    /**
+     * Restores the jump tracking state of each barrel, reusing existing tracking objects.
+     * Must be called after the barrel list itself has been restored.
+     *
+     * @param buffer The buffer to read from
+     */
+    private void readBarrelJumpStatuses(ByteBuffer buffer) {
+        int tracked = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (buffer.get() == 0) {
+                barrelJumpStatuses.remove(barrel);
+                continue;
+            }
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrel);
+            if (jumpInfo == null) {
+                jumpInfo = new BarrelJumpInfo();
+                barrelJumpStatuses.put(barrel, jumpInfo);
+            }
+            jumpInfo.readState(buffer);
+            tracked++;
+        }
+        // Any entries beyond those just restored belong to barrels that are no longer in the list;
+        // they are pruned against a set, since checking each against the list is quadratic
+        if (barrelJumpStatuses.size() > tracked) {
+            restoredBarrels.clear();
+            restoredBarrels.addAll(barrels);
+            barrelJumpStatuses.keySet().retainAll(restoredBarrels);
+        }
+        globalJumpCooldownTimer = buffer.getInt();
+        lastScoredJumpY = buffer.getDouble();
+    }
+    
+    @Override
+    public int getActiveBarrelCount() {
+        int count = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed()) {
+                count++;
+            }
         }
+        return count;
+    }
+    
+    @Override
+    protected void addVisibleLevelEntities() {
+        addVisible(barrels);
+        addVisible(hammer);
     }
 } 
\ No newline at end of file
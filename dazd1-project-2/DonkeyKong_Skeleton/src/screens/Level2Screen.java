@@ -11,13 +11,22 @@ import entities.Monkey;
 import entities.NormalMonkey;
 import entities.Platform;
 import game.GameState;
+import game.HudText;
+import game.InputState;
+import game.LevelData;
+import interfaces.Renderer;
+import interfaces.Snapshottable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -47,15 +56,36 @@ public class Level2Screen extends GameplayScreen {
     
     // Barrel jump tracking for Level 2
     private final Map<Barrel, BarrelJumpInfo> barrelJumpStatuses = new HashMap<>();
+    // Restored barrels, reused to find tracking entries left over from barrels no longer in play
+    private final Set<Barrel> restoredBarrels = Collections.newSetFromMap(new IdentityHashMap<>());
     
     // Inner class to track jump status for each barrel (same as Level 1)
-    private class BarrelJumpInfo {
+    private class BarrelJumpInfo implements Snapshottable {
         boolean isAboveBarrel = false;     // Player is above the barrel (starting jump)
         boolean hasJumpedOver = false;     // Jump has been recorded
         int cooldownTimer = 0;             // Cooldown before next jump can be scored
         double lastPlayerY = 0;            // Last Y position to track downward movement
         int side = 0;                      // Side player was last on (0=none, -1=left, 1=right)
         boolean jumpInProgress = false;    // Tracks if a jump is currently in progress
+        
+        @Override
+        public void writeState(ByteBuffer buffer) {
+            buffer.put((byte) ((isAboveBarrel ? 1 : 0) | (hasJumpedOver ? 2 : 0) | (jumpInProgress ? 4 : 0)));
+            buffer.putInt(cooldownTimer);
+            buffer.putDouble(lastPlayerY);
+            buffer.put((byte) side);
+        }
+        
+        @Override
+        public void readState(ByteBuffer buffer) {
+            int flags = buffer.get();
+            isAboveBarrel = (flags & 1) != 0;
+            hasJumpedOver = (flags & 2) != 0;
+            jumpInProgress = (flags & 4) != 0;
+            cooldownTimer = buffer.getInt();
+            lastPlayerY = buffer.getDouble();
+            side = buffer.get();
+        }
     }
     
     // Monkey entities for Level 2
@@ -70,12 +100,12 @@ public class Level2Screen extends GameplayScreen {
     private final List<Blaster> blasters = new ArrayList<>();
     
     // UI elements
-    private final Font healthFont;
     private final int healthX;
     private final int healthY;
-    private final Font bulletFont;
     private final int bulletX;
     private final int bulletY;
+    private final HudText healthText = new HudText("Donkey Health ");
+    private final HudText bulletText = new HudText("Bullet ");
     
     /**
      * Creates a new Level 2 screen.
@@ -87,14 +117,12 @@ public class Level2Screen extends GameplayScreen {
         super(gameProps, messageProps);
         
         // Initialize health display
-        healthFont = createFont("gamePlay.score.fontSize");
         String healthCoords = gameProps.getProperty("gamePlay.donkeyhealth.coords");
         String[] healthCoordArray = healthCoords.split(",");
         healthX = Integer.parseInt(healthCoordArray[0]);
         healthY = Integer.parseInt(healthCoordArray[1]);
         
         // Initialize bullet count display (positioned below DK health)
-        bulletFont = healthFont;
         bulletX = healthX;
         bulletY = healthY + 30; // 30 pixels below DK health display
         
@@ -117,6 +145,11 @@ public class Level2Screen extends GameplayScreen {
         }
     }
 
+    @Override
+    public GameState getLevel() {
+        return GameState.LEVEL2;
+    }
+
     @Override
     protected String getPlayerPropertyKey() {
         return "mario.level2";
@@ -144,6 +177,12 @@ public class Level2Screen extends GameplayScreen {
 
     @Override
     protected void loadLevelEntities() {
+        LevelData compiled = getLevelData();
+        if (compiled != null) {
+            loadCompiledEntities(compiled);
+            return;
+        }
+        
         // Initialize barrels using generic method from parent class
         initializeBarrelsForLevel("barrel.level2", barrels);
         
@@ -156,6 +195,30 @@ public class Level2Screen extends GameplayScreen {
         initializeBlasters();
     }
     
+    /**
+     * Creates the level 2 entities from the compiled layout.
+     *
+     * @param compiled The compiled level
+     */
+    private void loadCompiledEntities(LevelData compiled) {
+        initializeBarrels(compiled.getSpawns(LevelData.BARREL), barrels);
+        hammer = initializeCompiledHammer();
+        for (LevelData.Spawn spawn : compiled.getSpawns(LevelData.NORMAL_MONKEY)) {
+            NormalMonkey monkey = new NormalMonkey(spawn.getX(), spawn.getY(), spawn.getDirection(), spawn.getPatrol());
+            monkey.setOnGround(spawn.isGrounded());
+            normalMonkeys.add(monkey);
+        }
+        for (LevelData.Spawn spawn : compiled.getSpawns(LevelData.INTELLIGENT_MONKEY)) {
+            IntelligentMonkey monkey = new IntelligentMonkey(spawn.getX(), spawn.getY(), spawn.getDirection(),
+                    spawn.getPatrol());
+            monkey.setOnGround(spawn.isGrounded());
+            intelligentMonkeys.add(monkey);
+        }
+        for (LevelData.Spawn spawn : compiled.getSpawns(LevelData.BLASTER)) {
+            blasters.add(new Blaster(spawn.getX(), spawn.getY()));
+        }
+    }
+    
     /**
      * Generic method to initialize monkeys for Level 2.
      * Reduces code duplication between normal and intelligent monkey initialization.
@@ -262,74 +325,159 @@ public class Level2Screen extends GameplayScreen {
         }
     }
     
+    @Override
+    protected int reloadLevelSpecificData(Properties oldProps, Properties newProps) {
+        return reloadBarrels("barrel.level2", oldProps, newProps)
+                + reloadMonkeys("normalMonkey", normalMonkeys, false, oldProps, newProps)
+                + reloadMonkeys("intelligentMonkey", intelligentMonkeys, true, oldProps, newProps);
+    }
+    
+    /**
+     * Moves, re-routes, adds and removes monkeys of one type to match edited level data.
+     * A monkey whose route or direction changed starts the new route from where it is.
+     *
+     * @param typePrefix The monkey type prefix (e.g., "normalMonkey", "intelligentMonkey")
+     * @param monkeyList The live monkeys of that type
+     * @param isIntelligent Whether the monkeys are intelligent monkeys
+     * @param oldProps The properties the level is running with
+     * @param newProps The edited properties
+     * @return Number of monkeys that changed
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Monkey> int reloadMonkeys(String typePrefix, List<T> monkeyList, boolean isIntelligent,
+                                                 Properties oldProps, Properties newProps) {
+        List<String> oldConfigs = getValidMonkeyConfigs(typePrefix, oldProps);
+        List<String> newConfigs = getValidMonkeyConfigs(typePrefix, newProps);
+        if (oldConfigs == null || newConfigs == null) {
+            return 0;
+        }
+        
+        int changes = 0;
+        for (int i = 0; i < newConfigs.size(); i++) {
+            boolean added = i >= oldConfigs.size() || i >= monkeyList.size();
+            if (!added && newConfigs.get(i).equals(oldConfigs.get(i))) {
+                continue;
+            }
+            changes++;
+            String[] parts = newConfigs.get(i).split(";");
+            double[] position = parsePosition(parts[0]);
+            List<Integer> patrolDistances = parsePatrolDistances(parts[2]);
+            
+            if (added) {
+                monkeyList.add(isIntelligent
+                        ? (T) new IntelligentMonkey(position[0], position[1], parts[1], patrolDistances)
+                        : (T) new NormalMonkey(position[0], position[1], parts[1], patrolDistances));
+                continue;
+            }
+            T monkey = monkeyList.get(i);
+            String[] oldParts = oldConfigs.get(i).split(";");
+            if (!parts[0].equals(oldParts[0])) {
+                monkey.setX(position[0]);
+                monkey.setY(position[1]);
+                monkey.setOnGround(false);
+            }
+            if (!parts[1].equals(oldParts[1]) || !parts[2].equals(oldParts[2])) {
+                monkey.setPatrol("right".equalsIgnoreCase(parts[1]), patrolDistances);
+            }
+        }
+        changes += Math.max(0, monkeyList.size() - newConfigs.size());
+        truncate(monkeyList, newConfigs.size());
+        return changes;
+    }
+    
+    /**
+     * Gets the monkey entries of one type that the level would load, skipping malformed ones.
+     *
+     * @param typePrefix The monkey type prefix (e.g., "normalMonkey", "intelligentMonkey")
+     * @param props The properties to read
+     * @return The valid entries in order, or null if the count is malformed
+     */
+    private static List<String> getValidMonkeyConfigs(String typePrefix, Properties props) {
+        List<String> configs = new ArrayList<>();
+        int monkeyCount;
+        try {
+            monkeyCount = Integer.parseInt(props.getProperty(typePrefix + ".level2.count", "0"));
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing " + typePrefix + " count: " + props.getProperty(typePrefix + ".level2.count"));
+            return null;
+        }
+        for (int i = 1; i <= monkeyCount; i++) {
+            String monkeyConfig = props.getProperty(typePrefix + ".level2." + i);
+            if (monkeyConfig == null) {
+                continue;
+            }
+            String[] parts = monkeyConfig.split(";");
+            if (parts.length >= 3 && parsePosition(parts[0]) != null && parsePatrolDistances(parts[2]) != null) {
+                configs.add(monkeyConfig);
+            }
+        }
+        return configs;
+    }
+    
+    /**
+     * Parses a monkey's patrol distances in the format "d1,d2,...".
+     *
+     * @param value The distances
+     * @return The distances, or null if any is malformed
+     */
+    private static List<Integer> parsePatrolDistances(String value) {
+        try {
+            return Arrays.stream(value.split(","))
+                .map(Integer::parseInt)
+                .collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
     @Override
     protected void correctLevelSpecificPositions() {
         // Position barrels on platforms if they overlap
         for (Barrel barrel : barrels) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(barrel)) {
-                    platform.placeEntityOnTop(barrel);
-                    barrel.setOnGround(true);
-                    break;
-                }
+            if (Platform.restOnFirstOverlapping(barrel, getPlatforms())) {
+                barrel.setOnGround(true);
             }
         }
         
         // Position hammer on a platform if overlapping
         if (hammer != null) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(hammer)) {
-                    platform.placeEntityOnTop(hammer);
-                    break;
-                }
-            }
+            Platform.restOnFirstOverlapping(hammer, getPlatforms());
         }
         
         // Position normal monkeys on platforms if they overlap
         for (NormalMonkey monkey : normalMonkeys) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(monkey)) {
-                    platform.placeEntityOnTop(monkey);
-                    monkey.setOnGround(true);
-                    break;
-                }
+            if (Platform.restOnFirstOverlapping(monkey, getPlatforms())) {
+                monkey.setOnGround(true);
             }
         }
         
         // Position intelligent monkeys on platforms if they overlap
         for (IntelligentMonkey monkey : intelligentMonkeys) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(monkey)) {
-                    platform.placeEntityOnTop(monkey);
-                    monkey.setOnGround(true);
-                    break;
-                }
+            if (Platform.restOnFirstOverlapping(monkey, getPlatforms())) {
+                monkey.setOnGround(true);
             }
         }
         
         // Position blasters on platforms if they overlap
         for (Blaster blaster : blasters) {
-            for (Platform platform : getPlatforms()) {
-                if (platform.overlaps(blaster)) {
-                    platform.placeEntityOnTop(blaster);
-                    break;
-                }
-            }
+            Platform.restOnFirstOverlapping(blaster, getPlatforms());
         }
     }
     
     @Override
-    protected GameState updateLevelSpecific(Input input) {
-        // Update barrels
-        for (Barrel barrel : barrels) {
-            if (!barrel.isDestroyed()) {
+    protected GameState updateLevelSpecific(InputState input) {
+        // Update barrels, leaving the ones in suspended chunks where they are
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed() && getWorldChunks().isActive(barrel)) {
                 barrel.update();
             }
         }
         
         // Update normal monkeys
-        for (NormalMonkey monkey : normalMonkeys) {
-            if (!monkey.isDestroyed()) {
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            NormalMonkey monkey = normalMonkeys.get(i);
+            if (!monkey.isDestroyed() && getWorldChunks().isActive(monkey)) {
                 // Check platform edges before updating
                 monkey.checkPlatformEdges(getPlatforms());
                 monkey.update();
@@ -340,15 +488,17 @@ public class Level2Screen extends GameplayScreen {
         updateIntelligentMonkeys();
         
         // Update blasters
-        for (Blaster blaster : blasters) {
+        for (int i = 0; i < blasters.size(); i++) {
+            Blaster blaster = blasters.get(i);
             blaster.update();
         }
         
         // Check for player-hammer collision
         if (hammer != null && !hammer.isCollected() && 
-            getPlayer().getBoundingBox().intersects(hammer.getBoundingBox())) {
+            getPlayer().intersects(hammer)) {
             hammer.collect();
             getPlayer().collectHammer();
+            notifyHammerCollected();
         }
         
         // Check for player-blaster collision
@@ -367,13 +517,15 @@ public class Level2Screen extends GameplayScreen {
         updateBananas();
         
         // Check for barrel-platform collisions
-        for (Barrel barrel : barrels) {
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
             if (barrel.isDestroyed()) {
                 continue;
             }
             
             boolean onPlatform = false;
-            for (Platform platform : getPlatforms()) {
+            for (int j = 0; j < getPlatforms().size(); j++) {
+                Platform platform = getPlatforms().get(j);
                 if (platform.isCollidingFromTop(barrel)) {
                     platform.placeEntityOnTop(barrel);
                     barrel.setOnGround(true);
@@ -394,8 +546,9 @@ public class Level2Screen extends GameplayScreen {
      * Updates intelligent monkeys and handles banana throwing.
      */
     private void updateIntelligentMonkeys() {
-        for (IntelligentMonkey monkey : intelligentMonkeys) {
-            if (!monkey.isDestroyed()) {
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            IntelligentMonkey monkey = intelligentMonkeys.get(i);
+            if (!monkey.isDestroyed() && getWorldChunks().isActive(monkey)) {
                 // Check platform edges before updating
                 monkey.checkPlatformEdges(getPlatforms());
                 monkey.update();
@@ -404,6 +557,7 @@ public class Level2Screen extends GameplayScreen {
                 Banana banana = monkey.throwBanana();
                 if (banana != null) {
                     bananas.add(banana);
+                    notifyBananaThrown(banana);
                     
                     if (isDebug()) {
                         System.out.println("DEBUG - Monkey threw banana at: " + banana.getX() + "," + banana.getY());
@@ -417,21 +571,21 @@ public class Level2Screen extends GameplayScreen {
      * Updates bananas and removes inactive ones.
      */
     private void updateBananas() {
-        // Update and filter bananas
-        List<Banana> activeBananas = new ArrayList<>();
-        for (Banana banana : bananas) {
+        // Update bananas, removing inactive ones in place
+        int activeBananas = 0;
+        for (int i = 0; i < bananas.size(); i++) {
+            Banana banana = bananas.get(i);
             if (banana.isActive()) {
-                banana.update();
+                banana.update(getWorldWidth(), getWorldHeight());
                 checkBananaCollisions(banana);
                 
                 // Only keep if still active after collision check
                 if (banana.isActive()) {
-                    activeBananas.add(banana);
+                    bananas.set(activeBananas++, banana);
                 }
             }
         }
-        bananas.clear();
-        bananas.addAll(activeBananas);
+        truncate(bananas, activeBananas);
     }
     
     /**
@@ -440,15 +594,16 @@ public class Level2Screen extends GameplayScreen {
      * @param banana The banana to check collisions for
      */
     private void checkBananaCollisions(Banana banana) {
-        // Check for banana hitting screen edges
-        if (banana.getX() < 0 || banana.getX() > getWindowWidth()) {
+        // Check for banana leaving the world
+        if (banana.getX() < 0 || banana.getX() > getWorldWidth()) {
             banana.deactivate();
             return;
         }
         
         // Check for banana-platform collisions
-        for (Platform platform : getPlatforms()) {
-            if (banana.getBoundingBox().intersects(platform.getBoundingBox())) {
+        for (int i = 0; i < getPlatforms().size(); i++) {
+            Platform platform = getPlatforms().get(i);
+            if (banana.intersects(platform)) {
                 banana.deactivate();
                 return;
             }
@@ -464,13 +619,15 @@ public class Level2Screen extends GameplayScreen {
      */
     private void updateMonkeyPlatformCollisions() {
         // Check normal monkey-platform collisions
-        for (NormalMonkey monkey : normalMonkeys) {
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            NormalMonkey monkey = normalMonkeys.get(i);
             if (monkey.isDestroyed()) {
                 continue;
             }
             
             boolean onPlatform = false;
-            for (Platform platform : getPlatforms()) {
+            for (int j = 0; j < getPlatforms().size(); j++) {
+                Platform platform = getPlatforms().get(j);
                 if (platform.isCollidingFromTop(monkey)) {
                     platform.placeEntityOnTop(monkey);
                     monkey.setOnGround(true);
@@ -482,13 +639,15 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check intelligent monkey-platform collisions
-        for (IntelligentMonkey monkey : intelligentMonkeys) {
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            IntelligentMonkey monkey = intelligentMonkeys.get(i);
             if (monkey.isDestroyed()) {
                 continue;
             }
             
             boolean onPlatform = false;
-            for (Platform platform : getPlatforms()) {
+            for (int j = 0; j < getPlatforms().size(); j++) {
+                Platform platform = getPlatforms().get(j);
                 if (platform.isCollidingFromTop(monkey)) {
                     platform.placeEntityOnTop(monkey);
                     monkey.setOnGround(true);
@@ -507,7 +666,7 @@ public class Level2Screen extends GameplayScreen {
         for (int i = blasters.size() - 1; i >= 0; i--) {
             Blaster blaster = blasters.get(i);
             
-            if (!blaster.isCollected() && getPlayer().getBoundingBox().intersects(blaster.getBoundingBox())) {
+            if (!blaster.isCollected() && getPlayer().intersects(blaster)) {
                 // Collect the blaster
                 blaster.collect();
                 getPlayer().collectBlaster(blaster.getInitialBulletCount());
@@ -529,7 +688,8 @@ public class Level2Screen extends GameplayScreen {
             globalJumpCooldownTimer--;
         }
         
-        for (Barrel barrel : barrels) {
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
             // Skip destroyed barrels
             if (barrel.isDestroyed()) {
                 continue;
@@ -540,7 +700,12 @@ public class Level2Screen extends GameplayScreen {
             double barrelTopY = barrelY - barrel.getHeight()/2;
             
             // Get or create jump info for this barrel
-            BarrelJumpInfo jumpInfo = barrelJumpStatuses.computeIfAbsent(barrel, b -> new BarrelJumpInfo());
+            // (get/put rather than computeIfAbsent: the lambda would capture this and allocate every tick)
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrel);
+            if (jumpInfo == null) {
+                jumpInfo = new BarrelJumpInfo();
+                barrelJumpStatuses.put(barrel, jumpInfo);
+            }
             
             // Decrement cooldown if active
             if (jumpInfo.cooldownTimer > 0) {
@@ -606,6 +771,7 @@ public class Level2Screen extends GameplayScreen {
                 
                 // Award points for jumping over barrel
                 getScoreManager().addBarrelJumpScore();
+                notifyBarrelJump();
                 
                 // Mark as jumped and start cooldown for this barrel
                 jumpInfo.hasJumpedOver = true;
@@ -624,20 +790,23 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Clean up destroyed barrels
-        barrels.stream()
-            .filter(Barrel::isDestroyed)
-            .forEach(barrelJumpStatuses::remove);
+        for (int i = 0; i < barrels.size(); i++) {
+            if (barrels.get(i).isDestroyed()) {
+                barrelJumpStatuses.remove(barrels.get(i));
+            }
+        }
     }
     
     /**
      * Handles shooting input and creates bullets.
      */
-    private void handleShooting(Input input) {
+    private void handleShooting(InputState input) {
         // Process shooting
         if (input.wasPressed(Keys.S) && getPlayer().hasBlaster()) {
             Bullet bullet = getPlayer().fireBullet();
             if (bullet != null) {
                 bullets.add(bullet);
+                notifyShot(bullet);
             }
         }
     }
@@ -646,21 +815,21 @@ public class Level2Screen extends GameplayScreen {
      * Updates bullets and removes inactive ones.
      */
     private void updateBullets() {
-        // Update and filter bullets
-        List<Bullet> activeBullets = new ArrayList<>();
-        for (Bullet bullet : bullets) {
+        // Update bullets, removing inactive ones in place
+        int activeBullets = 0;
+        for (int i = 0; i < bullets.size(); i++) {
+            Bullet bullet = bullets.get(i);
             if (bullet.isActive()) {
-                bullet.update();
+                bullet.update(getWorldWidth(), getWorldHeight());
                 checkBulletCollisions(bullet);
                 
                 // Only keep if still active after collision check
                 if (bullet.isActive()) {
-                    activeBullets.add(bullet);
+                    bullets.set(activeBullets++, bullet);
                 }
             }
         }
-        bullets.clear();
-        bullets.addAll(activeBullets);
+        truncate(bullets, activeBullets);
     }
     
     /**
@@ -669,24 +838,28 @@ public class Level2Screen extends GameplayScreen {
      * @param bullet The bullet to check collisions for
      */
     private void checkBulletCollisions(Bullet bullet) {
-        // Check for bullet hitting screen edges
-        if (bullet.getX() < 0 || bullet.getX() > getWindowWidth()) {
+        // Check for bullet leaving the world
+        if (bullet.getX() < 0 || bullet.getX() > getWorldWidth()) {
             bullet.deactivate();
             return;
         }
         
         // Check for bullet-platform collisions
-        for (Platform platform : getPlatforms()) {
-            if (bullet.getBoundingBox().intersects(platform.getBoundingBox())) {
+        for (int i = 0; i < getPlatforms().size(); i++) {
+            Platform platform = getPlatforms().get(i);
+            if (bullet.intersects(platform)) {
                 bullet.deactivate();
                 return;
             }
         }
         
         // Check for bullet-normal monkey collisions
-        for (NormalMonkey monkey : normalMonkeys) {
-            if (!monkey.isDestroyed() && bullet.getBoundingBox().intersects(monkey.getBoundingBox())) {
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            NormalMonkey monkey = normalMonkeys.get(i);
+            if (!monkey.isDestroyed() && bullet.intersects(monkey)) {
                 monkey.destroy();
+                emitDestroyed(monkey);
+                notifyDestroyed(monkey, true);
                 bullet.deactivate();
                 getScoreManager().addScore(monkey.getScoreValue());
                 return;
@@ -694,9 +867,12 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check for bullet-intelligent monkey collisions
-        for (IntelligentMonkey monkey : intelligentMonkeys) {
-            if (!monkey.isDestroyed() && bullet.getBoundingBox().intersects(monkey.getBoundingBox())) {
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            IntelligentMonkey monkey = intelligentMonkeys.get(i);
+            if (!monkey.isDestroyed() && bullet.intersects(monkey)) {
                 monkey.destroy();
+                emitDestroyed(monkey);
+                notifyDestroyed(monkey, true);
                 bullet.deactivate();
                 getScoreManager().addScore(monkey.getScoreValue());
                 return;
@@ -704,9 +880,10 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check for bullet-DK collisions
-        if (bullet.getBoundingBox().intersects(getDonkeyKong().getBoundingBox())) {
+        if (bullet.intersects(getDonkeyKong())) {
             // Deal damage to Donkey Kong
             getDonkeyKong().takeDamage(bullet.getDamage());
+            emitImpact(bullet.getX(), bullet.getY());
             bullet.deactivate();
             return;
         }
@@ -715,7 +892,7 @@ public class Level2Screen extends GameplayScreen {
     @Override
     protected GameState checkLevelSpecificCollisions() {
         // Check for player-DK collision
-        if (getPlayer().getBoundingBox().intersects(getDonkeyKong().getBoundingBox())) {
+        if (getPlayer().intersects(getDonkeyKong())) {
             if (getPlayer().hasHammer()) {
                 // Win condition: Player touched DK with a hammer
                 // Defeat DK instantly
@@ -724,6 +901,7 @@ public class Level2Screen extends GameplayScreen {
                 // Add time bonus before returning game over state
                 int remainingSeconds = getRemainingTime();
                 getScoreManager().addTimeBonus(remainingSeconds);
+                notifyTimeBonus();
                 return GameState.GAME_OVER_WIN;
             } else {
                 // Lose condition: Player touched DK without a hammer
@@ -738,16 +916,20 @@ public class Level2Screen extends GameplayScreen {
             if (!getScoreManager().hasTimeBonus()) {
                 int remainingSeconds = getRemainingTime();
                 getScoreManager().addTimeBonus(remainingSeconds);
+                notifyTimeBonus();
             }
             return GameState.GAME_OVER_WIN;
         }
         
         // Check for player-barrel collisions
-        for (Barrel barrel : barrels) {
-            if (!barrel.isDestroyed() && getPlayer().getBoundingBox().intersects(barrel.getBoundingBox())) {
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed() && getPlayer().intersects(barrel)) {
                 if (getPlayer().hasHammer()) {
                     // Destroy barrel and score points
                     barrel.destroy();
+                    emitDestroyed(barrel);
+                    notifyDestroyed(barrel, false);
                     getScoreManager().addScore(barrel.getScoreValue()); // 100 points for destroying a barrel
                 } else {
                     // Lose condition: Player touched barrel without a hammer
@@ -757,11 +939,14 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check for player-normal monkey collisions
-        for (NormalMonkey monkey : normalMonkeys) {
-            if (!monkey.isDestroyed() && getPlayer().getBoundingBox().intersects(monkey.getBoundingBox())) {
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            NormalMonkey monkey = normalMonkeys.get(i);
+            if (!monkey.isDestroyed() && getPlayer().intersects(monkey)) {
                 if (getPlayer().hasHammer()) {
                     // Destroy monkey and score points
                     monkey.destroy();
+                    emitDestroyed(monkey);
+                    notifyDestroyed(monkey, false);
                     getScoreManager().addScore(monkey.getScoreValue()); // 100 points for destroying a monkey
                 } else {
                     // Lose condition: Player touched monkey without a hammer
@@ -771,11 +956,14 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check for player-intelligent monkey collisions
-        for (IntelligentMonkey monkey : intelligentMonkeys) {
-            if (!monkey.isDestroyed() && getPlayer().getBoundingBox().intersects(monkey.getBoundingBox())) {
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            IntelligentMonkey monkey = intelligentMonkeys.get(i);
+            if (!monkey.isDestroyed() && getPlayer().intersects(monkey)) {
                 if (getPlayer().hasHammer()) {
                     // Destroy monkey and score points
                     monkey.destroy();
+                    emitDestroyed(monkey);
+                    notifyDestroyed(monkey, false);
                     getScoreManager().addScore(monkey.getScoreValue()); // 100 points for destroying a monkey
                 } else {
                     // Lose condition: Player touched monkey without a hammer
@@ -785,10 +973,12 @@ public class Level2Screen extends GameplayScreen {
         }
         
         // Check for player-banana collisions (bananas always damage Mario)
-        for (Banana banana : bananas) {
-            if (banana.isActive() && getPlayer().getBoundingBox().intersects(banana.getBoundingBox())) {
+        for (int i = 0; i < bananas.size(); i++) {
+            Banana banana = bananas.get(i);
+            if (banana.isActive() && getPlayer().intersects(banana)) {
                 // Lose condition: Player touched banana (even with hammer)
                 banana.deactivate(); // Deactivate the banana that caused the collision
+                notifyBananaHit();
                 return GameState.GAME_OVER_LOSE;
             }
         }
@@ -797,54 +987,146 @@ public class Level2Screen extends GameplayScreen {
     }
     
     @Override
-    protected void drawLevelSpecific() {
-        // Draw barrels
-        for (Barrel barrel : barrels) {
-            if (!barrel.isDestroyed()) {
-                barrel.draw();
+    protected void writeLevelState(ByteBuffer buffer) {
+        writeEntities(buffer, barrels);
+        writeBarrelJumpStatuses(buffer);
+        buffer.put((byte) (hammer != null ? 1 : 0));
+        if (hammer != null) {
+            hammer.writeState(buffer);
+        }
+        writeEntities(buffer, normalMonkeys);
+        writeEntities(buffer, intelligentMonkeys);
+        writeEntities(buffer, blasters);
+        writeEntities(buffer, bullets);
+        writeEntities(buffer, bananas);
+    }
+    
+    @Override
+    protected void readLevelState(ByteBuffer buffer) {
+        // Level 2 keeps destroyed barrels and monkeys, but barrels are streamed in with their chunks
+        readEntities(buffer, barrels, () -> new Barrel(0, 0));
+        readBarrelJumpStatuses(buffer);
+        if (buffer.get() != 0) {
+            hammer.readState(buffer);
+        }
+        readFixedEntities(buffer, normalMonkeys);
+        readFixedEntities(buffer, intelligentMonkeys);
+        readFixedEntities(buffer, blasters);
+        readEntities(buffer, bullets, () -> new Bullet(0, 0, true));
+        readEntities(buffer, bananas, () -> new Banana(0, 0, true));
+    }
+    
+    /**
+     * Writes the jump tracking state of each barrel, in barrel list order.
+     *
+     * @param buffer The buffer to write to
+     */
+    private void writeBarrelJumpStatuses(ByteBuffer buffer) {
+        for (int i = 0; i < barrels.size(); i++) {
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrels.get(i));
+            if (jumpInfo == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1);
+                jumpInfo.writeState(buffer);
             }
         }
-        
-        // Draw hammer if not collected
-        if (hammer != null && !hammer.isCollected()) {
-            hammer.draw();
+        buffer.putInt(globalJumpCooldownTimer);
+        buffer.putDouble(lastScoredJumpY);
+    }
+    
+    /**
+     * Restores the jump tracking state of each barrel, reusing existing tracking objects.
+     * Must be called after the barrel list itself has been restored.
+     *
+     * @param buffer The buffer to read from
+     */
+    private void readBarrelJumpStatuses(ByteBuffer buffer) {
+        int tracked = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (buffer.get() == 0) {
+                barrelJumpStatuses.remove(barrel);
+                continue;
+            }
+            BarrelJumpInfo jumpInfo = barrelJumpStatuses.get(barrel);
+            if (jumpInfo == null) {
+                jumpInfo = new BarrelJumpInfo();
+                barrelJumpStatuses.put(barrel, jumpInfo);
+            }
+            jumpInfo.readState(buffer);
+            tracked++;
         }
-        
-        // Draw blasters if not collected
-        for (Blaster blaster : blasters) {
-            blaster.draw();
+        // Any entries beyond those just restored belong to barrels that are no longer in the list;
+        // they are pruned against a set, since checking each against the list is quadratic
+        if (barrelJumpStatuses.size() > tracked) {
+            restoredBarrels.clear();
+            restoredBarrels.addAll(barrels);
+            barrelJumpStatuses.keySet().retainAll(restoredBarrels);
         }
-        
-        // Draw normal monkeys
-        for (NormalMonkey monkey : normalMonkeys) {
-            if (!monkey.isDestroyed()) {
-                monkey.draw();
+        globalJumpCooldownTimer = buffer.getInt();
+        lastScoredJumpY = buffer.getDouble();
+    }
+    
+    @Override
+    public int getActiveBarrelCount() {
+        int count = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed()) {
+                count++;
             }
         }
-        
-        // Draw intelligent monkeys
-        for (IntelligentMonkey monkey : intelligentMonkeys) {
+        return count;
+    }
+    
+    @Override
+    public int getActiveMonkeyCount() {
+        int count = 0;
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            NormalMonkey monkey = normalMonkeys.get(i);
             if (!monkey.isDestroyed()) {
-                monkey.draw();
+                count++;
             }
         }
-        
-        // Draw bullets
-        for (Bullet bullet : bullets) {
-            bullet.draw();
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            IntelligentMonkey monkey = intelligentMonkeys.get(i);
+            if (!monkey.isDestroyed()) {
+                count++;
+            }
         }
-        
-        // Draw bananas
-        for (Banana banana : bananas) {
-            banana.draw();
+        return count;
+    }
+    
+    @Override
+    public int getActiveBulletCount() {
+        return bullets.size();
+    }
+    
+    @Override
+    public int getActiveBananaCount() {
+        return bananas.size();
+    }
+    
+    @Override
+    protected void addVisibleLevelEntities() {
+        addVisible(barrels);
+        if (hammer != null) {
+            addVisible(hammer);
         }
-        
-        // Draw DK health
-        String healthText = "Donkey Health " + getDonkeyKong().getHealth();
-        healthFont.drawString(healthText, healthX, healthY);
+        addVisible(blasters);
+        addVisible(normalMonkeys);
+        addVisible(intelligentMonkeys);
+        addVisible(bullets);
+        addVisible(bananas);
+    }
+    
+    @Override
+    protected void drawLevelSpecific(Renderer renderer) {
+        // Draw DK health and bullet count in the score font
+        healthText.draw(renderer, getScoreFont(), getDonkeyKong().getHealth(), healthX, healthY);
         
         // Draw bullet count
-        String bulletText = "Bullet " + getPlayer().getBulletCount();
-        bulletFont.drawString(bulletText, bulletX, bulletY);
+        bulletText.draw(renderer, getScoreFont(), getPlayer().getBulletCount(), bulletX, bulletY);
     }
 } 
\ No newline at end of file
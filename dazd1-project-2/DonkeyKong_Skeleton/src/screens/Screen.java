@@ -1,10 +1,10 @@
 package screens;
 
-import bagel.Image;
 import bagel.Input;
-import bagel.Window;
-import bagel.Font;
 import game.GameState;
+import game.Sprite;
+import game.TextFont;
+import interfaces.Renderer;
 
 import java.util.Properties;
 
@@ -13,7 +13,9 @@ import java.util.Properties;
  * Provides common functionality and defines the interface for screen management.
  */
 public abstract class Screen {
-    private final Image backgroundImage;
+    private final Sprite backgroundImage;
+    private final double backgroundX;
+    private final double backgroundY;
     private final Properties gameProps;
     private final Properties messageProps;
     
@@ -27,8 +29,11 @@ public abstract class Screen {
         this.gameProps = gameProps;
         this.messageProps = messageProps;
         
-        // Load background image - common to all screens
-        this.backgroundImage = new Image(gameProps.getProperty("backgroundImage"));
+        // Load background image - common to all screens (the texture is created on first draw)
+        this.backgroundImage = new Sprite(gameProps.getProperty("backgroundImage"));
+        // Centred in the window, whose size is read from the properties so screens can draw without one
+        this.backgroundX = Integer.parseInt(gameProps.getProperty("window.width")) / 2.0;
+        this.backgroundY = Integer.parseInt(gameProps.getProperty("window.height")) / 2.0;
     }
     
     /**
@@ -40,29 +45,19 @@ public abstract class Screen {
     public abstract GameState update(Input input);
     
     /**
-     * Renders the screen to the display.
+     * Renders the screen.
+     *
+     * @param renderer The renderer to draw with
      */
-    public abstract void draw();
+    public abstract void draw(Renderer renderer);
     
     /**
      * Draws the background image centered on the screen.
-     */
-    private void drawBackground() {
-        // Draw background centered on the screen
-        double backgroundX = Window.getWidth() / 2.0;
-        double backgroundY = Window.getHeight() / 2.0;
-        backgroundImage.draw(backgroundX, backgroundY);
-    }
-    
-    /**
-     * Creates a Font object from a font size property.
      *
-     * @param fontSizeProperty The property key for the font size
-     * @return A Font object with the specified size
+     * @param renderer The renderer to draw with
      */
-    private Font loadFont(String fontSizeProperty) {
-        int fontSize = Integer.parseInt(gameProps.getProperty(fontSizeProperty));
-        return new Font(gameProps.getProperty("font"), fontSize);
+    private void drawBackground(Renderer renderer) {
+        renderer.drawImage(backgroundImage, backgroundX, backgroundY);
     }
     
     /**
@@ -88,26 +83,28 @@ public abstract class Screen {
      *
      * @return The background image
      */
-    public Image getBackgroundImage() {
+    public Sprite getBackgroundImage() {
         return backgroundImage;
     }
     
     /**
      * Draws the background image centered on the screen.
      * Protected method for subclasses to use.
+     *
+     * @param renderer The renderer to draw with
      */
-    protected void drawBackgroundImage() {
-        drawBackground();
+    protected void drawBackgroundImage(Renderer renderer) {
+        drawBackground(renderer);
     }
     
     /**
-     * Creates a Font object from a font size property.
+     * Creates a font from a font size property. The font is loaded when it is first drawn or measured.
      * Protected method for subclasses to use.
      *
      * @param fontSizeProperty The property key for the font size
-     * @return A Font object with the specified size
+     * @return A font with the specified size
      */
-    protected Font createFont(String fontSizeProperty) {
-        return loadFont(fontSizeProperty);
+    protected TextFont createFont(String fontSizeProperty) {
+        return new TextFont(gameProps.getProperty("font"), Integer.parseInt(gameProps.getProperty(fontSizeProperty)));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,341 @@
+package screens;
+
+import entities.Barrel;
+import entities.BarrelPool;
+import entities.DonkeyKong;
+import entities.Hammer;
+import entities.Platform;
+import game.GameState;
+import game.InputState;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Endless survival mode, played on the Level 1 layout.
+ * Donkey Kong throws barrels at a rate that keeps rising until the player is hit. Barrels come
+ * from a {@link BarrelPool} and go back to it when they leave the screen or are smashed with the
+ * hammer, so the mode can run thousands of barrels a minute without creating garbage. The hammer
+ * only lasts a few seconds here and reappears after a while.
+ *
+ * The player scores for every second survived and every barrel smashed. There is no time limit.
+ */
+public class SurvivalScreen extends GameplayScreen {
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final double FRAMES_PER_MINUTE = FRAMES_PER_SECOND * 60.0;
+    private static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    // Spawning, from properties
+    private final double startRate;     // Barrels per frame at the start
+    private final double rateIncrease;  // Increase in barrels per frame, per frame
+    private final double maxRate;       // Barrels per frame cap
+    private final double minSpeed;
+    private final double maxSpeed;
+
+    // Hammer timing, from properties
+    private final int hammerFrames;
+    private final int hammerRespawnFrames;
+    private final int pointsPerSecond;
+
+    private final BarrelPool pool;
+    private final List<Barrel> barrels = new ArrayList<>();
+    private final Supplier<Barrel> pooledBarrel;
+    private Hammer hammer;
+
+    private double spawnAccumulator = 0;   // Fractional barrels owed to the spawner
+    private long randomState = DEFAULT_SEED; // xorshift state, kept in snapshots so replays match
+    private int hammerTimer = 0;           // Frames left with the hammer, or until it respawns
+
+    /**
+     * Creates a new survival mode screen.
+     *
+     * @param gameProps Properties containing game configuration
+     * @param messageProps Properties containing game messages
+     */
+    public SurvivalScreen(Properties gameProps, Properties messageProps) {
+        super(gameProps, messageProps);
+
+        startRate = Double.parseDouble(gameProps.getProperty("survival.barrels.startPerSecond", "1"))
+                / FRAMES_PER_SECOND;
+        rateIncrease = Double.parseDouble(gameProps.getProperty("survival.barrels.increasePerMinute", "20"))
+                / FRAMES_PER_SECOND / FRAMES_PER_MINUTE;
+        maxRate = Double.parseDouble(gameProps.getProperty("survival.barrels.maxPerSecond", "60"))
+                / FRAMES_PER_SECOND;
+        minSpeed = Double.parseDouble(gameProps.getProperty("survival.barrels.minSpeed", "1.5"));
+        maxSpeed = Double.parseDouble(gameProps.getProperty("survival.barrels.maxSpeed", "4"));
+        hammerFrames = Integer.parseInt(gameProps.getProperty("survival.hammer.seconds", "8"))
+                * FRAMES_PER_SECOND;
+        hammerRespawnFrames = Integer.parseInt(gameProps.getProperty("survival.hammer.respawnSeconds", "15"))
+                * FRAMES_PER_SECOND;
+        pointsPerSecond = Integer.parseInt(gameProps.getProperty("survival.pointsPerSecond", "10"));
+
+        pool = new BarrelPool(Integer.parseInt(gameProps.getProperty("survival.barrels.poolSize", "256")));
+        pooledBarrel = () -> pool.obtain(0, 0);
+
+        // Ensure sub-class fields are initialized before calling init
+        init();
+    }
+
+    @Override
+    public GameState getLevel() {
+        return GameState.SURVIVAL;
+    }
+
+    @Override
+    protected GameState getLayoutLevel() {
+        return GameState.LEVEL1;
+    }
+
+    @Override
+    protected String getPlayerPropertyKey() {
+        return "mario.level1";
+    }
+
+    @Override
+    protected String getPlatformsPropertyKey() {
+        return "platforms.level1";
+    }
+
+    @Override
+    protected String getLaddersCountPropertyKey() {
+        return "ladder.level1.count";
+    }
+
+    @Override
+    protected String getLadderPropertyKeyFormat() {
+        return "ladder.level1.%d";
+    }
+
+    @Override
+    protected String getDonkeyKongPropertyKey() {
+        return "donkey.level1";
+    }
+
+    @Override
+    protected boolean hasTimeLimit() {
+        return false;
+    }
+
+    @Override
+    protected boolean supportsRewind() {
+        // Nearly every byte of the state changes each frame once barrels fill the level, so the
+        // history would cost a full state per frame, and rewinding would also undo a lost run
+        return false;
+    }
+
+    @Override
+    protected void loadLevelEntities() {
+        // No barrels at the start; Donkey Kong throws them all
+        hammer = getLevelData() != null ? initializeCompiledHammer()
+                : initializeHammerForLevel("hammer.level1", 900, 500);
+    }
+
+    @Override
+    protected void correctLevelSpecificPositions() {
+        // Position hammer on a platform if overlapping
+        Platform.restOnFirstOverlapping(hammer, getPlatforms());
+    }
+
+    @Override
+    protected GameState updateLevelSpecific(InputState input) {
+        spawnBarrels();
+
+        // Move barrels, retiring the ones that were smashed or left the screen
+        int remainingBarrels = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed()) {
+                barrel.update();
+            }
+            if (barrel.isDestroyed() || isOutsideWorld(barrel)) {
+                pool.release(barrel);
+            } else {
+                barrels.set(remainingBarrels++, barrel);
+            }
+        }
+        truncate(barrels, remainingBarrels);
+
+        checkBarrelPlatformCollisions();
+        updateHammer();
+
+        // Reward every second survived
+        if (getCurrentFrame() % FRAMES_PER_SECOND == 0) {
+            getScoreManager().addScore(pointsPerSecond);
+        }
+
+        // Survival only ends when the player is hit
+        return null;
+    }
+
+    /**
+     * Throws the barrels owed for this frame from Donkey Kong's position.
+     * The rate rises linearly with the time survived, up to the configured maximum.
+     */
+    private void spawnBarrels() {
+        double rate = Math.min(maxRate, startRate + rateIncrease * getCurrentFrame());
+        spawnAccumulator += rate;
+
+        DonkeyKong donkeyKong = getDonkeyKong();
+        double spawnX = donkeyKong.getX() + donkeyKong.getWidth() / 2;
+        double spawnY = donkeyKong.getY();
+        while (spawnAccumulator >= 1) {
+            spawnAccumulator--;
+            Barrel barrel = pool.obtain(spawnX, spawnY);
+            barrel.setVelocity(minSpeed + nextRandom() * (maxSpeed - minSpeed), barrel.getYVelocity());
+            barrels.add(barrel);
+        }
+    }
+
+    /**
+     * Checks whether a barrel has completely left the world.
+     *
+     * @param barrel The barrel to check
+     * @return true if no part of the barrel is inside the world
+     */
+    private boolean isOutsideWorld(Barrel barrel) {
+        double halfWidth = barrel.getWidth() / 2;
+        return barrel.getX() + halfWidth < 0
+                || barrel.getX() - halfWidth > getWorldWidth()
+                || barrel.getY() - barrel.getHeight() / 2 > getWorldHeight();
+    }
+
+    /**
+     * Checks for collisions between barrels and platforms.
+     * Ensures barrels stay on platforms and don't fall through. A barrel that drops onto a
+     * platform below Donkey Kong's turns around, so barrels zig-zag down the level.
+     */
+    private void checkBarrelPlatformCollisions() {
+        double throwTierBottom = getDonkeyKong().getY() + getDonkeyKong().getHeight() / 2;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            boolean wasOnGround = barrel.isOnGround();
+            boolean onPlatform = false;
+
+            for (int j = 0; j < getPlatforms().size(); j++) {
+                Platform platform = getPlatforms().get(j);
+                if (platform.isCollidingFromTop(barrel)) {
+                    platform.placeEntityOnTop(barrel);
+                    onPlatform = true;
+                    break;
+                }
+            }
+
+            if (onPlatform && !wasOnGround && barrel.getY() > throwTierBottom) {
+                barrel.setVelocity(-barrel.getXVelocity(), barrel.getYVelocity());
+            }
+            barrel.setOnGround(onPlatform);
+        }
+    }
+
+    /**
+     * Handles picking up the hammer, its time limit, and its respawn.
+     */
+    private void updateHammer() {
+        if (!hammer.isCollected()) {
+            if (getPlayer().intersects(hammer)) {
+                hammer.collect();
+                getPlayer().collectHammer();
+                notifyHammerCollected();
+                hammerTimer = hammerFrames;
+            }
+            return;
+        }
+
+        if (hammerTimer > 0) {
+            hammerTimer--;
+            return;
+        }
+
+        if (hammer.isActive()) {
+            // Time is up: the player drops the hammer and it comes back later
+            hammer.setActive(false);
+            getPlayer().dropHammer();
+            hammerTimer = hammerRespawnFrames;
+        } else {
+            hammer.respawn();
+        }
+    }
+
+    @Override
+    protected GameState checkLevelSpecificCollisions() {
+        // Touching Donkey Kong or falling out of the world always ends the run; there is no level to clear
+        if (getPlayer().intersects(getDonkeyKong())
+                || getPlayer().getY() - getPlayer().getHeight() / 2 > getWorldHeight()) {
+            return GameState.GAME_OVER_LOSE;
+        }
+
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel barrel = barrels.get(i);
+            if (!barrel.isDestroyed() && getPlayer().intersects(barrel)) {
+                if (getPlayer().hasHammer()) {
+                    barrel.destroy();
+                    emitDestroyed(barrel);
+                    notifyDestroyed(barrel, false);
+                    getScoreManager().addBarrelDestroyScore();
+                } else {
+                    return GameState.GAME_OVER_LOSE;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the next pseudo-random number from the spawner's xorshift generator.
+     *
+     * @return A number in [0, 1)
+     */
+    private double nextRandom() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (randomState >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    protected void writeLevelState(ByteBuffer buffer) {
+        writeEntities(buffer, barrels);
+        buffer.putDouble(spawnAccumulator);
+        buffer.putLong(randomState);
+        buffer.putInt(hammerTimer);
+        hammer.writeState(buffer);
+    }
+
+    @Override
+    protected void readLevelState(ByteBuffer buffer) {
+        // Hand every barrel back, then take as many as the snapshot holds
+        for (int i = 0; i < barrels.size(); i++) {
+            pool.release(barrels.get(i));
+        }
+        barrels.clear();
+        readEntities(buffer, barrels, pooledBarrel);
+        spawnAccumulator = buffer.getDouble();
+        randomState = buffer.getLong();
+        hammerTimer = buffer.getInt();
+        hammer.readState(buffer);
+    }
+
+    @Override
+    public int getActiveBarrelCount() {
+        return barrels.size();
+    }
+
+    /**
+     * Gets the pool the thrown barrels come from.
+     *
+     * @return The barrel pool
+     */
+    public BarrelPool getBarrelPool() {
+        return pool;
+    }
+
+    @Override
+    protected void addVisibleLevelEntities() {
+        addVisible(barrels);
+        addVisible(hammer);
+    }
+}
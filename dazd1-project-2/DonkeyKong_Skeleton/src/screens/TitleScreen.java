@@ -2,6 +2,9 @@ package screens;
 
 import bagel.*;
 import game.GameState;
+import game.Sprite;
+import game.TextFont;
+import interfaces.Renderer;
 
 import java.util.Properties;
 
@@ -12,15 +15,22 @@ import java.util.Properties;
 public class TitleScreen extends Screen {
     private final String TITLE;
     private final String START_PROMPT;
-    private final Font titleFont;
-    private final Font promptFont;
+    private final String SURVIVAL_PROMPT;
+    private static final int SURVIVAL_PROMPT_SPACING = 40; // Pixels below the start prompt
+    private final TextFont titleFont;
+    private final TextFont promptFont;
     private final int titleX;
     private final int titleY;
     private final int promptY;
     private final int windowWidth;
     
+    // Left edges of the centred lines, measured once since the text never changes
+    private final double titleLeftX;
+    private final double promptLeftX;
+    private final double survivalLeftX;
+    
     // Background image
-    private final Image backgroundImage;
+    private final Sprite backgroundImage;
 
     /**
      * Creates a new title screen.
@@ -33,6 +43,7 @@ public class TitleScreen extends Screen {
         
         TITLE = messageProps.getProperty("home.title");
         START_PROMPT = messageProps.getProperty("home.prompt");
+        SURVIVAL_PROMPT = messageProps.getProperty("home.survivalPrompt", "PRESS 3 FOR SURVIVAL MODE");
         
         // Load fonts
         titleFont = createFont("home.title.fontSize");
@@ -46,14 +57,18 @@ public class TitleScreen extends Screen {
         titleX = windowWidth / 2;
         
         // Load background image
-        backgroundImage = new Image(gameProps.getProperty("backgroundImage"));
+        backgroundImage = new Sprite(gameProps.getProperty("backgroundImage"));
+        
+        titleLeftX = windowWidth / 2.0 - titleFont.getWidth(TITLE) / 2.0;
+        promptLeftX = windowWidth / 2.0 - promptFont.getWidth(START_PROMPT) / 2.0;
+        survivalLeftX = windowWidth / 2.0 - promptFont.getWidth(SURVIVAL_PROMPT) / 2.0;
     }
 
     /**
      * Updates the title screen and checks for user input.
      *
      * @param input Current input state
-     * @return LEVEL1 if ENTER is pressed, LEVEL2 if '2' is pressed, otherwise null (stay on title screen)
+     * @return LEVEL1 if ENTER is pressed, LEVEL2 if '2' is pressed, SURVIVAL if '3' is pressed, otherwise null (stay on title screen)
      */
     @Override
     public GameState update(Input input) {
@@ -67,6 +82,11 @@ public class TitleScreen extends Screen {
             return GameState.LEVEL2;
         }
         
+        // Start endless survival mode when '3' key is pressed
+        if (input.wasPressed(Keys.NUM_3)) {
+            return GameState.SURVIVAL;
+        }
+        
         // Stay on title screen
         return null;
     }
@@ -74,20 +94,19 @@ public class TitleScreen extends Screen {
     /**
      * Draws the title screen.
      * Shows the game title and the prompt to start.
+     *
+     * @param renderer The renderer to draw with
      */
     @Override
-    public void draw() {
+    public void draw(Renderer renderer) {
         // Draw background
-        drawBackgroundImage();
+        drawBackgroundImage(renderer);
         
         // Draw title (centered horizontally)
-        double titleWidth = titleFont.getWidth(TITLE);
-        double titleCenterX = windowWidth / 2.0 - titleWidth / 2.0;
-        titleFont.drawString(TITLE, titleCenterX, titleY);
+        renderer.drawText(titleFont, TITLE, titleLeftX, titleY);
         
         // Draw prompt messages (centered horizontally)
-        double promptWidth = promptFont.getWidth(START_PROMPT);
-        double promptCenterX = windowWidth / 2.0 - promptWidth / 2.0;
-        promptFont.drawString(START_PROMPT, promptCenterX, promptY);
+        renderer.drawText(promptFont, START_PROMPT, promptLeftX, promptY);
+        renderer.drawText(promptFont, SURVIVAL_PROMPT, survivalLeftX, promptY + SURVIVAL_PROMPT_SPACING);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,232 @@
+package tools;
+
+import game.InputState;
+import game.StateSnapshot;
+import screens.GameplayScreen;
+import screens.Level1Screen;
+import screens.Level2Screen;
+import screens.SurvivalScreen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Allocation budget check for the gameplay tick.
+ *
+ * Runs headless Level 1, Level 2 and survival sessions with a fixed pseudo-random input script and
+ * measures the bytes allocated by each tick phase with {@code ThreadMXBean.getThreadAllocatedBytes}.
+ * After a warm-up (so the JIT has compiled the hot paths) both the average and the largest bytes
+ * per tick of every phase must stay within their budgets, otherwise the process exits with status 1
+ * so the build fails.
+ *
+ * The script is measured twice from the same starting state and each tick is charged the smaller
+ * of its two measurements. The game allocates the same way on both runs, while the VM's own
+ * one-off allocations on the game thread, e.g. when a method is recompiled, do not recur on the
+ * same tick, so they are not mistaken for the tick's.
+ *
+ * Budgets are in bytes per tick and can be overridden with system properties, e.g.
+ * {@code -Dbudget.level=32} for the average and {@code -Dbudget.level.max=512} for the largest.
+ * The "other" phase covers the rest of the tick, such as recording rewind history.
+ *
+ * Usage: {@code java tools.AllocationHarness [ticks] [app.properties] [message.properties]}
+ */
+public class AllocationHarness {
+    private static final int DEFAULT_TICKS = 20000;
+    private static final long INPUT_SEED = 0x444B;
+    private static final int INPUT_HOLD_TICKS = 20; // Average ticks between input changes
+
+    // Phases measured: the screen's own phases plus everything else in the tick
+    private static final int PHASE_OTHER = GameplayScreen.PHASE_COUNT;
+    private static final int MEASURED_PHASES = GameplayScreen.PHASE_COUNT + 1;
+
+    // Default budgets in bytes per tick, on average and at most. The level phase may allocate the
+    // occasional bullet or banana, and a rewind slot now and then grows to the next power of two
+    // of the snapshot size; everything else must be garbage-free on every tick.
+    private static final long[] DEFAULT_BUDGETS = {0, 0, 0, 32, 16};
+    private static final long[] DEFAULT_MAX_BUDGETS = {0, 0, 0, 512, 1024};
+
+    // Input combinations the script picks from
+    private static final int[] INPUTS = {
+        0,
+        InputState.LEFT,
+        InputState.RIGHT,
+        InputState.UP,
+        InputState.DOWN,
+        InputState.LEFT | InputState.SPACE,
+        InputState.RIGHT | InputState.SPACE,
+        InputState.SPACE,
+        InputState.SHOOT,
+        InputState.RIGHT | InputState.SHOOT,
+    };
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final LongSupplier allocatedBytes;
+    private final long counterOverhead;
+
+    /**
+     * Creates a new harness measuring the current thread.
+     */
+    private AllocationHarness() {
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        allocatedBytes = threadBean::getCurrentThreadAllocatedBytes;
+        counterOverhead = measureCounterOverhead();
+    }
+
+    /**
+     * Runs the allocation check on both levels.
+     *
+     * @param args Optional tick count and properties file paths
+     */
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TICKS;
+        Properties gameProps = loadProperties(args.length > 1 ? args[1] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 2 ? args[2] : "res/message.properties");
+        gameProps.setProperty("sessions.dir", "");
+
+        long[] budgets = new long[MEASURED_PHASES];
+        long[] maxBudgets = new long[MEASURED_PHASES];
+        for (int phase = 0; phase < MEASURED_PHASES; phase++) {
+            budgets[phase] = Long.getLong("budget." + getPhaseName(phase), DEFAULT_BUDGETS[phase]);
+            maxBudgets[phase] = Long.getLong("budget." + getPhaseName(phase) + ".max", DEFAULT_MAX_BUDGETS[phase]);
+        }
+
+        AllocationHarness harness = new AllocationHarness();
+        boolean passed = harness.check(new Level1Screen(gameProps, messageProps), ticks, budgets, maxBudgets);
+        passed &= harness.check(new Level2Screen(gameProps, messageProps), ticks, budgets, maxBudgets);
+        passed &= harness.check(new SurvivalScreen(gameProps, messageProps), ticks, budgets, maxBudgets);
+
+        if (!passed) {
+            System.err.println("Allocation budget exceeded");
+            System.exit(1);
+        }
+        System.out.println("All phases within allocation budget");
+    }
+
+    /**
+     * Warms up and then measures one level, printing a line per phase.
+     *
+     * @param screen The level to run
+     * @param ticks Number of ticks to warm up for and then measure
+     * @param budgets Average budget per phase in bytes per tick
+     * @param maxBudgets Largest allocation allowed in any one tick per phase, in bytes
+     * @return true if every phase stayed within its budgets
+     */
+    private boolean check(GameplayScreen screen, int ticks, long[] budgets, long[] maxBudgets) {
+        StateSnapshot start = new StateSnapshot();
+        start.capture(screen);
+        screen.setAllocationCounter(allocatedBytes);
+
+        long[][] first = new long[MEASURED_PHASES][ticks];
+        long[][] second = new long[MEASURED_PHASES][ticks];
+        run(screen, start, ticks, null);
+        run(screen, start, ticks, first);
+        run(screen, start, ticks, second);
+
+        System.out.println(screen.getLevel() + " (" + ticks + " ticks):");
+        boolean passed = true;
+        for (int phase = 0; phase < MEASURED_PHASES; phase++) {
+            long total = 0;
+            long max = 0;
+            for (int tick = 0; tick < ticks; tick++) {
+                long bytes = Math.min(first[phase][tick], second[phase][tick]);
+                total += bytes;
+                max = Math.max(max, bytes);
+            }
+            double average = (double) total / ticks;
+            boolean withinBudget = average <= budgets[phase] && max <= maxBudgets[phase];
+            passed &= withinBudget;
+            System.out.printf("  %-10s %8.1f B/tick avg  %8d B max  budget %5d avg %5d max  %s%n",
+                    getPhaseName(phase), average, max, budgets[phase], maxBudgets[phase],
+                    withinBudget ? "ok" : "OVER BUDGET");
+        }
+        return passed;
+    }
+
+    /**
+     * Runs the input script for a number of ticks, restarting the level whenever it ends.
+     * Restarts are not measured.
+     *
+     * @param screen The level to run
+     * @param start The level's starting state
+     * @param ticks Number of ticks to run
+     * @param bytesPerTick Receives the bytes each phase allocated on each tick, or null to run
+     *                     without measuring
+     */
+    private void run(GameplayScreen screen, StateSnapshot start, int ticks, long[][] bytesPerTick) {
+        Random random = new Random(INPUT_SEED);
+        InputState input = new InputState();
+        int keys = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            if (random.nextInt(INPUT_HOLD_TICKS) == 0) {
+                keys = INPUTS[random.nextInt(INPUTS.length)];
+            }
+            input.set(keys);
+
+            long before = allocatedBytes.getAsLong();
+            boolean ended = screen.update(input) != null;
+            long tickBytes = allocatedBytes.getAsLong() - before - counterOverhead;
+
+            if (bytesPerTick != null && !ended) {
+                long phaseSum = 0;
+                for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+                    long bytes = Math.max(0, screen.getPhaseBytes(phase) - counterOverhead);
+                    phaseSum += bytes;
+                    bytesPerTick[phase][tick] = bytes;
+                }
+                bytesPerTick[PHASE_OTHER][tick] = Math.max(0, tickBytes - phaseSum);
+            }
+
+            if (ended) {
+                start.restore(screen);
+            }
+        }
+    }
+
+    /**
+     * Measures how many bytes reading the allocation counter itself reports, so it can be subtracted.
+     *
+     * @return The smallest difference seen between two consecutive reads
+     */
+    private long measureCounterOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10000; i++) {
+            long before = allocatedBytes.getAsLong();
+            overhead = Math.min(overhead, allocatedBytes.getAsLong() - before);
+        }
+        return overhead;
+    }
+
+    /**
+     * Gets the name of a measured phase.
+     *
+     * @param phase The phase
+     * @return The phase name
+     */
+    private static String getPhaseName(int phase) {
+        return phase == PHASE_OTHER ? "other" : GameplayScreen.getPhaseName(phase);
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,126 @@
+package tools;
+
+import audio.AudioEngine;
+import audio.MemorySink;
+import audio.Sound;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark for the audio engine, run without a sound device.
+ *
+ * Starts an {@link AudioEngine} on a {@link MemorySink} with the configured sounds and music, then
+ * triggers effects from this thread at a steady rate, cycling through every sound, while the music
+ * streams. It prints the average and worst time and the bytes allocated on this thread to trigger
+ * an effect, the 50th and 99th percentile time from triggering an effect to the sink starting it,
+ * any effects dropped, and how many music chunks were queued and how often the music ran dry.
+ *
+ * Usage: {@code java tools.AudioBenchmark [triggers] [intervalMicros] [app.properties]}
+ */
+public class AudioBenchmark {
+    private static final int DEFAULT_TRIGGERS = 5000;
+    private static final int DEFAULT_INTERVAL_MICROS = 1000;
+    private static final long OPEN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional trigger count, microseconds between triggers and properties file path
+     */
+    public static void main(String[] args) {
+        int triggers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TRIGGERS;
+        long intervalNanos = TimeUnit.MICROSECONDS.toNanos(
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_INTERVAL_MICROS);
+        Properties gameProps = loadProperties(args.length > 2 ? args[2] : "res/app.properties");
+
+        THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        MemorySink sink = new MemorySink(triggers, 2);
+        AudioEngine engine = new AudioEngine(gameProps, sink);
+        long deadline = System.nanoTime() + OPEN_TIMEOUT_NANOS;
+        while (!engine.isOpen() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        if (!engine.isOpen()) {
+            System.err.println("Error starting audio: the sink did not open");
+            System.exit(1);
+        }
+        System.out.printf("%d effects loaded%n", sink.getEffectCount());
+
+        Sound[] sounds = Sound.values();
+        long[] triggerNanos = new long[triggers];
+        long[] costNanos = new long[triggers];
+        long allocated = 0;
+        long next = System.nanoTime();
+        for (int i = 0; i < triggers; i++) {
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            next += intervalNanos;
+
+            long bytesBefore = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            long begin = System.nanoTime();
+            engine.play(sounds[i % sounds.length]);
+            long end = System.nanoTime();
+            allocated += THREAD_BEAN.getCurrentThreadAllocatedBytes() - bytesBefore;
+            triggerNanos[i] = begin;
+            costNanos[i] = end - begin;
+        }
+
+        int expected = triggers - (int) engine.getDropped();
+        deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (sink.getPlayCount() < expected && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        engine.close();
+
+        double averageCost = Arrays.stream(costNanos).average().orElse(0) / 1e3;
+        long worstCost = Arrays.stream(costNanos).max().orElse(0);
+        System.out.printf("Trigger (%d effects): %.2f us avg, %.1f us max, %.1f B/trigger%n",
+                triggers, averageCost, worstCost / 1e3, (double) allocated / triggers);
+
+        if (engine.getDropped() > 0) {
+            System.out.printf("Latency not measured: %d effects dropped%n", engine.getDropped());
+        } else if (sink.getPlayCount() < triggers) {
+            System.out.printf("Latency not measured: only %d of %d effects played%n", sink.getPlayCount(), triggers);
+        } else {
+            long[] latency = new long[triggers];
+            for (int i = 0; i < triggers; i++) {
+                latency[i] = sink.getPlayNanos(i) - triggerNanos[i];
+            }
+            Arrays.sort(latency);
+            System.out.printf("Trigger to play: %.1f us p50, %.1f us p99, %.1f us max%n",
+                    latency[triggers / 2] / 1e3, latency[(int) (triggers * 0.99)] / 1e3,
+                    latency[triggers - 1] / 1e3);
+        }
+        System.out.printf("Music: %d chunks (%d bytes) queued, %d underruns%n",
+                sink.getMusicChunks(), sink.getMusicBytes(), sink.getUnderruns());
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,160 @@
+package tools;
+
+import game.FramePacer;
+import game.InputState;
+import game.NullRenderer;
+import game.StateSnapshot;
+import profiling.Histogram;
+import screens.GameplayScreen;
+import screens.Level2Screen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Benchmark for frame pacing, run without a window.
+ *
+ * Plays level 2 with a fixed pseudo-random input script, drawing through a {@link NullRenderer},
+ * under a {@link FramePacer} in three configurations: parking only, parking then spinning, and
+ * parking then spinning before input instead of before presenting. For each it prints how late
+ * frames were released after their deadlines and how far the time between releases strayed from
+ * the frame period (as histogram bucket bounds), the deadlines missed, and the share of a core the
+ * game thread used.
+ *
+ * Usage: {@code java tools.FramePacingBenchmark [seconds] [framesPerSecond] [app.properties] [message.properties]}
+ */
+public class FramePacingBenchmark {
+    private static final int DEFAULT_SECONDS = 5;
+    private static final double DEFAULT_FRAMES_PER_SECOND = 60;
+    private static final long SPIN_NANOS = 1_000_000;
+    private static final long INPUT_SEED = 0x444B;
+    private static final int INPUT_HOLD_TICKS = 20; // Average ticks between input changes
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    // Input combinations the script picks from
+    private static final int[] INPUTS = {
+        0,
+        InputState.LEFT,
+        InputState.RIGHT,
+        InputState.UP,
+        InputState.LEFT | InputState.SPACE,
+        InputState.RIGHT | InputState.SPACE,
+        InputState.SHOOT,
+    };
+
+    /**
+     * Runs the benchmark in each configuration.
+     *
+     * @param args Optional duration, frame rate and properties file paths
+     */
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        double framesPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_FRAMES_PER_SECOND;
+        Properties gameProps = loadProperties(args.length > 2 ? args[2] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 3 ? args[3] : "res/message.properties");
+        gameProps.setProperty("sessions.dir", "");
+        int frames = (int) (seconds * framesPerSecond);
+
+        GameplayScreen screen = new Level2Screen(gameProps, messageProps);
+        StateSnapshot start = new StateSnapshot();
+        start.capture(screen);
+
+        // Warm up so the JIT has compiled the frame, then measure each configuration
+        run(screen, start, new FramePacer(framesPerSecond, SPIN_NANOS, false), frames / 2);
+        report("park only", screen, start, new FramePacer(framesPerSecond, 0, false), frames);
+        report("park + spin", screen, start, new FramePacer(framesPerSecond, SPIN_NANOS, false), frames);
+        report("park + spin, wait before input", screen, start,
+                new FramePacer(framesPerSecond, SPIN_NANOS, true), frames);
+    }
+
+    /**
+     * Runs one configuration from the level's start and prints its pacing.
+     *
+     * @param name The configuration's name
+     * @param screen The level to run
+     * @param start The level's starting state
+     * @param pacer The pacer to run under
+     * @param frames Number of frames to run
+     */
+    private static void report(String name, GameplayScreen screen, StateSnapshot start, FramePacer pacer,
+                               int frames) {
+        start.restore(screen);
+        long cpuBefore = THREAD_BEAN.getCurrentThreadCpuTime();
+        long wallBefore = System.nanoTime();
+        run(screen, start, pacer, frames);
+        double cpuShare = (double) (THREAD_BEAN.getCurrentThreadCpuTime() - cpuBefore)
+                / (System.nanoTime() - wallBefore);
+
+        System.out.printf("%s (%d frames): %d missed, %.0f%% of a core%n",
+                name, pacer.getFrames(), pacer.getMissedFrames(), cpuShare * 100);
+        printError("  release after deadline", pacer.getWakeError());
+        printError("  interval error", pacer.getIntervalError());
+    }
+
+    /**
+     * Plays the input script under a pacer, drawing every tick and restarting the level whenever it
+     * ends.
+     *
+     * @param screen The level to run
+     * @param start The level's starting state
+     * @param pacer The pacer to run under
+     * @param frames Number of frames to run
+     */
+    private static void run(GameplayScreen screen, StateSnapshot start, FramePacer pacer, int frames) {
+        Random random = new Random(INPUT_SEED);
+        InputState input = new InputState();
+        NullRenderer renderer = new NullRenderer();
+        int keys = 0;
+
+        for (int frame = 0; frame < frames; frame++) {
+            pacer.beginFrame();
+            if (random.nextInt(INPUT_HOLD_TICKS) == 0) {
+                keys = INPUTS[random.nextInt(INPUTS.length)];
+            }
+            input.set(keys);
+            long begin = System.nanoTime();
+            if (screen.update(input) != null) {
+                start.restore(screen);
+            }
+            long end = System.nanoTime();
+            pacer.recordTick(screen, end - begin);
+            screen.draw(renderer);
+            pacer.recordPhase(FramePacer.PHASE_DRAW, System.nanoTime() - end);
+            pacer.endFrame();
+        }
+    }
+
+    /**
+     * Prints the mean and percentiles of a pacing error histogram.
+     *
+     * @param name What the error measures
+     * @param error The histogram
+     */
+    private static void printError(String name, Histogram error) {
+        System.out.printf("%s: %.1f us avg, p50 <= %.1f us, p99 <= %.1f us%n", name,
+                error.getMeanNanos() / 1e3, error.getPercentileNanos(0.5) / 1e3,
+                error.getPercentileNanos(0.99) / 1e3);
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,159 @@
+package tools;
+
+import game.InputSampler;
+import game.InputState;
+import game.NullRenderer;
+import game.StateSnapshot;
+import org.lwjgl.glfw.GLFW;
+import profiling.Histogram;
+import screens.GameplayScreen;
+import screens.Level2Screen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark for the raw key event input path, run without a window.
+ *
+ * A typist thread presses and releases random gameplay keys at random times into an
+ * {@link InputSampler}, some for less than a frame, while this thread plays level 2 at a fixed frame
+ * rate: each frame folds the queued events into the tick's input, runs the tick, draws it through a
+ * {@link NullRenderer} and waits for the frame's deadline as a vsynced swap would. It prints the
+ * key-to-simulation and key-to-present latency percentiles (as histogram bucket bounds), the taps
+ * that polling once a frame would have missed, dropped events, and the time and bytes allocated
+ * to fold each tick's events.
+ *
+ * Usage: {@code java tools.InputLatencyBenchmark [seconds] [framesPerSecond] [app.properties] [message.properties]}
+ */
+public class InputLatencyBenchmark {
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int DEFAULT_FRAMES_PER_SECOND = 60;
+    private static final long TYPIST_SEED = 0x4B45;
+    private static final long MEAN_KEY_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+    private static final long MAX_HOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(120);
+    private static final int[] KEYS = {
+        GLFW.GLFW_KEY_LEFT, GLFW.GLFW_KEY_RIGHT, GLFW.GLFW_KEY_UP, GLFW.GLFW_KEY_SPACE, GLFW.GLFW_KEY_S
+    };
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile boolean typing = true;
+    private static volatile long presses = 0;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional duration, frame rate and properties file paths
+     */
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        int framesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES_PER_SECOND;
+        Properties gameProps = loadProperties(args.length > 2 ? args[2] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 3 ? args[3] : "res/message.properties");
+        gameProps.setProperty("sessions.dir", "");
+
+        THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        GameplayScreen screen = new Level2Screen(gameProps, messageProps);
+        StateSnapshot start = new StateSnapshot();
+        start.capture(screen);
+        NullRenderer renderer = new NullRenderer();
+        InputSampler sampler = new InputSampler(
+                Integer.parseInt(gameProps.getProperty("input.queueCapacity", "256")));
+        InputState input = new InputState();
+
+        Thread typist = new Thread(() -> type(sampler), "typist");
+        typist.setDaemon(true);
+        typist.start();
+
+        long frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        int frames = seconds * framesPerSecond;
+        long foldNanos = 0;
+        long maxFoldNanos = 0;
+        long allocated = 0;
+        long deadline = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            // The previous frame was presented at its deadline
+            sampler.framePresented(System.nanoTime());
+
+            long bytesBefore = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            long begin = System.nanoTime();
+            sampler.sampleTick(input);
+            long end = System.nanoTime();
+            allocated += THREAD_BEAN.getCurrentThreadAllocatedBytes() - bytesBefore;
+            foldNanos += end - begin;
+            maxFoldNanos = Math.max(maxFoldNanos, end - begin);
+
+            if (screen.update(input) != null) {
+                start.restore(screen);
+            }
+            screen.draw(renderer);
+
+            deadline += frameNanos;
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        typing = false;
+
+        System.out.printf("%d frames at %d fps, %d key presses, %d taps shorter than a frame, %d events dropped%n",
+                frames, framesPerSecond, presses, sampler.getTaps(), sampler.getDropped());
+        printLatency("Key to simulation", sampler.getSimulationLatency());
+        printLatency("Key to present", sampler.getPresentLatency());
+        System.out.printf("Fold: %.2f us avg, %.1f us max, %.1f B/tick%n",
+                foldNanos / 1e3 / frames, maxFoldNanos / 1e3, (double) allocated / frames);
+    }
+
+    /**
+     * Presses and releases random keys until the benchmark ends, never holding two at once.
+     *
+     * @param sampler The sampler to send key events to
+     */
+    private static void type(InputSampler sampler) {
+        Random random = new Random(TYPIST_SEED);
+        while (typing) {
+            LockSupport.parkNanos((long) (-Math.log(1 - random.nextDouble()) * MEAN_KEY_GAP_NANOS));
+            int key = KEYS[random.nextInt(KEYS.length)];
+            sampler.keyEvent(key, GLFW.GLFW_PRESS, System.nanoTime());
+            presses++;
+            LockSupport.parkNanos((long) (random.nextDouble() * MAX_HOLD_NANOS));
+            sampler.keyEvent(key, GLFW.GLFW_RELEASE, System.nanoTime());
+        }
+    }
+
+    /**
+     * Prints the mean and percentiles of a latency histogram.
+     *
+     * @param name What the latency is from and to
+     * @param latency The histogram
+     */
+    private static void printLatency(String name, Histogram latency) {
+        System.out.printf("%s: %.2f ms avg, p50 <= %.2f ms, p99 <= %.2f ms (%d presses)%n", name,
+                latency.getMeanNanos() / 1e6, latency.getPercentileNanos(0.5) / 1e6,
+                latency.getPercentileNanos(0.99) / 1e6, latency.getCount());
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,606 @@
+package tools;
+
+import entities.Barrel;
+import entities.Blaster;
+import entities.DonkeyKong;
+import entities.Entity;
+import entities.Hammer;
+import entities.IntelligentMonkey;
+import entities.Ladder;
+import entities.NormalMonkey;
+import entities.Platform;
+import entities.Player;
+import game.GameState;
+import game.LevelData;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Build-time checker and compiler for the level data in app.properties.
+ *
+ * Each level is parsed strictly: every malformed coordinate, count, direction or patrol route is
+ * reported with its key, where the game would only print an error and skip the entry once the
+ * window is open. The level is then checked:
+ * <ul>
+ * <li>every position lies inside the world,</li>
+ * <li>no entity is still inside a platform after being moved onto the platform it overlaps,</li>
+ * <li>every ladder stands on a platform, and</li>
+ * <li>Donkey Kong can be reached from Mario's start by walking, dropping off platform edges and
+ * climbing ladders.</li>
+ * </ul>
+ * If every level passes, the levels are written, with starting positions already corrected the
+ * way the screens would correct them, to a {@link LevelData} file that the screens load instead of
+ * parsing the properties. Otherwise the errors are printed and the process exits with status 1,
+ * so the build fails.
+ *
+ * Usage: {@code java tools.LevelCompiler [app.properties] [output]}
+ */
+public class LevelCompiler {
+    private static final double DEFAULT_HAMMER_X = 900; // Where the screens put a missing hammer
+    private static final double DEFAULT_HAMMER_Y = 500;
+    private static final double LADDER_ALIGNMENT_TOLERANCE = 10.0; // As GameplayScreen's platform-ladder tolerance
+    private static final double SURFACE_TOLERANCE = 1.0;
+
+    private final Properties props;
+    private final double worldWidth;
+    private final double worldHeight;
+    private final List<String> errors = new ArrayList<>();
+    private int corrected = 0;
+
+    /**
+     * Creates a compiler for the given game properties.
+     *
+     * @param props The game properties
+     */
+    private LevelCompiler(Properties props) {
+        this.props = props;
+        int windowWidth = Integer.parseInt(props.getProperty("window.width"));
+        int windowHeight = Integer.parseInt(props.getProperty("window.height"));
+        worldWidth = Integer.parseInt(props.getProperty("world.width", String.valueOf(windowWidth)));
+        worldHeight = Integer.parseInt(props.getProperty("world.height", String.valueOf(windowHeight)));
+    }
+
+    /**
+     * Checks and compiles both levels.
+     *
+     * @param args Optional properties path and output path
+     */
+    public static void main(String[] args) {
+        Properties props = loadProperties(args.length > 0 ? args[0] : "res/app.properties");
+        Path output = Paths.get(args.length > 1 ? args[1] : "target/levels.bin");
+
+        LevelCompiler compiler = new LevelCompiler(props);
+        List<LevelData> levels = new ArrayList<>();
+        for (GameState level : new GameState[] {GameState.LEVEL1, GameState.LEVEL2}) {
+            LevelData data = compiler.compile(level);
+            levels.add(data);
+            System.out.printf("%s: %d platforms, %d ladders, %d barrels, %d monkeys, %d blasters%n",
+                    LevelData.getLevelName(level), data.getSpawns(LevelData.PLATFORM).size(),
+                    data.getSpawns(LevelData.LADDER).size(), data.getSpawns(LevelData.BARREL).size(),
+                    data.getSpawns(LevelData.NORMAL_MONKEY).size() + data.getSpawns(LevelData.INTELLIGENT_MONKEY).size(),
+                    data.getSpawns(LevelData.BLASTER).size());
+        }
+
+        if (!compiler.errors.isEmpty()) {
+            for (String error : compiler.errors) {
+                System.err.println("Error in " + error);
+            }
+            System.err.println(compiler.errors.size() + " level data error(s)");
+            System.exit(1);
+        }
+
+        try {
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            LevelData.write(output, levels);
+        } catch (IOException e) {
+            System.err.println("Error writing " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Wrote " + output + " (" + compiler.corrected + " starting positions corrected)");
+    }
+
+    /**
+     * Parses, corrects and checks one level. Problems are added to the error list.
+     *
+     * @param level The level
+     * @return The compiled level (incomplete if there were errors)
+     */
+    private LevelData compile(GameState level) {
+        String name = LevelData.getLevelName(level);
+        LevelData data = new LevelData(level, LevelData.fingerprint(props, level));
+
+        List<Platform> platforms = new ArrayList<>();
+        for (double[] position : parsePositionList("platforms." + name)) {
+            platforms.add(new Platform(position[0], position[1]));
+        }
+        List<Ladder> ladders = new ArrayList<>();
+        for (double[] position : parseNumbered("ladder." + name)) {
+            ladders.add(new Ladder(position[0], position[1]));
+        }
+
+        double[] start = parseRequired("mario." + name);
+        double[] donkeyStart = parseRequired("donkey." + name);
+        if (start == null || donkeyStart == null) {
+            return data;
+        }
+        Player player = new Player(start[0], start[1]);
+        DonkeyKong donkeyKong = new DonkeyKong(donkeyStart[0], donkeyStart[1]);
+
+        // Only the first hammer is used; a level without one gets the screens' default
+        List<double[]> hammers = parseNumbered("hammer." + name);
+        Hammer hammer = hammers.isEmpty() ? new Hammer(DEFAULT_HAMMER_X, DEFAULT_HAMMER_Y)
+                : new Hammer(hammers.get(0)[0], hammers.get(0)[1]);
+
+        List<Barrel> barrels = new ArrayList<>();
+        for (double[] position : parseNumbered("barrel." + name)) {
+            barrels.add(new Barrel(position[0], position[1]));
+        }
+        List<NormalMonkey> normalMonkeys = new ArrayList<>();
+        List<IntelligentMonkey> intelligentMonkeys = new ArrayList<>();
+        List<Blaster> blasters = new ArrayList<>();
+        List<LevelData.Spawn> normalRoutes = new ArrayList<>();
+        List<LevelData.Spawn> intelligentRoutes = new ArrayList<>();
+        if (level == GameState.LEVEL2) {
+            for (LevelData.Spawn route : parseMonkeys("normalMonkey." + name)) {
+                normalRoutes.add(route);
+                normalMonkeys.add(new NormalMonkey(route.getX(), route.getY(), route.getDirection(), route.getPatrol()));
+            }
+            for (LevelData.Spawn route : parseMonkeys("intelligentMonkey." + name)) {
+                intelligentRoutes.add(route);
+                intelligentMonkeys.add(new IntelligentMonkey(route.getX(), route.getY(), route.getDirection(),
+                        route.getPatrol()));
+            }
+            for (double[] position : parseNumbered("blaster." + name)) {
+                blasters.add(new Blaster(position[0], position[1]));
+            }
+        }
+
+        // Correct starting positions in the same order as the screens do
+        boolean playerGrounded = restOnPlatform(player, platforms);
+        boolean donkeyKongGrounded = restOnPlatform(donkeyKong, platforms);
+        boolean[] barrelsGrounded = new boolean[barrels.size()];
+        for (int i = 0; i < barrels.size(); i++) {
+            barrelsGrounded[i] = restOnPlatform(barrels.get(i), platforms);
+        }
+        restOnPlatform(hammer, platforms);
+        boolean[] normalGrounded = new boolean[normalMonkeys.size()];
+        for (int i = 0; i < normalMonkeys.size(); i++) {
+            normalGrounded[i] = restOnPlatform(normalMonkeys.get(i), platforms);
+        }
+        boolean[] intelligentGrounded = new boolean[intelligentMonkeys.size()];
+        for (int i = 0; i < intelligentMonkeys.size(); i++) {
+            intelligentGrounded[i] = restOnPlatform(intelligentMonkeys.get(i), platforms);
+        }
+        for (Blaster blaster : blasters) {
+            restOnPlatform(blaster, platforms);
+        }
+
+        // Check the corrected level
+        checkPlacement("mario." + name, player, platforms);
+        checkPlacement("donkey." + name, donkeyKong, platforms);
+        checkPlacement("hammer." + name + ".1", hammer, platforms);
+        checkPlacements("barrel." + name, barrels, platforms);
+        checkPlacements("normalMonkey." + name, normalMonkeys, platforms);
+        checkPlacements("intelligentMonkey." + name, intelligentMonkeys, platforms);
+        checkPlacements("blaster." + name, blasters, platforms);
+        checkPlacements("ladder." + name, ladders, null);
+        checkReachable(name, player, donkeyKong, platforms, ladders);
+
+        // Store the corrected level
+        data.add(LevelData.PLAYER, new LevelData.Spawn(player.getX(), player.getY(), playerGrounded));
+        data.add(LevelData.DONKEY_KONG, new LevelData.Spawn(donkeyKong.getX(), donkeyKong.getY(), donkeyKongGrounded));
+        data.add(LevelData.HAMMER, new LevelData.Spawn(hammer.getX(), hammer.getY(), false));
+        for (Platform platform : platforms) {
+            data.add(LevelData.PLATFORM, new LevelData.Spawn(platform.getX(), platform.getY(), false));
+        }
+        for (Ladder ladder : ladders) {
+            data.add(LevelData.LADDER, new LevelData.Spawn(ladder.getX(), ladder.getY(), false));
+        }
+        for (int i = 0; i < barrels.size(); i++) {
+            data.add(LevelData.BARREL, new LevelData.Spawn(barrels.get(i).getX(), barrels.get(i).getY(), barrelsGrounded[i]));
+        }
+        addMonkeys(data, LevelData.NORMAL_MONKEY, normalMonkeys, normalRoutes, normalGrounded);
+        addMonkeys(data, LevelData.INTELLIGENT_MONKEY, intelligentMonkeys, intelligentRoutes, intelligentGrounded);
+        for (Blaster blaster : blasters) {
+            data.add(LevelData.BLASTER, new LevelData.Spawn(blaster.getX(), blaster.getY(), false));
+        }
+        return data;
+    }
+
+    /**
+     * Adds monkeys at their corrected positions with their parsed routes.
+     *
+     * @param data The compiled level
+     * @param kind The kind of monkey
+     * @param monkeys The corrected monkeys
+     * @param routes The parsed monkeys, in the same order
+     * @param grounded Whether each monkey was placed on a platform
+     */
+    private static void addMonkeys(LevelData data, int kind, List<? extends Entity> monkeys,
+                                   List<LevelData.Spawn> routes, boolean[] grounded) {
+        for (int i = 0; i < monkeys.size(); i++) {
+            LevelData.Spawn route = routes.get(i);
+            int[] patrol = route.getPatrol().stream().mapToInt(Integer::intValue).toArray();
+            data.add(kind, new LevelData.Spawn(monkeys.get(i).getX(), monkeys.get(i).getY(), grounded[i],
+                    route.getDirection().equals("right"), patrol));
+        }
+    }
+
+    /**
+     * Moves an entity on top of the first platform it overlaps with the screens' own correction,
+     * counting the entities moved.
+     *
+     * @param entity The entity
+     * @param platforms The level's platforms
+     * @return true if the entity was moved
+     */
+    private boolean restOnPlatform(Entity entity, List<Platform> platforms) {
+        if (Platform.restOnFirstOverlapping(entity, platforms)) {
+            corrected++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks a numbered list of entities, see {@link #checkPlacement}.
+     *
+     * @param prefix The key prefix of the list, e.g. "barrel.level1"
+     * @param entities The entities, numbered from 1
+     * @param platforms The level's platforms, or null to only check the world bounds
+     */
+    private void checkPlacements(String prefix, List<? extends Entity> entities, List<Platform> platforms) {
+        for (int i = 0; i < entities.size(); i++) {
+            checkPlacement(prefix + "." + (i + 1), entities.get(i), platforms);
+        }
+    }
+
+    /**
+     * Checks that a corrected entity is inside the world and not inside a platform.
+     * Moving an entity onto the first platform it overlaps can leave it inside another one.
+     *
+     * @param key The entity's key
+     * @param entity The entity
+     * @param platforms The level's platforms, or null to only check the world bounds
+     */
+    private void checkPlacement(String key, Entity entity, List<Platform> platforms) {
+        if (entity.getX() < 0 || entity.getX() > worldWidth || entity.getY() < 0 || entity.getY() > worldHeight) {
+            errors.add(key + ": " + format(entity) + " is outside the " + (int) worldWidth + "x" + (int) worldHeight + " world");
+            return;
+        }
+        if (platforms != null) {
+            for (Platform platform : platforms) {
+                if (platform.overlaps(entity)) {
+                    errors.add(key + ": " + format(entity) + " spawns inside the platform at " + format(platform));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that Donkey Kong can be reached from Mario's start.
+     *
+     * Each platform is a node. Mario can walk between platforms at the same height that touch,
+     * drop off either end of a platform onto whatever is below, and climb a ladder between the
+     * platform it stands on and any platform at its top. Ladders fall onto the platform below them
+     * when the level starts, so they are checked where they land.
+     *
+     * @param name The level's name
+     * @param player The corrected player
+     * @param donkeyKong The corrected Donkey Kong
+     * @param platforms The level's platforms
+     * @param ladders The level's ladders
+     */
+    private void checkReachable(String name, Player player, DonkeyKong donkeyKong, List<Platform> platforms,
+                                List<Ladder> ladders) {
+        int count = platforms.size();
+        List<List<Integer>> links = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            links.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < count; i++) {
+            Platform platform = platforms.get(i);
+            for (int j = i + 1; j < count; j++) {
+                Platform other = platforms.get(j);
+                if (Math.abs(top(platform) - top(other)) <= SURFACE_TOLERANCE
+                        && left(platform) <= right(other) && left(other) <= right(platform)) {
+                    links.get(i).add(j);
+                    links.get(j).add(i);
+                }
+            }
+            // Dropping off either end
+            for (double edge : new double[] {left(platform) - 1, right(platform) + 1}) {
+                int below = platformBelow(platforms, edge, top(platform));
+                if (below >= 0) {
+                    links.get(i).add(below);
+                }
+            }
+        }
+
+        for (int i = 0; i < ladders.size(); i++) {
+            Ladder ladder = ladders.get(i);
+            int lower = platformBelow(platforms, ladder.getX(), ladder.getY() + ladder.getHeight() / 2);
+            if (lower < 0) {
+                errors.add("ladder." + name + "." + (i + 1) + ": " + format(ladder) + " does not stand on a platform");
+                continue;
+            }
+            double ladderTop = top(platforms.get(lower)) - ladder.getHeight();
+            for (int j = 0; j < count; j++) {
+                Platform platform = platforms.get(j);
+                if (j != lower && covers(platform, ladder.getX())
+                        && Math.abs(top(platform) - ladderTop) <= LADDER_ALIGNMENT_TOLERANCE) {
+                    links.get(lower).add(j);
+                    links.get(j).add(lower);
+                }
+            }
+        }
+
+        int start = platformBelow(platforms, player.getX(), player.getY() + player.getHeight() / 2);
+        int goal = platformBelow(platforms, donkeyKong.getX(), donkeyKong.getY() + donkeyKong.getHeight() / 2);
+        if (start < 0) {
+            errors.add("mario." + name + ": " + format(player) + " is not above a platform");
+            return;
+        }
+        if (goal < 0) {
+            errors.add("donkey." + name + ": " + format(donkeyKong) + " is not above a platform");
+            return;
+        }
+
+        boolean[] reached = new boolean[count];
+        Deque<Integer> queue = new ArrayDeque<>();
+        reached[start] = true;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (int next : links.get(queue.poll())) {
+                if (!reached[next]) {
+                    reached[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+        if (!reached[goal]) {
+            errors.add("donkey." + name + ": Donkey Kong at " + format(donkeyKong)
+                    + " cannot be reached from Mario's start by ladders");
+        }
+    }
+
+    /**
+     * Finds the platform something at a point would land on if it fell.
+     *
+     * @param platforms The level's platforms
+     * @param x The x-coordinate
+     * @param bottom The y-coordinate it falls from
+     * @return The index of the highest platform under the point, or -1 if there is none
+     */
+    private static int platformBelow(List<Platform> platforms, double x, double bottom) {
+        int found = -1;
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform platform = platforms.get(i);
+            if (covers(platform, x) && top(platform) >= bottom - SURFACE_TOLERANCE
+                    && (found < 0 || top(platform) < top(platforms.get(found)))) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    private static boolean covers(Platform platform, double x) {
+        return x >= left(platform) && x <= right(platform);
+    }
+
+    private static double top(Platform platform) {
+        return platform.getY() - platform.getHeight() / 2;
+    }
+
+    private static double left(Platform platform) {
+        return platform.getX() - platform.getWidth() / 2;
+    }
+
+    private static double right(Platform platform) {
+        return platform.getX() + platform.getWidth() / 2;
+    }
+
+    /**
+     * Parses a required "x,y" position.
+     *
+     * @param key The property key
+     * @return The position, or null if it is missing or malformed (the error is recorded)
+     */
+    private double[] parseRequired(String key) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            errors.add(key + ": missing");
+            return null;
+        }
+        return parsePosition(key, value);
+    }
+
+    /**
+     * Parses an "x,y" position.
+     *
+     * @param key The property key, for errors
+     * @param value The text to parse
+     * @return The position, or null if it is malformed (the error is recorded)
+     */
+    private double[] parsePosition(String key, String value) {
+        String[] coords = value.split(",");
+        if (coords.length != 2) {
+            errors.add(key + ": expected x,y but found \"" + value + "\"");
+            return null;
+        }
+        try {
+            double[] position = {Double.parseDouble(coords[0].trim()), Double.parseDouble(coords[1].trim())};
+            if (!Double.isFinite(position[0]) || !Double.isFinite(position[1])) {
+                errors.add(key + ": coordinates must be finite: \"" + value + "\"");
+                return null;
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            errors.add(key + ": invalid coordinates \"" + value + "\"");
+            return null;
+        }
+    }
+
+    /**
+     * Parses a ";"-separated list of positions, such as the platforms.
+     *
+     * @param key The property key
+     * @return The valid positions
+     */
+    private List<double[]> parsePositionList(String key) {
+        List<double[]> positions = new ArrayList<>();
+        String value = props.getProperty(key);
+        if (value == null || value.isEmpty()) {
+            errors.add(key + ": missing");
+            return positions;
+        }
+        String[] entries = value.split(";");
+        for (int i = 0; i < entries.length; i++) {
+            double[] position = parsePosition(key + " #" + (i + 1), entries[i]);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Parses the count of a numbered list.
+     *
+     * @param prefix The key prefix, e.g. "barrel.level1"
+     * @return The count, or 0 if it is missing or malformed (the error is recorded)
+     */
+    private int parseCount(String prefix) {
+        String key = prefix + ".count";
+        String value = props.getProperty(key, "0");
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count < 0) {
+                errors.add(key + ": negative count " + count);
+                return 0;
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            errors.add(key + ": invalid count \"" + value + "\"");
+            return 0;
+        }
+    }
+
+    /**
+     * Parses a numbered list of positions, e.g. {@code barrel.level1.count} and {@code barrel.level1.N}.
+     *
+     * @param prefix The key prefix
+     * @return The valid positions
+     */
+    private List<double[]> parseNumbered(String prefix) {
+        List<double[]> positions = new ArrayList<>();
+        int count = parseCount(prefix);
+        for (int i = 1; i <= count; i++) {
+            double[] position = parseRequired(prefix + "." + i);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Parses a numbered list of monkeys in the form "x,y;left|right;d1,d2,...".
+     *
+     * @param prefix The key prefix, e.g. "normalMonkey.level2"
+     * @return The valid monkeys, as uncorrected spawns carrying their routes
+     */
+    private List<LevelData.Spawn> parseMonkeys(String prefix) {
+        List<LevelData.Spawn> monkeys = new ArrayList<>();
+        int count = parseCount(prefix);
+        for (int i = 1; i <= count; i++) {
+            String key = prefix + "." + i;
+            String value = props.getProperty(key);
+            if (value == null) {
+                errors.add(key + ": missing");
+                continue;
+            }
+            String[] parts = value.split(";");
+            if (parts.length != 3) {
+                errors.add(key + ": expected x,y;direction;route but found \"" + value + "\"");
+                continue;
+            }
+            double[] position = parsePosition(key, parts[0]);
+            String direction = parts[1].trim();
+            if (!direction.equals("left") && !direction.equals("right")) {
+                errors.add(key + ": direction must be left or right, not \"" + parts[1] + "\"");
+                continue;
+            }
+            int[] route = parseRoute(key, parts[2]);
+            if (position != null && route != null) {
+                monkeys.add(new LevelData.Spawn(position[0], position[1], false, direction.equals("right"), route));
+            }
+        }
+        return monkeys;
+    }
+
+    /**
+     * Parses a patrol route of positive whole distances.
+     *
+     * @param key The property key, for errors
+     * @param value The text to parse
+     * @return The distances, or null if the route is malformed (the error is recorded)
+     */
+    private int[] parseRoute(String key, String value) {
+        try {
+            int[] route = Arrays.stream(value.split(",")).mapToInt(d -> Integer.parseInt(d.trim())).toArray();
+            for (int distance : route) {
+                if (distance <= 0) {
+                    errors.add(key + ": route distances must be positive: \"" + value + "\"");
+                    return null;
+                }
+            }
+            return route;
+        } catch (NumberFormatException e) {
+            errors.add(key + ": invalid route \"" + value + "\"");
+            return null;
+        }
+    }
+
+    /**
+     * Formats an entity's position for messages.
+     *
+     * @param entity The entity
+     * @return The position as "x,y"
+     */
+    private static String format(Entity entity) {
+        return Math.round(entity.getX()) + "," + Math.round(entity.getY());
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,553 @@
+package tools;
+
+import game.Sprite;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random but playable levels for benchmarks and soak tests.
+ *
+ * The level is built from rows of platforms stacked one ladder-height apart, from Mario's row at
+ * the bottom to Donkey Kong's row at the top. Platforms in a row never overlap; some rows are
+ * broken by gaps into separate islands. Every island gets a ladder down to the row below, so every
+ * platform, ladder and Donkey Kong can be reached from Mario's start. Barrels, monkeys and blasters
+ * are then scattered over the platforms, resting on top of them, and each monkey's patrol stays on
+ * its own island. The world grows with the number of entities, roughly square, at about
+ * {@value #ENTITIES_PER_PLATFORM} entities per platform.
+ *
+ * The output is a copy of a base properties file with its world size and level data replaced by
+ * the generated level, written for both levels, so it can be passed to any tool that takes an
+ * app.properties path. The same seed and entity count always give the same level.
+ *
+ * Usage: {@code java tools.LevelGenerator <seed> <entities> <output> [app.properties]}
+ */
+public class LevelGenerator {
+    private static final int MIN_ENTITIES = 10;
+    private static final int MAX_ENTITIES = 100000;
+    private static final int ENTITIES_PER_PLATFORM = 4;
+
+    private static final double ROW_SPACING = 130; // Ladder height, so a ladder spans two rows exactly
+    private static final double TOP_MARGIN = 118; // Room above the top row for Donkey Kong
+    private static final double GAP_WIDTH = 100;
+    // Gaps per row at most. Rows end where their platforms run out, so with few gaps every
+    // island still overlaps islands in the rows above and below, leaving room for a ladder.
+    private static final int MAX_GAPS = 4;
+    private static final double LADDER_MARGIN = 30; // Ladder centre distance from an island's edge
+    private static final double LADDER_SPACING = 80; // Least distance between ladders on one row
+    private static final int PLATFORMS_PER_LADDER = 3;
+    private static final double SPAWN_CLEARANCE = 500; // Hazard-free stretch at Mario's start
+    private static final int MIN_PATROL = 50;
+    private static final int MAX_PATROL = 300;
+
+    // Share of the entities given to each kind, in percent; barrels take the rest
+    private static final int NORMAL_MONKEY_PERCENT = 20;
+    private static final int INTELLIGENT_MONKEY_PERCENT = 15;
+    private static final int BLASTER_PERCENT = 15;
+
+    // Keys replaced in the base file
+    private static final String[] GENERATED_KEYS = {
+        "world.width", "world.height", "mario.", "donkey.", "hammer.", "platforms.", "barrel.",
+        "ladder.", "normalMonkey.", "intelligentMonkey.", "blaster."
+    };
+
+    private final Random random;
+    private final double platformWidth;
+    private final double platformHeight;
+
+    private int columns;
+    private int rows;
+    private double worldWidth;
+    private double worldHeight;
+
+    // Islands of touching platforms per row, bottom row first, as {left, right} edges
+    private final List<List<double[]>> islands = new ArrayList<>();
+    private final List<double[]> platforms = new ArrayList<>();
+    private final List<double[]> ladders = new ArrayList<>();
+    private final List<String> barrels = new ArrayList<>();
+    private final List<String> normalMonkeys = new ArrayList<>();
+    private final List<String> intelligentMonkeys = new ArrayList<>();
+    private final List<String> blasters = new ArrayList<>();
+    private String mario;
+    private String donkeyKong;
+    private String hammer;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed The random seed
+     */
+    private LevelGenerator(long seed) {
+        random = new Random(seed);
+        Sprite platform = new Sprite("res/platform.png");
+        platformWidth = platform.getWidth();
+        platformHeight = platform.getHeight();
+    }
+
+    /**
+     * Generates a level and writes it.
+     *
+     * @param args Seed, entity count, output path and optional base properties path
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: java tools.LevelGenerator <seed> <entities> <output> [app.properties]");
+            System.exit(1);
+        }
+        long seed = Long.parseLong(args[0]);
+        int entities = Integer.parseInt(args[1]);
+        Path output = Paths.get(args[2]);
+        Path base = Paths.get(args.length > 3 ? args[3] : "res/app.properties");
+        if (entities < MIN_ENTITIES || entities > MAX_ENTITIES) {
+            throw new IllegalArgumentException("Entity count must be between " + MIN_ENTITIES
+                    + " and " + MAX_ENTITIES + ": " + entities);
+        }
+
+        LevelGenerator generator = new LevelGenerator(seed);
+        generator.generate(entities);
+        generator.check();
+        try {
+            generator.write(base, output);
+        } catch (IOException e) {
+            System.err.println("Error writing " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.printf("%s: %.0fx%.0f world, %d rows, %d platforms, %d ladders, %d barrels, "
+                        + "%d normal monkeys, %d intelligent monkeys, %d blasters%n", output,
+                generator.worldWidth, generator.worldHeight, generator.rows, generator.platforms.size(),
+                generator.ladders.size(), generator.barrels.size(), generator.normalMonkeys.size(),
+                generator.intelligentMonkeys.size(), generator.blasters.size());
+    }
+
+    /**
+     * Lays out the platforms and ladders and places every entity.
+     *
+     * @param entities Number of barrels, monkeys and blasters to place
+     */
+    private void generate(int entities) {
+        int platformCount = (entities + ENTITIES_PER_PLATFORM - 1) / ENTITIES_PER_PLATFORM;
+        // Roughly as wide as tall: columns * platformWidth ~ rows * ROW_SPACING
+        columns = Math.max(2, (int) Math.ceil(Math.sqrt(platformCount * ROW_SPACING / platformWidth)));
+        rows = Math.max(3, (platformCount + columns - 1) / columns);
+        worldWidth = columns * platformWidth + Math.min(MAX_GAPS, columns - 1) * GAP_WIDTH;
+        worldHeight = rows * ROW_SPACING + TOP_MARGIN;
+
+        for (int row = 0; row < rows; row++) {
+            layOutRow(row);
+        }
+        for (int row = 1; row < rows; row++) {
+            placeLadders(row);
+        }
+
+        mario = position(SPAWN_CLEARANCE / 2, restingY(0, new Sprite("res/mario_right.png")));
+        Sprite donkeyKong = new Sprite("res/donkey_kong.png");
+        this.donkeyKong = position(donkeyKong.getWidth() / 2, restingY(rows - 1, donkeyKong));
+        hammer = placeOnPlatform(new Sprite("res/hammer.png"));
+
+        int normalCount = entities * NORMAL_MONKEY_PERCENT / 100;
+        int intelligentCount = entities * INTELLIGENT_MONKEY_PERCENT / 100;
+        int blasterCount = entities * BLASTER_PERCENT / 100;
+        int barrelCount = entities - normalCount - intelligentCount - blasterCount;
+
+        Sprite barrel = new Sprite("res/barrel.png");
+        for (int i = 0; i < barrelCount; i++) {
+            barrels.add(placeOnPlatform(barrel));
+        }
+        Sprite normalMonkey = new Sprite("res/normal_monkey_right.png");
+        for (int i = 0; i < normalCount; i++) {
+            normalMonkeys.add(placeMonkey(normalMonkey));
+        }
+        Sprite intelligentMonkey = new Sprite("res/intelli_monkey_right.png");
+        for (int i = 0; i < intelligentCount; i++) {
+            intelligentMonkeys.add(placeMonkey(intelligentMonkey));
+        }
+        Sprite blaster = new Sprite("res/blaster.png");
+        for (int i = 0; i < blasterCount; i++) {
+            blasters.add(placeOnPlatform(blaster));
+        }
+    }
+
+    /**
+     * Lays out one row of touching platforms, split into islands by random gaps.
+     * The bottom and top rows have no gaps, so Mario's and Donkey Kong's rows are in one piece.
+     *
+     * @param row The row, 0 being the bottom
+     */
+    private void layOutRow(int row) {
+        List<double[]> rowIslands = new ArrayList<>();
+        double y = rowY(row);
+        double left = 0;
+        double right = 0;
+
+        // Choose which joins between neighbouring platforms become gaps
+        boolean[] gapBefore = new boolean[columns];
+        if (row > 0 && row < rows - 1) {
+            int gaps = random.nextInt(Math.min(MAX_GAPS, columns - 1) + 1);
+            while (gaps > 0) {
+                int column = 1 + random.nextInt(columns - 1);
+                if (!gapBefore[column]) {
+                    gapBefore[column] = true;
+                    gaps--;
+                }
+            }
+        }
+
+        for (int column = 0; column < columns; column++) {
+            if (gapBefore[column]) {
+                rowIslands.add(new double[] {left, right});
+                left = right + GAP_WIDTH;
+                right = left;
+            }
+            platforms.add(new double[] {right + platformWidth / 2, y});
+            right += platformWidth;
+        }
+        rowIslands.add(new double[] {left, right});
+        islands.add(rowIslands);
+    }
+
+    /**
+     * Places the ladders up to a row: at least one from each of its islands down to an island of
+     * the row below, and one for about every {@value #PLATFORMS_PER_LADDER} platforms on long islands.
+     *
+     * @param row The upper row the ladders reach
+     */
+    private void placeLadders(int row) {
+        List<double[]> placed = new ArrayList<>();
+        for (double[] island : islands.get(row)) {
+            int count = Math.max(1, (int) Math.round((island[1] - island[0]) / platformWidth / PLATFORMS_PER_LADDER));
+            for (int i = 0; i < count; i++) {
+                double x = pickLadderX(island, islands.get(row - 1), placed);
+                if (!Double.isNaN(x)) {
+                    placed.add(new double[] {x, rowY(row - 1) - (platformHeight + ROW_SPACING) / 2});
+                }
+            }
+        }
+        ladders.addAll(placed);
+    }
+
+    /**
+     * Picks a ladder position that lands on an island above and an island below, away from other
+     * ladders on the same row.
+     *
+     * @param upper The island the ladder reaches
+     * @param below The islands of the row below
+     * @param placed Ladders already placed on this row
+     * @return The ladder's x-coordinate, or NaN if no position is free
+     */
+    private double pickLadderX(double[] upper, List<double[]> below, List<double[]> placed) {
+        List<double[]> spans = new ArrayList<>();
+        for (double[] island : below) {
+            double left = Math.max(upper[0], island[0]) + LADDER_MARGIN;
+            double right = Math.min(upper[1], island[1]) - LADDER_MARGIN;
+            if (right > left) {
+                spans.add(new double[] {left, right});
+            }
+        }
+        for (int attempt = 0; attempt < 20 && !spans.isEmpty(); attempt++) {
+            double[] span = spans.get(random.nextInt(spans.size()));
+            double x = Math.round(span[0] + random.nextDouble() * (span[1] - span[0]));
+            if (x >= span[0] && x <= span[1] && isClearOfLadders(x, placed)) {
+                return x;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Checks a ladder position is not too close to other ladders on the same row.
+     *
+     * @param x The ladder's x-coordinate
+     * @param placed Ladders already placed on this row
+     * @return true if the position is free
+     */
+    private static boolean isClearOfLadders(double x, List<double[]> placed) {
+        for (double[] ladder : placed) {
+            if (Math.abs(ladder[0] - x) < LADDER_SPACING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places an entity at a random spot on top of a platform, away from Mario's start.
+     *
+     * @param sprite The entity's image, for its size
+     * @return The "x,y" position
+     */
+    private String placeOnPlatform(Sprite sprite) {
+        double[] spot = pickSpot(sprite.getWidth() / 2);
+        return position(spot[0], restingY((int) spot[1], sprite));
+    }
+
+    /**
+     * Places a monkey on a platform with a patrol that stays on its island.
+     *
+     * @param sprite The monkey's image, for its size
+     * @return The "x,y;direction;distance,distance" configuration
+     */
+    private String placeMonkey(Sprite sprite) {
+        double halfWidth = sprite.getWidth() / 2;
+        double[] spot = pickSpot(halfWidth);
+        double x = spot[0];
+        double[] island = islandAt((int) spot[1], x);
+        boolean right = random.nextBoolean();
+        double room = right ? island[1] - halfWidth - x : x - island[0] - halfWidth;
+        if (room < MIN_PATROL) {
+            right = !right;
+            room = right ? island[1] - halfWidth - x : x - island[0] - halfWidth;
+        }
+        int distance = (int) Math.min(MIN_PATROL + random.nextInt(MAX_PATROL - MIN_PATROL + 1), Math.floor(room));
+        return position(x, restingY((int) spot[1], sprite)) + ";" + (right ? "right" : "left")
+                + ";" + distance + "," + distance;
+    }
+
+    /**
+     * Picks a random spot on the platforms, away from Mario's start.
+     *
+     * @param halfWidth Half the entity's width, kept inside the island
+     * @return {x, row}
+     */
+    private double[] pickSpot(double halfWidth) {
+        while (true) {
+            int row = random.nextInt(rows);
+            List<double[]> rowIslands = islands.get(row);
+            double[] island = rowIslands.get(random.nextInt(rowIslands.size()));
+            double left = island[0] + halfWidth;
+            if (row == 0) {
+                left = Math.max(left, SPAWN_CLEARANCE);
+            }
+            double right = island[1] - halfWidth;
+            if (right > left) {
+                return new double[] {Math.round(left + random.nextDouble() * (right - left)), row};
+            }
+        }
+    }
+
+    /**
+     * Finds the island of a row that contains an x-coordinate.
+     *
+     * @param row The row
+     * @param x The x-coordinate
+     * @return The island's {left, right} edges, or null if x is over a gap
+     */
+    private double[] islandAt(int row, double x) {
+        for (double[] island : islands.get(row)) {
+            if (x >= island[0] && x <= island[1]) {
+                return island;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the generated level: platforms in a row must not overlap, both ends of every ladder
+     * must be on a platform, and Donkey Kong must be reachable from Mario's start by walking along
+     * islands and climbing ladders.
+     *
+     * @throws IllegalStateException if the level breaks a rule
+     */
+    private void check() {
+        for (int i = 1; i < platforms.size(); i++) {
+            double[] previous = platforms.get(i - 1);
+            double[] platform = platforms.get(i);
+            if (previous[1] == platform[1] && platform[0] - previous[0] < platformWidth) {
+                throw new IllegalStateException("Overlapping platforms at " + position(platform[0], platform[1]));
+            }
+        }
+
+        // Islands are numbered row by row; a ladder joins an island to one in the row above
+        int[] firstIsland = new int[rows + 1];
+        for (int row = 0; row < rows; row++) {
+            firstIsland[row + 1] = firstIsland[row] + islands.get(row).size();
+        }
+        List<List<Integer>> links = new ArrayList<>();
+        for (int i = 0; i < firstIsland[rows]; i++) {
+            links.add(new ArrayList<>());
+        }
+        for (double[] ladder : ladders) {
+            int lowerRow = (int) Math.round((rowY(0) - (platformHeight + ROW_SPACING) / 2 - ladder[1]) / ROW_SPACING);
+            int lower = islandIndex(lowerRow, ladder[0], firstIsland);
+            int upper = islandIndex(lowerRow + 1, ladder[0], firstIsland);
+            if (lower < 0 || upper < 0) {
+                throw new IllegalStateException("Ladder not on a platform at " + position(ladder[0], ladder[1]));
+            }
+            links.get(lower).add(upper);
+            links.get(upper).add(lower);
+        }
+
+        boolean[] reached = new boolean[firstIsland[rows]];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int start = islandIndex(0, SPAWN_CLEARANCE / 2, firstIsland);
+        reached[start] = true;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (int next : links.get(queue.poll())) {
+                if (!reached[next]) {
+                    reached[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+        for (int i = 0; i < reached.length; i++) {
+            if (!reached[i]) {
+                throw new IllegalStateException("Island " + i + " cannot be reached from Mario's start");
+            }
+        }
+    }
+
+    /**
+     * Gets the number of the island under an x-coordinate.
+     *
+     * @param row The row
+     * @param x The x-coordinate
+     * @param firstIsland Number of the first island of each row
+     * @return The island number, or -1 if there is no platform there
+     */
+    private int islandIndex(int row, double x, int[] firstIsland) {
+        if (row < 0 || row >= rows) {
+            return -1;
+        }
+        List<double[]> rowIslands = islands.get(row);
+        for (int i = 0; i < rowIslands.size(); i++) {
+            if (x >= rowIslands.get(i)[0] && x <= rowIslands.get(i)[1]) {
+                return firstIsland[row] + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the base properties with the generated level in place of its level data.
+     * Comments and other settings of the base file are kept.
+     *
+     * @param base The base properties file
+     * @param output The file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    private void write(Path base, Path output) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.ISO_8859_1)) {
+            for (String line : Files.readAllLines(base, StandardCharsets.ISO_8859_1)) {
+                if (!isGeneratedKey(line.trim())) {
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+
+            out.write("# Generated level: " + platforms.size() + " platforms, " + ladders.size() + " ladders");
+            out.newLine();
+            writeProperty(out, "world.width", String.valueOf((int) worldWidth));
+            writeProperty(out, "world.height", String.valueOf((int) worldHeight));
+
+            StringBuilder platformList = new StringBuilder(platforms.size() * 10);
+            for (double[] platform : platforms) {
+                if (platformList.length() > 0) {
+                    platformList.append(';');
+                }
+                platformList.append(position(platform[0], platform[1]));
+            }
+            List<String> ladderPositions = new ArrayList<>();
+            for (double[] ladder : ladders) {
+                ladderPositions.add(position(ladder[0], ladder[1]));
+            }
+
+            for (String level : new String[] {"level1", "level2"}) {
+                writeProperty(out, "mario." + level, mario);
+                writeProperty(out, "donkey." + level, donkeyKong);
+                writeList(out, "hammer." + level, List.of(hammer));
+                writeProperty(out, "platforms." + level, platformList.toString());
+                writeList(out, "ladder." + level, ladderPositions);
+                writeList(out, "barrel." + level, barrels);
+            }
+            writeList(out, "normalMonkey.level2", normalMonkeys);
+            writeList(out, "intelligentMonkey.level2", intelligentMonkeys);
+            writeList(out, "blaster.level2", blasters);
+        }
+    }
+
+    /**
+     * Checks whether a properties line sets a key the generator replaces.
+     *
+     * @param line The trimmed line
+     * @return true if the line should be left out of the output
+     */
+    private static boolean isGeneratedKey(String line) {
+        for (String key : GENERATED_KEYS) {
+            if (line.startsWith(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a numbered list of values with its count, e.g. {@code barrel.level1.count}.
+     *
+     * @param out The output
+     * @param prefix The key prefix
+     * @param values The values, numbered from 1
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeList(BufferedWriter out, String prefix, List<String> values) throws IOException {
+        writeProperty(out, prefix + ".count", String.valueOf(values.size()));
+        for (int i = 0; i < values.size(); i++) {
+            writeProperty(out, prefix + "." + (i + 1), values.get(i));
+        }
+    }
+
+    /**
+     * Writes one property line.
+     *
+     * @param out The output
+     * @param key The key
+     * @param value The value
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeProperty(BufferedWriter out, String key, String value) throws IOException {
+        out.write(key);
+        out.write('=');
+        out.write(value);
+        out.newLine();
+    }
+
+    /**
+     * Gets the y-coordinate of a row's platforms.
+     *
+     * @param row The row, 0 being the bottom
+     * @return The platforms' centre y-coordinate
+     */
+    private double rowY(int row) {
+        return worldHeight - platformHeight / 2 - row * ROW_SPACING;
+    }
+
+    /**
+     * Gets the y-coordinate at which an entity rests on top of a row's platforms.
+     *
+     * @param row The row
+     * @param sprite The entity's image, for its height
+     * @return The entity's centre y-coordinate, in whole pixels at or just above the platform
+     */
+    private double restingY(int row, Sprite sprite) {
+        return Math.floor(rowY(row) - platformHeight / 2 - sprite.getHeight() / 2);
+    }
+
+    /**
+     * Formats a position as "x,y" in whole pixels.
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The formatted position
+     */
+    private static String position(double x, double y) {
+        return Math.round(x) + "," + Math.round(y);
+    }
+}
@@ -0,0 +1,155 @@
+package tools;
+
+import game.InputState;
+import game.StateSnapshot;
+import net.GameClient;
+import net.GameServer;
+import screens.Level2Screen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for the multiplayer server over the loopback interface.
+ *
+ * Starts a server in this process and connects scripted clients that join their matches and send
+ * a changing set of keys every frame, then reports the server's tick times and the snapshot
+ * traffic each client received. Fails with exit status 1 if a client could not join, received no
+ * snapshots, rebuilt a state that did not match the server's checksum, or if the average tick took
+ * longer than a 60 Hz frame.
+ *
+ * Usage: {@code java tools.LoopbackLoadTest [matches] [players per match] [seconds]}
+ */
+public class LoopbackLoadTest {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final int[] SCRIPT = {
+            InputState.RIGHT, InputState.RIGHT | InputState.SPACE, InputState.LEFT, InputState.UP,
+            InputState.DOWN, InputState.LEFT | InputState.SPACE, InputState.SHOOT, 0
+    };
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Optional number of matches, players per match and duration in seconds
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int matchCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int playersPerMatch = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        Properties gameProps = loadProperties("res/app.properties");
+        Properties messageProps = loadProperties("res/message.properties");
+        gameProps.setProperty("server.maxPlayersPerMatch", Integer.toString(playersPerMatch));
+        gameProps.setProperty("server.maxMatches", Integer.toString(matchCount));
+        gameProps.setProperty("server.statusSeconds", "0");
+        int historySize = Integer.parseInt(gameProps.getProperty("server.snapshotHistory", "32"));
+
+        GameServer server = new GameServer(gameProps, messageProps, 0);
+        Thread serverThread = new Thread(server, "game-server");
+        serverThread.start();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+
+        List<GameClient> clients = new ArrayList<>();
+        for (int m = 0; m < matchCount; m++) {
+            for (int p = 0; p < playersPerMatch; p++) {
+                clients.add(new GameClient(address, historySize));
+            }
+        }
+
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long nextFrame = start;
+        int frame = 0;
+        while (System.nanoTime() < end) {
+            for (int c = 0; c < clients.size(); c++) {
+                GameClient client = clients.get(c);
+                client.poll();
+                if (!client.isJoined()) {
+                    if (frame % 30 == 0 && client.getRejectReason() == 0) {
+                        client.join(c / playersPerMatch);
+                    }
+                } else if (client.getLatestTick() >= 0) {
+                    // Send keys a little ahead of the server so they arrive in time
+                    int tick = client.getLatestTick() + 2;
+                    client.sendInput(tick, SCRIPT[(tick / 45 + c) % SCRIPT.length]);
+                }
+            }
+            frame++;
+            nextFrame += FRAME_NANOS;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int joined = 0;
+        int starved = 0;
+        long checksumFailures = 0;
+        long bytes = 0;
+        long snapshots = 0;
+        for (GameClient client : clients) {
+            if (client.isJoined()) {
+                joined++;
+            }
+            if (client.getSnapshotsReceived() == 0) {
+                starved++;
+            }
+            checksumFailures += client.getChecksumFailures();
+            bytes += client.getBytesReceived();
+            snapshots += client.getSnapshotsReceived();
+            client.leave();
+        }
+
+        // A rebuilt state must restore into a level like any local snapshot
+        StateSnapshot state = clients.get(0).getState(clients.get(0).getPlayerIndex());
+        if (state != null) {
+            state.restore(new Level2Screen(gameProps, messageProps));
+        }
+
+        server.close();
+        serverThread.join();
+        for (GameClient client : clients) {
+            client.close();
+        }
+
+        System.out.printf("%d matches x %d players for %.1f s: %d joined, %d without snapshots%n",
+                matchCount, playersPerMatch, elapsed, joined, starved);
+        System.out.printf("server: %d ticks, %.3f ms avg, %.3f ms max, %d packets, %.1f KB/s sent%n",
+                server.getTicks(), server.getAverageTickNanos() / 1e6, server.getMaxTickNanos() / 1e6,
+                server.getPacketsSent(), server.getBytesSent() / 1024.0 / elapsed);
+        System.out.printf("clients: %d snapshots, %.1f B/snapshot, %.2f KB/s per client, %d checksum failures%n",
+                snapshots, snapshots > 0 ? (double) bytes / snapshots : 0.0,
+                bytes / 1024.0 / elapsed / clients.size(), checksumFailures);
+
+        if (joined < clients.size() || starved > 0 || checksumFailures > 0
+                || server.getAverageTickNanos() > FRAME_NANOS) {
+            System.err.println("Load test failed");
+            System.exit(1);
+        }
+        System.out.println("Load test passed");
+    }
+
+    /**
+     * Loads a properties file, exiting if it cannot be read.
+     *
+     * @param path Path to the file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,94 @@
+package tools;
+
+import bagel.util.Colour;
+import game.ParticleSystem;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Benchmark for the particle system.
+ *
+ * Keeps a particle system full by emitting new bursts as particles die, and measures the time and
+ * the bytes allocated per frame by emitting and updating. After a warm-up, the benchmark fails
+ * with exit status 1 if a frame allocated anything or the average frame took longer than the
+ * allowed share of a 60 Hz frame. The limit is in milliseconds and can be changed with
+ * {@code -Dparticles.maxMillis=1.0}.
+ *
+ * Drawing is not measured here; it submits one draw per particle in view with styles prepared in
+ * advance, and is measured with the rest of the frame by {@code tools.RenderBenchmark}.
+ *
+ * Usage: {@code java tools.ParticleBenchmark [particles] [frames]}
+ */
+public class ParticleBenchmark {
+    private static final int DEFAULT_PARTICLES = 65536;
+    private static final int DEFAULT_FRAMES = 5000;
+    private static final int WARMUP_FRAMES = 20000; // Enough calls for the JIT's optimizing compiler
+    private static final double FRAME_MILLIS = 1000.0 / 60;
+    private static final int BURST_SIZE = 32;
+    private static final int LIFE_FRAMES = 60;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional particle count and number of measured frames
+     */
+    public static void main(String[] args) {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PARTICLES;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+        double maxMillis = Double.parseDouble(System.getProperty("particles.maxMillis", "1.0"));
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        ParticleSystem particles = new ParticleSystem(capacity, 0.15);
+        int colour = particles.addColour(new Colour(0.6, 0.35, 0.1));
+        long[] frameNanos = new long[frames];
+
+        // Warm up so the JIT has compiled the loops, then measure
+        run(particles, colour, WARMUP_FRAMES, null);
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        run(particles, colour, frames, frameNanos);
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+        Arrays.sort(frameNanos);
+        double average = Arrays.stream(frameNanos).average().orElse(0) / 1e6;
+        double p99 = frameNanos[(int) (frames * 0.99)] / 1e6;
+        System.out.printf("%d particles, %d frames: %.3f ms avg, %.3f ms p99 (%.1f%% of a frame), %d live%n",
+                capacity, frames, average, p99, 100 * average / FRAME_MILLIS, particles.getCount());
+        System.out.printf("allocated %d bytes (%.1f B/frame)%n", allocated, (double) allocated / frames);
+
+        if (allocated > 0 || average > maxMillis) {
+            System.err.println("Particle benchmark failed: limit is 0 bytes and " + maxMillis + " ms per frame");
+            System.exit(1);
+        }
+        System.out.println("Particle benchmark passed");
+    }
+
+    /**
+     * Runs frames of keeping the system topped up and updating it.
+     *
+     * @param particles The particle system
+     * @param colour The palette index to emit with
+     * @param frames Number of frames to run
+     * @param frameNanos Array to store each frame's duration in, or null to run without timing
+     */
+    private static void run(ParticleSystem particles, int colour, int frames, long[] frameNanos) {
+        for (int frame = 0; frame < frames; frame++) {
+            long start = System.nanoTime();
+            // Refill what died last frame with bursts spread over the screen
+            int burst = 0;
+            while (particles.getCount() + BURST_SIZE <= particles.getCapacity()) {
+                double x = (frame * 37 + burst * 101) % 1024;
+                double y = (frame * 53 + burst * 67) % 768;
+                particles.emit(x, y, BURST_SIZE, 3, LIFE_FRAMES, colour);
+                burst++;
+            }
+            particles.update();
+            if (frameNanos != null) {
+                frameNanos[frame] = System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package tools;
+
+import game.InputState;
+import game.NullRenderer;
+import game.RecordingRenderer;
+import game.StateSnapshot;
+import screens.GameplayScreen;
+import screens.Level1Screen;
+import screens.Level2Screen;
+import screens.SurvivalScreen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Benchmark for submitting frames, separate from the time the GPU takes to draw them.
+ *
+ * Plays each level headlessly with a fixed pseudo-random input script and draws every tick through
+ * a {@link RecordingRenderer} wrapped around a {@link NullRenderer}, so the time measured is the
+ * screens walking their entities and submitting draws, with no graphics calls. For each level it
+ * prints the average and 99th percentile time to submit a frame, the bytes allocated while
+ * submitting, the average number of entities that survived culling, and the average draw calls,
+ * texture switches and text draws per frame.
+ *
+ * Usage: {@code java tools.RenderBenchmark [frames] [app.properties] [message.properties]}
+ */
+public class RenderBenchmark {
+    private static final int DEFAULT_FRAMES = 20000;
+    private static final long INPUT_SEED = 0x444B;
+    private static final int INPUT_HOLD_TICKS = 20; // Average ticks between input changes
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long visibleEntities = 0; // Entities drawn over the measured frames
+
+    // Input combinations the script picks from
+    private static final int[] INPUTS = {
+        0,
+        InputState.LEFT,
+        InputState.RIGHT,
+        InputState.UP,
+        InputState.LEFT | InputState.SPACE,
+        InputState.RIGHT | InputState.SPACE,
+        InputState.SHOOT,
+    };
+
+    /**
+     * Runs the benchmark on every level.
+     *
+     * @param args Optional frame count and properties file paths
+     */
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        Properties gameProps = loadProperties(args.length > 1 ? args[1] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 2 ? args[2] : "res/message.properties");
+        gameProps.setProperty("sessions.dir", "");
+
+        THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        GameplayScreen[] screens = {
+            new Level1Screen(gameProps, messageProps),
+            new Level2Screen(gameProps, messageProps),
+            new SurvivalScreen(gameProps, messageProps),
+        };
+        for (GameplayScreen screen : screens) {
+            RecordingRenderer renderer = new RecordingRenderer(new NullRenderer());
+            StateSnapshot start = new StateSnapshot();
+            start.capture(screen);
+            long[] frameNanos = new long[frames];
+
+            // Warm up so the JIT has compiled the draw paths, then measure
+            run(screen, start, renderer, frames, null);
+            renderer.reset();
+            visibleEntities = 0;
+            long allocated = run(screen, start, renderer, frames, frameNanos);
+
+            Arrays.sort(frameNanos);
+            double average = Arrays.stream(frameNanos).average().orElse(0) / 1e3;
+            double p99 = frameNanos[(int) (frames * 0.99)] / 1e3;
+            long measured = renderer.getFrameCount();
+            System.out.printf("%s (%d frames): %.1f us avg, %.1f us p99, %.1f B/frame, %.1f visible entities%n",
+                    screen.getLevel(), frames, average, p99, (double) allocated / frames,
+                    (double) visibleEntities / frames);
+            System.out.printf("  %.1f draw calls, %.1f texture switches, %.1f text draws per frame (max %d draws)%n",
+                    (double) renderer.getTotalDrawCalls() / measured,
+                    (double) renderer.getTotalTextureSwitches() / measured,
+                    (double) renderer.getTotalTextDraws() / measured, renderer.getMaxDrawCalls());
+        }
+    }
+
+    /**
+     * Plays the input script, drawing after every tick and restarting the level whenever it ends.
+     *
+     * @param screen The level to run
+     * @param start The level's starting state
+     * @param renderer The renderer to draw through
+     * @param frames Number of frames to run
+     * @param frameNanos Receives the time to submit each frame, or null to run without timing
+     * @return Bytes allocated while submitting frames
+     */
+    private static long run(GameplayScreen screen, StateSnapshot start, RecordingRenderer renderer,
+                            int frames, long[] frameNanos) {
+        Random random = new Random(INPUT_SEED);
+        InputState input = new InputState();
+        int keys = 0;
+        long allocated = 0;
+
+        for (int frame = 0; frame < frames; frame++) {
+            if (random.nextInt(INPUT_HOLD_TICKS) == 0) {
+                keys = INPUTS[random.nextInt(INPUTS.length)];
+            }
+            input.set(keys);
+            if (screen.update(input) != null) {
+                start.restore(screen);
+            }
+
+            long bytesBefore = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            long begin = System.nanoTime();
+            renderer.beginFrame();
+            screen.draw(renderer);
+            renderer.endFrame();
+            long end = System.nanoTime();
+            allocated += THREAD_BEAN.getCurrentThreadAllocatedBytes() - bytesBefore;
+            visibleEntities += screen.getVisibleEntityCount();
+            if (frameNanos != null) {
+                frameNanos[frame] = end - begin;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,355 @@
+package tools;
+
+import game.GameState;
+import game.InputState;
+import game.SessionRecording;
+import interfaces.GameplayListener;
+import screens.GameplayScreen;
+import screens.Level1Screen;
+import screens.Level2Screen;
+import screens.SurvivalScreen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Command-line tool that replays a directory of recorded sessions and reports aggregate statistics:
+ * heatmaps of player deaths, barrel-jump scores and banana hits, outcomes per level, and the cost
+ * of each tick phase.
+ *
+ * Sessions are replayed headlessly on one worker thread per core. Each worker streams session
+ * files from the directory, replays them on its own reusable level screens and adds the results
+ * to its own running totals, so memory use does not grow with the number of sessions. The
+ * totals are merged once all workers finish.
+ *
+ * Usage: {@code java tools.ReplayAnalyzer <sessions dir> [app.properties] [message.properties]}
+ */
+public class ReplayAnalyzer {
+    // Heatmap cell size in pixels
+    private static final int CELL_SIZE = 64;
+
+    // Outcomes of a replayed session
+    private static final int OUTCOME_WIN = 0;
+    private static final int OUTCOME_CLEARED = 1;   // Level 1 finished, moving on to level 2
+    private static final int OUTCOME_DEATH = 2;
+    private static final int OUTCOME_TIMEOUT = 3;
+    private static final int OUTCOME_UNFINISHED = 4; // Recording ended mid-level (e.g. by a rewind)
+    private static final String[] OUTCOME_NAMES = {"win", "cleared", "death", "timeout", "unfinished"};
+
+    private static final int LEVEL_COUNT = GameState.values().length;
+
+    /**
+     * Running totals for a set of sessions. Each worker owns one; they are merged at the end.
+     */
+    private static class Report {
+        final int columns;
+        final int rows;
+        final int[][] deaths;
+        final int[][] barrelJumps;
+        final int[][] bananaHits;
+        final long[][] outcomes = new long[LEVEL_COUNT][OUTCOME_NAMES.length];
+        final long[] phaseTotalNanos = new long[GameplayScreen.PHASE_COUNT];
+        final long[] phaseMaxNanos = new long[GameplayScreen.PHASE_COUNT];
+        long sessions = 0;
+        long failedSessions = 0;
+        long ticks = 0;
+
+        Report(int width, int height) {
+            columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+            rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+            deaths = new int[LEVEL_COUNT][columns * rows];
+            barrelJumps = new int[LEVEL_COUNT][columns * rows];
+            bananaHits = new int[LEVEL_COUNT][columns * rows];
+        }
+
+        void addToHeatmap(int[][] heatmap, GameState level, double x, double y) {
+            int column = Math.max(0, Math.min(columns - 1, (int) (x / CELL_SIZE)));
+            int row = Math.max(0, Math.min(rows - 1, (int) (y / CELL_SIZE)));
+            heatmap[level.ordinal()][row * columns + column]++;
+        }
+
+        void merge(Report other) {
+            for (int level = 0; level < LEVEL_COUNT; level++) {
+                for (int cell = 0; cell < columns * rows; cell++) {
+                    deaths[level][cell] += other.deaths[level][cell];
+                    barrelJumps[level][cell] += other.barrelJumps[level][cell];
+                    bananaHits[level][cell] += other.bananaHits[level][cell];
+                }
+                for (int outcome = 0; outcome < OUTCOME_NAMES.length; outcome++) {
+                    outcomes[level][outcome] += other.outcomes[level][outcome];
+                }
+            }
+            for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+                phaseTotalNanos[phase] += other.phaseTotalNanos[phase];
+                phaseMaxNanos[phase] = Math.max(phaseMaxNanos[phase], other.phaseMaxNanos[phase]);
+            }
+            sessions += other.sessions;
+            failedSessions += other.failedSessions;
+            ticks += other.ticks;
+        }
+    }
+
+    /**
+     * Replays sessions taken from the shared directory stream until it is exhausted.
+     */
+    private static class Worker implements Runnable, GameplayListener {
+        private final Iterator<Path> paths;
+        private final Properties gameProps;
+        private final Properties messageProps;
+        private final Report report;
+        private final SessionRecording recording = new SessionRecording();
+        private final InputState input = new InputState();
+        private final GameplayScreen[] screens = new GameplayScreen[LEVEL_COUNT];
+        private boolean died = false;
+
+        Worker(Iterator<Path> paths, Properties gameProps, Properties messageProps, Report report) {
+            this.paths = paths;
+            this.gameProps = gameProps;
+            this.messageProps = messageProps;
+            this.report = report;
+        }
+
+        @Override
+        public void run() {
+            Path path;
+            while ((path = nextPath()) != null) {
+                try {
+                    recording.load(path);
+                    replay();
+                    report.sessions++;
+                } catch (IOException | RuntimeException e) {
+                    report.failedSessions++;
+                    System.err.println("Error replaying " + path.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private Path nextPath() {
+            synchronized (paths) {
+                while (paths.hasNext()) {
+                    Path path = paths.next();
+                    if (path.getFileName().toString().endsWith(".rec")) {
+                        return path;
+                    }
+                }
+                return null;
+            }
+        }
+
+        private void replay() {
+            GameplayScreen screen = getScreen(recording.getLevel());
+            recording.getSnapshot().restore(screen);
+            input.reset(recording.getPreviousKeys(), 0);
+            died = false;
+
+            GameState result = null;
+            for (int run = 0; run < recording.getRunCount() && result == null; run++) {
+                int keys = recording.getRunKeys(run);
+                for (int tick = 0; tick < recording.getRunLength(run) && result == null; tick++) {
+                    input.set(keys);
+                    result = screen.update(input);
+                    report.ticks++;
+                    for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+                        long nanos = screen.getPhaseNanos(phase);
+                        report.phaseTotalNanos[phase] += nanos;
+                        report.phaseMaxNanos[phase] = Math.max(report.phaseMaxNanos[phase], nanos);
+                    }
+                }
+            }
+            report.outcomes[recording.getLevel().ordinal()][getOutcome(result)]++;
+        }
+
+        private int getOutcome(GameState result) {
+            if (result == null) {
+                return OUTCOME_UNFINISHED;
+            }
+            switch (result) {
+                case GAME_OVER_WIN:
+                    return OUTCOME_WIN;
+                case GAME_OVER_LOSE:
+                    return died ? OUTCOME_DEATH : OUTCOME_TIMEOUT;
+                default:
+                    return OUTCOME_CLEARED;
+            }
+        }
+
+        private GameplayScreen getScreen(GameState level) {
+            GameplayScreen screen = screens[level.ordinal()];
+            if (screen == null) {
+                if (level == GameState.LEVEL1) {
+                    screen = new Level1Screen(gameProps, messageProps);
+                } else if (level == GameState.LEVEL2) {
+                    screen = new Level2Screen(gameProps, messageProps);
+                } else if (level == GameState.SURVIVAL) {
+                    screen = new SurvivalScreen(gameProps, messageProps);
+                } else {
+                    throw new IllegalArgumentException("Recording is not for a gameplay level: " + level);
+                }
+                screen.addListener(this);
+                screens[level.ordinal()] = screen;
+            }
+            return screen;
+        }
+
+        @Override
+        public void onPlayerDeath(GameState level, int frame, double x, double y) {
+            died = true;
+            report.addToHeatmap(report.deaths, level, x, y);
+        }
+
+        @Override
+        public void onBarrelJump(GameState level, int frame, double x, double y) {
+            report.addToHeatmap(report.barrelJumps, level, x, y);
+        }
+
+        @Override
+        public void onBananaHit(GameState level, int frame, double x, double y) {
+            report.addToHeatmap(report.bananaHits, level, x, y);
+        }
+    }
+
+    /**
+     * Replays every session in the directory and prints the aggregate report.
+     *
+     * @param args The sessions directory, and optionally the game and message properties files
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java tools.ReplayAnalyzer <sessions dir> [app.properties] [message.properties]");
+            System.exit(1);
+        }
+        Path directory = Paths.get(args[0]);
+        Properties gameProps = loadProperties(args.length > 1 ? args[1] : "res/app.properties");
+        Properties messageProps = loadProperties(args.length > 2 ? args[2] : "res/message.properties");
+
+        // Replays never rewind or record
+        gameProps.setProperty("gamePlay.rewind.seconds", "0");
+        gameProps.setProperty("sessions.dir", "");
+
+        // Heatmaps cover the whole world, which defaults to the window size
+        String windowWidth = gameProps.getProperty("window.width");
+        String windowHeight = gameProps.getProperty("window.height");
+        int width = Integer.parseInt(gameProps.getProperty("world.width", windowWidth));
+        int height = Integer.parseInt(gameProps.getProperty("world.height", windowHeight));
+        int workerCount = Runtime.getRuntime().availableProcessors();
+
+        long startTime = System.nanoTime();
+        Report total = new Report(width, height);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            Iterator<Path> paths = stream.iterator();
+            List<Thread> threads = new ArrayList<>();
+            List<Report> reports = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                Report report = new Report(width, height);
+                Thread thread = new Thread(new Worker(paths, gameProps, messageProps, report), "replay-worker-" + i);
+                reports.add(report);
+                threads.add(thread);
+                thread.start();
+            }
+            for (int i = 0; i < workerCount; i++) {
+                threads.get(i).join();
+                total.merge(reports.get(i));
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading sessions directory: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        printReport(System.out, total, workerCount, elapsedNanos);
+    }
+
+    /**
+     * Prints the aggregate report.
+     *
+     * @param out The stream to print to
+     * @param report The merged totals
+     * @param workerCount Number of worker threads used
+     * @param elapsedNanos Total wall-clock time
+     */
+    private static void printReport(PrintStream out, Report report, int workerCount, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Sessions: %d replayed, %d failed%n", report.sessions, report.failedSessions);
+        out.printf("Ticks: %d in %.2fs on %d workers (%.0f ticks/s)%n",
+                report.ticks, seconds, workerCount, report.ticks / Math.max(seconds, 1e-9));
+
+        out.println();
+        out.println("Tick phases:");
+        for (int phase = 0; phase < GameplayScreen.PHASE_COUNT; phase++) {
+            double mean = report.ticks > 0 ? (double) report.phaseTotalNanos[phase] / report.ticks : 0;
+            out.printf("  %-10s mean %8.0f ns   max %10d ns%n",
+                    GameplayScreen.getPhaseName(phase), mean, report.phaseMaxNanos[phase]);
+        }
+
+        for (GameState level : new GameState[] {GameState.LEVEL1, GameState.LEVEL2, GameState.SURVIVAL}) {
+            int index = level.ordinal();
+            out.println();
+            out.print(level + " outcomes:");
+            for (int outcome = 0; outcome < OUTCOME_NAMES.length; outcome++) {
+                out.print("  " + OUTCOME_NAMES[outcome] + " " + report.outcomes[index][outcome]);
+            }
+            out.println();
+            printHeatmap(out, level + " deaths", report.deaths[index], report.columns, report.rows);
+            printHeatmap(out, level + " barrel jumps", report.barrelJumps[index], report.columns, report.rows);
+            printHeatmap(out, level + " banana hits", report.bananaHits[index], report.columns, report.rows);
+        }
+    }
+
+    /**
+     * Prints a heatmap as a grid of counts, one row per line. Empty heatmaps are skipped.
+     *
+     * @param out The stream to print to
+     * @param title The heatmap title
+     * @param cells The counts, row by row
+     * @param columns Number of columns
+     * @param rows Number of rows
+     */
+    private static void printHeatmap(PrintStream out, String title, int[] cells, int columns, int rows) {
+        long total = 0;
+        for (int count : cells) {
+            total += count;
+        }
+        if (total == 0) {
+            return;
+        }
+        out.printf("%s (%d total, %dpx cells):%n", title, total, CELL_SIZE);
+        for (int row = 0; row < rows; row++) {
+            StringBuilder line = new StringBuilder("  ");
+            for (int column = 0; column < columns; column++) {
+                int count = cells[row * columns + column];
+                line.append(count == 0 ? String.format("%6s", ".") : String.format("%6d", count));
+            }
+            out.println(line);
+        }
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param path The path to the properties file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
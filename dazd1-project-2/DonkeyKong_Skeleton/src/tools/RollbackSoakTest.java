@@ -0,0 +1,144 @@
+package tools;
+
+import game.InputState;
+import net.RollbackPeer;
+import net.RollbackSession;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Soak test for rollback versus play, run as two processes talking over the loopback interface.
+ *
+ * Each process plays one side with scripted keys that change every few ticks, so the other side's
+ * predictions are often wrong and rollbacks happen constantly. Packets go through a simulated link
+ * with the given latency, jitter and loss. At the end each process reports its rollbacks and
+ * stalls and how long rollbacks took, and fails with exit status 1 if the two sides' confirmed
+ * states ever differed or if no checksums could be compared.
+ *
+ * Usage, one command per process:
+ * <pre>
+ * java tools.RollbackSoakTest 0 7001 7002 [seconds] [latency ms] [jitter ms] [loss %] [input delay]
+ * java tools.RollbackSoakTest 1 7002 7001 [seconds] [latency ms] [jitter ms] [loss %] [input delay]
+ * </pre>
+ */
+public class RollbackSoakTest {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final long LINGER_NANOS = 2_000_000_000L; // Keep answering while the other side finishes
+    private static final int[] KEYS = {
+            0, InputState.LEFT, InputState.RIGHT, InputState.UP, InputState.DOWN, InputState.SPACE,
+            InputState.RIGHT | InputState.SPACE, InputState.LEFT | InputState.SPACE, InputState.SHOOT
+    };
+
+    /**
+     * Runs one side of the soak test.
+     *
+     * @param args Player, local port, remote port, and optionally duration, latency, jitter, loss
+     *             and input delay
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java tools.RollbackSoakTest <player 0|1> <local port> <remote port> "
+                    + "[seconds] [latency ms] [jitter ms] [loss %] [input delay]");
+            System.exit(1);
+        }
+        int player = Integer.parseInt(args[0]);
+        int localPort = Integer.parseInt(args[1]);
+        int remotePort = Integer.parseInt(args[2]);
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 30;
+        double latency = args.length > 4 ? Double.parseDouble(args[4]) : 40;
+        double jitter = args.length > 5 ? Double.parseDouble(args[5]) : 15;
+        double loss = args.length > 6 ? Double.parseDouble(args[6]) : 2;
+        int inputDelay = args.length > 7 ? Integer.parseInt(args[7]) : 2;
+
+        Properties gameProps = loadProperties("res/app.properties");
+        Properties messageProps = loadProperties("res/message.properties");
+        RollbackSession session = new RollbackSession(gameProps, messageProps, player, inputDelay);
+        int targetTicks = (int) (seconds * 60);
+
+        long[] frameNanos = new long[2];
+        try (RollbackPeer peer = new RollbackPeer(session, localPort, new InetSocketAddress("127.0.0.1", remotePort))) {
+            peer.simulateLink(latency, jitter, loss, player * 7919L + 1);
+
+            // Scripted keys: a new random choice every 4 to 20 ticks
+            long seed = 0x9E3779B97F4A7C15L * (player + 1);
+            int keys = 0;
+            int nextChange = 0;
+
+            long nextFrame = System.nanoTime();
+            long lingerUntil = Long.MAX_VALUE;
+            while (System.nanoTime() < lingerUntil) {
+                if (session.getTick() >= nextChange) {
+                    seed ^= seed << 13;
+                    seed ^= seed >>> 7;
+                    seed ^= seed << 17;
+                    keys = KEYS[(int) Math.floorMod(seed, (long) KEYS.length)];
+                    nextChange = session.getTick() + 4 + (int) Math.floorMod(seed >>> 32, 17L);
+                }
+
+                long start = System.nanoTime();
+                if (session.getTick() < targetTicks) {
+                    peer.advanceFrame(keys);
+                } else {
+                    // Finished; keep exchanging inputs and checksums for the other side
+                    peer.receive();
+                    peer.send();
+                    if (lingerUntil == Long.MAX_VALUE) {
+                        lingerUntil = start + LINGER_NANOS;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                frameNanos[0] += elapsed;
+                frameNanos[1] = Math.max(frameNanos[1], elapsed);
+
+                nextFrame += FRAME_NANOS;
+                long wait = nextFrame - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    nextFrame = System.nanoTime();
+                }
+            }
+
+            System.out.printf("player %d: %d ticks, link %.0f ms +/- %.0f ms, %.1f%% loss, input delay %d%n",
+                    player, session.getTick(), latency, jitter, loss, inputDelay);
+            long rollbacks = Math.max(1, session.getRollbacks());
+            System.out.printf("rollbacks: %d (%.2f ticks avg, %d max), %.3f ms avg, %.3f ms longest, %d stalled frames%n",
+                    session.getRollbacks(), (double) session.getTicksResimulated() / rollbacks,
+                    session.getMaxRollbackTicks(), session.getTotalRollbackNanos() / 1e6 / rollbacks,
+                    session.getMaxRollbackNanos() / 1e6, session.getStalls());
+            System.out.printf("frames: %.3f ms avg work, %.3f ms max; packets: %d sent, %d received, %d dropped%n",
+                    frameNanos[0] / 1e6 / Math.max(1, session.getTick()), frameNanos[1] / 1e6,
+                    peer.getPacketsSent(), peer.getPacketsReceived(), peer.getPacketsDropped());
+            System.out.printf("checksums: %d compared, desync at tick %d%n",
+                    session.getChecksumsCompared(), session.getDesyncTick());
+        }
+
+        if (session.getDesyncTick() >= 0 || session.getChecksumsCompared() == 0) {
+            System.err.println("Rollback soak test failed");
+            System.exit(1);
+        }
+        System.out.println("Rollback soak test passed");
+    }
+
+    /**
+     * Loads a properties file, exiting if it cannot be read.
+     *
+     * @param path Path to the file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}
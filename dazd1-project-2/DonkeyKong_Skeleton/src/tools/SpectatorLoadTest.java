@@ -0,0 +1,214 @@
+package tools;
+
+import game.GameState;
+import game.InputState;
+import net.SpectatorClient;
+import net.SpectatorServer;
+import screens.GameplayScreen;
+import screens.Level1Screen;
+import screens.Level2Screen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for the spectator server over the loopback interface.
+ *
+ * Plays levels headlessly with scripted keys at 60 ticks per second and broadcasts them to many
+ * viewers in the same process. A share of the viewers are slow: they have small socket buffers and
+ * stop reading for four seconds at a time, so the server has to skip ticks for them and
+ * resend keyframes. At the end every viewer reads again until it has caught up.
+ *
+ * Fails with exit status 1 if a viewer could not connect or was disconnected, rebuilt a state that
+ * did not match its checksum, did not catch up within ten seconds of the game stopping, or if slow
+ * viewers never made the server skip a tick.
+ *
+ * Usage: {@code java tools.SpectatorLoadTest [viewers] [seconds] [slow percent]}
+ */
+public class SpectatorLoadTest {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final long CATCH_UP_NANOS = 2_000_000_000L;
+    private static final long FINAL_TIMEOUT_NANOS = 10_000_000_000L;
+    private static final int SLOW_RECEIVE_BUFFER = 2048;
+    private static final int SERVER_SEND_BUFFER = 4096;
+    private static final int[] KEYS = {
+            InputState.RIGHT, InputState.RIGHT | InputState.SPACE, InputState.LEFT, InputState.UP,
+            InputState.LEFT | InputState.SPACE, InputState.DOWN, 0
+    };
+
+    // Set by the main thread once every viewer should read again
+    private static volatile boolean catchingUp = false;
+    private static volatile boolean finished = false;
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Optional number of viewers, duration in seconds and percentage of slow viewers
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int viewerCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int slowPercent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Properties gameProps = loadProperties("res/app.properties");
+        Properties messageProps = loadProperties("res/message.properties");
+        gameProps.setProperty("gamePlay.rewind.seconds", "0");
+        gameProps.setProperty("sessions.dir", "");
+
+        SpectatorServer server = new SpectatorServer(0, viewerCount, SERVER_SEND_BUFFER);
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+
+        // Viewers run on their own thread, as they would in their own processes
+        List<SpectatorClient> viewers = new ArrayList<>();
+        long[] failures = new long[1];
+        Thread viewerThread = new Thread(() -> runViewers(address, viewerCount, slowPercent, viewers, failures),
+                "spectator-viewers");
+        viewerThread.start();
+
+        GameplayScreen screen = new Level1Screen(gameProps, messageProps);
+        InputState input = new InputState();
+        long start = System.nanoTime();
+        long catchUpAt = start + (long) (seconds * 1e9);
+        long end = catchUpAt + CATCH_UP_NANOS;
+        long nextFrame = start;
+        int frame = 0;
+        while (System.nanoTime() < end) {
+            input.set(KEYS[frame / 40 % KEYS.length]);
+            GameState result = screen.update(input);
+            if (result != null) {
+                // Alternate levels, so viewers also see the level change
+                screen = screen.getLevel() == GameState.LEVEL1
+                        ? new Level2Screen(gameProps, messageProps) : new Level1Screen(gameProps, messageProps);
+            }
+            server.broadcast(screen);
+            frame++;
+            if (!catchingUp && System.nanoTime() >= catchUpAt) {
+                catchingUp = true;
+            }
+
+            nextFrame += FRAME_NANOS;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+
+        // Keep broadcasting until every viewer has caught up with the tick the game stopped at.
+        // A viewer that was paused may still be waiting on TCP's zero-window probes, which back off
+        // for seconds while the reader is stalled
+        finished = true;
+        viewerThread.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        int target = server.getTick();
+        long catchUpStart = System.nanoTime();
+        int behind = viewers.size();
+        while (behind > 0 && System.nanoTime() - catchUpStart < FINAL_TIMEOUT_NANOS) {
+            server.broadcast(screen);
+            behind = 0;
+            for (SpectatorClient viewer : viewers) {
+                try {
+                    viewer.poll();
+                } catch (IOException e) {
+                    failures[0]++;
+                }
+                if (viewer.getTick() < target) {
+                    behind++;
+                }
+            }
+            LockSupport.parkNanos(FRAME_NANOS);
+        }
+        double catchUpMillis = (System.nanoTime() - catchUpStart) / 1e6;
+
+        long checksumFailures = 0;
+        long bytes = 0;
+        for (SpectatorClient viewer : viewers) {
+            checksumFailures += viewer.getChecksumFailures();
+            bytes += viewer.getBytesReceived();
+            viewer.close();
+        }
+        int connected = server.getViewerCount();
+        server.close();
+
+        int ticks = server.getTick() + 1;
+        System.out.printf("%d viewers (%d%% slow) for %.1f s: %d connected, %d errors, %d behind after %.0f ms catching up%n",
+                viewerCount, slowPercent, elapsed, connected, failures[0], behind, catchUpMillis);
+        System.out.printf("server: %d ticks, %.1f us encoding per tick, %d deltas, %d keyframes, %d ticks skipped%n",
+                ticks, server.getEncodeNanos() / 1e3 / ticks, server.getDeltasSent(), server.getKeyframesSent(),
+                server.getTicksSkipped());
+        System.out.printf("viewers: %.2f KB/s each, %d checksum failures%n",
+                bytes / 1024.0 / elapsed / Math.max(1, viewers.size()), checksumFailures);
+
+        if (connected < viewerCount || viewers.size() < viewerCount || behind > 0 || checksumFailures > 0
+                || failures[0] > 0 || (slowPercent > 0 && server.getTicksSkipped() == 0)) {
+            System.err.println("Spectator load test failed");
+            System.exit(1);
+        }
+        System.out.println("Spectator load test passed");
+    }
+
+    /**
+     * Connects the viewers and reads their streams until the test finishes.
+     *
+     * @param address The spectator server's address
+     * @param viewerCount Number of viewers
+     * @param slowPercent Percentage of viewers that pause reading
+     * @param viewers Receives the connected viewers
+     * @param failures Element 0 receives the number of viewer errors
+     */
+    private static void runViewers(InetSocketAddress address, int viewerCount, int slowPercent,
+                                   List<SpectatorClient> viewers, long[] failures) {
+        int slowCount = viewerCount * slowPercent / 100;
+        try {
+            for (int i = 0; i < viewerCount; i++) {
+                viewers.add(new SpectatorClient(address, i < slowCount ? SLOW_RECEIVE_BUFFER : 0));
+            }
+        } catch (IOException e) {
+            System.err.println("Error connecting viewer: " + e.getMessage());
+            failures[0]++;
+            return;
+        }
+
+        long start = System.nanoTime();
+        while (!finished) {
+            long now = System.nanoTime();
+            for (int i = 0; i < viewers.size(); i++) {
+                // Slow viewers read for one second out of every five, each at its own phase
+                if (i < slowCount && !catchingUp) {
+                    long phase = (now - start + i * 100_000_000L) % 5_000_000_000L;
+                    if (phase >= 1_000_000_000L) {
+                        continue;
+                    }
+                }
+                try {
+                    viewers.get(i).poll();
+                } catch (IOException e) {
+                    failures[0]++;
+                }
+            }
+            LockSupport.parkNanos(2_000_000);
+        }
+    }
+
+    /**
+     * Loads a properties file, exiting if it cannot be read.
+     *
+     * @param path Path to the file
+     * @return The loaded properties
+     */
+    private static Properties loadProperties(String path) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+        return properties;
+    }
+}